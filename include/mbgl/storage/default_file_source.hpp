@@ -3,6 +3,7 @@
 #include <mbgl/actor/actor_ref.hpp>
 #include <mbgl/storage/file_source.hpp>
 #include <mbgl/storage/offline.hpp>
+#include <mbgl/storage/resource_transform.hpp>
 #include <mbgl/util/constants.hpp>
 #include <mbgl/util/optional.hpp>
 #include <mbgl/util/expected.hpp>
@@ -16,8 +17,6 @@ namespace util {
 template <typename T> class Thread;
 } // namespace util
 
-class ResourceTransform;
-
 class DefaultFileSource : public FileSource {
 public:
     /*
@@ -47,6 +46,13 @@ public:
 
     void setResourceTransform(optional<ActorRef<ResourceTransform>>&&);
 
+    /*
+     * Transform the url of online requests with a function called on the file source
+     * thread, rather than by invoking a ResourceTransform actor on another thread. The
+     * function takes precedence over a ResourceTransform, an empty function removes it.
+     */
+    void setResourceTransformFunction(ResourceTransform::TransformCallback);
+
     std::unique_ptr<AsyncRequest> request(const Resource&, Callback) override;
 
     /*
@@ -73,6 +79,18 @@ public:
                              const OfflineRegionMetadata& metadata,
                              std::function<void (expected<OfflineRegion, std::exception_ptr>)>);
 
+    /*
+     * Estimate the tiles required by an offline region definition and their size, from
+     * the style, tilesets and tiles already in the database. Nothing is requested or
+     * stored, so the estimate is only precise when the style and its tilesets are cached.
+     *
+     * The estimate will be computed asynchronously and passed to the given callback,
+     * which will be executed on the database thread; it is the responsibility of the
+     * SDK bindings to re-execute a user-provided callback on the main thread.
+     */
+    void estimateOfflineRegion(const OfflineRegionDefinition& definition,
+                               std::function<void (expected<OfflineRegionEstimate, std::exception_ptr>)>);
+
     /*
      * Update an offline region metadata in the database.
      */
@@ -89,6 +107,12 @@ public:
      */
     void setOfflineRegionDownloadState(OfflineRegion&, OfflineRegionDownloadState);
 
+    /*
+     * Limit the average rate at which resources of the region are downloaded, in bytes
+     * per second. A limit of 0 removes the limit.
+     */
+    void setOfflineRegionBandwidthLimit(OfflineRegion&, uint64_t bytesPerSecond);
+
     /*
      * Retrieve the current status of the region. The query will be executed
      * asynchronously and the results passed to the given callback, which will be
@@ -116,6 +140,72 @@ public:
      */
     void deleteOfflineRegion(OfflineRegion&&, std::function<void (std::exception_ptr)>);
 
+    /*
+     * Return the free pages of the offline database, left behind by deleted regions and
+     * evicted resources, to the file system so that the database file shrinks.
+     *
+     * Pages are released in small steps interleaved with other database work, so that
+     * compacting a large database doesn't hold up resource requests. When the operation
+     * is complete or encounters an error, the given callback will be executed on the
+     * database thread; it is the responsibility of the SDK bindings to re-execute a
+     * user-provided callback on the main thread.
+     */
+    void compactOfflineDatabase(std::function<void (std::exception_ptr)>);
+
+    /*
+     * Retrieve the storage used by the offline database, per region and by the ambient
+     * cache. The query will be executed asynchronously and the results passed to the
+     * given callback, which will be executed on the database thread; it is the
+     * responsibility of the SDK bindings to re-execute a user-provided callback on the
+     * main thread.
+     */
+    void getOfflineDatabaseStats(std::function<void (expected<OfflineDatabaseStats, std::exception_ptr>)>) const;
+
+    /*
+     * Set the maximum size, in bytes, of the database above which ambient cache resources
+     * and tiles are evicted, and evict them until the database fits. Resources required by
+     * offline regions are never evicted.
+     *
+     * When the operation is complete or encounters an error, the given callback will be
+     * executed on the database thread; it is the responsibility of the SDK bindings
+     * to re-execute a user-provided callback on the main thread.
+     */
+    void setMaximumAmbientCacheSize(uint64_t size, std::function<void (std::exception_ptr)>);
+
+    /*
+     * Set the order in which ambient cache resources and tiles are evicted.
+     */
+    void setAmbientCacheEvictionPolicy(AmbientCacheEvictionPolicy);
+
+    /*
+     * Remove the resources and tiles of the ambient cache, keeping those required by
+     * offline regions.
+     *
+     * When the operation is complete or encounters an error, the given callback will be
+     * executed on the database thread; it is the responsibility of the SDK bindings
+     * to re-execute a user-provided callback on the main thread.
+     */
+    void clearAmbientCache(std::function<void (std::exception_ptr)>);
+
+    /*
+     * Mark the resources and tiles of the ambient cache as expired, so that they are
+     * revalidated with the server before being used. Unlike `clearAmbientCache`, data that
+     * didn't change doesn't need to be downloaded again.
+     *
+     * When the operation is complete or encounters an error, the given callback will be
+     * executed on the database thread; it is the responsibility of the SDK bindings
+     * to re-execute a user-provided callback on the main thread.
+     */
+    void invalidateAmbientCache(std::function<void (std::exception_ptr)>);
+
+    /*
+     * Retrieve the size and contents of the ambient cache. The query will be executed
+     * asynchronously and the results passed to the given callback, which will be
+     * executed on the database thread; it is the responsibility of the SDK bindings
+     * to re-execute a user-provided callback on the main thread.
+     */
+    void getAmbientCacheStats(std::function<void (expected<AmbientCacheStats, std::exception_ptr>)>) const;
+
     /*
      * Changing or bypassing this limit without permission from Mapbox is prohibited
      * by the Mapbox Terms of Service.
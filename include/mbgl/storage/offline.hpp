@@ -1,13 +1,16 @@
 #pragma once
 
 #include <mbgl/util/geo.hpp>
+#include <mbgl/util/geometry.hpp>
 #include <mbgl/util/range.hpp>
 #include <mbgl/util/optional.hpp>
+#include <mbgl/util/variant.hpp>
 #include <mbgl/style/types.hpp>
 #include <mbgl/storage/response.hpp>
 
 #include <string>
 #include <vector>
+#include <map>
 #include <functional>
 
 namespace mbgl {
@@ -37,15 +40,42 @@ public:
     const double minZoom;
     const double maxZoom;
     const float pixelRatio;
-private:
-    Range<uint8_t> coveringZoomRange(style::SourceType, uint16_t tileSize, const Range<uint8_t>& zoomRange) const;
 };
 
 /*
- * For the present, a tile pyramid is the only type of offline region. In the future,
- * other definition types will be available and this will be a variant type.
+ * An offline region defined by a style URL, geometry, zoom range, and
+ * device pixel ratio.
+ *
+ * Only the tiles intersecting the geometry are included, which makes this type
+ * preferable to a tile pyramid for regions that don't fill their bounding box, such
+ * as a buffered route or a country outline.
+ *
+ * Both minZoom and maxZoom must be ≥ 0, and maxZoom must be ≥ minZoom.
+ *
+ * maxZoom may be ∞, in which case for each tile source, the region will include
+ * tiles from minZoom up to the maximum zoom level provided by that source.
+ *
+ * pixelRatio must be ≥ 0 and should typically be 1.0 or 2.0.
+ */
+class OfflineGeometryRegionDefinition {
+public:
+    OfflineGeometryRegionDefinition(std::string, Geometry<double>, double, double, float);
+
+    /* Private */
+    std::vector<CanonicalTileID> tileCover(style::SourceType, uint16_t tileSize, const Range<uint8_t>& zoomRange) const;
+    uint64_t tileCount(style::SourceType, uint16_t tileSize, const Range<uint8_t>& zoomRange) const;
+    const std::string styleURL;
+    const Geometry<double> geometry;
+    const double minZoom;
+    const double maxZoom;
+    const float pixelRatio;
+};
+
+/*
+ * The definition of an offline region, either a tile pyramid covering a bounding box
+ * or the tiles covering a geometry.
  */
-using OfflineRegionDefinition = OfflineTilePyramidRegionDefinition;
+using OfflineRegionDefinition = variant<OfflineTilePyramidRegionDefinition, OfflineGeometryRegionDefinition>;
 
 /*
  * The encoded format is private.
@@ -135,6 +165,147 @@ public:
     }
 };
 
+/*
+ * An estimate of the tiles required by an offline region definition, computed from the
+ * style and tilesets already in the database without requesting or storing anything.
+ */
+class OfflineRegionEstimate {
+public:
+    /**
+     * The number of tiles required at each zoom level, over all tile sources of the style.
+     */
+    std::map<uint8_t, uint64_t> requiredTileCountByZoom;
+
+    /**
+     * The number of tiles required for the region, the sum of `requiredTileCountByZoom`.
+     */
+    uint64_t requiredTileCount = 0;
+
+    /**
+     * The number of required tiles served by Mapbox, which count towards the offline
+     * Mapbox tile count limit.
+     */
+    uint64_t requiredMapboxTileCount = 0;
+
+    /**
+     * True when storing the required Mapbox tiles would exceed the offline Mapbox tile
+     * count limit, in which case a download of the region would fail before completing.
+     */
+    bool exceedsOfflineMapboxTileCountLimit = false;
+
+    /**
+     * The estimated size, in bytes, of the required tiles once stored. Tiles are sized
+     * with the average stored size of the cached tiles of their tileset at the same zoom
+     * level, or at the closest zoom level with cached tiles.
+     */
+    uint64_t estimatedTileSize = 0;
+
+    /**
+     * True when the style and every tileset it references are in the database, so that
+     * the tile counts are exact. When false, the counts only include the tile sources
+     * that could be resolved and are a lower bound.
+     */
+    bool requiredTileCountIsPrecise = false;
+
+    /**
+     * True when every required tile has a size estimate. Tiles of tilesets without any
+     * cached tile are counted but don't contribute to `estimatedTileSize`.
+     */
+    bool estimatedTileSizeIsComplete = false;
+};
+
+/*
+ * Storage used by the offline database, shared by the ambient cache and the offline regions.
+ *
+ * Sizes are the stored sizes of resources and tiles; the database file also holds indexes and
+ * partially filled pages, so `pageCount * pageSize` is larger than their sum.
+ */
+class OfflineDatabaseStats {
+public:
+    /**
+     * The size of a database page in bytes.
+     */
+    uint64_t pageSize = 0;
+
+    /**
+     * The number of pages of the database file, including free pages.
+     */
+    uint64_t pageCount = 0;
+
+    /**
+     * The number of free pages, left behind by deleted regions and evicted resources.
+     * They are reused for new data, and returned to the file system by compacting the
+     * database.
+     */
+    uint64_t freePageCount = 0;
+
+    /**
+     * The stored size, in bytes, of the resources and tiles of each region, by region ID.
+     * Resources required by several regions are included in the size of each of them.
+     */
+    std::map<int64_t, uint64_t> regionSizes;
+
+    /**
+     * The stored size, in bytes, of the resources and tiles of each region that are also
+     * required by other regions, by region ID. Deleting the region doesn't free them.
+     */
+    std::map<int64_t, uint64_t> regionSharedSizes;
+
+    /**
+     * The stored size, in bytes, of the resources and tiles required by more than one
+     * region, counted once.
+     */
+    uint64_t sharedSize = 0;
+
+    /**
+     * The stored size, in bytes, of the resources and tiles of the ambient cache, which
+     * aren't required by any region.
+     */
+    uint64_t ambientCacheSize = 0;
+};
+
+/*
+ * Order in which the resources and tiles of the ambient cache are evicted when the cache
+ * exceeds its maximum size. Resources required by offline regions are never evicted.
+ */
+enum class AmbientCacheEvictionPolicy : uint8_t {
+    // Least recently accessed resources and tiles first.
+    LeastRecentlyUsed,
+
+    // Like LeastRecentlyUsed, but a tile is evicted as if it had been accessed one day
+    // earlier for each of its zoom levels. Low zoom tiles, which are shared by many views,
+    // outlive the far more numerous high zoom tiles.
+    ZoomWeighted
+};
+
+/*
+ * Usage of the ambient cache: the resources and tiles stored while using the map that
+ * aren't required by any offline region.
+ */
+class AmbientCacheStats {
+public:
+    /**
+     * The size, in bytes, above which resources and tiles are evicted. The limit applies
+     * to the whole database, including the resources of offline regions.
+     */
+    uint64_t maximumSize = 0;
+
+    /**
+     * The stored size, in bytes, of the resources and tiles of the ambient cache.
+     */
+    uint64_t size = 0;
+
+    /**
+     * The number of resources, such as styles, sprites and glyphs, in the ambient cache.
+     */
+    uint64_t resourceCount = 0;
+
+    /**
+     * The number of tiles in the ambient cache.
+     */
+    uint64_t tileCount = 0;
+};
+
 /*
  * A region can have a single observer, which gets notified whenever a change
  * to the region's status occurs.
@@ -2,13 +2,12 @@
 
 #include <mbgl/actor/actor_ref.hpp>
 #include <mbgl/storage/file_source.hpp>
+#include <mbgl/storage/resource_transform.hpp>
 #include <mbgl/util/constants.hpp>
 #include <mbgl/util/optional.hpp>
 
 namespace mbgl {
 
-class ResourceTransform;
-
 class OnlineFileSource : public FileSource {
 public:
     OnlineFileSource();
@@ -22,6 +21,10 @@ public:
 
     void setResourceTransform(optional<ActorRef<ResourceTransform>>&&);
 
+    // Transforms request urls in place when requests are made, rather than asking the ResourceTransform
+    // actor. Takes precedence over the ResourceTransform, an empty function removes it.
+    void setResourceTransformFunction(ResourceTransform::TransformCallback);
+
     std::unique_ptr<AsyncRequest> request(const Resource&, Callback) override;
 
     // For testing only.
@@ -64,7 +64,15 @@ public class Marker extends Annotation {
       baseMarkerViewOptions.title, baseMarkerViewOptions.snippet);
   }
 
-  Marker(LatLng position, Icon icon, String title, String snippet) {
+  /**
+   * Creates a instance of {@link Marker} without a builder.
+   *
+   * @param position The position of the Marker.
+   * @param icon     The icon of the Marker, null for the default icon.
+   * @param title    The title of the Marker, may be null.
+   * @param snippet  The snippet of the Marker, may be null.
+   */
+  public Marker(LatLng position, @Nullable Icon icon, @Nullable String title, @Nullable String snippet) {
     this.position = position;
     this.title = title;
     this.snippet = snippet;
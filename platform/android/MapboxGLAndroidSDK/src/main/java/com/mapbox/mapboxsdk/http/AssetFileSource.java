@@ -0,0 +1,147 @@
+package com.mapbox.mapboxsdk.http;
+
+import android.content.res.AssetFileDescriptor;
+import android.content.res.AssetManager;
+import android.support.annotation.NonNull;
+
+import com.mapbox.mapboxsdk.Mapbox;
+
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Reads files, or byte ranges of files, from the APK assets on a small thread pool.
+ * <p>
+ * Assets stored uncompressed in the APK are memory mapped, the returned buffer refers to the pages of the APK
+ * and reading it costs no more than reading from disk. Compressed assets are inflated into a heap buffer.
+ * Assets that are read often, like tile packs, should be excluded from compression with
+ * {@code aaptOptions.noCompress}.
+ * </p>
+ */
+final class AssetFileSource {
+
+  private static final int THREAD_POOL_SIZE = 4;
+  private static final int STREAM_BUFFER_SIZE = 16 * 1024;
+
+  private static final ExecutorService executor = Executors.newFixedThreadPool(THREAD_POOL_SIZE,
+    new ThreadFactory() {
+      private final AtomicInteger threadCount = new AtomicInteger();
+
+      @Override
+      public Thread newThread(@NonNull Runnable runnable) {
+        Thread thread = new Thread(runnable, "AssetFileSource-" + threadCount.getAndIncrement());
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
+
+  private AssetFileSource() {
+  }
+
+  /**
+   * Reads an asset asynchronously. A missing asset is reported with a {@link FileNotFoundException}.
+   *
+   * @param path     the path of the asset, relative to the assets folder
+   * @param offset   the offset of the first byte to read
+   * @param length   the number of bytes to read, or -1 to read up to the end of the asset
+   * @param callback the callback receiving the bytes
+   */
+  static void request(final String path, final long offset, final long length, final FileSourceCallback callback) {
+    executor.execute(new Runnable() {
+      @Override
+      public void run() {
+        ByteBuffer data;
+        try {
+          data = read(Mapbox.getApplicationContext().getAssets(), path, offset, length);
+        } catch (IOException exception) {
+          callback.onError(exception);
+          return;
+        }
+        callback.onData(data);
+      }
+    });
+  }
+
+  /**
+   * Reads an asset, or a byte range of it, on the calling thread.
+   *
+   * @param assets the asset manager
+   * @param path   the path of the asset, relative to the assets folder
+   * @param offset the offset of the first byte to read
+   * @param length the number of bytes to read, or -1 to read up to the end of the asset
+   * @return a buffer positioned at 0 containing the bytes, truncated if the asset ends before the range
+   * @throws IOException if the asset doesn't exist or can't be read
+   */
+  @NonNull
+  static ByteBuffer read(AssetManager assets, String path, long offset, long length) throws IOException {
+    if (offset < 0) {
+      throw new IllegalArgumentException("Offset can't be negative");
+    }
+
+    AssetFileDescriptor descriptor;
+    try {
+      descriptor = assets.openFd(path);
+    } catch (FileNotFoundException exception) {
+      // Thrown for compressed assets as well, those can't be mapped
+      return readStream(assets, path, offset, length);
+    }
+
+    try (FileInputStream input = descriptor.createInputStream()) {
+      long assetLength = descriptor.getLength();
+      long start = Math.min(offset, assetLength);
+      long size = length < 0 ? assetLength - start : Math.min(length, assetLength - start);
+      // The mapping stays valid after the channel is closed
+      FileChannel channel = input.getChannel();
+      return channel.map(FileChannel.MapMode.READ_ONLY, descriptor.getStartOffset() + start, size);
+    } finally {
+      descriptor.close();
+    }
+  }
+
+  private static ByteBuffer readStream(AssetManager assets, String path, long offset, long length)
+    throws IOException {
+    try (InputStream input = assets.open(path, AssetManager.ACCESS_STREAMING)) {
+      long skipped = 0;
+      while (skipped < offset) {
+        long count = input.skip(offset - skipped);
+        if (count <= 0) {
+          if (input.read() == -1) {
+            throw new EOFException("Offset " + offset + " is past the end of " + path);
+          }
+          count = 1;
+        }
+        skipped += count;
+      }
+
+      if (length > Integer.MAX_VALUE) {
+        throw new IOException("Range is too large to read into memory");
+      }
+
+      // available() is only an estimate, keep reading until the range is filled or the stream ends
+      byte[] buffer = new byte[length >= 0 ? (int) length : Math.max(input.available(), STREAM_BUFFER_SIZE)];
+      int size = 0;
+      while (length < 0 || size < length) {
+        if (size == buffer.length) {
+          byte[] grown = new byte[buffer.length * 2];
+          System.arraycopy(buffer, 0, grown, 0, size);
+          buffer = grown;
+        }
+        int count = input.read(buffer, size, buffer.length - size);
+        if (count == -1) {
+          break;
+        }
+        size += count;
+      }
+      return ByteBuffer.wrap(buffer, 0, size).slice();
+    }
+  }
+}
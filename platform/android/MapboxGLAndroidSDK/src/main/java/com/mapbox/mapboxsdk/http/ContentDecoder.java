@@ -0,0 +1,48 @@
+package com.mapbox.mapboxsdk.http;
+
+import android.support.annotation.NonNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Decodes response bodies of a HTTP content encoding, registered with
+ * {@link HttpRequestUtil#addContentDecoder(ContentDecoder)}.
+ * <p>
+ * gzip is supported out of the box. Decoders for other encodings, like {@code br} or {@code zstd}, can be
+ * provided by wrapping the stream of a decoding library, for example:
+ * <pre>
+ * HttpRequestUtil.addContentDecoder(new ContentDecoder() {
+ *   public String getEncoding() {
+ *     return "br";
+ *   }
+ *
+ *   public InputStream decode(InputStream inputStream) throws IOException {
+ *     return new BrotliInputStream(inputStream);
+ *   }
+ * });
+ * </pre>
+ * </p>
+ */
+public interface ContentDecoder {
+
+  /**
+   * Get the content encoding handled by this decoder, as used in the Accept-Encoding and Content-Encoding
+   * headers.
+   *
+   * @return the encoding token, for example "br"
+   */
+  @NonNull
+  String getEncoding();
+
+  /**
+   * Wraps an encoded stream in a stream producing the decoded bytes. Decoding happens on the network thread
+   * while the body is read.
+   *
+   * @param inputStream the encoded body
+   * @return the decoded body
+   * @throws IOException if the decoder can't be created
+   */
+  @NonNull
+  InputStream decode(@NonNull InputStream inputStream) throws IOException;
+}
@@ -0,0 +1,178 @@
+package com.mapbox.mapboxsdk.http;
+
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.ForwardingSource;
+import okio.Okio;
+import okio.Source;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Negotiates the content encodings of the registered {@link ContentDecoder}s and decodes response bodies while
+ * they're read, counting the encoded and decoded bytes per host.
+ * <p>
+ * The decoded length isn't known upfront, decoded bodies are streamed into growing direct buffers by
+ * {@link InFlightRequest}.
+ * </p>
+ * <p>
+ * Setting Accept-Encoding disables the transparent gzip support of OkHttp, so gzip is handled here as well.
+ * </p>
+ */
+final class ContentEncodingInterceptor implements Interceptor {
+
+  static final ContentEncodingInterceptor INSTANCE = new ContentEncodingInterceptor();
+
+  private static final ContentDecoder GZIP = new ContentDecoder() {
+    @Override
+    public String getEncoding() {
+      return "gzip";
+    }
+
+    @Override
+    public InputStream decode(InputStream inputStream) throws IOException {
+      return new GZIPInputStream(inputStream);
+    }
+  };
+
+  // Copied on write, in order of preference
+  private volatile List<ContentDecoder> decoders = defaultDecoders();
+  private volatile String acceptEncoding = "gzip";
+
+  private ContentEncodingInterceptor() {
+  }
+
+  private static List<ContentDecoder> defaultDecoders() {
+    List<ContentDecoder> decoders = new ArrayList<>();
+    decoders.add(GZIP);
+    return decoders;
+  }
+
+  /**
+   * Registers a decoder, preferred over the decoders registered before it.
+   *
+   * @param decoder the decoder to add
+   */
+  synchronized void addDecoder(ContentDecoder decoder) {
+    List<ContentDecoder> decoders = new ArrayList<>(this.decoders);
+    for (int i = decoders.size() - 1; i >= 0; i--) {
+      if (decoders.get(i).getEncoding().equalsIgnoreCase(decoder.getEncoding())) {
+        decoders.remove(i);
+      }
+    }
+    decoders.add(0, decoder);
+
+    StringBuilder acceptEncoding = new StringBuilder();
+    for (ContentDecoder contentDecoder : decoders) {
+      if (acceptEncoding.length() > 0) {
+        acceptEncoding.append(", ");
+      }
+      acceptEncoding.append(contentDecoder.getEncoding());
+    }
+    this.decoders = decoders;
+    this.acceptEncoding = acceptEncoding.toString();
+  }
+
+  @Override
+  public Response intercept(Chain chain) throws IOException {
+    Request request = chain.request();
+    if (request.header("Accept-Encoding") != null || request.header("Range") != null) {
+      // Negotiated by the caller
+      return chain.proceed(request);
+    }
+
+    Response response = chain.proceed(request.newBuilder().header("Accept-Encoding", acceptEncoding).build());
+    ResponseBody body = response.body();
+    if (body == null || !hasBody(response)) {
+      // HEAD, 204 and 304 responses have no body to decode, whatever their headers say
+      return response;
+    }
+
+    final String host = request.url().host();
+    String encoding = response.header("Content-Encoding");
+    ContentDecoder decoder = encoding != null ? findDecoder(encoding.trim()) : null;
+    if (decoder == null) {
+      // Identity, or an encoding that native code detects itself
+      return response;
+    }
+
+    final CountingSource encoded = new CountingSource(body.source());
+    CountingSource decoded = new CountingSource(
+      Okio.source(decoder.decode(Okio.buffer(encoded).inputStream()))) {
+      @Override
+      public void close() throws IOException {
+        super.close();
+        HttpMetricsListener.recordContentBytes(host, encoded.byteCount, byteCount);
+      }
+    };
+
+    return response.newBuilder()
+      .removeHeader("Content-Encoding")
+      .removeHeader("Content-Length")
+      .body(ResponseBody.create(body.contentType(), -1, Okio.buffer(decoded)))
+      .build();
+  }
+
+  /**
+   * Returns true if the response has a body, following RFC 7230 section 3.3.3 like OkHttp does internally.
+   */
+  static boolean hasBody(Response response) {
+    if (response.request().method().equals("HEAD")) {
+      return false;
+    }
+
+    int code = response.code();
+    if ((code < 100 || code >= 200) && code != 204 && code != 304) {
+      return true;
+    }
+
+    // A body is only there against the status if its headers announce it
+    return getContentLength(response) != -1 || "chunked".equalsIgnoreCase(response.header("Transfer-Encoding"));
+  }
+
+  private static long getContentLength(Response response) {
+    String contentLength = response.header("Content-Length");
+    if (contentLength == null) {
+      return -1;
+    }
+    try {
+      return Long.parseLong(contentLength.trim());
+    } catch (NumberFormatException exception) {
+      return -1;
+    }
+  }
+
+  ContentDecoder findDecoder(String encoding) {
+    for (ContentDecoder decoder : decoders) {
+      if (decoder.getEncoding().equalsIgnoreCase(encoding)) {
+        return decoder;
+      }
+    }
+    return null;
+  }
+
+  private static class CountingSource extends ForwardingSource {
+
+    long byteCount;
+
+    CountingSource(Source delegate) {
+      super(delegate);
+    }
+
+    @Override
+    public long read(Buffer sink, long count) throws IOException {
+      long read = super.read(sink, count);
+      if (read != -1) {
+        byteCount += read;
+      }
+      return read;
+    }
+  }
+}
@@ -0,0 +1,100 @@
+package com.mapbox.mapboxsdk.http;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+
+/**
+ * Direct buffers pooled by size class, so that response bodies of a few megabytes don't each allocate a buffer.
+ * Thread safe.
+ * <p>
+ * Size classes are the powers of two from the minimum to the maximum size, a request is served by the smallest
+ * class that fits. Released buffers are kept while the pooled capacity stays within a budget, larger bodies get
+ * a buffer of their own.
+ * </p>
+ */
+final class DirectBufferPool {
+
+  private final int minSize;
+  private final int maxSize;
+  private final long maxPooledBytes;
+
+  // Guarded by this
+  private final ArrayDeque<ByteBuffer>[] sizeClasses;
+  private long pooledBytes;
+
+  /**
+   * @param minSize        the smallest size class, a power of two
+   * @param maxSize        the largest size class, a power of two
+   * @param maxPooledBytes the total capacity of the buffers kept in the pool
+   */
+  @SuppressWarnings("unchecked")
+  DirectBufferPool(int minSize, int maxSize, long maxPooledBytes) {
+    if (Integer.bitCount(minSize) != 1 || Integer.bitCount(maxSize) != 1 || minSize > maxSize) {
+      throw new IllegalArgumentException("Size classes must be powers of two");
+    }
+    this.minSize = minSize;
+    this.maxSize = maxSize;
+    this.maxPooledBytes = maxPooledBytes;
+    sizeClasses = new ArrayDeque[sizeClass(maxSize) + 1];
+    for (int i = 0; i < sizeClasses.length; i++) {
+      sizeClasses[i] = new ArrayDeque<>();
+    }
+  }
+
+  /**
+   * Get a buffer for a number of bytes, its position is 0 and its limit is the size.
+   *
+   * @param size the number of bytes
+   * @return a pooled buffer, or a new buffer if none of its size class is free
+   */
+  ByteBuffer obtain(int size) {
+    ByteBuffer buffer;
+    if (size <= maxSize) {
+      int sizeClass = sizeClass(size);
+      synchronized (this) {
+        buffer = sizeClasses[sizeClass].poll();
+        if (buffer != null) {
+          pooledBytes -= buffer.capacity();
+        }
+      }
+      if (buffer == null) {
+        buffer = ByteBuffer.allocateDirect(minSize << sizeClass);
+      }
+    } else {
+      buffer = ByteBuffer.allocateDirect(size);
+    }
+    buffer.clear();
+    buffer.limit(size);
+    return buffer;
+  }
+
+  /**
+   * Return a buffer obtained from this pool once its content isn't needed anymore.
+   *
+   * @param buffer the buffer
+   */
+  void release(ByteBuffer buffer) {
+    int capacity = buffer.capacity();
+    if (capacity > maxSize || Integer.bitCount(capacity) != 1 || capacity < minSize) {
+      return;
+    }
+    synchronized (this) {
+      if (pooledBytes + capacity <= maxPooledBytes) {
+        sizeClasses[sizeClass(capacity)].push(buffer);
+        pooledBytes += capacity;
+      }
+    }
+  }
+
+  synchronized long getPooledBytes() {
+    return pooledBytes;
+  }
+
+  private int sizeClass(int size) {
+    if (size <= minSize) {
+      return 0;
+    }
+    // Index of the smallest power of two that fits the size, relative to the minimum size
+    return 32 - Integer.numberOfLeadingZeros(size - 1) - Integer.numberOfTrailingZeros(minSize);
+  }
+}
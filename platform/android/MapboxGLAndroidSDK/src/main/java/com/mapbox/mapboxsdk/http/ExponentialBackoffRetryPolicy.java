@@ -0,0 +1,84 @@
+package com.mapbox.mapboxsdk.http;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import javax.net.ssl.SSLException;
+import java.io.IOException;
+import java.net.UnknownHostException;
+import java.util.Random;
+
+/**
+ * Retries connection failures, timeouts and server errors with an exponentially growing, randomized delay.
+ * <p>
+ * The delay before retry n is a random value between 0 and {@code min(maxDelay, baseDelay * 2^(n - 1))}. The
+ * randomization ("full jitter") spreads the retries of many clients that failed at the same time, so they don't
+ * hit a recovering server all at once.
+ * </p>
+ */
+public class ExponentialBackoffRetryPolicy implements RetryPolicy {
+
+  private final int maxRetries;
+  private final long baseDelayMillis;
+  private final long maxDelayMillis;
+  private final Random random = new Random();
+
+  /**
+   * Create a policy retrying twice, with a base delay of 500 milliseconds and a maximum delay of 4 seconds.
+   */
+  public ExponentialBackoffRetryPolicy() {
+    this(2, 500, 4000);
+  }
+
+  /**
+   * Create a policy.
+   *
+   * @param maxRetries      the maximum number of retries of a request
+   * @param baseDelayMillis the maximum delay before the first retry in milliseconds
+   * @param maxDelayMillis  the upper bound of the delay in milliseconds
+   */
+  public ExponentialBackoffRetryPolicy(int maxRetries, long baseDelayMillis, long maxDelayMillis) {
+    if (maxRetries < 0 || baseDelayMillis < 0 || maxDelayMillis < baseDelayMillis) {
+      throw new IllegalArgumentException("Invalid retry policy parameters");
+    }
+    this.maxRetries = maxRetries;
+    this.baseDelayMillis = baseDelayMillis;
+    this.maxDelayMillis = maxDelayMillis;
+  }
+
+  @Override
+  public long getRetryDelayMillis(int attempt, int code, @Nullable IOException exception) {
+    if (attempt > maxRetries || !isRetryable(code) || (exception != null && !isRetryable(exception))) {
+      return -1;
+    }
+
+    long maxDelay = maxDelayMillis;
+    if (attempt - 1 < Long.numberOfLeadingZeros(baseDelayMillis) - 1) {
+      maxDelay = Math.min(maxDelayMillis, baseDelayMillis << (attempt - 1));
+    }
+    synchronized (random) {
+      return (long) (random.nextDouble() * maxDelay);
+    }
+  }
+
+  /**
+   * Returns true if a failure with the status code can be resolved by trying again.
+   *
+   * @param code the HTTP status code, or 0 if no response was received
+   * @return true if the request should be retried
+   */
+  protected boolean isRetryable(int code) {
+    return code == 0 || code == 408 || code == 502 || code == 503 || code == 504;
+  }
+
+  /**
+   * Returns true if a failure without a response can be resolved by trying again. TLS failures, such as an
+   * untrusted certificate, and unknown hosts fail the same way on every attempt and aren't retried.
+   *
+   * @param exception the cause of the failure
+   * @return true if the request should be retried
+   */
+  protected boolean isRetryable(@NonNull IOException exception) {
+    return !(exception instanceof SSLException) && !(exception instanceof UnknownHostException);
+  }
+}
@@ -0,0 +1,29 @@
+package com.mapbox.mapboxsdk.http;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Callback for reads of the Java file sources, invoked on a thread of the file source.
+ */
+interface FileSourceCallback {
+
+  /**
+   * Invoked with the requested bytes.
+   *
+   * @param data a buffer positioned at 0, direct if the data was memory mapped, or null if the resource exists
+   *             but has no content, like a tile that is missing from a tile archive
+   */
+  void onData(@Nullable ByteBuffer data);
+
+  /**
+   * Invoked if the resource can't be read.
+   *
+   * @param exception the cause, a {@link FileNotFoundException} if the resource doesn't exist
+   */
+  void onError(@NonNull IOException exception);
+}
@@ -5,56 +5,66 @@ import android.content.pm.PackageInfo;
 import android.os.Build;
 import android.support.annotation.Keep;
 import android.support.annotation.NonNull;
-import android.text.TextUtils;
+import android.support.annotation.Nullable;
 import android.util.Log;
 import com.mapbox.android.telemetry.TelemetryUtils;
 import com.mapbox.mapboxsdk.BuildConfig;
 import com.mapbox.mapboxsdk.Mapbox;
 import com.mapbox.mapboxsdk.constants.MapboxConstants;
 import okhttp3.Call;
-import okhttp3.Callback;
-import okhttp3.Dispatcher;
 import okhttp3.HttpUrl;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.Response;
-import okhttp3.ResponseBody;
 import timber.log.Timber;
 
 import javax.net.ssl.SSLException;
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InterruptedIOException;
 import java.net.NoRouteToHostException;
 import java.net.ProtocolException;
 import java.net.SocketException;
 import java.net.UnknownHostException;
-import java.util.concurrent.locks.ReentrantLock;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
 import static android.util.Log.DEBUG;
-import static android.util.Log.ERROR;
 import static android.util.Log.INFO;
-import static android.util.Log.VERBOSE;
 import static android.util.Log.WARN;
 
-class HTTPRequest implements Callback {
+class HTTPRequest {
 
   private static final int CONNECTION_ERROR = 0;
   private static final int TEMPORARY_ERROR = 1;
   private static final int PERMANENT_ERROR = 2;
 
-  private static OkHttpClient client = new OkHttpClient.Builder().dispatcher(getDispatcher()).build();
+  private static OkHttpClient client = new MapboxHttpConfig.Builder().build().createClient(new OkHttpClient.Builder());
   private static boolean logEnabled = true;
   private static boolean logRequestUrl = false;
-
-  // Reentrancy is not needed, but "Lock" is an abstract class.
-  private ReentrantLock lock = new ReentrantLock();
+  private static volatile RetryPolicy retryPolicy = new ExponentialBackoffRetryPolicy();
+
+  // Delivery and cancellation race on the OkHTTP and the native thread. Whichever moves the request out of
+  // STATE_PENDING first wins, a delivery in progress blocks cancellation on deliveryLock until native code
+  // returns. Deliveries don't take the lock until they end, so it's only contended by such a cancellation.
+  private static final int STATE_PENDING = 0;
+  private static final int STATE_DELIVERING = 1;
+  private static final int STATE_DONE = 2;
+  private static final int STATE_CANCELLED = 3;
+  private static final AtomicIntegerFieldUpdater<HTTPRequest> STATE =
+    AtomicIntegerFieldUpdater.newUpdater(HTTPRequest.class, "state");
+
+  private volatile int state = STATE_PENDING;
+  private final Object deliveryLock = new Object();
   private String userAgentString;
   @Keep
   private long nativePtr = 0;
-  private Call call;
+  private InFlightRequest inFlightRequest;
 
   @Keep
-  private HTTPRequest(long nativePtr, String resourceUrl, String etag, String modified) {
+  private HTTPRequest(long nativePtr, String resourceUrl, String etag, String modified, int kind,
+                      boolean background) {
     this.nativePtr = nativePtr;
 
     if (resourceUrl.startsWith("local://")) {
@@ -62,70 +72,89 @@ class HTTPRequest implements Callback {
       executeLocalRequest(resourceUrl);
       return;
     }
-    executeRequest(resourceUrl, etag, modified);
+    if (TileArchiveFileSource.handles(resourceUrl)) {
+      TileArchiveFileSource.request(resourceUrl, new FileResponseCallback());
+      return;
+    }
+    executeRequest(resourceUrl, etag, modified, PriorityDispatcher.getPriority(kind, background));
   }
 
   @Keep
   public void cancel() {
-    // call can be null if the constructor gets aborted (e.g, under a NoRouteToHostException).
-    if (call != null) {
-      call.cancel();
+    // inFlightRequest can be null if the constructor gets aborted (e.g, under a NoRouteToHostException).
+    if (inFlightRequest != null) {
+      inFlightRequest.unsubscribe(this);
     }
 
-    // TODO: We need a lock here because we can try
-    // to cancel at the same time the request is getting
-    // answered on the OkHTTP thread. We could get rid of
-    // this lock by using Runnable when we move Android
-    // implementation of mbgl::RunLoop to Looper.
-    lock.lock();
+    // The native request is destroyed when this returns, so wait for a delivery that is already in progress.
+    // Deliveries only take as long as copying the response into native memory.
+    if (!STATE.compareAndSet(this, STATE_PENDING, STATE_CANCELLED)) {
+      awaitDelivery();
+    }
     nativePtr = 0;
-    lock.unlock();
   }
 
-  @Override
-  public void onResponse(@NonNull Call call, @NonNull Response response) throws IOException {
-    if (response.isSuccessful()) {
-      log(VERBOSE, String.format("[HTTP] Request was successful (code = %s).", response.code()));
-    } else {
-      // We don't want to call this unsuccessful because a 304 isn't really an error
-      String message = !TextUtils.isEmpty(response.message()) ? response.message() : "No additional information";
-      log(DEBUG, String.format("[HTTP] Request with response code = %s: %s", response.code(), message));
+  private void awaitDelivery() {
+    boolean interrupted = false;
+    synchronized (deliveryLock) {
+      while (state == STATE_DELIVERING) {
+        try {
+          deliveryLock.wait();
+        } catch (InterruptedException exception) {
+          // The native request must outlive the delivery, keep waiting
+          interrupted = true;
+        }
+      }
     }
-
-    ResponseBody responseBody = response.body();
-    if (responseBody == null) {
-      log(ERROR, "[HTTP] Received empty response body");
-      return;
+    if (interrupted) {
+      Thread.currentThread().interrupt();
     }
+  }
 
-    byte[] body;
-    try {
-      body = responseBody.bytes();
-    } catch (IOException ioException) {
-      onFailure(call, ioException);
-      // throw ioException;
-      return;
-    } finally {
-      response.close();
+  private boolean beginDelivery() {
+    return STATE.compareAndSet(this, STATE_PENDING, STATE_DELIVERING);
+  }
+
+  private void endDelivery() {
+    synchronized (deliveryLock) {
+      state = STATE_DONE;
+      deliveryLock.notifyAll();
     }
+  }
 
-    lock.lock();
-    if (nativePtr != 0) {
-      nativeOnResponse(response.code(),
-        response.header("ETag"),
-        response.header("Last-Modified"),
-        response.header("Cache-Control"),
-        response.header("Expires"),
-        response.header("Retry-After"),
-        response.header("x-rate-limit-reset"),
-        body);
+  void onResponse(Response response, byte[] body) {
+    if (beginDelivery()) {
+      try {
+        nativeOnResponse(response.code(),
+          response.header("ETag"),
+          response.header("Last-Modified"),
+          response.header("Cache-Control"),
+          response.header("Expires"),
+          response.header("Retry-After"),
+          response.header("x-rate-limit-reset"),
+          body);
+      } finally {
+        endDelivery();
+      }
     }
-    lock.unlock();
   }
 
-  @Override
-  public void onFailure(@NonNull Call call, @NonNull IOException e) {
-    handleFailure(call, e);
+  void onResponse(Response response, ByteBuffer body, int length) {
+    if (beginDelivery()) {
+      try {
+        nativeOnResponseBuffer(response.code(),
+          response.header("ETag"),
+          response.header("Last-Modified"),
+          response.header("Cache-Control"),
+          response.header("Expires"),
+          response.header("Retry-After"),
+          response.header("x-rate-limit-reset"),
+          body,
+          length);
+      } finally {
+        endDelivery();
+      }
+    }
   }
 
   static void enableLog(boolean enabled) {
@@ -138,17 +167,35 @@ class HTTPRequest implements Callback {
 
   static void setOKHttpClient(OkHttpClient client) {
     HTTPRequest.client = client;
+    // Start waiting calls if the new client allows more concurrent requests
+    InFlightRequest.dispatcher.promote();
+  }
+
+  static void setHttpConfig(MapboxHttpConfig config) {
+    setOKHttpClient(config.createClient(client.newBuilder()));
+  }
+
+  static void setRetryPolicy(RetryPolicy retryPolicy) {
+    HTTPRequest.retryPolicy = retryPolicy;
   }
 
-  private static Dispatcher getDispatcher() {
-    Dispatcher dispatcher = new Dispatcher();
-    // Matches core limit set on
-    // https://github.com/mapbox/mapbox-gl-native/blob/master/platform/android/src/http_file_source.cpp#L192
-    dispatcher.setMaxRequestsPerHost(20);
-    return dispatcher;
+  static RetryPolicy getRetryPolicy() {
+    return retryPolicy;
   }
 
-  private void executeRequest(String resourceUrl, String etag, String modified) {
+  static void addContentDecoder(ContentDecoder decoder) {
+    ContentEncodingInterceptor.INSTANCE.addDecoder(decoder);
+  }
+
+  static List<HttpHostMetrics> getHostMetrics() {
+    return HttpMetricsListener.getHostMetrics(InFlightRequest.dispatcher);
+  }
+
+  static OkHttpClient getClient() {
+    return client;
+  }
+
+  private void executeRequest(String resourceUrl, String etag, String modified, int priority) {
     try {
       HttpUrl httpUrl = HttpUrl.parse(resourceUrl);
       if (httpUrl == null) {
@@ -180,30 +227,68 @@ class HTTPRequest implements Callback {
       } else if (modified.length() > 0) {
         builder = builder.addHeader("If-Modified-Since", modified);
       }
-      Request request = builder.build();
-      call = client.newCall(request);
-      call.enqueue(this);
+      inFlightRequest = InFlightRequest.subscribe(this, builder.build(), priority);
     } catch (Exception exception) {
-      handleFailure(call, exception);
+      handleFailure(null, exception);
     }
   }
 
   private void executeLocalRequest(String resourceUrl) {
-    new LocalRequestTask(new LocalRequestTask.OnLocalRequestResponse() {
-      @Override
-      public void onResponse(byte[] bytes) {
-        if (bytes != null) {
-          lock.lock();
-          if (nativePtr != 0) {
-            nativeOnResponse(200, null, null, null, null, null, null, bytes);
+    String path = "integration/" + resourceUrl
+      .substring(8)
+      .replaceAll("%20", " ")
+      .replaceAll("%2c", ",");
+    AssetFileSource.request(path, 0, -1, new FileResponseCallback());
+  }
+
+  /**
+   * Delivers the results of the Java file sources, which answer without a network call.
+   */
+  private class FileResponseCallback implements FileSourceCallback {
+
+    @Override
+    public void onData(@Nullable ByteBuffer data) {
+      if (data == null) {
+        deliverFileResponse(204, null);
+      } else {
+        deliverFileResponse(200, data);
+      }
+    }
+
+    @Override
+    public void onError(@NonNull IOException exception) {
+      if (exception instanceof FileNotFoundException) {
+        deliverFileResponse(404, null);
+      } else {
+        handleFailure(null, exception);
+      }
+    }
+  }
+
+  private void deliverFileResponse(int code, ByteBuffer data) {
+    if (beginDelivery()) {
+      try {
+        if (data != null && data.isDirect()) {
+          // Memory mapped file, native code copies straight from the mapped pages
+          nativeOnResponseBuffer(code, null, null, null, null, null, null, data, data.remaining());
+        } else {
+          byte[] bytes = null;
+          if (data != null && data.hasArray() && data.arrayOffset() == 0
+            && data.array().length == data.remaining()) {
+            bytes = data.array();
+          } else if (data != null) {
+            bytes = new byte[data.remaining()];
+            data.get(bytes);
           }
-          lock.unlock();
+          nativeOnResponse(code, null, null, null, null, null, null, bytes);
         }
+      } finally {
+        endDelivery();
       }
-    }).execute(resourceUrl);
+    }
   }
 
-  private void handleFailure(Call call, Exception e) {
+  void handleFailure(Call call, Exception e) {
     String errorMessage = e.getMessage() != null ? e.getMessage() : "Error processing the request";
     int type = getFailureType(e);
 
@@ -212,11 +297,13 @@ class HTTPRequest implements Callback {
       logFailure(type, errorMessage, requestUrl);
     }
 
-    lock.lock();
-    if (nativePtr != 0) {
-      nativeOnFailure(type, errorMessage);
+    if (beginDelivery()) {
+      try {
+        nativeOnFailure(type, errorMessage);
+      } finally {
+        endDelivery();
+      }
     }
-    lock.unlock();
   }
 
   private int getFailureType(Exception e) {
@@ -229,7 +316,7 @@ class HTTPRequest implements Callback {
     return PERMANENT_ERROR;
   }
 
-  private void log(int type, String errorMessage) {
+  static void log(int type, String errorMessage) {
     if (logEnabled) {
       Timber.log(type, errorMessage);
     }
@@ -276,4 +363,9 @@ class HTTPRequest implements Callback {
   @Keep
   private native void nativeOnResponse(int code, String etag, String modified, String cacheControl, String expires,
                                        String retryAfter, String xRateLimitReset, byte[] body);
+
+  @Keep
+  private native void nativeOnResponseBuffer(int code, String etag, String modified, String cacheControl,
+                                             String expires, String retryAfter, String xRateLimitReset,
+                                             ByteBuffer body, int length);
 }
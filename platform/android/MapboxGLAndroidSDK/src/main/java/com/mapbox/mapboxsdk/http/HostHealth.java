@@ -0,0 +1,172 @@
+package com.mapbox.mapboxsdk.http;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static android.util.Log.INFO;
+import static android.util.Log.WARN;
+
+/**
+ * Tracks per host circuit breakers and rate limits. Not thread safe, guarded by the {@link PriorityDispatcher}.
+ * <p>
+ * A host failing {@link #FAILURE_THRESHOLD} times in a row is considered down, requests to it fail without
+ * touching the network for {@link #OPEN_DURATION_MILLIS}. After that a single request probes the host, other
+ * requests wait for its result. A rate limited host gets no requests until the limit resets.
+ * </p>
+ */
+final class HostHealth {
+
+  static final int ALLOW = 0;
+  static final int HOLD = 1;
+  static final int REJECT = 2;
+
+  static final int FAILURE_THRESHOLD = 5;
+  static final long OPEN_DURATION_MILLIS = 30000;
+  private static final long OPEN_DURATION_NANOS = TimeUnit.MILLISECONDS.toNanos(OPEN_DURATION_MILLIS);
+
+  private final Map<String, HostState> hosts = new HashMap<>();
+
+  /**
+   * Decides what happens to a call to a host.
+   *
+   * @param host the host
+   * @param now  the current {@link System#nanoTime()}
+   * @return {@link #ALLOW} to start the call, {@link #HOLD} to keep it queued or {@link #REJECT} to fail it
+   */
+  int check(String host, long now) {
+    HostState state = hosts.get(host);
+    if (state == null) {
+      return ALLOW;
+    }
+    if (state.rateLimited && now - state.rateLimitedUntil < 0) {
+      return HOLD;
+    }
+    if (state.consecutiveFailures < FAILURE_THRESHOLD) {
+      return ALLOW;
+    }
+    if (now - state.openUntil < 0) {
+      return REJECT;
+    }
+    return state.probe != null ? HOLD : ALLOW;
+  }
+
+  /**
+   * Records the start of a call, which probes the host if its circuit is half open.
+   *
+   * @param host the host
+   * @param call the started call
+   * @param now  the current {@link System#nanoTime()}
+   */
+  void onStart(String host, Object call, long now) {
+    HostState state = hosts.get(host);
+    if (state != null && state.consecutiveFailures >= FAILURE_THRESHOLD && now - state.openUntil >= 0) {
+      state.probe = call;
+    }
+  }
+
+  void onSuccess(String host) {
+    HostState state = hosts.get(host);
+    if (state == null) {
+      return;
+    }
+    if (state.consecutiveFailures >= FAILURE_THRESHOLD) {
+      HTTPRequest.log(INFO, String.format("[HTTP] %s is reachable again", host));
+    }
+    state.consecutiveFailures = 0;
+    state.probe = null;
+    if (!state.rateLimited) {
+      hosts.remove(host);
+    }
+  }
+
+  /**
+   * Records a failed call. A failed probe, or reaching the failure threshold, opens the circuit of the host.
+   *
+   * @param host the host
+   * @param call the failed call
+   * @param now  the current {@link System#nanoTime()}
+   */
+  void onFailure(String host, Object call, long now) {
+    HostState state = getState(host);
+    state.consecutiveFailures++;
+    boolean probeFailed = state.probe != null && state.probe == call;
+    if (probeFailed || state.consecutiveFailures == FAILURE_THRESHOLD) {
+      state.probe = null;
+      state.openUntil = now + OPEN_DURATION_NANOS;
+      HTTPRequest.log(WARN, String.format("[HTTP] %s failed %s times in a row, pausing requests for %s ms",
+        host, state.consecutiveFailures, OPEN_DURATION_MILLIS));
+    }
+  }
+
+  /**
+   * Ends a call without a verdict, because it was cancelled or rate limited. If the call was probing the host,
+   * the next call to the host probes it instead.
+   *
+   * @param host the host
+   * @param call the ended call
+   */
+  void onCancelled(String host, Object call) {
+    HostState state = hosts.get(host);
+    if (state != null && state.probe == call) {
+      state.probe = null;
+    }
+  }
+
+  void onRateLimited(String host, long until) {
+    HostState state = getState(host);
+    state.rateLimited = true;
+    state.rateLimitedUntil = until;
+  }
+
+  /**
+   * Get the earliest moment a host that is rate limited or failing becomes available again.
+   *
+   * @param now the current {@link System#nanoTime()}
+   * @return the delay until then in nanoseconds, or -1 if no host is waiting for a deadline
+   */
+  long getNextDeadline(long now) {
+    long next = -1;
+    Iterator<HostState> iterator = hosts.values().iterator();
+    while (iterator.hasNext()) {
+      HostState state = iterator.next();
+      if (state.rateLimited && now - state.rateLimitedUntil >= 0) {
+        state.rateLimited = false;
+        if (state.consecutiveFailures == 0) {
+          iterator.remove();
+          continue;
+        }
+      }
+      if (state.rateLimited) {
+        next = min(next, state.rateLimitedUntil - now);
+      }
+      if (state.consecutiveFailures >= FAILURE_THRESHOLD && now - state.openUntil < 0) {
+        next = min(next, state.openUntil - now);
+      }
+    }
+    return next;
+  }
+
+  private static long min(long current, long delay) {
+    return current == -1 ? delay : Math.min(current, delay);
+  }
+
+  private HostState getState(String host) {
+    HostState state = hosts.get(host);
+    if (state == null) {
+      state = new HostState();
+      hosts.put(host, state);
+    }
+    return state;
+  }
+
+  private static class HostState {
+    private int consecutiveFailures;
+    private long openUntil;
+    // The call probing the host while its circuit is half open
+    private Object probe;
+    private boolean rateLimited;
+    private long rateLimitedUntil;
+  }
+}
@@ -0,0 +1,143 @@
+package com.mapbox.mapboxsdk.http;
+
+import android.support.annotation.NonNull;
+
+/**
+ * Snapshot of the network metrics of a single host serving map resources.
+ * <p>
+ * Call counts reflect the moment the snapshot was taken. Time to first byte is the time from the start of a
+ * call until the response headers arrive, averaged over all responses since the process started. Throughput
+ * is the number of response body bytes divided by the time spent reading them.
+ * </p>
+ * <p>
+ * Connection and timing metrics are only collected while the client created from a {@link MapboxHttpConfig}
+ * is used, not for clients set with {@link HttpRequestUtil#setOkHttpClient(okhttp3.OkHttpClient)}.
+ * </p>
+ *
+ * @see HttpRequestUtil#getHostMetrics()
+ */
+public final class HttpHostMetrics {
+
+  private final String host;
+  private final int activeConnectionCount;
+  private final int runningCallCount;
+  private final int queuedCallCount;
+  private final long responseCount;
+  private final double averageTimeToFirstByteMillis;
+  private final double bytesPerSecond;
+  private final long compressedByteCount;
+  private final long uncompressedByteCount;
+
+  HttpHostMetrics(String host, int activeConnectionCount, int runningCallCount, int queuedCallCount,
+                  long responseCount, double averageTimeToFirstByteMillis, double bytesPerSecond,
+                  long compressedByteCount, long uncompressedByteCount) {
+    this.host = host;
+    this.activeConnectionCount = activeConnectionCount;
+    this.runningCallCount = runningCallCount;
+    this.queuedCallCount = queuedCallCount;
+    this.responseCount = responseCount;
+    this.averageTimeToFirstByteMillis = averageTimeToFirstByteMillis;
+    this.bytesPerSecond = bytesPerSecond;
+    this.compressedByteCount = compressedByteCount;
+    this.uncompressedByteCount = uncompressedByteCount;
+  }
+
+  /**
+   * Get the host these metrics belong to.
+   *
+   * @return the host name
+   */
+  @NonNull
+  public String getHost() {
+    return host;
+  }
+
+  /**
+   * Get the number of connections to the host that are carrying calls. With HTTP/2, a single connection
+   * carries multiple calls.
+   *
+   * @return the active connection count
+   */
+  public int getActiveConnectionCount() {
+    return activeConnectionCount;
+  }
+
+  /**
+   * Get the number of calls to the host that are executing.
+   *
+   * @return the running call count
+   */
+  public int getRunningCallCount() {
+    return runningCallCount;
+  }
+
+  /**
+   * Get the number of calls to the host waiting to be executed.
+   *
+   * @return the queued call count
+   */
+  public int getQueuedCallCount() {
+    return queuedCallCount;
+  }
+
+  /**
+   * Get the number of responses received from the host.
+   *
+   * @return the response count
+   */
+  public long getResponseCount() {
+    return responseCount;
+  }
+
+  /**
+   * Get the average time from the start of a call until its response headers arrived.
+   *
+   * @return the average time to first byte in milliseconds
+   */
+  public double getAverageTimeToFirstByteMillis() {
+    return averageTimeToFirstByteMillis;
+  }
+
+  /**
+   * Get the rate at which response bodies were read from the host.
+   *
+   * @return the throughput in bytes per second
+   */
+  public double getBytesPerSecond() {
+    return bytesPerSecond;
+  }
+
+  /**
+   * Get the number of body bytes received with a content encoding, like gzip or a encoding added with
+   * {@link HttpRequestUtil#addContentDecoder(ContentDecoder)}, before decoding.
+   *
+   * @return the compressed byte count
+   */
+  public long getCompressedByteCount() {
+    return compressedByteCount;
+  }
+
+  /**
+   * Get the number of body bytes received with a content encoding, after decoding.
+   *
+   * @return the uncompressed byte count
+   */
+  public long getUncompressedByteCount() {
+    return uncompressedByteCount;
+  }
+
+  @Override
+  public String toString() {
+    return "HttpHostMetrics{"
+      + "host=" + host
+      + ", activeConnectionCount=" + activeConnectionCount
+      + ", runningCallCount=" + runningCallCount
+      + ", queuedCallCount=" + queuedCallCount
+      + ", responseCount=" + responseCount
+      + ", averageTimeToFirstByteMillis=" + averageTimeToFirstByteMillis
+      + ", bytesPerSecond=" + bytesPerSecond
+      + ", compressedByteCount=" + compressedByteCount
+      + ", uncompressedByteCount=" + uncompressedByteCount
+      + '}';
+  }
+}
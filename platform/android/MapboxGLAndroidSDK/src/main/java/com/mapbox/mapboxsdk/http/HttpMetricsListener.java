@@ -0,0 +1,159 @@
+package com.mapbox.mapboxsdk.http;
+
+import okhttp3.Call;
+import okhttp3.Connection;
+import okhttp3.EventListener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects per host connection and timing metrics from the events of every call.
+ */
+final class HttpMetricsListener extends EventListener {
+
+  static final EventListener.Factory FACTORY = new EventListener.Factory() {
+    @Override
+    public EventListener create(Call call) {
+      return new HttpMetricsListener(call.request().url().host());
+    }
+  };
+
+  // Guards the table and the statistics in it
+  private static final Map<String, HostStatistics> hosts = new HashMap<>();
+
+  private final String host;
+  private long callStartNanos;
+  private long responseStartNanos;
+
+  private HttpMetricsListener(String host) {
+    this.host = host;
+  }
+
+  @Override
+  public void callStart(Call call) {
+    callStartNanos = System.nanoTime();
+  }
+
+  @Override
+  public void connectionAcquired(Call call, Connection connection) {
+    synchronized (hosts) {
+      getStatistics(host).acquire(connection);
+    }
+  }
+
+  @Override
+  public void connectionReleased(Call call, Connection connection) {
+    synchronized (hosts) {
+      getStatistics(host).release(connection);
+    }
+  }
+
+  @Override
+  public void responseHeadersStart(Call call) {
+    responseStartNanos = System.nanoTime();
+    synchronized (hosts) {
+      HostStatistics statistics = getStatistics(host);
+      statistics.responseCount++;
+      statistics.timeToFirstByteNanos += responseStartNanos - callStartNanos;
+    }
+  }
+
+  @Override
+  public void responseBodyEnd(Call call, long byteCount) {
+    long transferNanos = System.nanoTime() - responseStartNanos;
+    synchronized (hosts) {
+      HostStatistics statistics = getStatistics(host);
+      statistics.bodyBytes += byteCount;
+      statistics.transferNanos += transferNanos;
+    }
+  }
+
+  /**
+   * Records the size of a response body that was decoded from a content encoding.
+   *
+   * @param host              the host that sent the response
+   * @param compressedBytes   the number of bytes as received
+   * @param uncompressedBytes the number of bytes after decoding
+   */
+  static void recordContentBytes(String host, long compressedBytes, long uncompressedBytes) {
+    synchronized (hosts) {
+      HostStatistics statistics = getStatistics(host);
+      statistics.compressedBytes += compressedBytes;
+      statistics.uncompressedBytes += uncompressedBytes;
+    }
+  }
+
+  private static HostStatistics getStatistics(String host) {
+    HostStatistics statistics = hosts.get(host);
+    if (statistics == null) {
+      statistics = new HostStatistics();
+      hosts.put(host, statistics);
+    }
+    return statistics;
+  }
+
+  /**
+   * Creates a snapshot of the metrics of every host that was contacted or has calls waiting.
+   *
+   * @param dispatcher the dispatcher providing the running and queued call counts
+   * @return the metrics per host
+   */
+  static List<HttpHostMetrics> getHostMetrics(PriorityDispatcher dispatcher) {
+    Map<String, int[]> callCounts = dispatcher.getCallCounts();
+    List<HttpHostMetrics> metrics = new ArrayList<>();
+    synchronized (hosts) {
+      Set<String> hostNames = new HashSet<>(hosts.keySet());
+      hostNames.addAll(callCounts.keySet());
+      for (String host : hostNames) {
+        HostStatistics statistics = getStatistics(host);
+        int[] counts = callCounts.get(host);
+        metrics.add(new HttpHostMetrics(host,
+          statistics.connections.size(),
+          counts != null ? counts[0] : 0,
+          counts != null ? counts[1] : 0,
+          statistics.responseCount,
+          statistics.responseCount > 0
+            ? (double) statistics.timeToFirstByteNanos / statistics.responseCount / TimeUnit.MILLISECONDS.toNanos(1)
+            : 0,
+          statistics.transferNanos > 0
+            ? (double) statistics.bodyBytes / statistics.transferNanos * TimeUnit.SECONDS.toNanos(1)
+            : 0,
+          statistics.compressedBytes,
+          statistics.uncompressedBytes));
+      }
+    }
+    return metrics;
+  }
+
+  private static class HostStatistics {
+
+    // Connections in use, with the number of calls they carry
+    private final Map<Connection, Integer> connections = new HashMap<>();
+    private long responseCount;
+    private long timeToFirstByteNanos;
+    private long bodyBytes;
+    private long transferNanos;
+    private long compressedBytes;
+    private long uncompressedBytes;
+
+    private void acquire(Connection connection) {
+      Integer calls = connections.get(connection);
+      connections.put(connection, calls == null ? 1 : calls + 1);
+    }
+
+    private void release(Connection connection) {
+      Integer calls = connections.get(connection);
+      if (calls == null || calls <= 1) {
+        connections.remove(connection);
+      } else {
+        connections.put(connection, calls - 1);
+      }
+    }
+  }
+}
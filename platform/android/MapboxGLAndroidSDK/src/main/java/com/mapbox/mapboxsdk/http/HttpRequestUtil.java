@@ -1,7 +1,12 @@
 package com.mapbox.mapboxsdk.http;
 
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
 import okhttp3.OkHttpClient;
 
+import java.util.List;
+
 /**
  * Utility class for setting HttpRequest configurations
  */
@@ -43,4 +48,57 @@ public class HttpRequestUtil {
     HTTPRequest.setOKHttpClient(client);
   }
 
+  /**
+   * Set the connection pool, protocol, concurrency and timeout settings used for requesting map resources.
+   * <p>
+   * Other settings of the current OkHttpClient, like interceptors, are kept.
+   * This configuration will outlast the lifecycle of the Map.
+   * </p>
+   *
+   * @param config the network configuration
+   */
+  public static void setHttpConfig(@NonNull MapboxHttpConfig config) {
+    HTTPRequest.setHttpConfig(config);
+  }
+
+  /**
+   * Set the policy deciding if failed requests for map resources are retried before the failure is reported to
+   * the map. Defaults to an {@link ExponentialBackoffRetryPolicy} retrying twice.
+   * <p>
+   * Independent of the policy, requests to a host that keeps failing fail without touching the network for a
+   * while, and requests to a rate limited host are held back until the limit resets.
+   * This configuration will outlast the lifecycle of the Map.
+   * </p>
+   *
+   * @param retryPolicy the retry policy, or null to disable retries
+   */
+  public static void setRetryPolicy(@Nullable RetryPolicy retryPolicy) {
+    HTTPRequest.setRetryPolicy(retryPolicy);
+  }
+
+  /**
+   * Add a decoder for a HTTP content encoding, like {@code br} or {@code zstd}. Its encoding is advertised in the
+   * Accept-Encoding header of map resource requests, preferred over gzip and decoders added before it, and
+   * responses using it are decoded while they're read.
+   * <p>
+   * Only applies to the OkHttpClient created by the SDK or with {@link #setHttpConfig(MapboxHttpConfig)}.
+   * This configuration will outlast the lifecycle of the Map.
+   * </p>
+   *
+   * @param decoder the content decoder
+   */
+  public static void addContentDecoder(@NonNull ContentDecoder decoder) {
+    HTTPRequest.addContentDecoder(decoder);
+  }
+
+  /**
+   * Get the network metrics of every host that served map resources.
+   *
+   * @return a snapshot of the metrics per host
+   */
+  @NonNull
+  public static List<HttpHostMetrics> getHostMetrics() {
+    return HTTPRequest.getHostMetrics();
+  }
+
 }
\ No newline at end of file
@@ -0,0 +1,402 @@
+package com.mapbox.mapboxsdk.http;
+
+import android.support.annotation.NonNull;
+import android.text.TextUtils;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.BufferedSource;
+
+import java.io.IOException;
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static android.util.Log.DEBUG;
+import static android.util.Log.ERROR;
+import static android.util.Log.VERBOSE;
+
+/**
+ * A network call shared by all {@link HTTPRequest}s for the same resource that are in flight at the same time.
+ * <p>
+ * Requests are keyed by url and conditional headers. The response is read once and delivered to every
+ * subscribed request. The call is only cancelled once all subscribed requests are cancelled.
+ * </p>
+ */
+final class InFlightRequest implements Callback {
+
+  // Bodies are streamed into direct buffers from 16 KB up to 4 MB, at most 8 MB of them are kept for reuse
+  private static final DirectBufferPool bodyBuffers = new DirectBufferPool(16 * 1024, 4 * 1024 * 1024, 8 * 1024 * 1024);
+  // Bodies of unknown length start with the smallest size class and double from there
+  private static final int UNKNOWN_LENGTH_BODY_SIZE = 16 * 1024;
+
+  // Guards the table and the subscribers of every request in it
+  private static final Map<String, InFlightRequest> inFlightRequests = new HashMap<>();
+  static final PriorityDispatcher dispatcher = new PriorityDispatcher();
+
+  private final String key;
+  final String host;
+  private final List<HTTPRequest> subscribers = new ArrayList<>(1);
+  private Call call;
+  private boolean completed;
+  // Number of the current attempt, only touched by the thread delivering the previous attempt
+  private int attempt = 1;
+
+  // Guarded by the dispatcher
+  int priority;
+  long enqueuedNanos;
+
+  InFlightRequest(String key, String host, int priority) {
+    this.key = key;
+    this.host = host;
+    this.priority = priority;
+  }
+
+  /**
+   * Subscribes a request to the in flight call for the resource, starting a new call if there is none.
+   *
+   * @param request       the request to deliver the response to
+   * @param okHttpRequest the network request for the resource
+   * @param priority      the priority of the request, see {@link PriorityDispatcher#getPriority(int, boolean)}
+   * @return the in flight call the request is subscribed to
+   */
+  static InFlightRequest subscribe(HTTPRequest request, Request okHttpRequest, int priority) {
+    String key = getKey(okHttpRequest);
+    InFlightRequest inFlightRequest;
+    synchronized (inFlightRequests) {
+      inFlightRequest = inFlightRequests.get(key);
+      if (inFlightRequest != null) {
+        inFlightRequest.subscribers.add(request);
+        dispatcher.raisePriority(inFlightRequest, priority);
+        return inFlightRequest;
+      }
+
+      inFlightRequest = new InFlightRequest(key, okHttpRequest.url().host(), priority);
+      inFlightRequest.subscribers.add(request);
+      inFlightRequest.call = HTTPRequest.getClient().newCall(okHttpRequest);
+      inFlightRequests.put(key, inFlightRequest);
+      dispatcher.add(inFlightRequest);
+    }
+    dispatcher.promote();
+    return inFlightRequest;
+  }
+
+  /**
+   * Hands the call to OkHttp, invoked by the dispatcher once the call is next in line.
+   */
+  void start() {
+    call.enqueue(this);
+  }
+
+  private static String getKey(Request request) {
+    String etag = request.header("If-None-Match");
+    String modified = request.header("If-Modified-Since");
+    return request.url().toString() + '\n' + (etag != null ? etag : "") + '\n' + (modified != null ? modified : "");
+  }
+
+  /**
+   * Unsubscribes a cancelled request, cancelling the network call when no subscribed request is left.
+   *
+   * @param request the cancelled request
+   */
+  void unsubscribe(HTTPRequest request) {
+    Call callToCancel;
+    synchronized (inFlightRequests) {
+      subscribers.remove(request);
+      if (!subscribers.isEmpty() || completed) {
+        return;
+      }
+      detach();
+      if (dispatcher.remove(this)) {
+        // Never started, there is nothing to cancel
+        return;
+      }
+      callToCancel = call;
+    }
+    callToCancel.cancel();
+  }
+
+  /**
+   * Returns true while a request is subscribed, a call without subscribers is cancelled or about to be.
+   */
+  boolean hasSubscribers() {
+    synchronized (inFlightRequests) {
+      return !subscribers.isEmpty();
+    }
+  }
+
+  @Override
+  public void onResponse(@NonNull Call call, @NonNull Response response) throws IOException {
+    int code = response.code();
+    if (code == 429) {
+      // The response is still delivered, the map schedules its own retry
+      long delay = getRateLimitDelayMillis(response);
+      if (delay > 0) {
+        dispatcher.rateLimited(this, delay);
+      }
+    } else if (retry(code, null)) {
+      response.close();
+      dispatcher.failed(this);
+      return;
+    }
+
+    List<HTTPRequest> requests = complete();
+    try {
+      deliverResponse(call, response, requests);
+    } finally {
+      // The connection is free once the body is read
+      if (code >= 500) {
+        dispatcher.failed(this);
+      } else if (code == 429) {
+        dispatcher.finished(this);
+      } else {
+        dispatcher.succeeded(this);
+      }
+    }
+  }
+
+  /**
+   * Get the time until a rate limit resets from the Retry-After or x-rate-limit-reset header.
+   *
+   * @return the delay in milliseconds, or 0 if unknown
+   */
+  private static long getRateLimitDelayMillis(Response response) {
+    String retryAfter = response.header("Retry-After");
+    if (retryAfter != null) {
+      try {
+        return TimeUnit.SECONDS.toMillis(Long.parseLong(retryAfter.trim()));
+      } catch (NumberFormatException numberFormatException) {
+        try {
+          SimpleDateFormat format = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss zzz", Locale.US);
+          return format.parse(retryAfter.trim()).getTime() - System.currentTimeMillis();
+        } catch (ParseException parseException) {
+          return 0;
+        }
+      }
+    }
+
+    String rateLimitReset = response.header("x-rate-limit-reset");
+    if (rateLimitReset != null) {
+      try {
+        return TimeUnit.SECONDS.toMillis(Long.parseLong(rateLimitReset.trim())) - System.currentTimeMillis();
+      } catch (NumberFormatException numberFormatException) {
+        return 0;
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * Schedules another attempt if the retry policy allows it and the resource is still requested.
+   *
+   * @param code      the status code of the failed attempt, 0 if no response was received
+   * @param exception the cause of the failure if no response was received
+   * @return true if the call will be retried
+   */
+  private boolean retry(int code, IOException exception) {
+    RetryPolicy retryPolicy = HTTPRequest.getRetryPolicy();
+    if (retryPolicy == null) {
+      return false;
+    }
+
+    long delay = retryPolicy.getRetryDelayMillis(attempt, code, exception);
+    if (delay < 0) {
+      return false;
+    }
+
+    synchronized (inFlightRequests) {
+      if (subscribers.isEmpty()) {
+        return false;
+      }
+      attempt++;
+      call = call.clone();
+    }
+    HTTPRequest.log(DEBUG, String.format("[HTTP] Retrying request in %s ms (attempt %s)", delay, attempt));
+    dispatcher.retry(this, delay);
+    return true;
+  }
+
+  private void deliverResponse(Call call, Response response, List<HTTPRequest> requests) {
+    if (response.isSuccessful()) {
+      HTTPRequest.log(VERBOSE, String.format("[HTTP] Request was successful (code = %s).", response.code()));
+    } else {
+      // We don't want to call this unsuccessful because a 304 isn't really an error
+      String message = !TextUtils.isEmpty(response.message()) ? response.message() : "No additional information";
+      HTTPRequest.log(DEBUG, String.format("[HTTP] Request with response code = %s: %s", response.code(), message));
+    }
+
+    ResponseBody responseBody = response.body();
+    if (responseBody == null) {
+      HTTPRequest.log(ERROR, "[HTTP] Received empty response body");
+      return;
+    }
+
+    // Decoded bodies have an unknown length of -1
+    long contentLength = responseBody.contentLength();
+    if (response.code() == 200 && contentLength != 0 && contentLength <= Integer.MAX_VALUE) {
+      onStreamedResponse(call, response, responseBody, contentLength, requests);
+      return;
+    }
+
+    byte[] body;
+    try {
+      body = responseBody.bytes();
+    } catch (IOException ioException) {
+      onFailure(call, ioException, requests);
+      return;
+    } finally {
+      response.close();
+    }
+
+    for (HTTPRequest request : requests) {
+      request.onResponse(response, body);
+    }
+  }
+
+  /**
+   * Streams a body into a pooled direct buffer, native code reads it in place. This avoids materializing large
+   * tiles as byte arrays on the Java heap.
+   */
+  private void onStreamedResponse(Call call, Response response, ResponseBody responseBody, long contentLength,
+                                  List<HTTPRequest> requests) {
+    ByteBuffer body;
+    try {
+      body = contentLength > 0
+        ? readBody(responseBody.source(), (int) contentLength, bodyBuffers)
+        : readBody(responseBody.source(), bodyBuffers);
+    } catch (IOException ioException) {
+      onFailure(call, ioException, requests);
+      return;
+    } finally {
+      response.close();
+    }
+
+    try {
+      int length = body.remaining();
+      for (HTTPRequest request : requests) {
+        request.onResponse(response, body, length);
+      }
+    } finally {
+      // Native code copied the body out of the buffer
+      bodyBuffers.release(body);
+    }
+  }
+
+  /**
+   * Reads a body of known length into a pooled buffer, the buffer is released if reading fails.
+   *
+   * @param source        the body
+   * @param contentLength the length of the body
+   * @param pool          the pool to obtain the buffer from
+   * @return the buffer, its remaining bytes are the body
+   * @throws IOException if the body couldn't be read or is shorter than its length
+   */
+  static ByteBuffer readBody(BufferedSource source, int contentLength, DirectBufferPool pool) throws IOException {
+    ByteBuffer body = pool.obtain(contentLength);
+    try {
+      while (body.hasRemaining()) {
+        if (source.read(body) == -1) {
+          throw new ProtocolException("Unexpected end of stream");
+        }
+      }
+    } catch (IOException ioException) {
+      pool.release(body);
+      throw ioException;
+    }
+    body.flip();
+    return body;
+  }
+
+  /**
+   * Reads a body of unknown length, such as a decoded body, into a pooled buffer that grows as needed. The buffer
+   * is released if reading fails.
+   *
+   * @param source the body
+   * @param pool   the pool to obtain the buffer from
+   * @return the buffer, its remaining bytes are the body
+   * @throws IOException if the body couldn't be read or doesn't fit in a buffer
+   */
+  static ByteBuffer readBody(BufferedSource source, DirectBufferPool pool) throws IOException {
+    ByteBuffer body = pool.obtain(UNKNOWN_LENGTH_BODY_SIZE);
+    try {
+      while (source.read(body) != -1) {
+        if (!body.hasRemaining()) {
+          body = grow(body, pool);
+        }
+      }
+    } catch (IOException ioException) {
+      pool.release(body);
+      throw ioException;
+    }
+    body.flip();
+    return body;
+  }
+
+  private static ByteBuffer grow(ByteBuffer body, DirectBufferPool pool) throws IOException {
+    if (body.position() > Integer.MAX_VALUE / 2) {
+      throw new ProtocolException("Response body too large");
+    }
+    ByteBuffer grown = pool.obtain(body.position() * 2);
+    body.flip();
+    grown.put(body);
+    pool.release(body);
+    return grown;
+  }
+
+  @Override
+  public void onFailure(@NonNull Call call, @NonNull IOException e) {
+    if (call.isCanceled()) {
+      dispatcher.finished(this);
+    } else {
+      dispatcher.failed(this);
+      if (retry(0, e)) {
+        return;
+      }
+    }
+    onFailure(call, e, complete());
+  }
+
+  /**
+   * Fails a call that wasn't started, invoked by the dispatcher when the host is considered down.
+   *
+   * @param e the cause of the failure
+   */
+  void reject(IOException e) {
+    onFailure(call, e, complete());
+  }
+
+  private void onFailure(Call call, Exception e, List<HTTPRequest> requests) {
+    for (HTTPRequest request : requests) {
+      request.handleFailure(call, e);
+    }
+  }
+
+  /**
+   * Marks the call as answered, later requests for the same resource start a new call.
+   *
+   * @return the requests to deliver the result to
+   */
+  private List<HTTPRequest> complete() {
+    synchronized (inFlightRequests) {
+      completed = true;
+      detach();
+      return new ArrayList<>(subscribers);
+    }
+  }
+
+  private void detach() {
+    if (inFlightRequests.get(key) == this) {
+      inFlightRequests.remove(key);
+    }
+  }
+}
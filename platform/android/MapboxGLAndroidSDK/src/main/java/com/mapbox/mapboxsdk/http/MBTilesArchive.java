@@ -0,0 +1,125 @@
+package com.mapbox.mapboxsdk.http;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteException;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Map;
+
+import static android.util.Log.DEBUG;
+
+/**
+ * Reads tiles from an MBTiles archive, a SQLite database with a tiles table indexed by zoom level, column and row.
+ * <p>
+ * The database is opened read-only and SQLite is allowed to memory map it, tile lookups are answered by the
+ * primary key index of the tiles table.
+ * </p>
+ */
+final class MBTilesArchive extends TileArchive {
+
+  // Upper bound of the memory mapping, SQLite falls back to regular reads beyond it
+  private static final long MMAP_SIZE = 256L * 1024 * 1024;
+
+  private final SQLiteDatabase database;
+
+  MBTilesArchive(File path) throws IOException {
+    try {
+      database = SQLiteDatabase.openDatabase(path.getAbsolutePath(), null,
+        SQLiteDatabase.OPEN_READONLY | SQLiteDatabase.NO_LOCALIZED_COLLATORS);
+    } catch (SQLiteException exception) {
+      throw new IOException("Unable to open MBTiles archive " + path, exception);
+    }
+
+    try {
+      database.rawQuery("PRAGMA mmap_size = " + MMAP_SIZE, null).close();
+    } catch (SQLiteException exception) {
+      // Memory mapping isn't supported by every SQLite version, reads work regardless
+      HTTPRequest.log(DEBUG, "[HTTP] MBTiles memory mapping unavailable: " + exception.getMessage());
+    }
+  }
+
+  @Override
+  ByteBuffer getTile(int z, int x, int y) throws IOException {
+    // MBTiles rows follow the TMS scheme, counting from the south
+    long row = (1L << z) - 1 - y;
+    Cursor cursor = null;
+    try {
+      cursor = database.rawQuery(
+        "SELECT tile_data FROM tiles WHERE zoom_level = ? AND tile_column = ? AND tile_row = ?",
+        new String[] {String.valueOf(z), String.valueOf(x), String.valueOf(row)});
+      return cursor.moveToFirst() ? ByteBuffer.wrap(cursor.getBlob(0)) : null;
+    } catch (SQLiteException exception) {
+      throw new IOException("Unable to read tile " + z + "/" + x + "/" + y, exception);
+    } finally {
+      if (cursor != null) {
+        cursor.close();
+      }
+    }
+  }
+
+  @Override
+  JsonObject getTileJson() throws IOException {
+    JsonObject tileJson = new JsonObject();
+    Cursor cursor = null;
+    try {
+      cursor = database.rawQuery("SELECT name, value FROM metadata", null);
+      while (cursor.moveToNext()) {
+        String name = cursor.getString(0);
+        String value = cursor.getString(1);
+        if (name == null || value == null) {
+          continue;
+        }
+        switch (name) {
+          case "minzoom":
+          case "maxzoom":
+            tileJson.addProperty(name, Integer.parseInt(value.trim()));
+            break;
+          case "bounds":
+          case "center":
+            tileJson.add(name, toJsonArray(value));
+            break;
+          case "json":
+            // Vector tile layer descriptions
+            JsonElement json = new JsonParser().parse(value);
+            if (json.isJsonObject()) {
+              for (Map.Entry<String, JsonElement> entry : json.getAsJsonObject().entrySet()) {
+                tileJson.add(entry.getKey(), entry.getValue());
+              }
+            }
+            break;
+          default:
+            tileJson.addProperty(name, value);
+        }
+      }
+    } catch (SQLiteException | NumberFormatException | JsonParseException exception) {
+      throw new IOException("Unable to read MBTiles metadata", exception);
+    } finally {
+      if (cursor != null) {
+        cursor.close();
+      }
+    }
+    return tileJson;
+  }
+
+  private static JsonArray toJsonArray(String commaSeparated) {
+    JsonArray array = new JsonArray();
+    for (String value : commaSeparated.split(",")) {
+      array.add(Double.parseDouble(value.trim()));
+    }
+    return array;
+  }
+
+  @Override
+  public void close() {
+    database.close();
+  }
+}
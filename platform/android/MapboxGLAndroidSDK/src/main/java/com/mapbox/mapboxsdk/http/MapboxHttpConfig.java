@@ -0,0 +1,298 @@
+package com.mapbox.mapboxsdk.http;
+
+import android.support.annotation.NonNull;
+
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Network settings used for requesting map resources, applied with
+ * {@link HttpRequestUtil#setHttpConfig(MapboxHttpConfig)}.
+ * <p>
+ * Tile traffic consists of many small requests to a few hosts. Keeping connections alive and multiplexing
+ * requests over HTTP/2 avoids a connection setup per tile, which matters most on high latency links.
+ * </p>
+ */
+public final class MapboxHttpConfig {
+
+  private final int maxIdleConnections;
+  private final long keepAliveDurationMillis;
+  private final boolean http2Enabled;
+  private final int maxRequests;
+  private final int maxRequestsPerHost;
+  private final long connectTimeoutMillis;
+  private final long readTimeoutMillis;
+  private final long writeTimeoutMillis;
+
+  private MapboxHttpConfig(Builder builder) {
+    this.maxIdleConnections = builder.maxIdleConnections;
+    this.keepAliveDurationMillis = builder.keepAliveDurationMillis;
+    this.http2Enabled = builder.http2Enabled;
+    this.maxRequests = builder.maxRequests;
+    this.maxRequestsPerHost = builder.maxRequestsPerHost;
+    this.connectTimeoutMillis = builder.connectTimeoutMillis;
+    this.readTimeoutMillis = builder.readTimeoutMillis;
+    this.writeTimeoutMillis = builder.writeTimeoutMillis;
+  }
+
+  /**
+   * Get the maximum number of idle connections kept in the connection pool.
+   *
+   * @return the maximum number of idle connections
+   */
+  public int getMaxIdleConnections() {
+    return maxIdleConnections;
+  }
+
+  /**
+   * Get the time an idle connection is kept alive.
+   *
+   * @return the keep-alive duration in milliseconds
+   */
+  public long getKeepAliveDurationMillis() {
+    return keepAliveDurationMillis;
+  }
+
+  /**
+   * Get if HTTP/2 is negotiated with hosts that support it.
+   *
+   * @return true if HTTP/2 is enabled
+   */
+  public boolean isHttp2Enabled() {
+    return http2Enabled;
+  }
+
+  /**
+   * Get the maximum number of requests executed at the same time.
+   *
+   * @return the maximum number of concurrent requests
+   */
+  public int getMaxRequests() {
+    return maxRequests;
+  }
+
+  /**
+   * Get the maximum number of requests executed at the same time for a single host.
+   *
+   * @return the maximum number of concurrent requests per host
+   */
+  public int getMaxRequestsPerHost() {
+    return maxRequestsPerHost;
+  }
+
+  /**
+   * Get the connect timeout.
+   *
+   * @return the connect timeout in milliseconds
+   */
+  public long getConnectTimeoutMillis() {
+    return connectTimeoutMillis;
+  }
+
+  /**
+   * Get the read timeout.
+   *
+   * @return the read timeout in milliseconds
+   */
+  public long getReadTimeoutMillis() {
+    return readTimeoutMillis;
+  }
+
+  /**
+   * Get the write timeout.
+   *
+   * @return the write timeout in milliseconds
+   */
+  public long getWriteTimeoutMillis() {
+    return writeTimeoutMillis;
+  }
+
+  /**
+   * Builds a client with these settings, keeping the other settings of the builder.
+   */
+  OkHttpClient createClient(OkHttpClient.Builder builder) {
+    Dispatcher dispatcher = new Dispatcher();
+    dispatcher.setMaxRequests(maxRequests);
+    dispatcher.setMaxRequestsPerHost(maxRequestsPerHost);
+
+    if (!builder.interceptors().contains(ContentEncodingInterceptor.INSTANCE)) {
+      builder.addInterceptor(ContentEncodingInterceptor.INSTANCE);
+    }
+
+    return builder
+      .dispatcher(dispatcher)
+      .connectionPool(new ConnectionPool(maxIdleConnections, keepAliveDurationMillis, TimeUnit.MILLISECONDS))
+      .protocols(http2Enabled
+        ? Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1) : Collections.singletonList(Protocol.HTTP_1_1))
+      .connectTimeout(connectTimeoutMillis, TimeUnit.MILLISECONDS)
+      .readTimeout(readTimeoutMillis, TimeUnit.MILLISECONDS)
+      .writeTimeout(writeTimeoutMillis, TimeUnit.MILLISECONDS)
+      .eventListenerFactory(HttpMetricsListener.FACTORY)
+      .build();
+  }
+
+  @Override
+  public String toString() {
+    return "MapboxHttpConfig{"
+      + "maxIdleConnections=" + maxIdleConnections
+      + ", keepAliveDurationMillis=" + keepAliveDurationMillis
+      + ", http2Enabled=" + http2Enabled
+      + ", maxRequests=" + maxRequests
+      + ", maxRequestsPerHost=" + maxRequestsPerHost
+      + ", connectTimeoutMillis=" + connectTimeoutMillis
+      + ", readTimeoutMillis=" + readTimeoutMillis
+      + ", writeTimeoutMillis=" + writeTimeoutMillis
+      + '}';
+  }
+
+  /**
+   * Builder for MapboxHttpConfig. The defaults match the settings used when no configuration is set.
+   */
+  public static final class Builder {
+
+    private int maxIdleConnections = 5;
+    private long keepAliveDurationMillis = TimeUnit.MINUTES.toMillis(5);
+    private boolean http2Enabled = true;
+    private int maxRequests = 64;
+    private int maxRequestsPerHost = 20;
+    private long connectTimeoutMillis = TimeUnit.SECONDS.toMillis(10);
+    private long readTimeoutMillis = TimeUnit.SECONDS.toMillis(10);
+    private long writeTimeoutMillis = TimeUnit.SECONDS.toMillis(10);
+
+    /**
+     * Set the maximum number of idle connections kept in the connection pool.
+     *
+     * @param maxIdleConnections the maximum number of idle connections, defaults to 5
+     * @return this
+     */
+    @NonNull
+    public Builder maxIdleConnections(int maxIdleConnections) {
+      if (maxIdleConnections < 0) {
+        throw new IllegalArgumentException("Max idle connections can't be negative");
+      }
+      this.maxIdleConnections = maxIdleConnections;
+      return this;
+    }
+
+    /**
+     * Set the time an idle connection is kept alive.
+     *
+     * @param keepAliveDuration the keep-alive duration, defaults to 5 minutes
+     * @param unit              the unit of the duration
+     * @return this
+     */
+    @NonNull
+    public Builder keepAliveDuration(long keepAliveDuration, @NonNull TimeUnit unit) {
+      if (keepAliveDuration <= 0) {
+        throw new IllegalArgumentException("Keep-alive duration must be positive");
+      }
+      this.keepAliveDurationMillis = unit.toMillis(keepAliveDuration);
+      return this;
+    }
+
+    /**
+     * Set if HTTP/2 is negotiated with hosts that support it. HTTP/2 multiplexes concurrent requests to a
+     * host over a single connection.
+     *
+     * @param http2Enabled true to enable HTTP/2, defaults to true
+     * @return this
+     */
+    @NonNull
+    public Builder http2Enabled(boolean http2Enabled) {
+      this.http2Enabled = http2Enabled;
+      return this;
+    }
+
+    /**
+     * Set the maximum number of requests executed at the same time. Other requests wait in a queue.
+     *
+     * @param maxRequests the maximum number of concurrent requests, defaults to 64
+     * @return this
+     */
+    @NonNull
+    public Builder maxRequests(int maxRequests) {
+      if (maxRequests < 1) {
+        throw new IllegalArgumentException("Max requests must be at least 1");
+      }
+      this.maxRequests = maxRequests;
+      return this;
+    }
+
+    /**
+     * Set the maximum number of requests executed at the same time for a single host.
+     *
+     * @param maxRequestsPerHost the maximum number of concurrent requests per host, defaults to 20
+     * @return this
+     */
+    @NonNull
+    public Builder maxRequestsPerHost(int maxRequestsPerHost) {
+      if (maxRequestsPerHost < 1) {
+        throw new IllegalArgumentException("Max requests per host must be at least 1");
+      }
+      this.maxRequestsPerHost = maxRequestsPerHost;
+      return this;
+    }
+
+    /**
+     * Set the connect timeout.
+     *
+     * @param timeout the timeout, 0 disables the timeout, defaults to 10 seconds
+     * @param unit    the unit of the timeout
+     * @return this
+     */
+    @NonNull
+    public Builder connectTimeout(long timeout, @NonNull TimeUnit unit) {
+      this.connectTimeoutMillis = toTimeoutMillis(timeout, unit);
+      return this;
+    }
+
+    /**
+     * Set the read timeout.
+     *
+     * @param timeout the timeout, 0 disables the timeout, defaults to 10 seconds
+     * @param unit    the unit of the timeout
+     * @return this
+     */
+    @NonNull
+    public Builder readTimeout(long timeout, @NonNull TimeUnit unit) {
+      this.readTimeoutMillis = toTimeoutMillis(timeout, unit);
+      return this;
+    }
+
+    /**
+     * Set the write timeout.
+     *
+     * @param timeout the timeout, 0 disables the timeout, defaults to 10 seconds
+     * @param unit    the unit of the timeout
+     * @return this
+     */
+    @NonNull
+    public Builder writeTimeout(long timeout, @NonNull TimeUnit unit) {
+      this.writeTimeoutMillis = toTimeoutMillis(timeout, unit);
+      return this;
+    }
+
+    /**
+     * Builds the configuration.
+     *
+     * @return the configuration
+     */
+    @NonNull
+    public MapboxHttpConfig build() {
+      return new MapboxHttpConfig(this);
+    }
+
+    private static long toTimeoutMillis(long timeout, TimeUnit unit) {
+      if (timeout < 0) {
+        throw new IllegalArgumentException("Timeout can't be negative");
+      }
+      return unit.toMillis(timeout);
+    }
+  }
+}
@@ -0,0 +1,403 @@
+package com.mapbox.mapboxsdk.http;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads tiles from a PMTiles version 3 archive, a single file containing a tile directory indexed by the position
+ * of the tiles along a Hilbert curve.
+ * <p>
+ * The archive is memory mapped. Directories are binary searched, leaf directories are decoded on first use and
+ * kept in a small cache. Tiles are returned as slices of the mapping, without copying.
+ * </p>
+ */
+final class PMTilesArchive extends TileArchive {
+
+  private static final int HEADER_LENGTH = 127;
+  private static final int COMPRESSION_NONE = 1;
+  private static final int COMPRESSION_GZIP = 2;
+  private static final int COMPRESSION_BROTLI = 3;
+  private static final int COMPRESSION_ZSTD = 4;
+  private static final int MAX_DIRECTORY_DEPTH = 3;
+  private static final int LEAF_DIRECTORY_CACHE_SIZE = 64;
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  // Sum of the number of tiles of all lower zoom levels, the first tile id of a zoom level
+  private static final long[] ZOOM_TILE_ID_OFFSETS = new long[27];
+
+  static {
+    for (int z = 1; z < ZOOM_TILE_ID_OFFSETS.length; z++) {
+      ZOOM_TILE_ID_OFFSETS[z] = ZOOM_TILE_ID_OFFSETS[z - 1] + (1L << (2 * (z - 1)));
+    }
+  }
+
+  private final MappedFile file;
+  private final long rootDirectoryOffset;
+  private final long rootDirectoryLength;
+  private final long metadataOffset;
+  private final long metadataLength;
+  private final long leafDirectoriesOffset;
+  private final long tileDataOffset;
+  private final int internalCompression;
+  private final int tileCompression;
+  private final int minZoom;
+  private final int maxZoom;
+  private final double[] bounds;
+  private final double[] center;
+  private final Directory rootDirectory;
+
+  // Access ordered, guarded by itself
+  private final Map<Long, Directory> leafDirectories =
+    new LinkedHashMap<Long, Directory>(LEAF_DIRECTORY_CACHE_SIZE, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Long, Directory> eldest) {
+        return size() > LEAF_DIRECTORY_CACHE_SIZE;
+      }
+    };
+
+  PMTilesArchive(File path) throws IOException {
+    file = new MappedFile(path);
+    ByteBuffer header = file.read(0, HEADER_LENGTH).order(ByteOrder.LITTLE_ENDIAN);
+    byte[] magic = new byte[7];
+    header.get(magic);
+    if (!"PMTiles".equals(new String(magic, UTF_8)) || header.get(7) != 3) {
+      file.close();
+      throw new IOException("Not a PMTiles version 3 archive: " + path);
+    }
+
+    rootDirectoryOffset = header.getLong(8);
+    rootDirectoryLength = header.getLong(16);
+    metadataOffset = header.getLong(24);
+    metadataLength = header.getLong(32);
+    leafDirectoriesOffset = header.getLong(40);
+    tileDataOffset = header.getLong(56);
+    internalCompression = header.get(97) & 0xFF;
+    tileCompression = header.get(98) & 0xFF;
+    minZoom = header.get(100) & 0xFF;
+    maxZoom = header.get(101) & 0xFF;
+    bounds = new double[] {
+      header.getInt(102) / 1e7, header.getInt(106) / 1e7, header.getInt(110) / 1e7, header.getInt(114) / 1e7
+    };
+    center = new double[] {header.getInt(119) / 1e7, header.getInt(123) / 1e7, header.get(118) & 0xFF};
+
+    rootDirectory = readDirectory(rootDirectoryOffset, rootDirectoryLength);
+  }
+
+  @Override
+  ByteBuffer getTile(int z, int x, int y) throws IOException {
+    if (z < minZoom || z > maxZoom) {
+      return null;
+    }
+
+    long tileId = toTileId(z, x, y);
+    Directory directory = rootDirectory;
+    for (int depth = 0; depth <= MAX_DIRECTORY_DEPTH; depth++) {
+      int index = directory.find(tileId);
+      if (index == -1) {
+        return null;
+      }
+
+      long offset = directory.offsets[index];
+      long length = directory.lengths[index];
+      if (directory.runLengths[index] > 0) {
+        ByteBuffer tile = file.read(tileDataOffset + offset, length);
+        return tileCompression == COMPRESSION_BROTLI || tileCompression == COMPRESSION_ZSTD
+          ? ByteBuffer.wrap(decompress(tile, tileCompression)) : tile;
+      }
+      directory = getLeafDirectory(leafDirectoriesOffset + offset, length);
+    }
+    throw new IOException("PMTiles directories are nested too deep");
+  }
+
+  @Override
+  JsonObject getTileJson() throws IOException {
+    JsonObject tileJson = new JsonObject();
+    if (metadataLength > 0) {
+      String metadata = new String(decompress(file.read(metadataOffset, metadataLength), internalCompression), UTF_8);
+      JsonElement element = new JsonParser().parse(metadata);
+      if (element.isJsonObject()) {
+        for (Map.Entry<String, JsonElement> entry : element.getAsJsonObject().entrySet()) {
+          tileJson.add(entry.getKey(), entry.getValue());
+        }
+      }
+    }
+
+    tileJson.addProperty("minzoom", minZoom);
+    tileJson.addProperty("maxzoom", maxZoom);
+    tileJson.add("bounds", toJsonArray(bounds));
+    tileJson.add("center", toJsonArray(center));
+    return tileJson;
+  }
+
+  private static JsonArray toJsonArray(double[] values) {
+    JsonArray array = new JsonArray();
+    for (double value : values) {
+      array.add(value);
+    }
+    return array;
+  }
+
+  @Override
+  public void close() throws IOException {
+    file.close();
+  }
+
+  /**
+   * Converts tile coordinates into the position of the tile along the Hilbert curves of all zoom levels.
+   */
+  static long toTileId(int z, int x, int y) {
+    if (z >= ZOOM_TILE_ID_OFFSETS.length) {
+      throw new IllegalArgumentException("Zoom level " + z + " is not supported");
+    }
+
+    long d = 0;
+    long tx = x;
+    long ty = y;
+    for (long s = (1L << z) / 2; s > 0; s /= 2) {
+      long rx = (tx & s) > 0 ? 1 : 0;
+      long ry = (ty & s) > 0 ? 1 : 0;
+      d += s * s * ((3 * rx) ^ ry);
+      if (ry == 0) {
+        if (rx == 1) {
+          tx = s - 1 - tx;
+          ty = s - 1 - ty;
+        }
+        long t = tx;
+        tx = ty;
+        ty = t;
+      }
+    }
+    return ZOOM_TILE_ID_OFFSETS[z] + d;
+  }
+
+  private Directory getLeafDirectory(long offset, long length) throws IOException {
+    synchronized (leafDirectories) {
+      Directory directory = leafDirectories.get(offset);
+      if (directory != null) {
+        return directory;
+      }
+    }
+
+    Directory directory = readDirectory(offset, length);
+    synchronized (leafDirectories) {
+      leafDirectories.put(offset, directory);
+    }
+    return directory;
+  }
+
+  private Directory readDirectory(long offset, long length) throws IOException {
+    return new Directory(ByteBuffer.wrap(decompress(file.read(offset, length), internalCompression)));
+  }
+
+  private static byte[] decompress(ByteBuffer data, int compression) throws IOException {
+    byte[] bytes = new byte[data.remaining()];
+    data.get(bytes);
+    if (compression == COMPRESSION_NONE) {
+      return bytes;
+    }
+
+    InputStream input = new ByteArrayInputStream(bytes);
+    if (compression == COMPRESSION_GZIP) {
+      input = new GZIPInputStream(input);
+    } else {
+      // Decoders for these are provided by the app, see HttpRequestUtil#addContentDecoder
+      String encoding = compression == COMPRESSION_BROTLI ? "br" : compression == COMPRESSION_ZSTD ? "zstd" : null;
+      ContentDecoder decoder = encoding != null ? ContentEncodingInterceptor.INSTANCE.findDecoder(encoding) : null;
+      if (decoder == null) {
+        throw new IOException("Unsupported PMTiles compression " + compression);
+      }
+      input = decoder.decode(input);
+    }
+
+    try {
+      return readFully(input, bytes.length * 4);
+    } finally {
+      input.close();
+    }
+  }
+
+  private static byte[] readFully(InputStream input, int sizeHint) throws IOException {
+    byte[] buffer = new byte[Math.max(sizeHint, 1024)];
+    int size = 0;
+    while (true) {
+      if (size == buffer.length) {
+        byte[] grown = new byte[buffer.length * 2];
+        System.arraycopy(buffer, 0, grown, 0, size);
+        buffer = grown;
+      }
+      int count = input.read(buffer, size, buffer.length - size);
+      if (count == -1) {
+        break;
+      }
+      size += count;
+    }
+
+    byte[] result = new byte[size];
+    System.arraycopy(buffer, 0, result, 0, size);
+    return result;
+  }
+
+  /**
+   * A decoded directory, entries are sorted by tile id. An entry with a run length of 0 points to a leaf
+   * directory, other entries point to tile data used for run length consecutive tiles.
+   */
+  private static final class Directory {
+
+    private final long[] tileIds;
+    private final long[] runLengths;
+    private final long[] lengths;
+    private final long[] offsets;
+
+    private Directory(ByteBuffer data) throws IOException {
+      int count = (int) readVarint(data);
+      tileIds = new long[count];
+      runLengths = new long[count];
+      lengths = new long[count];
+      offsets = new long[count];
+
+      long tileId = 0;
+      for (int i = 0; i < count; i++) {
+        tileId += readVarint(data);
+        tileIds[i] = tileId;
+      }
+      for (int i = 0; i < count; i++) {
+        runLengths[i] = readVarint(data);
+      }
+      for (int i = 0; i < count; i++) {
+        lengths[i] = readVarint(data);
+      }
+      for (int i = 0; i < count; i++) {
+        long value = readVarint(data);
+        // 0 means the data directly follows the data of the previous entry
+        offsets[i] = value == 0 && i > 0 ? offsets[i - 1] + lengths[i - 1] : value - 1;
+      }
+    }
+
+    /**
+     * Finds the entry covering a tile id.
+     *
+     * @return the index of the entry, or -1 if the tile isn't in this directory
+     */
+    private int find(long tileId) {
+      int low = 0;
+      int high = tileIds.length - 1;
+      while (low <= high) {
+        int middle = (low + high) >>> 1;
+        long compare = tileId - tileIds[middle];
+        if (compare > 0) {
+          low = middle + 1;
+        } else if (compare < 0) {
+          high = middle - 1;
+        } else {
+          return middle;
+        }
+      }
+
+      // The closest entry before the tile, either a leaf directory or a run including the tile
+      if (high >= 0 && (runLengths[high] == 0 || tileId - tileIds[high] < runLengths[high])) {
+        return high;
+      }
+      return -1;
+    }
+
+    private static long readVarint(ByteBuffer data) throws IOException {
+      long value = 0;
+      for (int shift = 0; shift < 64; shift += 7) {
+        if (!data.hasRemaining()) {
+          throw new IOException("Truncated PMTiles directory");
+        }
+        byte b = data.get();
+        value |= (long) (b & 0x7F) << shift;
+        if ((b & 0x80) == 0) {
+          return value;
+        }
+      }
+      throw new IOException("Malformed varint in PMTiles directory");
+    }
+  }
+
+  /**
+   * A read-only memory mapping of a file of any size. A single mapping can't exceed 2 GB, so the file is mapped in
+   * segments that overlap by {@link #SEGMENT_OVERLAP} bytes. Any range up to that size lies within one segment and
+   * is returned without copying.
+   */
+  private static final class MappedFile {
+
+    private static final long SEGMENT_SIZE = 1L << 30;
+    private static final long SEGMENT_OVERLAP = 1L << 24;
+
+    private final RandomAccessFile file;
+    private final long length;
+    private final ByteBuffer[] segments;
+
+    private MappedFile(File path) throws IOException {
+      file = new RandomAccessFile(path, "r");
+      try {
+        FileChannel channel = file.getChannel();
+        length = channel.size();
+        segments = new ByteBuffer[(int) ((length + SEGMENT_SIZE - 1) / SEGMENT_SIZE)];
+        for (int i = 0; i < segments.length; i++) {
+          long start = i * SEGMENT_SIZE;
+          segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start,
+            Math.min(SEGMENT_SIZE + SEGMENT_OVERLAP, length - start));
+        }
+      } catch (IOException exception) {
+        file.close();
+        throw exception;
+      }
+    }
+
+    /**
+     * Get a range of the file.
+     *
+     * @return a buffer positioned at 0 containing the range
+     */
+    private ByteBuffer read(long offset, long count) throws IOException {
+      if (offset < 0 || count < 0 || offset + count > length) {
+        throw new IOException("Range " + offset + "+" + count + " is outside of the archive");
+      }
+
+      int index = (int) (offset / SEGMENT_SIZE);
+      long start = offset - index * SEGMENT_SIZE;
+      ByteBuffer segment = segments[index];
+      if (start + count <= segment.capacity()) {
+        ByteBuffer range = segment.duplicate();
+        range.position((int) start);
+        range.limit((int) (start + count));
+        return range.slice();
+      }
+
+      if (count > Integer.MAX_VALUE) {
+        throw new IOException("Range is too large to read into memory");
+      }
+      ByteBuffer range = ByteBuffer.allocate((int) count);
+      FileChannel channel = file.getChannel();
+      while (range.hasRemaining()) {
+        if (channel.read(range, offset + range.position()) == -1) {
+          throw new IOException("Unexpected end of archive");
+        }
+      }
+      range.flip();
+      return range;
+    }
+
+    private void close() throws IOException {
+      file.close();
+    }
+  }
+}
@@ -0,0 +1,305 @@
+package com.mapbox.mapboxsdk.http;
+
+import okhttp3.Dispatcher;
+
+import java.net.ConnectException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hands network calls to OkHttp in priority order instead of the FIFO order of its {@link Dispatcher}.
+ * <p>
+ * Calls are held back until they fit within the request limits of the OkHttp dispatcher, so OkHttp never
+ * queues them itself. Style, source, sprite, glyph and image requests go first, then tiles, then background
+ * requests like offline downloads. A waiting call is promoted by one priority level for every
+ * {@link #AGING_INTERVAL_MILLIS} it waited, so lower priority requests aren't starved.
+ * </p>
+ * <p>
+ * Calls to hosts that are down or rate limited are held back or failed according to {@link HostHealth}, and
+ * calls that are retried re-enter the queue after their backoff delay.
+ * </p>
+ */
+final class PriorityDispatcher {
+
+  static final int PRIORITY_RESOURCE = 0;
+  static final int PRIORITY_TILE = 1;
+  static final int PRIORITY_BACKGROUND = 2;
+
+  static final long AGING_INTERVAL_MILLIS = 1000;
+  private static final long AGING_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(AGING_INTERVAL_MILLIS);
+
+  // Matches mbgl::Resource::Kind
+  private static final int KIND_TILE = 3;
+
+  private final List<InFlightRequest> pending = new ArrayList<>();
+  private final Map<String, Integer> runningPerHost = new HashMap<>();
+  private final HostHealth hostHealth = new HostHealth();
+  private int running;
+
+  // Runs delayed retries and wakes up the queue when a host becomes available again
+  private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+    @Override
+    public Thread newThread(Runnable runnable) {
+      Thread thread = new Thread(runnable, "HTTPRequestTimer");
+      thread.setDaemon(true);
+      return thread;
+    }
+  });
+  private long wakeupAt;
+  private boolean wakeupScheduled;
+
+  /**
+   * Maps the kind of a requested resource to a priority.
+   *
+   * @param kind       the mbgl::Resource::Kind of the resource
+   * @param background true if the resource isn't needed to render the map, for example an offline download
+   * @return the priority, lower values are dispatched first
+   */
+  static int getPriority(int kind, boolean background) {
+    if (background) {
+      return PRIORITY_BACKGROUND;
+    }
+    return kind == KIND_TILE ? PRIORITY_TILE : PRIORITY_RESOURCE;
+  }
+
+  /**
+   * Adds a call to the queue. Call {@link #promote()} afterwards to start it when there is room.
+   *
+   * @param request the call to add
+   */
+  synchronized void add(InFlightRequest request) {
+    request.enqueuedNanos = System.nanoTime();
+    pending.add(request);
+  }
+
+  /**
+   * Raises the priority of a call, used when a request with a higher priority joins a call.
+   *
+   * @param request  the call
+   * @param priority the priority of the joining request
+   */
+  synchronized void raisePriority(InFlightRequest request, int priority) {
+    request.priority = Math.min(request.priority, priority);
+  }
+
+  /**
+   * Removes a call that wasn't started yet.
+   *
+   * @param request the call to remove
+   * @return true if the call was waiting and is removed, false if it is already running
+   */
+  synchronized boolean remove(InFlightRequest request) {
+    return pending.remove(request);
+  }
+
+  /**
+   * Adds a call to the queue after a delay, used to retry failed calls.
+   *
+   * @param request     the call to retry
+   * @param delayMillis the time to wait before the call is queued
+   */
+  void retry(final InFlightRequest request, long delayMillis) {
+    timer.schedule(new Runnable() {
+      @Override
+      public void run() {
+        if (requeue(request)) {
+          promote();
+        }
+      }
+    }, delayMillis, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Adds a call that is retried back to the queue, unless all of its requests were cancelled while it waited.
+   *
+   * @param request the call to retry
+   * @return true if the call was added
+   */
+  boolean requeue(InFlightRequest request) {
+    if (!request.hasSubscribers()) {
+      return false;
+    }
+    add(request);
+    return true;
+  }
+
+  /**
+   * Releases the slot of a running call that received a response from its host.
+   *
+   * @param request the finished call
+   */
+  void succeeded(InFlightRequest request) {
+    synchronized (this) {
+      release(request);
+      hostHealth.onSuccess(request.host);
+    }
+    promote();
+  }
+
+  /**
+   * Releases the slot of a running call that failed because its host is unreachable or unhealthy.
+   *
+   * @param request the finished call
+   */
+  void failed(InFlightRequest request) {
+    synchronized (this) {
+      release(request);
+      hostHealth.onFailure(request.host, request, System.nanoTime());
+    }
+    promote();
+  }
+
+  /**
+   * Releases the slot of a running call that was cancelled or rate limited, without a verdict on the health
+   * of its host.
+   *
+   * @param request the finished call
+   */
+  void finished(InFlightRequest request) {
+    synchronized (this) {
+      release(request);
+      hostHealth.onCancelled(request.host, request);
+    }
+    promote();
+  }
+
+  /**
+   * Holds back calls to the host of a rate limited call until the rate limit resets.
+   *
+   * @param request     the rate limited call
+   * @param delayMillis the time until the rate limit resets
+   */
+  synchronized void rateLimited(InFlightRequest request, long delayMillis) {
+    hostHealth.onRateLimited(request.host, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMillis));
+    hostHealth.onCancelled(request.host, request);
+  }
+
+  private void release(InFlightRequest request) {
+    running--;
+    int hostCount = runningPerHost.get(request.host) - 1;
+    if (hostCount == 0) {
+      runningPerHost.remove(request.host);
+    } else {
+      runningPerHost.put(request.host, hostCount);
+    }
+  }
+
+  /**
+   * Starts waiting calls, highest effective priority first, until the limits of the OkHttp dispatcher are reached.
+   */
+  void promote() {
+    Dispatcher dispatcher = HTTPRequest.getClient().dispatcher();
+    promote(dispatcher.getMaxRequests(), dispatcher.getMaxRequestsPerHost());
+  }
+
+  /**
+   * Starts waiting calls, highest effective priority first, until the given limits are reached.
+   *
+   * @param maxRequests        the maximum number of running calls
+   * @param maxRequestsPerHost the maximum number of running calls per host
+   */
+  void promote(int maxRequests, int maxRequestsPerHost) {
+    List<InFlightRequest> ready = new ArrayList<>();
+    List<InFlightRequest> rejected = new ArrayList<>();
+    synchronized (this) {
+      long now = System.nanoTime();
+      while (running < maxRequests) {
+        InFlightRequest next = poll(now, maxRequestsPerHost, rejected);
+        if (next == null) {
+          break;
+        }
+        running++;
+        Integer hostCount = runningPerHost.get(next.host);
+        runningPerHost.put(next.host, hostCount == null ? 1 : hostCount + 1);
+        hostHealth.onStart(next.host, next, now);
+        ready.add(next);
+      }
+      scheduleWakeup(now);
+    }
+
+    for (InFlightRequest request : rejected) {
+      request.reject(new ConnectException("Requests to " + request.host + " are paused after repeated failures"));
+    }
+    for (InFlightRequest request : ready) {
+      request.start();
+    }
+  }
+
+  private void scheduleWakeup(long now) {
+    if (pending.isEmpty()) {
+      return;
+    }
+
+    long delay = hostHealth.getNextDeadline(now);
+    if (delay < 0 || (wakeupScheduled && wakeupAt - (now + delay) <= 0)) {
+      return;
+    }
+    wakeupScheduled = true;
+    wakeupAt = now + delay;
+    timer.schedule(new Runnable() {
+      @Override
+      public void run() {
+        synchronized (PriorityDispatcher.this) {
+          wakeupScheduled = false;
+        }
+        promote();
+      }
+    }, delay, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Counts the running and queued calls per host.
+   *
+   * @return per host, the number of running calls followed by the number of queued calls
+   */
+  synchronized Map<String, int[]> getCallCounts() {
+    Map<String, int[]> counts = new HashMap<>();
+    for (Map.Entry<String, Integer> entry : runningPerHost.entrySet()) {
+      counts.put(entry.getKey(), new int[] {entry.getValue(), 0});
+    }
+    for (InFlightRequest request : pending) {
+      int[] hostCounts = counts.get(request.host);
+      if (hostCounts == null) {
+        hostCounts = new int[2];
+        counts.put(request.host, hostCounts);
+      }
+      hostCounts[1]++;
+    }
+    return counts;
+  }
+
+  private InFlightRequest poll(long now, int maxRequestsPerHost, List<InFlightRequest> rejected) {
+    int bestIndex = -1;
+    long bestRank = Long.MAX_VALUE;
+    for (int i = 0; i < pending.size(); i++) {
+      InFlightRequest request = pending.get(i);
+      Integer hostCount = runningPerHost.get(request.host);
+      if (hostCount != null && hostCount >= maxRequestsPerHost) {
+        continue;
+      }
+
+      int health = hostHealth.check(request.host, now);
+      if (health == HostHealth.REJECT) {
+        // Only entries after the best so far are removed, bestIndex stays valid
+        rejected.add(pending.remove(i--));
+        continue;
+      } else if (health == HostHealth.HOLD) {
+        continue;
+      }
+
+      // Earlier calls come first within the same effective priority, the list is in arrival order
+      long rank = request.priority - (now - request.enqueuedNanos) / AGING_INTERVAL_NANOS;
+      if (rank < bestRank) {
+        bestRank = rank;
+        bestIndex = i;
+      }
+    }
+    return bestIndex != -1 ? pending.remove(bestIndex) : null;
+  }
+}
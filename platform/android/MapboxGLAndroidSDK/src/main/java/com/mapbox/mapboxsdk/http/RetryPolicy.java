@@ -0,0 +1,29 @@
+package com.mapbox.mapboxsdk.http;
+
+import android.support.annotation.Nullable;
+
+import java.io.IOException;
+
+/**
+ * Decides if a failed request for a map resource is retried before the failure is reported to the map, set with
+ * {@link HttpRequestUtil#setRetryPolicy(RetryPolicy)}.
+ * <p>
+ * Retries happen in the background without involving the map, which applies its own, slower, retry schedule
+ * to failures that are reported. Rate limited responses (HTTP 429) are never retried, the requests to that host
+ * are held back until the time given by the Retry-After or x-rate-limit-reset header instead.
+ * </p>
+ *
+ * @see ExponentialBackoffRetryPolicy
+ */
+public interface RetryPolicy {
+
+  /**
+   * Get the time to wait before retrying a failed request.
+   *
+   * @param attempt   the number of the attempt that failed, starting at 1
+   * @param code      the HTTP status code of the response, or 0 if no response was received
+   * @param exception the exception that caused the failure if no response was received, null otherwise
+   * @return the delay before the next attempt in milliseconds, or a negative value to report the failure
+   */
+  long getRetryDelayMillis(int attempt, int code, @Nullable IOException exception);
+}
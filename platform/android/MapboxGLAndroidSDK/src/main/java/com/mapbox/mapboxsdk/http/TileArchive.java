@@ -0,0 +1,29 @@
+package com.mapbox.mapboxsdk.http;
+
+import com.google.gson.JsonObject;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * A single file containing a tile set, read in place by the {@link TileArchiveFileSource}.
+ * Implementations are safe to use from multiple threads.
+ */
+abstract class TileArchive implements Closeable {
+
+  /**
+   * Get a tile, in XYZ tile coordinates.
+   *
+   * @return a buffer positioned at 0 containing the tile, or null if the archive doesn't contain the tile
+   * @throws IOException if the archive can't be read
+   */
+  abstract ByteBuffer getTile(int z, int x, int y) throws IOException;
+
+  /**
+   * Get the TileJSON describing the archive, without the tiles property.
+   *
+   * @throws IOException if the archive can't be read
+   */
+  abstract JsonObject getTileJson() throws IOException;
+}
@@ -0,0 +1,210 @@
+package com.mapbox.mapboxsdk.http;
+
+import android.support.annotation.NonNull;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static android.util.Log.WARN;
+
+/**
+ * Serves tiles straight from MBTiles and PMTiles archives on the device, without importing them into the offline
+ * database.
+ * <p>
+ * Archives are addressed by their absolute path, and are usable as soon as the file exists:
+ * <ul>
+ * <li>{@code mbtiles:///sdcard/packs/region.mbtiles} or {@code pmtiles:///sdcard/packs/region.pmtiles} as the url
+ * of a source returns TileJSON generated from the metadata of the archive.</li>
+ * <li>{@code mbtiles:///sdcard/packs/region.mbtiles/{z}/{x}/{y}} as a tile url template returns the tiles.</li>
+ * </ul>
+ * Archives stay open for later requests and are reopened when the file changes. The file source of the map hands
+ * archive requests straight to {@link HTTPRequest}, they're neither read from nor stored in the ambient cache.
+ * </p>
+ */
+final class TileArchiveFileSource {
+
+  static final String MBTILES_SCHEME = "mbtiles://";
+  static final String PMTILES_SCHEME = "pmtiles://";
+
+  private static final int THREAD_POOL_SIZE = 4;
+  private static final int MAX_OPEN_ARCHIVES = 8;
+  private static final Pattern TILE_PATH = Pattern.compile("^(.+)/(\\d+)/(\\d+)/(\\d+)(\\.\\w+)?$");
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  private static final ExecutorService executor = Executors.newFixedThreadPool(THREAD_POOL_SIZE,
+    new ThreadFactory() {
+      private final AtomicInteger threadCount = new AtomicInteger();
+
+      @Override
+      public Thread newThread(@NonNull Runnable runnable) {
+        Thread thread = new Thread(runnable, "TileArchiveFileSource-" + threadCount.getAndIncrement());
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
+
+  // Open archives by path, access ordered, guarded by itself
+  private static final Map<String, OpenArchive> archives = new LinkedHashMap<>(MAX_OPEN_ARCHIVES, 0.75f, true);
+
+  private TileArchiveFileSource() {
+  }
+
+  /**
+   * Returns true if the url refers to a tile archive.
+   *
+   * @param url the requested url
+   * @return true if the url is served by this file source
+   */
+  static boolean handles(String url) {
+    return url.startsWith(MBTILES_SCHEME) || url.startsWith(PMTILES_SCHEME);
+  }
+
+  /**
+   * Reads a tile or the TileJSON of an archive asynchronously. A missing archive is reported with a
+   * {@link FileNotFoundException}, a tile missing from the archive with null data.
+   *
+   * @param url      the url of the tile or archive
+   * @param callback the callback receiving the data
+   */
+  static void request(final String url, final FileSourceCallback callback) {
+    executor.execute(new Runnable() {
+      @Override
+      public void run() {
+        ByteBuffer data;
+        try {
+          data = read(url);
+        } catch (IOException exception) {
+          callback.onError(exception);
+          return;
+        } catch (RuntimeException exception) {
+          callback.onError(new IOException("Unable to read " + url, exception));
+          return;
+        }
+        callback.onData(data);
+      }
+    });
+  }
+
+  private static ByteBuffer read(String url) throws IOException {
+    boolean pmtiles = url.startsWith(PMTILES_SCHEME);
+    String path = url.substring(pmtiles ? PMTILES_SCHEME.length() : MBTILES_SCHEME.length());
+    int query = path.indexOf('?');
+    if (query != -1) {
+      path = path.substring(0, query);
+    }
+
+    Matcher matcher = TILE_PATH.matcher(path);
+    if (matcher.matches()) {
+      OpenArchive open = acquireArchive(matcher.group(1), pmtiles);
+      try {
+        return open.archive.getTile(
+          Integer.parseInt(matcher.group(2)), Integer.parseInt(matcher.group(3)), Integer.parseInt(matcher.group(4)));
+      } finally {
+        release(open);
+      }
+    }
+
+    JsonObject tileJson;
+    OpenArchive open = acquireArchive(path, pmtiles);
+    try {
+      tileJson = open.archive.getTileJson();
+    } finally {
+      release(open);
+    }
+    JsonArray tiles = new JsonArray();
+    tiles.add((pmtiles ? PMTILES_SCHEME : MBTILES_SCHEME) + path + "/{z}/{x}/{y}");
+    tileJson.add("tiles", tiles);
+    tileJson.addProperty("scheme", "xyz");
+    if (!tileJson.has("tilejson")) {
+      tileJson.addProperty("tilejson", "2.2.0");
+    }
+    return ByteBuffer.wrap(tileJson.toString().getBytes(UTF_8));
+  }
+
+  /**
+   * Get the open archive at a path, opening it if needed. The archive stays open until it is released with
+   * {@link #release(OpenArchive)}, even if it is replaced on disk or evicted in the meantime.
+   */
+  private static OpenArchive acquireArchive(String path, boolean pmtiles) throws IOException {
+    File file = new File(path);
+    if (!file.isFile()) {
+      throw new FileNotFoundException("No tile archive at " + path);
+    }
+
+    synchronized (archives) {
+      OpenArchive open = archives.get(path);
+      if (open != null && open.lastModified == file.lastModified() && open.length == file.length()) {
+        open.references++;
+        return open;
+      }
+      if (open != null) {
+        // Replaced on disk, the old archive is closed once its readers are done
+        archives.remove(path);
+        releaseLocked(open);
+      }
+
+      // Opening maps the file or reads the SQLite schema, which is quick enough to do under the lock
+      TileArchive archive = pmtiles ? new PMTilesArchive(file) : new MBTilesArchive(file);
+      open = new OpenArchive(archive, file.lastModified(), file.length());
+      archives.put(path, open);
+
+      Iterator<OpenArchive> iterator = archives.values().iterator();
+      while (archives.size() > MAX_OPEN_ARCHIVES && iterator.hasNext()) {
+        OpenArchive evicted = iterator.next();
+        iterator.remove();
+        releaseLocked(evicted);
+      }
+      open.references++;
+      return open;
+    }
+  }
+
+  private static void release(OpenArchive open) {
+    synchronized (archives) {
+      releaseLocked(open);
+    }
+  }
+
+  private static void releaseLocked(OpenArchive open) {
+    if (--open.references == 0) {
+      closeQuietly(open.archive);
+    }
+  }
+
+  private static void closeQuietly(TileArchive archive) {
+    try {
+      archive.close();
+    } catch (IOException exception) {
+      HTTPRequest.log(WARN, "[HTTP] Unable to close tile archive: " + exception.getMessage());
+    }
+  }
+
+  private static class OpenArchive {
+    private final TileArchive archive;
+    private final long lastModified;
+    private final long length;
+    // The table and every reader hold a reference, guarded by the table
+    private int references = 1;
+
+    OpenArchive(TileArchive archive, long lastModified, long length) {
+      this.archive = archive;
+      this.lastModified = lastModified;
+      this.length = length;
+    }
+  }
+}
@@ -14,6 +14,7 @@ import com.mapbox.mapboxsdk.R;
 import com.mapbox.mapboxsdk.annotations.Annotation;
 import com.mapbox.mapboxsdk.annotations.BaseMarkerOptions;
 import com.mapbox.mapboxsdk.annotations.BaseMarkerViewOptions;
+import com.mapbox.mapboxsdk.annotations.Icon;
 import com.mapbox.mapboxsdk.annotations.Marker;
 import com.mapbox.mapboxsdk.annotations.MarkerView;
 import com.mapbox.mapboxsdk.annotations.MarkerViewManager;
@@ -177,6 +178,11 @@ class AnnotationManager {
     return markers.addBy(markerOptionsList, mapboxMap);
   }
 
+  long[] addMarkers(@NonNull double[] latitudes, @NonNull double[] longitudes, @NonNull int[] iconIndices,
+                    @NonNull Icon[] icons, @NonNull MapboxMap mapboxMap) {
+    return markers.addBy(latitudes, longitudes, iconIndices, icons, mapboxMap);
+  }
+
   void updateMarker(@NonNull Marker updatedMarker, @NonNull MapboxMap mapboxMap) {
     if (!isAddedToMap(updatedMarker)) {
       logNonAdded(updatedMarker);
@@ -185,6 +191,10 @@ class AnnotationManager {
     markers.update(updatedMarker, mapboxMap);
   }
 
+  void updateMarkers(@NonNull long[] ids, @NonNull double[] latitudes, @NonNull double[] longitudes) {
+    markers.update(ids, latitudes, longitudes);
+  }
+
   List<Marker> getMarkers() {
     return markers.obtainAll();
   }
@@ -1,6 +1,7 @@
 package com.mapbox.mapboxsdk.maps;
 
 import android.graphics.Bitmap;
+import android.support.annotation.Nullable;
 
 import com.mapbox.mapboxsdk.Mapbox;
 import com.mapbox.mapboxsdk.annotations.Icon;
@@ -50,6 +51,23 @@ class IconManager {
     return icon;
   }
 
+  /**
+   * Loads an icon shared by markers that are added in bulk, the icon is transferred to the map at most once.
+   *
+   * @param icon  the icon, null for the default marker icon
+   * @param count the number of markers using the icon
+   * @return the loaded icon
+   */
+  Icon loadIconForMarkers(@Nullable Icon icon, int count) {
+    if (icon == null) {
+      icon = loadDefaultIcon();
+    } else {
+      updateHighestIconSize(icon);
+    }
+    addIcon(icon, count, true);
+    return icon;
+  }
+
   void loadIconForMarkerView(MarkerView marker) {
     Icon icon = marker.getIcon();
     Bitmap bitmap = icon.getBitmap();
@@ -70,10 +88,15 @@ class IconManager {
   }
 
   private Icon loadDefaultIconForMarker(Marker marker) {
+    Icon icon = loadDefaultIcon();
+    marker.setIcon(icon);
+    return icon;
+  }
+
+  private Icon loadDefaultIcon() {
     Icon icon = IconFactory.getInstance(Mapbox.getApplicationContext()).defaultMarker();
     Bitmap bitmap = icon.getBitmap();
     updateHighestIconSize(bitmap.getWidth(), bitmap.getHeight() / 2);
-    marker.setIcon(icon);
     return icon;
   }
 
@@ -82,13 +105,17 @@ class IconManager {
   }
 
   private void addIcon(Icon icon, boolean addIconToMap) {
+    addIcon(icon, 1, addIconToMap);
+  }
+
+  private void addIcon(Icon icon, int count, boolean addIconToMap) {
     if (!iconMap.keySet().contains(icon)) {
-      iconMap.put(icon, 1);
+      iconMap.put(icon, count);
       if (addIconToMap) {
         loadIcon(icon);
       }
     } else {
-      iconMap.put(icon, iconMap.get(icon) + 1);
+      iconMap.put(icon, iconMap.get(icon) + count);
     }
   }
 
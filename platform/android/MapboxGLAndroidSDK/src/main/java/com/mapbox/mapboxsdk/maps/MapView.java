@@ -29,6 +29,8 @@ import com.mapbox.android.telemetry.AppUserTurnstile;
 import com.mapbox.android.telemetry.Event;
 import com.mapbox.android.telemetry.MapEventFactory;
 import com.mapbox.android.telemetry.MapboxTelemetry;
+import com.mapbox.geojson.BoundingBox;
+import com.mapbox.geojson.Geometry;
 import com.mapbox.mapboxsdk.BuildConfig;
 import com.mapbox.mapboxsdk.R;
 import com.mapbox.mapboxsdk.annotations.Annotation;
@@ -36,14 +38,17 @@ import com.mapbox.mapboxsdk.annotations.MarkerViewManager;
 import com.mapbox.mapboxsdk.camera.CameraPosition;
 import com.mapbox.mapboxsdk.camera.CameraUpdateFactory;
 import com.mapbox.mapboxsdk.constants.MapboxConstants;
+import com.mapbox.mapboxsdk.constants.GeometryConstants;
 import com.mapbox.mapboxsdk.constants.Style;
+import com.mapbox.mapboxsdk.geometry.LatLng;
+import com.mapbox.mapboxsdk.geometry.LatLngBounds;
 import com.mapbox.mapboxsdk.maps.renderer.MapRenderer;
 import com.mapbox.mapboxsdk.maps.renderer.glsurfaceview.GLSurfaceViewMapRenderer;
 import com.mapbox.mapboxsdk.maps.renderer.textureview.TextureViewMapRenderer;
 import com.mapbox.mapboxsdk.maps.widgets.CompassView;
 import com.mapbox.mapboxsdk.net.ConnectivityReceiver;
+import com.mapbox.mapboxsdk.offline.OfflineGeometryRegionDefinition;
 import com.mapbox.mapboxsdk.offline.OfflineRegionDefinition;
-import com.mapbox.mapboxsdk.offline.OfflineTilePyramidRegionDefinition;
 import com.mapbox.mapboxsdk.storage.FileSource;
 import com.mapbox.mapboxsdk.utils.BitmapUtils;
 
@@ -567,22 +572,55 @@ public class MapView extends FrameLayout implements NativeMapView.ViewCallback {
       return;
     }
 
-    OfflineTilePyramidRegionDefinition regionDefinition = (OfflineTilePyramidRegionDefinition) definition;
-    setStyleUrl(regionDefinition.getStyleURL());
+    setStyleUrl(definition.getStyleURL());
     CameraPosition cameraPosition = new CameraPosition.Builder()
-      .target(regionDefinition.getBounds().getCenter())
-      .zoom(regionDefinition.getMinZoom())
+      .target(getRegionCenter(definition))
+      .zoom(definition.getMinZoom())
       .build();
 
     if (!isMapInitialized()) {
       mapboxMapOptions.camera(cameraPosition);
-      mapboxMapOptions.minZoomPreference(regionDefinition.getMinZoom());
-      mapboxMapOptions.maxZoomPreference(regionDefinition.getMaxZoom());
+      mapboxMapOptions.minZoomPreference(definition.getMinZoom());
+      mapboxMapOptions.maxZoomPreference(definition.getMaxZoom());
       return;
     }
     mapboxMap.moveCamera(CameraUpdateFactory.newCameraPosition(cameraPosition));
-    mapboxMap.setMinZoomPreference(regionDefinition.getMinZoom());
-    mapboxMap.setMaxZoomPreference(regionDefinition.getMaxZoom());
+    mapboxMap.setMinZoomPreference(definition.getMinZoom());
+    mapboxMap.setMaxZoomPreference(definition.getMaxZoom());
+  }
+
+  /**
+   * Returns the center of the region, or null to keep the current camera target when the region has no bounds.
+   * <p>
+   * Geometry definitions have no bounds when their geometry is empty or reaches outside of the valid latitudes,
+   * in which case the center of the bounding box of the GeoJSON geometry is used, if it has one.
+   * </p>
+   */
+  @Nullable
+  private static LatLng getRegionCenter(@NonNull OfflineRegionDefinition definition) {
+    LatLngBounds bounds = definition.getBounds();
+    if (bounds != null) {
+      return bounds.getCenter();
+    }
+
+    if (!(definition instanceof OfflineGeometryRegionDefinition)) {
+      return null;
+    }
+
+    Geometry geometry = ((OfflineGeometryRegionDefinition) definition).getGeometry();
+    BoundingBox bbox = geometry != null ? geometry.bbox() : null;
+    if (bbox == null) {
+      return null;
+    }
+
+    try {
+      return LatLngBounds.from(
+        Math.min(bbox.north(), GeometryConstants.MAX_LATITUDE), bbox.east(),
+        Math.max(bbox.south(), GeometryConstants.MIN_LATITUDE), bbox.west()
+      ).getCenter();
+    } catch (IllegalArgumentException exception) {
+      return null;
+    }
   }
 
   //
@@ -26,6 +26,7 @@ import com.mapbox.geojson.Geometry;
 import com.mapbox.mapboxsdk.annotations.Annotation;
 import com.mapbox.mapboxsdk.annotations.BaseMarkerOptions;
 import com.mapbox.mapboxsdk.annotations.BaseMarkerViewOptions;
+import com.mapbox.mapboxsdk.annotations.Icon;
 import com.mapbox.mapboxsdk.annotations.Marker;
 import com.mapbox.mapboxsdk.annotations.MarkerOptions;
 import com.mapbox.mapboxsdk.annotations.MarkerView;
@@ -43,8 +44,10 @@ import com.mapbox.mapboxsdk.geometry.LatLng;
 import com.mapbox.mapboxsdk.geometry.LatLngBounds;
 import com.mapbox.mapboxsdk.style.expressions.Expression;
 import com.mapbox.mapboxsdk.style.layers.Layer;
+import com.mapbox.mapboxsdk.style.layers.StyleBatch;
 import com.mapbox.mapboxsdk.style.light.Light;
 import com.mapbox.mapboxsdk.style.sources.Source;
+import com.mapbox.mapboxsdk.utils.ThreadUtils;
 
 import java.util.HashMap;
 import java.util.List;
@@ -340,6 +343,20 @@ public final class MapboxMap {
     nativeMapView.addLayerAt(layer, index);
   }
 
+  /**
+   * Applies all property changes collected in the batch in a single native call.
+   * <p>
+   * Use this instead of {@link Layer#setProperties} when updating many properties across
+   * many layers at once, for example when switching themes. The batch can be cleared and reused afterwards.
+   * </p>
+   *
+   * @param batch the property changes to apply
+   */
+  public void batchStyleUpdate(@NonNull StyleBatch batch) {
+    ThreadUtils.checkThread("MapboxMap");
+    nativeMapView.setLayerProperties(batch);
+  }
+
   /**
    * Removes the layer. Any references to the layer become invalid and should not be used anymore
    *
@@ -1225,6 +1242,27 @@ public final class MapboxMap {
     return annotationManager.addMarkers(markerOptionsList, this);
   }
 
+  /**
+   * <p>
+   * Adds multiple markers to this map from parallel arrays of coordinates and icon indices.
+   * </p>
+   * Compared to {@link #addMarkers(List)} this avoids building an options object per marker and
+   * transfers all markers to the map in a single batch. The marker at index {@code i} is placed at
+   * {@code latitudes[i]}, {@code longitudes[i]} and rendered with {@code icons[iconIndices[i]]}, a
+   * {@code null} icon results in the default marker icon.
+   *
+   * @param latitudes   the latitudes of the markers
+   * @param longitudes  the longitudes of the markers
+   * @param iconIndices the index in {@code icons} of the icon of each marker
+   * @param icons       the icons referenced by {@code iconIndices}
+   * @return the ids of the markers that were added to the map, in the order of the input arrays
+   */
+  @NonNull
+  public long[] addMarkers(@NonNull double[] latitudes, @NonNull double[] longitudes,
+                           @NonNull int[] iconIndices, @NonNull Icon[] icons) {
+    return annotationManager.addMarkers(latitudes, longitudes, iconIndices, icons, this);
+  }
+
   /**
    * <p>
    * Updates a marker on this map. Does nothing if the marker isn't already added.
@@ -1236,6 +1274,20 @@ public final class MapboxMap {
     annotationManager.updateMarker(updatedMarker, this);
   }
 
+  /**
+   * <p>
+   * Updates the positions of multiple markers on this map in a single batch. Ids of markers that
+   * aren't added to the map are ignored.
+   * </p>
+   *
+   * @param ids        the ids of the markers to update
+   * @param latitudes  the new latitudes of the markers
+   * @param longitudes the new longitudes of the markers
+   */
+  public void updateMarkers(@NonNull long[] ids, @NonNull double[] latitudes, @NonNull double[] longitudes) {
+    annotationManager.updateMarkers(ids, latitudes, longitudes);
+  }
+
   /**
    * Adds a polyline to this map.
    *
@@ -14,10 +14,13 @@ import com.mapbox.mapboxsdk.annotations.IconFactory;
 import com.mapbox.mapboxsdk.annotations.Marker;
 import com.mapbox.mapboxsdk.annotations.MarkerView;
 import com.mapbox.mapboxsdk.annotations.MarkerViewManager;
+import com.mapbox.mapboxsdk.geometry.LatLng;
 
 import java.util.ArrayList;
 import java.util.List;
 
+import timber.log.Timber;
+
 /**
  * Encapsulates {@link Marker}'s functionality.
  */
@@ -28,6 +31,9 @@ class MarkerContainer implements Markers {
   private final LongSparseArray<Annotation> annotations;
   private final IconManager iconManager;
   private final MarkerViewManager markerViewManager;
+  // Collects the markers updated by a bulk update, null outside of one
+  @Nullable
+  private List<Marker> batchedMarkers;
 
   MarkerContainer(NativeMapView nativeMapView, MapView mapView, LongSparseArray<Annotation> annotations, IconManager
     iconManager, MarkerViewManager markerViewManager) {
@@ -75,8 +81,88 @@ class MarkerContainer implements Markers {
     return markers;
   }
 
+  @Override
+  public long[] addBy(@NonNull double[] latitudes, @NonNull double[] longitudes, @NonNull int[] iconIndices,
+                      @NonNull Icon[] icons, @NonNull MapboxMap mapboxMap) {
+    int count = latitudes.length;
+    if (longitudes.length != count || iconIndices.length != count) {
+      throw new IllegalArgumentException("latitudes, longitudes and iconIndices must have the same length");
+    }
+
+    int[] iconCounts = new int[icons.length];
+    for (int iconIndex : iconIndices) {
+      if (iconIndex < 0 || iconIndex >= icons.length) {
+        throw new IllegalArgumentException(
+          "Icon index " + iconIndex + " is out of bounds for " + icons.length + " icons");
+      }
+      iconCounts[iconIndex]++;
+    }
+
+    if (nativeMapView == null || count == 0) {
+      return new long[] {};
+    }
+
+    // Each icon is transferred to the map once, no matter how many markers use it
+    Icon[] loadedIcons = new Icon[icons.length];
+    int[] topOffsetPixels = new int[icons.length];
+    for (int i = 0; i < icons.length; i++) {
+      if (iconCounts[i] > 0) {
+        loadedIcons[i] = iconManager.loadIconForMarkers(icons[i], iconCounts[i]);
+        topOffsetPixels[i] = iconManager.getTopOffsetPixelsForIcon(loadedIcons[i]);
+      }
+    }
+
+    List<Marker> markers = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      Marker marker = new Marker(new LatLng(latitudes[i], longitudes[i]), loadedIcons[iconIndices[i]], null, null);
+      marker.setTopOffsetPixels(topOffsetPixels[iconIndices[i]]);
+      markers.add(marker);
+    }
+
+    long[] ids = nativeMapView.addMarkers(markers);
+    for (int i = 0; i < ids.length; i++) {
+      Marker createdMarker = markers.get(i);
+      createdMarker.setMapboxMap(mapboxMap);
+      createdMarker.setId(ids[i]);
+      annotations.put(ids[i], createdMarker);
+    }
+    return ids;
+  }
+
+  @Override
+  public void update(@NonNull long[] ids, @NonNull double[] latitudes, @NonNull double[] longitudes) {
+    int count = ids.length;
+    if (latitudes.length != count || longitudes.length != count) {
+      throw new IllegalArgumentException("ids, latitudes and longitudes must have the same length");
+    }
+
+    // Setting the positions only collects the markers, they're synchronised with the map in a single batch
+    List<Marker> markers = new ArrayList<>(count);
+    batchedMarkers = markers;
+    try {
+      for (int i = 0; i < count; i++) {
+        Annotation annotation = annotations.get(ids[i]);
+        if (annotation instanceof Marker) {
+          ((Marker) annotation).setPosition(new LatLng(latitudes[i], longitudes[i]));
+        } else {
+          Timber.w("Attempting to update non-added marker with id %s", ids[i]);
+        }
+      }
+    } finally {
+      batchedMarkers = null;
+    }
+
+    if (!markers.isEmpty()) {
+      nativeMapView.updateMarkers(markers);
+    }
+  }
+
   @Override
   public void update(@NonNull Marker updatedMarker, @NonNull MapboxMap mapboxMap) {
+    if (batchedMarkers != null) {
+      batchedMarkers.add(updatedMarker);
+      return;
+    }
     ensureIconLoaded(updatedMarker, mapboxMap);
     nativeMapView.updateMarker(updatedMarker);
     annotations.setValueAt(annotations.indexOfKey(updatedMarker.getId()), updatedMarker);
@@ -100,22 +186,14 @@ class MarkerContainer implements Markers {
   public List<Marker> obtainAllIn(@NonNull RectF rectangle) {
     RectF rect = nativeMapView.getDensityDependantRectangle(rectangle);
     long[] ids = nativeMapView.queryPointAnnotations(rect);
-    List<Long> idsList = new ArrayList<>(ids.length);
+    List<Marker> markers = new ArrayList<>(ids.length);
     for (long id : ids) {
-      idsList.add(id);
-    }
-
-    List<Marker> annotations = new ArrayList<>(ids.length);
-    List<Annotation> annotationList = obtainAnnotations();
-    int count = annotationList.size();
-    for (int i = 0; i < count; i++) {
-      Annotation annotation = annotationList.get(i);
-      if (annotation instanceof com.mapbox.mapboxsdk.annotations.Marker && idsList.contains(annotation.getId())) {
-        annotations.add((com.mapbox.mapboxsdk.annotations.Marker) annotation);
+      Annotation annotation = annotations.get(id);
+      if (annotation instanceof Marker) {
+        markers.add((Marker) annotation);
       }
     }
-
-    return new ArrayList<>(annotations);
+    return markers;
   }
 
   @Override
@@ -169,23 +247,14 @@ class MarkerContainer implements Markers {
       rectangle.bottom / pixelRatio);
 
     long[] ids = nativeMapView.queryPointAnnotations(rect);
-
-    List<Long> idsList = new ArrayList<>(ids.length);
+    List<MarkerView> markerViews = new ArrayList<>(ids.length);
     for (long id : ids) {
-      idsList.add(id);
-    }
-
-    List<MarkerView> annotations = new ArrayList<>(ids.length);
-    List<Annotation> annotationList = obtainAnnotations();
-    int count = annotationList.size();
-    for (int i = 0; i < count; i++) {
-      Annotation annotation = annotationList.get(i);
-      if (annotation instanceof MarkerView && idsList.contains(annotation.getId())) {
-        annotations.add((MarkerView) annotation);
+      Annotation annotation = annotations.get(id);
+      if (annotation instanceof MarkerView) {
+        markerViews.add((MarkerView) annotation);
       }
     }
-
-    return new ArrayList<>(annotations);
+    return markerViews;
   }
 
   @Override
@@ -216,14 +285,6 @@ class MarkerContainer implements Markers {
     }
   }
 
-  private List<Annotation> obtainAnnotations() {
-    List<Annotation> annotations = new ArrayList<>();
-    for (int i = 0; i < this.annotations.size(); i++) {
-      annotations.add(this.annotations.get(this.annotations.keyAt(i)));
-    }
-    return annotations;
-  }
-
   private MarkerView prepareViewMarker(BaseMarkerViewOptions markerViewOptions) {
     MarkerView marker = markerViewOptions.getMarker();
     Icon icon = markerViewOptions.getIcon();
@@ -7,6 +7,7 @@ import android.support.annotation.Nullable;
 
 import com.mapbox.mapboxsdk.annotations.BaseMarkerOptions;
 import com.mapbox.mapboxsdk.annotations.BaseMarkerViewOptions;
+import com.mapbox.mapboxsdk.annotations.Icon;
 import com.mapbox.mapboxsdk.annotations.Marker;
 import com.mapbox.mapboxsdk.annotations.MarkerView;
 import com.mapbox.mapboxsdk.annotations.MarkerViewManager;
@@ -21,8 +22,13 @@ interface Markers {
 
   List<Marker> addBy(@NonNull List<? extends BaseMarkerOptions> markerOptionsList, @NonNull MapboxMap mapboxMap);
 
+  long[] addBy(@NonNull double[] latitudes, @NonNull double[] longitudes, @NonNull int[] iconIndices,
+               @NonNull Icon[] icons, @NonNull MapboxMap mapboxMap);
+
   void update(@NonNull Marker updatedMarker, @NonNull MapboxMap mapboxMap);
 
+  void update(@NonNull long[] ids, @NonNull double[] latitudes, @NonNull double[] longitudes);
+
   List<Marker> obtainAll();
 
   List<Marker> obtainAllIn(@NonNull RectF rectangle);
@@ -29,6 +29,7 @@ import com.mapbox.mapboxsdk.storage.FileSource;
 import com.mapbox.mapboxsdk.style.expressions.Expression;
 import com.mapbox.mapboxsdk.style.layers.CannotAddLayerException;
 import com.mapbox.mapboxsdk.style.layers.Layer;
+import com.mapbox.mapboxsdk.style.layers.StyleBatch;
 import com.mapbox.mapboxsdk.style.light.Light;
 import com.mapbox.mapboxsdk.style.sources.CannotAddSourceException;
 import com.mapbox.mapboxsdk.style.sources.Source;
@@ -38,6 +39,7 @@ import timber.log.Timber;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -423,15 +425,19 @@ final class NativeMapView {
     if (checkState("addMarker")) {
       return 0;
     }
-    Marker[] markers = {marker};
-    return nativeAddMarkers(markers)[0];
+    return addMarkers(Collections.singletonList(marker))[0];
   }
 
   public long[] addMarkers(List<Marker> markers) {
     if (checkState("addMarkers")) {
       return new long[] {};
     }
-    return nativeAddMarkers(markers.toArray(new Marker[markers.size()]));
+    int count = markers.size();
+    double[] latitudes = new double[count];
+    double[] longitudes = new double[count];
+    int[] iconIndices = new int[count];
+    String[] iconIds = flattenMarkers(markers, latitudes, longitudes, iconIndices);
+    return nativeAddMarkers(latitudes, longitudes, iconIds, iconIndices);
   }
 
   public long addPolyline(Polyline polyline) {
@@ -473,6 +479,50 @@ final class NativeMapView {
     nativeUpdateMarker(marker.getId(), position.getLatitude(), position.getLongitude(), icon.getId());
   }
 
+  public void updateMarkers(List<Marker> markers) {
+    if (checkState("updateMarkers")) {
+      return;
+    }
+    int count = markers.size();
+    long[] ids = new long[count];
+    double[] latitudes = new double[count];
+    double[] longitudes = new double[count];
+    int[] iconIndices = new int[count];
+    String[] iconIds = flattenMarkers(markers, latitudes, longitudes, iconIndices);
+    for (int i = 0; i < count; i++) {
+      ids[i] = markers.get(i).getId();
+    }
+    nativeUpdateMarkers(ids, latitudes, longitudes, iconIds, iconIndices);
+  }
+
+  /**
+   * Flattens markers into parallel primitive arrays so they can be marshalled in a single JNI call,
+   * without native code having to read back every marker's fields.
+   *
+   * @return the distinct icon ids referenced by {@code iconIndices}
+   */
+  private static String[] flattenMarkers(List<Marker> markers, double[] latitudes, double[] longitudes,
+                                         int[] iconIndices) {
+    Map<String, Integer> iconIdIndices = new HashMap<>();
+    List<String> iconIds = new ArrayList<>();
+    for (int i = 0; i < markers.size(); i++) {
+      Marker marker = markers.get(i);
+      LatLng position = marker.getPosition();
+      latitudes[i] = position.getLatitude();
+      longitudes[i] = position.getLongitude();
+
+      String iconId = marker.getIcon().getId();
+      Integer iconIndex = iconIdIndices.get(iconId);
+      if (iconIndex == null) {
+        iconIndex = iconIds.size();
+        iconIdIndices.put(iconId, iconIndex);
+        iconIds.add(iconId);
+      }
+      iconIndices[i] = iconIndex;
+    }
+    return iconIds.toArray(new String[iconIds.size()]);
+  }
+
   public void updatePolygon(Polygon polygon) {
     if (checkState("updatePolygon")) {
       return;
@@ -728,6 +778,13 @@ final class NativeMapView {
     nativeAddLayerAt(layer.getNativePtr(), index);
   }
 
+  public void setLayerProperties(@NonNull StyleBatch batch) {
+    if (checkState("setLayerProperties") || batch.isEmpty()) {
+      return;
+    }
+    nativeSetLayerProperties(batch.getLayers(), batch.getNames(), batch.getValues(), batch.getPaintFlags());
+  }
+
   @Nullable
   public Layer removeLayer(@NonNull String layerId) {
     if (checkState("removeLayer")) {
@@ -1025,7 +1082,11 @@ final class NativeMapView {
   private native void nativeUpdateMarker(long markerId, double lat, double lon, String iconId);
 
   @Keep
-  private native long[] nativeAddMarkers(Marker[] markers);
+  private native void nativeUpdateMarkers(long[] markerIds, double[] latitudes, double[] longitudes,
+                                          String[] iconIds, int[] iconIndices);
+
+  @Keep
+  private native long[] nativeAddMarkers(double[] latitudes, double[] longitudes, String[] iconIds, int[] iconIndices);
 
   @Keep
   private native long[] nativeAddPolylines(Polyline[] polylines);
@@ -1130,6 +1191,10 @@ final class NativeMapView {
   @Keep
   private native void nativeAddLayerAt(long layerPtr, int index) throws CannotAddLayerException;
 
+  @Keep
+  private native void nativeSetLayerProperties(Layer[] layers, String[] names, Object[] values,
+                                               boolean[] paintFlags);
+
   @Keep
   private native Layer nativeRemoveLayerById(String layerId);
 
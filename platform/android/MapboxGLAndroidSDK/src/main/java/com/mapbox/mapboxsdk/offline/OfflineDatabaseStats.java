@@ -0,0 +1,184 @@
+package com.mapbox.mapboxsdk.offline;
+
+import android.support.annotation.Keep;
+import android.support.annotation.NonNull;
+
+/**
+ * Storage used by the offline database, obtained with
+ * {@link OfflineManager#getDatabaseStats(OfflineManager.GetDatabaseStatsCallback)}.
+ * <p>
+ * The ambient cache and the offline regions share a single database. Sizes are the stored sizes of
+ * resources and tiles; the database file also holds indexes and partially filled pages, so
+ * {@link #getDatabaseSize()} is larger than their sum.
+ * </p>
+ */
+public class OfflineDatabaseStats {
+
+  /**
+   * The size of a database page in bytes.
+   */
+  private final long pageSize;
+
+  /**
+   * The number of pages of the database file, including free pages.
+   */
+  private final long pageCount;
+
+  /**
+   * The number of free pages.
+   */
+  private final long freePageCount;
+
+  /**
+   * The IDs of the regions, matching the indexes of the size arrays.
+   */
+  private final long[] regionIds;
+
+  /**
+   * The stored size of the resources and tiles of each region.
+   */
+  private final long[] regionSizes;
+
+  /**
+   * The stored size of the resources and tiles of each region also required by other regions.
+   */
+  private final long[] regionSharedSizes;
+
+  /**
+   * The stored size of the resources and tiles required by more than one region, counted once.
+   */
+  private final long sharedSize;
+
+  /**
+   * The stored size of the resources and tiles not required by any region.
+   */
+  private final long ambientCacheSize;
+
+  /*
+   * Use OfflineManager#getDatabaseStats to obtain an OfflineDatabaseStats object.
+   *
+   * For JNI use only
+   */
+  @Keep
+  private OfflineDatabaseStats(long pageSize, long pageCount, long freePageCount,
+                               long[] regionIds, long[] regionSizes, long[] regionSharedSizes,
+                               long sharedSize, long ambientCacheSize) {
+    this.pageSize = pageSize;
+    this.pageCount = pageCount;
+    this.freePageCount = freePageCount;
+    this.regionIds = regionIds;
+    this.regionSizes = regionSizes;
+    this.regionSharedSizes = regionSharedSizes;
+    this.sharedSize = sharedSize;
+    this.ambientCacheSize = ambientCacheSize;
+  }
+
+  /**
+   * Get the size of a database page in bytes.
+   *
+   * @return the page size
+   */
+  public long getPageSize() {
+    return pageSize;
+  }
+
+  /**
+   * Get the number of pages of the database file, including free pages.
+   *
+   * @return the page count
+   */
+  public long getPageCount() {
+    return pageCount;
+  }
+
+  /**
+   * Get the number of free pages, left behind by deleted regions and evicted resources. They are reused
+   * for new data, and returned to the file system by {@link OfflineManager#compact(OfflineManager.CompactDatabaseCallback)}.
+   *
+   * @return the free page count
+   */
+  public long getFreePageCount() {
+    return freePageCount;
+  }
+
+  /**
+   * Get the size of the database file in bytes.
+   *
+   * @return the size of the database file
+   */
+  public long getDatabaseSize() {
+    return pageCount * pageSize;
+  }
+
+  /**
+   * Get the size, in bytes, that compacting the database would return to the file system.
+   *
+   * @return the size of the free pages
+   */
+  public long getFreeSize() {
+    return freePageCount * pageSize;
+  }
+
+  /**
+   * Get the IDs of the regions in the database.
+   *
+   * @return the region IDs
+   */
+  @NonNull
+  public long[] getRegionIds() {
+    return regionIds.clone();
+  }
+
+  /**
+   * Get the stored size, in bytes, of the resources and tiles of a region. Resources required by
+   * several regions are included in the size of each of them.
+   *
+   * @param regionId the ID of the region, see {@link OfflineRegion#getID()}
+   * @return the size of the region, or 0 if the region isn't in the database
+   */
+  public long getRegionSize(long regionId) {
+    int index = indexOf(regionId);
+    return index >= 0 ? regionSizes[index] : 0;
+  }
+
+  /**
+   * Get the stored size, in bytes, of the resources and tiles of a region that are also required by other
+   * regions. Deleting the region doesn't free them.
+   *
+   * @param regionId the ID of the region, see {@link OfflineRegion#getID()}
+   * @return the shared size of the region, or 0 if the region isn't in the database
+   */
+  public long getRegionSharedSize(long regionId) {
+    int index = indexOf(regionId);
+    return index >= 0 ? regionSharedSizes[index] : 0;
+  }
+
+  /**
+   * Get the stored size, in bytes, of the resources and tiles required by more than one region,
+   * counted once.
+   *
+   * @return the shared size
+   */
+  public long getSharedSize() {
+    return sharedSize;
+  }
+
+  /**
+   * Get the stored size, in bytes, of the resources and tiles of the ambient cache, which aren't required
+   * by any region.
+   *
+   * @return the size of the ambient cache
+   */
+  public long getAmbientCacheSize() {
+    return ambientCacheSize;
+  }
+
+  private int indexOf(long regionId) {
+    for (int i = 0; i < regionIds.length; i++) {
+      if (regionIds[i] == regionId) {
+        return i;
+      }
+    }
+    return -1;
+  }
+}
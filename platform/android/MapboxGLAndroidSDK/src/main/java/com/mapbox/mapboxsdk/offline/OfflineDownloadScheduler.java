@@ -0,0 +1,474 @@
+package com.mapbox.mapboxsdk.offline;
+
+import android.annotation.SuppressLint;
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.UiThread;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.mapbox.mapboxsdk.storage.FileSource;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import timber.log.Timber;
+
+/**
+ * Downloads several offline regions, a limited number at a time, in order of priority.
+ * <p>
+ * Each region can be given a bandwidth limit, so that downloads sharing a connection leave room for each
+ * other. The queue is saved next to the offline database and restored when the scheduler is created again,
+ * for example after the process was killed. Downloads continue where they stopped, the tiles that were
+ * stored already aren't checked again.
+ * </p>
+ * <p>
+ * The scheduler observes the regions it downloads, use a {@link DownloadListener} instead of
+ * {@link OfflineRegion#setObserver(OfflineRegion.OfflineRegionObserver)} for those regions.
+ * </p>
+ */
+@UiThread
+public final class OfflineDownloadScheduler {
+
+  /**
+   * Default number of regions downloaded at the same time.
+   */
+  public static final int DEFAULT_MAX_CONCURRENT_DOWNLOADS = 2;
+
+  private static final String STATE_FILE_NAME = "mbgl-offline-downloads.json";
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  private static final String KEY_REGION_ID = "region_id";
+  private static final String KEY_PRIORITY = "priority";
+  private static final String KEY_BANDWIDTH_LIMIT = "bandwidth_limit";
+
+  // Higher priorities first, then in the order the downloads were added
+  private static final Comparator<Download> DOWNLOAD_ORDER = new Comparator<Download>() {
+    @Override
+    public int compare(Download first, Download second) {
+      if (first.priority != second.priority) {
+        return first.priority > second.priority ? -1 : 1;
+      }
+      return first.sequence < second.sequence ? -1 : (first.sequence == second.sequence ? 0 : 1);
+    }
+  };
+
+  /**
+   * Receives the progress of the regions downloaded by the scheduler. Methods are called on the main thread.
+   */
+  public interface DownloadListener {
+
+    /**
+     * Called when the status of a downloading region changes.
+     *
+     * @param region the region
+     * @param status the changed status
+     */
+    void onStatusChanged(@NonNull OfflineRegion region, @NonNull OfflineRegionStatus status);
+
+    /**
+     * Called when a resource of a region couldn't be downloaded. The download continues, failed resources are
+     * requested again later.
+     *
+     * @param region the region
+     * @param error  the error
+     */
+    void onError(@NonNull OfflineRegion region, @NonNull OfflineRegionError error);
+
+    /**
+     * Called when a region is downloaded completely, it is removed from the queue.
+     *
+     * @param region the region
+     */
+    void onComplete(@NonNull OfflineRegion region);
+
+    /**
+     * Called when a region can't be downloaded further because the limit on the number of Mapbox tiles is
+     * reached, it is removed from the queue.
+     *
+     * @param region the region
+     * @param limit  the tile count limit
+     */
+    void onTileCountLimitExceeded(@NonNull OfflineRegion region, long limit);
+  }
+
+  @SuppressLint("StaticFieldLeak")
+  private static OfflineDownloadScheduler instance;
+
+  private final File stateFile;
+  private final Handler handler = new Handler(Looper.getMainLooper());
+  // Writes the state file, in order
+  private final Executor stateWriter;
+
+  private final List<Download> downloads = new ArrayList<>();
+  private int maxConcurrentDownloads = DEFAULT_MAX_CONCURRENT_DOWNLOADS;
+  private long nextSequence;
+  @Nullable
+  private DownloadListener listener;
+
+  /**
+   * Get the single instance of the scheduler. The downloads that were queued when the process ended are
+   * restored and resumed.
+   *
+   * @param context the context used to find the offline database
+   * @return the single instance of the scheduler
+   */
+  public static synchronized OfflineDownloadScheduler getInstance(@NonNull Context context) {
+    if (instance == null) {
+      instance = new OfflineDownloadScheduler(context.getApplicationContext());
+    }
+    return instance;
+  }
+
+  private OfflineDownloadScheduler(Context context) {
+    this(new File(FileSource.getCachePath(context), STATE_FILE_NAME), OfflineManager.getInstance(context),
+      Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(@NonNull Runnable runnable) {
+          Thread thread = new Thread(runnable, "OfflineDownloadScheduler");
+          thread.setDaemon(true);
+          return thread;
+        }
+      }));
+  }
+
+  OfflineDownloadScheduler(File stateFile, OfflineManager offlineManager, Executor stateWriter) {
+    this.stateFile = stateFile;
+    this.stateWriter = stateWriter;
+    restore(offlineManager);
+  }
+
+  /**
+   * Set the listener receiving the progress of the downloads.
+   *
+   * @param listener the listener, or null to remove it
+   */
+  public void setDownloadListener(@Nullable DownloadListener listener) {
+    this.listener = listener;
+  }
+
+  /**
+   * Set the number of regions downloaded at the same time. Regions with the highest priority are downloaded
+   * first, others wait until a download completes.
+   *
+   * @param maxConcurrentDownloads the maximum number of concurrent downloads, defaults to
+   *                               {@link #DEFAULT_MAX_CONCURRENT_DOWNLOADS}
+   */
+  public void setMaxConcurrentDownloads(int maxConcurrentDownloads) {
+    if (maxConcurrentDownloads < 1) {
+      throw new IllegalArgumentException("Max concurrent downloads must be at least 1");
+    }
+    this.maxConcurrentDownloads = maxConcurrentDownloads;
+    schedule();
+  }
+
+  /**
+   * Get the number of regions downloaded at the same time.
+   *
+   * @return the maximum number of concurrent downloads
+   */
+  public int getMaxConcurrentDownloads() {
+    return maxConcurrentDownloads;
+  }
+
+  /**
+   * Add a region to the queue with the default priority of 0 and without a bandwidth limit.
+   *
+   * @param region the region to download
+   */
+  public void enqueue(@NonNull OfflineRegion region) {
+    enqueue(region, 0, 0);
+  }
+
+  /**
+   * Add a region to the queue, or update the priority and bandwidth limit of a queued region.
+   * <p>
+   * A region with a higher priority preempts the download of a region with a lower priority when all
+   * downloads are in use. Regions with the same priority are downloaded in the order they were added.
+   * </p>
+   *
+   * @param region         the region to download
+   * @param priority       the priority of the region, higher priorities are downloaded first
+   * @param bytesPerSecond the bandwidth limit of the region, or 0 for no limit
+   */
+  public void enqueue(@NonNull OfflineRegion region, int priority, long bytesPerSecond) {
+    if (bytesPerSecond < 0) {
+      throw new IllegalArgumentException("Bandwidth limit can't be negative");
+    }
+
+    Download download = find(region.getID());
+    if (download == null) {
+      download = new Download(region, nextSequence++);
+      downloads.add(download);
+    } else {
+      download.region = region;
+    }
+    download.priority = priority;
+    download.bandwidthLimit = bytesPerSecond;
+    if (download.active) {
+      region.setBandwidthLimit(bytesPerSecond);
+    }
+
+    schedule();
+    save();
+  }
+
+  /**
+   * Remove a region from the queue, stopping its download. The resources downloaded so far are kept.
+   *
+   * @param region the region to remove
+   * @return true if the region was queued
+   */
+  public boolean remove(@NonNull OfflineRegion region) {
+    Download download = find(region.getID());
+    if (download == null) {
+      return false;
+    }
+
+    downloads.remove(download);
+    stop(download);
+    schedule();
+    save();
+    return true;
+  }
+
+  /**
+   * Get if a region is queued or being downloaded.
+   *
+   * @param region the region
+   * @return true if the region is queued
+   */
+  public boolean isQueued(@NonNull OfflineRegion region) {
+    return find(region.getID()) != null;
+  }
+
+  /**
+   * Get if a region is being downloaded, as opposed to waiting in the queue.
+   *
+   * @param region the region
+   * @return true if the region is being downloaded
+   */
+  public boolean isDownloading(@NonNull OfflineRegion region) {
+    Download download = find(region.getID());
+    return download != null && download.active;
+  }
+
+  @Nullable
+  private Download find(long regionId) {
+    for (Download download : downloads) {
+      if (download.region.getID() == regionId) {
+        return download;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Downloads the regions with the highest priority and stops the others.
+   */
+  private void schedule() {
+    List<Download> ordered = new ArrayList<>(downloads);
+    Collections.sort(ordered, DOWNLOAD_ORDER);
+
+    // Stop preempted downloads first, so the number of running downloads never exceeds the limit
+    for (int i = maxConcurrentDownloads; i < ordered.size(); i++) {
+      Download download = ordered.get(i);
+      if (download.active) {
+        stop(download);
+      }
+    }
+    for (int i = 0; i < Math.min(maxConcurrentDownloads, ordered.size()); i++) {
+      Download download = ordered.get(i);
+      if (!download.active) {
+        start(download);
+      }
+    }
+  }
+
+  private void start(final Download download) {
+    final OfflineRegion region = download.region;
+    download.active = true;
+    region.setObserver(new OfflineRegion.OfflineRegionObserver() {
+      @Override
+      public void onStatusChanged(OfflineRegionStatus status) {
+        if (!download.active) {
+          return;
+        }
+        if (listener != null) {
+          listener.onStatusChanged(region, status);
+        }
+        if (status.isComplete()) {
+          finish(download);
+          if (listener != null) {
+            listener.onComplete(region);
+          }
+        }
+      }
+
+      @Override
+      public void onError(OfflineRegionError error) {
+        if (download.active && listener != null) {
+          listener.onError(region, error);
+        }
+      }
+
+      @Override
+      public void mapboxTileCountLimitExceeded(long limit) {
+        if (!download.active) {
+          return;
+        }
+        finish(download);
+        if (listener != null) {
+          listener.onTileCountLimitExceeded(region, limit);
+        }
+      }
+    });
+    region.setBandwidthLimit(download.bandwidthLimit);
+    region.setDownloadState(OfflineRegion.STATE_ACTIVE);
+  }
+
+  private void stop(Download download) {
+    if (download.active) {
+      download.active = false;
+      download.region.setDownloadState(OfflineRegion.STATE_INACTIVE);
+    }
+  }
+
+  private void finish(Download download) {
+    downloads.remove(download);
+    stop(download);
+    schedule();
+    save();
+  }
+
+  private void save() {
+    final JsonArray state = new JsonArray();
+    List<Download> ordered = new ArrayList<>(downloads);
+    Collections.sort(ordered, new Comparator<Download>() {
+      @Override
+      public int compare(Download first, Download second) {
+        return first.sequence < second.sequence ? -1 : (first.sequence == second.sequence ? 0 : 1);
+      }
+    });
+    for (Download download : ordered) {
+      JsonObject entry = new JsonObject();
+      entry.addProperty(KEY_REGION_ID, download.region.getID());
+      entry.addProperty(KEY_PRIORITY, download.priority);
+      entry.addProperty(KEY_BANDWIDTH_LIMIT, download.bandwidthLimit);
+      state.add(entry);
+    }
+
+    stateWriter.execute(new Runnable() {
+      @Override
+      public void run() {
+        // Written to a temporary file first, so a crash while writing doesn't lose the previous state
+        File temporaryFile = new File(stateFile.getPath() + ".tmp");
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(temporaryFile), UTF_8)) {
+          writer.write(state.toString());
+        } catch (IOException exception) {
+          Timber.e(exception, "Failed to save the offline download queue: ");
+          return;
+        }
+        if (!temporaryFile.renameTo(stateFile)) {
+          Timber.e("Failed to save the offline download queue to %s", stateFile);
+        }
+      }
+    });
+  }
+
+  private void restore(final OfflineManager offlineManager) {
+    stateWriter.execute(new Runnable() {
+      @Override
+      public void run() {
+        if (!stateFile.exists()) {
+          return;
+        }
+
+        final JsonArray state;
+        try (Reader reader = new InputStreamReader(new FileInputStream(stateFile), UTF_8)) {
+          state = new JsonParser().parse(reader).getAsJsonArray();
+        } catch (IOException | JsonParseException | IllegalStateException exception) {
+          Timber.e(exception, "Failed to read the offline download queue: ");
+          return;
+        }
+
+        handler.post(new Runnable() {
+          @Override
+          public void run() {
+            restore(offlineManager, state);
+          }
+        });
+      }
+    });
+  }
+
+  private void restore(OfflineManager offlineManager, final JsonArray state) {
+    offlineManager.listOfflineRegions(new OfflineManager.ListOfflineRegionsCallback() {
+      @Override
+      public void onList(OfflineRegion[] offlineRegions) {
+        Map<Long, OfflineRegion> regions = new HashMap<>();
+        for (OfflineRegion region : offlineRegions) {
+          regions.put(region.getID(), region);
+        }
+
+        // Regions deleted in the meantime are dropped, regions queued again in the meantime keep their settings
+        for (JsonElement element : state) {
+          if (!element.isJsonObject() || !element.getAsJsonObject().has(KEY_REGION_ID)
+            || !element.getAsJsonObject().has(KEY_PRIORITY) || !element.getAsJsonObject().has(KEY_BANDWIDTH_LIMIT)) {
+            continue;
+          }
+          JsonObject entry = element.getAsJsonObject();
+          OfflineRegion region = regions.get(entry.get(KEY_REGION_ID).getAsLong());
+          if (region != null && find(region.getID()) == null) {
+            Download download = new Download(region, nextSequence++);
+            download.priority = entry.get(KEY_PRIORITY).getAsInt();
+            download.bandwidthLimit = entry.get(KEY_BANDWIDTH_LIMIT).getAsLong();
+            downloads.add(download);
+          }
+        }
+        schedule();
+        save();
+      }
+
+      @Override
+      public void onError(String error) {
+        Timber.e("Failed to restore the offline download queue: %s", error);
+      }
+    });
+  }
+
+  private static class Download {
+    private OfflineRegion region;
+    private final long sequence;
+    private int priority;
+    private long bandwidthLimit;
+    private boolean active;
+
+    Download(OfflineRegion region, long sequence) {
+      this.region = region;
+      this.sequence = sequence;
+    }
+  }
+}
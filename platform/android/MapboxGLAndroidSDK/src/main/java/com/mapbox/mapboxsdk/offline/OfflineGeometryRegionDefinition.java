@@ -0,0 +1,217 @@
+package com.mapbox.mapboxsdk.offline;
+
+import android.os.Parcel;
+import android.os.Parcelable;
+import android.support.annotation.Keep;
+import android.support.annotation.Nullable;
+
+import com.mapbox.geojson.Geometry;
+import com.mapbox.geojson.GeometryCollection;
+import com.mapbox.geojson.LineString;
+import com.mapbox.geojson.MultiLineString;
+import com.mapbox.geojson.MultiPoint;
+import com.mapbox.geojson.MultiPolygon;
+import com.mapbox.geojson.Point;
+import com.mapbox.geojson.Polygon;
+import com.mapbox.mapboxsdk.geometry.LatLngBounds;
+
+import java.util.List;
+
+/**
+ * An offline region defined by a style URL, geometry, zoom range, and
+ * device pixel ratio.
+ * <p>
+ * Only the tiles intersecting the geometry are downloaded, so a buffered route or the outline
+ * of a country requires far fewer tiles than an {@link OfflineTilePyramidRegionDefinition}
+ * covering the same bounding box.
+ * <p>
+ * Both minZoom and maxZoom must be &#x2265; 0, and maxZoom must be &#x2265; minZoom.
+ * <p>
+ * maxZoom may be &#x221E;, in which case for each tile source, the region will include
+ * tiles from minZoom up to the maximum zoom level provided by that source.
+ * <p>
+ * pixelRatio must be &#x2265; 0 and should typically be 1.0 or 2.0.
+ */
+public class OfflineGeometryRegionDefinition implements OfflineRegionDefinition, Parcelable {
+
+  @Keep
+  private String styleURL;
+  @Keep
+  private Geometry geometry;
+  @Keep
+  private double minZoom;
+  @Keep
+  private double maxZoom;
+  @Keep
+  private float pixelRatio;
+
+  /**
+   * Constructor to create an OfflineGeometryRegionDefinition from parameters.
+   *
+   * @param styleURL   the style
+   * @param geometry   the geometry
+   * @param minZoom    min zoom
+   * @param maxZoom    max zoom
+   * @param pixelRatio pixel ratio of the device
+   */
+  @Keep
+  public OfflineGeometryRegionDefinition(
+    String styleURL, Geometry geometry, double minZoom, double maxZoom, float pixelRatio) {
+    // Note: Also used in JNI
+    this.styleURL = styleURL;
+    this.geometry = geometry;
+    this.minZoom = minZoom;
+    this.maxZoom = maxZoom;
+    this.pixelRatio = pixelRatio;
+  }
+
+  /**
+   * Constructor to create an OfflineGeometryRegionDefinition from a Parcel.
+   *
+   * @param parcel the parcel to create the OfflineGeometryRegionDefinition from
+   */
+  public OfflineGeometryRegionDefinition(Parcel parcel) {
+    this.styleURL = parcel.readString();
+    this.geometry = geometryFromJson(parcel.readString(), parcel.readString());
+    this.minZoom = parcel.readDouble();
+    this.maxZoom = parcel.readDouble();
+    this.pixelRatio = parcel.readFloat();
+  }
+
+  /*
+   * Getters
+   */
+
+  public String getStyleURL() {
+    return styleURL;
+  }
+
+  public Geometry getGeometry() {
+    return geometry;
+  }
+
+  /**
+   * Returns the bounding box of the geometry, or null if the geometry has no coordinates or
+   * coordinates outside of the valid latitude range.
+   *
+   * @return the bounds of the geometry
+   */
+  @Nullable
+  public LatLngBounds getBounds() {
+    double[] bounds = { Double.MAX_VALUE, Double.MAX_VALUE, -Double.MAX_VALUE, -Double.MAX_VALUE };
+    extend(bounds, geometry);
+    if (bounds[0] > bounds[2]) {
+      return null;
+    }
+
+    try {
+      return LatLngBounds.from(bounds[3], bounds[2], bounds[1], bounds[0]);
+    } catch (IllegalArgumentException exception) {
+      return null;
+    }
+  }
+
+  public double getMinZoom() {
+    return minZoom;
+  }
+
+  public double getMaxZoom() {
+    return maxZoom;
+  }
+
+  public float getPixelRatio() {
+    return pixelRatio;
+  }
+
+  // Extends the west, south, east, north bounds with the coordinates of the geometry
+  private static void extend(double[] bounds, Geometry geometry) {
+    if (geometry instanceof Point) {
+      extend(bounds, (Point) geometry);
+    } else if (geometry instanceof MultiPoint) {
+      extend(bounds, ((MultiPoint) geometry).coordinates());
+    } else if (geometry instanceof LineString) {
+      extend(bounds, ((LineString) geometry).coordinates());
+    } else if (geometry instanceof MultiLineString) {
+      for (List<Point> line : ((MultiLineString) geometry).coordinates()) {
+        extend(bounds, line);
+      }
+    } else if (geometry instanceof Polygon) {
+      for (List<Point> ring : ((Polygon) geometry).coordinates()) {
+        extend(bounds, ring);
+      }
+    } else if (geometry instanceof MultiPolygon) {
+      for (List<List<Point>> polygon : ((MultiPolygon) geometry).coordinates()) {
+        for (List<Point> ring : polygon) {
+          extend(bounds, ring);
+        }
+      }
+    } else if (geometry instanceof GeometryCollection) {
+      for (Geometry child : ((GeometryCollection) geometry).geometries()) {
+        extend(bounds, child);
+      }
+    }
+  }
+
+  private static void extend(double[] bounds, List<Point> points) {
+    for (Point point : points) {
+      extend(bounds, point);
+    }
+  }
+
+  private static void extend(double[] bounds, Point point) {
+    bounds[0] = Math.min(bounds[0], point.longitude());
+    bounds[1] = Math.min(bounds[1], point.latitude());
+    bounds[2] = Math.max(bounds[2], point.longitude());
+    bounds[3] = Math.max(bounds[3], point.latitude());
+  }
+
+  private static Geometry geometryFromJson(String type, String json) {
+    switch (type) {
+      case "Point":
+        return Point.fromJson(json);
+      case "MultiPoint":
+        return MultiPoint.fromJson(json);
+      case "LineString":
+        return LineString.fromJson(json);
+      case "MultiLineString":
+        return MultiLineString.fromJson(json);
+      case "Polygon":
+        return Polygon.fromJson(json);
+      case "MultiPolygon":
+        return MultiPolygon.fromJson(json);
+      case "GeometryCollection":
+        return GeometryCollection.fromJson(json);
+      default:
+        throw new IllegalArgumentException("Unsupported GeoJSON type: " + type);
+    }
+  }
+
+  /*
+   * Parceable
+   */
+
+  @Override
+  public int describeContents() {
+    return 0;
+  }
+
+  @Override
+  public void writeToParcel(Parcel dest, int flags) {
+    dest.writeString(styleURL);
+    dest.writeString(geometry.type());
+    dest.writeString(geometry.toJson());
+    dest.writeDouble(minZoom);
+    dest.writeDouble(maxZoom);
+    dest.writeFloat(pixelRatio);
+  }
+
+  public static final Parcelable.Creator CREATOR = new Parcelable.Creator() {
+    public OfflineGeometryRegionDefinition createFromParcel(Parcel in) {
+      return new OfflineGeometryRegionDefinition(in);
+    }
+
+    public OfflineGeometryRegionDefinition[] newArray(int size) {
+      return new OfflineGeometryRegionDefinition[size];
+    }
+  };
+}
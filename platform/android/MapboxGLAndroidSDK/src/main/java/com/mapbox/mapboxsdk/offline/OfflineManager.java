@@ -91,6 +91,67 @@ public class OfflineManager {
     void onError(String error);
   }
 
+  /**
+   * This callback receives an asynchronous response containing the estimate of
+   * an offline region definition or an error message otherwise.
+   */
+  @Keep
+  public interface EstimateOfflineRegionCallback {
+    /**
+     * Receives the estimate of the offline region definition.
+     *
+     * @param estimate the estimate of the required tiles and their size
+     */
+    void onEstimate(OfflineRegionEstimate estimate);
+
+    /**
+     * Receives the error message.
+     *
+     * @param error the error message to be shown
+     */
+    void onError(String error);
+  }
+
+  /**
+   * This callback receives an asynchronous response when the database has been
+   * compacted or an error message otherwise.
+   */
+  @Keep
+  public interface CompactDatabaseCallback {
+    /**
+     * Receives the completion of the compaction.
+     */
+    void onCompact();
+
+    /**
+     * Receives the error message.
+     *
+     * @param error the error message to be shown
+     */
+    void onError(String error);
+  }
+
+  /**
+   * This callback receives an asynchronous response containing the storage used by
+   * the database or an error message otherwise.
+   */
+  @Keep
+  public interface GetDatabaseStatsCallback {
+    /**
+     * Receives the storage used by the database.
+     *
+     * @param stats the database stats
+     */
+    void onStats(OfflineDatabaseStats stats);
+
+    /**
+     * Receives the error message.
+     *
+     * @param error the error message to be shown
+     */
+    void onError(String error);
+  }
+
   /*
    * Constructor
    */
@@ -237,6 +298,133 @@ public class OfflineManager {
     });
   }
 
+  /**
+   * Estimate the tiles required by an offline region definition and their size, without creating
+   * the region or starting a download.
+   * <p>
+   * The estimate only uses the style, tilesets and tiles already in the database and doesn't write
+   * to it, so it's cheap enough to run while the user is still adjusting the region. Apps can use
+   * {@link OfflineRegionEstimate#exceedsOfflineMapboxTileCountLimit()} to refuse regions that would
+   * fail to download. The result is passed to the given callback on the main thread.
+   * </p>
+   *
+   * @param definition the offline region definition
+   * @param callback   the callback to be invoked
+   */
+  public void estimateRegion(@NonNull OfflineRegionDefinition definition,
+                             @NonNull final EstimateOfflineRegionCallback callback) {
+    if (!isValidOfflineRegionDefinition(definition)) {
+      callback.onError(
+        String.format(context.getString(R.string.mapbox_offline_error_region_definition_invalid),
+          definition.getBounds())
+      );
+      return;
+    }
+
+    fileSource.activate();
+    estimateOfflineRegion(definition, new EstimateOfflineRegionCallback() {
+
+      @Override
+      public void onEstimate(final OfflineRegionEstimate estimate) {
+        getHandler().post(new Runnable() {
+          @Override
+          public void run() {
+            fileSource.deactivate();
+            callback.onEstimate(estimate);
+          }
+        });
+      }
+
+      @Override
+      public void onError(final String error) {
+        getHandler().post(new Runnable() {
+          @Override
+          public void run() {
+            fileSource.deactivate();
+            callback.onError(error);
+          }
+        });
+      }
+    });
+  }
+
+  /**
+   * Return the free pages of the database to the file system so that the database file shrinks.
+   * <p>
+   * Deleting regions and evicting ambient cache entries leaves free pages in the database file, which are
+   * reused for new data but never returned to the file system otherwise. The pages are released in small
+   * steps on the database thread, interleaved with map requests, and the callback is invoked on the main
+   * thread when the database is compacted.
+   * </p>
+   *
+   * @param callback the callback to be invoked
+   */
+  public void compact(@NonNull final CompactDatabaseCallback callback) {
+    fileSource.activate();
+    compactDatabase(new CompactDatabaseCallback() {
+
+      @Override
+      public void onCompact() {
+        getHandler().post(new Runnable() {
+          @Override
+          public void run() {
+            fileSource.deactivate();
+            callback.onCompact();
+          }
+        });
+      }
+
+      @Override
+      public void onError(final String error) {
+        getHandler().post(new Runnable() {
+          @Override
+          public void run() {
+            fileSource.deactivate();
+            callback.onError(error);
+          }
+        });
+      }
+    });
+  }
+
+  /**
+   * Retrieve the storage used by the database: its page counts, the size of each region, the size shared
+   * between regions and the size of the ambient cache.
+   * <p>
+   * The query will be executed asynchronously and the results passed to the given
+   * callback on the main thread.
+   * </p>
+   *
+   * @param callback the callback to be invoked
+   */
+  public void getDatabaseStats(@NonNull final GetDatabaseStatsCallback callback) {
+    fileSource.activate();
+    nativeGetDatabaseStats(new GetDatabaseStatsCallback() {
+
+      @Override
+      public void onStats(final OfflineDatabaseStats stats) {
+        getHandler().post(new Runnable() {
+          @Override
+          public void run() {
+            fileSource.deactivate();
+            callback.onStats(stats);
+          }
+        });
+      }
+
+      @Override
+      public void onError(final String error) {
+        getHandler().post(new Runnable() {
+          @Override
+          public void run() {
+            fileSource.deactivate();
+            callback.onError(error);
+          }
+        });
+      }
+    });
+  }
+
   /**
    * Validates if the offline region definition bounds is valid for an offline region download.
    *
@@ -244,7 +432,8 @@ public class OfflineManager {
    * @return true if the region fits the world bounds.
    */
   private boolean isValidOfflineRegionDefinition(OfflineRegionDefinition definition) {
-    return LatLngBounds.world().contains(definition.getBounds());
+    LatLngBounds bounds = definition.getBounds();
+    return bounds != null && LatLngBounds.world().contains(bounds);
   }
 
   /**
@@ -270,4 +459,14 @@ public class OfflineManager {
   private native void createOfflineRegion(FileSource fileSource, OfflineRegionDefinition definition,
                                           byte[] metadata, CreateOfflineRegionCallback callback);
 
+  @Keep
+  private native void estimateOfflineRegion(OfflineRegionDefinition definition,
+                                            EstimateOfflineRegionCallback callback);
+
+  @Keep
+  private native void compactDatabase(CompactDatabaseCallback callback);
+
+  @Keep
+  private native void nativeGetDatabaseStats(GetDatabaseStatsCallback callback);
+
 }
@@ -316,6 +316,22 @@ public class OfflineRegion {
     setOfflineRegionDownloadState(state);
   }
 
+  /**
+   * Limit the average rate at which resources of this region are downloaded, for example to leave
+   * bandwidth for other regions or for the map.
+   * <p>
+   * The limit applies to the size of the downloaded resources, averaged over a second or more.
+   * </p>
+   *
+   * @param bytesPerSecond the maximum number of bytes downloaded per second, or 0 to remove the limit
+   */
+  public void setBandwidthLimit(long bytesPerSecond) {
+    if (bytesPerSecond < 0) {
+      throw new IllegalArgumentException("Bandwidth limit can't be negative");
+    }
+    setOfflineRegionBandwidthLimit(bytesPerSecond);
+  }
+
   /**
    * Retrieve the current status of the region. The query will be executed
    * asynchronously and the results passed to the given callback which will be
@@ -447,6 +463,9 @@ public class OfflineRegion {
   @Keep
   private native void setOfflineRegionDownloadState(@DownloadState int offlineRegionDownloadState);
 
+  @Keep
+  private native void setOfflineRegionBandwidthLimit(long bytesPerSecond);
+
   @Keep
   private native void getOfflineRegionStatus(OfflineRegionStatusCallback callback);
 
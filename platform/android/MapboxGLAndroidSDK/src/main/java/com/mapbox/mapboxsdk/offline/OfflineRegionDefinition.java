@@ -7,11 +7,45 @@ import com.mapbox.mapboxsdk.geometry.LatLngBounds;
 /**
  * This is the interface that all Offline Region definitions have to implement.
  * <p>
- * For the present, a tile pyramid is the only type of offline region.
+ * An offline region is either a tile pyramid, see {@link OfflineTilePyramidRegionDefinition},
+ * or the tiles covering a geometry, see {@link OfflineGeometryRegionDefinition}.
  */
 @Keep
 public interface OfflineRegionDefinition {
 
+  /**
+   * Returns the bounding box of the region.
+   *
+   * @return the bounds of the region
+   */
   LatLngBounds getBounds();
 
+  /**
+   * Returns the style of the region.
+   *
+   * @return the style url
+   */
+  String getStyleURL();
+
+  /**
+   * Returns the minimum zoom level of the region.
+   *
+   * @return the minimum zoom level
+   */
+  double getMinZoom();
+
+  /**
+   * Returns the maximum zoom level of the region, which may be infinite.
+   *
+   * @return the maximum zoom level
+   */
+  double getMaxZoom();
+
+  /**
+   * Returns the pixel ratio of the region.
+   *
+   * @return the pixel ratio
+   */
+  float getPixelRatio();
+
 }
@@ -0,0 +1,148 @@
+package com.mapbox.mapboxsdk.offline;
+
+import android.support.annotation.Keep;
+
+/**
+ * An estimate of the tiles required by an offline region definition and their size, obtained
+ * with {@link OfflineManager#estimateRegion(OfflineRegionDefinition, OfflineManager.EstimateOfflineRegionCallback)}
+ * before creating the region.
+ * <p>
+ * The estimate is computed from the style, tilesets and tiles already in the offline database, nothing is
+ * downloaded or stored. Tile sizes are extrapolated from the average size of the cached tiles of each tileset
+ * at the same zoom level, or at the closest zoom level with cached tiles.
+ * </p>
+ */
+public class OfflineRegionEstimate {
+
+  /**
+   * The number of required tiles indexed by zoom level.
+   */
+  private final long[] requiredTileCountByZoom;
+
+  /**
+   * The number of tiles required for the region.
+   */
+  private final long requiredTileCount;
+
+  /**
+   * The number of required tiles served by Mapbox.
+   */
+  private final long requiredMapboxTileCount;
+
+  /**
+   * The estimated size, in bytes, of the required tiles.
+   */
+  private final long estimatedTileSize;
+
+  /**
+   * True when the style and all of its tilesets are in the database.
+   */
+  private final boolean requiredTileCountIsPrecise;
+
+  /**
+   * True when every required tile has a size estimate.
+   */
+  private final boolean estimatedTileSizeIsComplete;
+
+  /**
+   * True when the region would exceed the offline Mapbox tile count limit.
+   */
+  private final boolean exceedsOfflineMapboxTileCountLimit;
+
+  /*
+   * Use OfflineManager#estimateRegion to obtain an OfflineRegionEstimate object.
+   *
+   * For JNI use only
+   */
+  @Keep
+  private OfflineRegionEstimate(long[] requiredTileCountByZoom, long requiredTileCount,
+                                long requiredMapboxTileCount, long estimatedTileSize,
+                                boolean requiredTileCountIsPrecise, boolean estimatedTileSizeIsComplete,
+                                boolean exceedsOfflineMapboxTileCountLimit) {
+    this.requiredTileCountByZoom = requiredTileCountByZoom;
+    this.requiredTileCount = requiredTileCount;
+    this.requiredMapboxTileCount = requiredMapboxTileCount;
+    this.estimatedTileSize = estimatedTileSize;
+    this.requiredTileCountIsPrecise = requiredTileCountIsPrecise;
+    this.estimatedTileSizeIsComplete = estimatedTileSizeIsComplete;
+    this.exceedsOfflineMapboxTileCountLimit = exceedsOfflineMapboxTileCountLimit;
+  }
+
+  /**
+   * Get the number of tiles required at a zoom level, over all tile sources of the style.
+   *
+   * @param zoom the zoom level
+   * @return the number of required tiles at the zoom level
+   */
+  public long getRequiredTileCount(int zoom) {
+    return zoom >= 0 && zoom < requiredTileCountByZoom.length ? requiredTileCountByZoom[zoom] : 0;
+  }
+
+  /**
+   * Get the highest zoom level with required tiles.
+   *
+   * @return the highest zoom level with required tiles, or -1 if no tiles are required
+   */
+  public int getMaxZoom() {
+    return requiredTileCountByZoom.length - 1;
+  }
+
+  /**
+   * Get the number of tiles required for the region.
+   *
+   * @return the number of required tiles
+   */
+  public long getRequiredTileCount() {
+    return requiredTileCount;
+  }
+
+  /**
+   * Get the number of required tiles served by Mapbox, which count towards the limit set with
+   * {@link OfflineManager#setOfflineMapboxTileCountLimit(long)}.
+   *
+   * @return the number of required Mapbox tiles
+   */
+  public long getRequiredMapboxTileCount() {
+    return requiredMapboxTileCount;
+  }
+
+  /**
+   * Get the estimated size, in bytes, of the required tiles once stored.
+   *
+   * @return the estimated size of the tiles in bytes
+   * @see #isEstimatedTileSizeComplete()
+   */
+  public long getEstimatedTileSize() {
+    return estimatedTileSize;
+  }
+
+  /**
+   * Returns true when the style and every tileset it references are in the database, so the tile counts
+   * are exact. Otherwise the counts only include the tile sources that could be resolved and are a lower bound.
+   *
+   * @return true if the tile counts are exact
+   */
+  public boolean isRequiredTileCountPrecise() {
+    return requiredTileCountIsPrecise;
+  }
+
+  /**
+   * Returns true when every required tile has a size estimate. Tiles of tilesets without any cached tile
+   * are counted but don't contribute to the estimated size.
+   *
+   * @return true if the estimated size covers every required tile
+   */
+  public boolean isEstimatedTileSizeComplete() {
+    return estimatedTileSizeIsComplete;
+  }
+
+  /**
+   * Returns true when storing the required Mapbox tiles, next to the Mapbox tiles of the existing regions,
+   * would exceed the offline Mapbox tile count limit, in which case downloading the region would fail.
+   *
+   * @return true if the region exceeds the Mapbox tile count limit
+   */
+  public boolean exceedsOfflineMapboxTileCountLimit() {
+    return exceedsOfflineMapboxTileCountLimit;
+  }
+}
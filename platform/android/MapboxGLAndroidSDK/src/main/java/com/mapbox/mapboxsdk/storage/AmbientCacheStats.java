@@ -0,0 +1,66 @@
+package com.mapbox.mapboxsdk.storage;
+
+import android.support.annotation.Keep;
+
+/**
+ * Usage of the ambient cache, the resources and tiles stored while using the map that aren't required by
+ * any offline region, obtained with {@link FileSource#getAmbientCacheStats(FileSource.AmbientCacheStatsCallback)}.
+ */
+public class AmbientCacheStats {
+
+  private final long maximumSize;
+  private final long size;
+  private final long resourceCount;
+  private final long tileCount;
+
+  /*
+   * Use FileSource#getAmbientCacheStats to obtain an AmbientCacheStats object.
+   *
+   * For JNI use only
+   */
+  @Keep
+  private AmbientCacheStats(long maximumSize, long size, long resourceCount, long tileCount) {
+    this.maximumSize = maximumSize;
+    this.size = size;
+    this.resourceCount = resourceCount;
+    this.tileCount = tileCount;
+  }
+
+  /**
+   * Get the size, in bytes, above which resources and tiles are evicted. The limit applies to the whole
+   * database, including the resources of offline regions, which are never evicted.
+   *
+   * @return the maximum size of the cache
+   * @see FileSource#setMaximumAmbientCacheSize(long)
+   */
+  public long getMaximumSize() {
+    return maximumSize;
+  }
+
+  /**
+   * Get the stored size, in bytes, of the resources and tiles of the ambient cache.
+   *
+   * @return the size of the cache
+   */
+  public long getSize() {
+    return size;
+  }
+
+  /**
+   * Get the number of resources, such as styles, sprites and glyphs, in the ambient cache.
+   *
+   * @return the number of resources
+   */
+  public long getResourceCount() {
+    return resourceCount;
+  }
+
+  /**
+   * Get the number of tiles in the ambient cache.
+   *
+   * @return the number of tiles
+   */
+  public long getTileCount() {
+    return tileCount;
+  }
+}
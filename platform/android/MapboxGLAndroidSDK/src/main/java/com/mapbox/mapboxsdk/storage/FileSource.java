@@ -5,13 +5,20 @@ import android.content.pm.ApplicationInfo;
 import android.content.pm.PackageManager;
 import android.content.res.AssetManager;
 import android.os.Environment;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.IntDef;
 import android.support.annotation.Keep;
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 import android.support.annotation.UiThread;
 
 import com.mapbox.mapboxsdk.Mapbox;
 import com.mapbox.mapboxsdk.constants.MapboxConstants;
 
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
 import timber.log.Timber;
 
 /**
@@ -39,6 +46,68 @@ public class FileSource {
 
   }
 
+  /**
+   * This callback receives the completion of an asynchronous ambient cache operation
+   * or an error message otherwise.
+   */
+  @Keep
+  public interface ResultCallback {
+
+    /**
+     * Called when the operation completed.
+     */
+    void onSuccess();
+
+    /**
+     * Called when the operation failed.
+     *
+     * @param message the error message
+     */
+    void onError(String message);
+  }
+
+  /**
+   * This callback receives the usage of the ambient cache or an error message otherwise.
+   */
+  @Keep
+  public interface AmbientCacheStatsCallback {
+
+    /**
+     * Receives the usage of the ambient cache.
+     *
+     * @param stats the ambient cache stats
+     */
+    void onStats(AmbientCacheStats stats);
+
+    /**
+     * Receives the error message.
+     *
+     * @param message the error message
+     */
+    void onError(String message);
+  }
+
+  // Note: Keep this in sync with platform/android/src/file_source.cpp
+
+  /**
+   * Order in which resources and tiles of the ambient cache are evicted.
+   */
+  @IntDef( {EVICTION_POLICY_LEAST_RECENTLY_USED, EVICTION_POLICY_ZOOM_WEIGHTED})
+  @Retention(RetentionPolicy.SOURCE)
+  public @interface EvictionPolicy {
+  }
+
+  /**
+   * Evicts the least recently used resources and tiles first. This is the default policy.
+   */
+  public static final int EVICTION_POLICY_LEAST_RECENTLY_USED = 0;
+
+  /**
+   * Evicts tiles as if they had been used one day earlier for each of their zoom levels, so that low zoom
+   * tiles, which are shared by many views, are kept longer than the far more numerous high zoom tiles.
+   */
+  public static final int EVICTION_POLICY_ZOOM_WEIGHTED = 1;
+
   // File source instance is kept alive after initialization
   private static FileSource INSTANCE;
 
@@ -125,10 +194,21 @@ public class FileSource {
   @Keep
   private long nativePtr;
 
+  // Makes sure callbacks come back to the main thread
+  private Handler handler;
+
   private FileSource(String cachePath, AssetManager assetManager) {
     initialize(Mapbox.getAccessToken(), cachePath, assetManager);
   }
 
+  private Handler getHandler() {
+    if (handler == null) {
+      handler = new Handler(Looper.getMainLooper());
+    }
+
+    return handler;
+  }
+
   @Keep
   public native boolean isActivated();
 
@@ -158,6 +238,188 @@ public class FileSource {
   @Keep
   public native void setResourceTransform(final ResourceTransformCallback callback);
 
+  /**
+   * Sets rules for transforming URLs requested from the internet.
+   * <p>
+   * The rules are evaluated in native code on the file source thread as URLs are requested, without calling
+   * into Java or waiting for the main thread, which makes them cheaper than a {@link ResourceTransformCallback}
+   * for rewriting that doesn't need application logic. Rules replace a
+   * callback set with {@link #setResourceTransform(ResourceTransformCallback)} and vice versa.
+   * </p>
+   *
+   * @param rules the rules to apply or null to reset
+   * @throws IllegalArgumentException if a regular expression of the rules is invalid
+   */
+  public void setResourceTransformRules(@Nullable ResourceTransformRules rules) {
+    if (rules == null) {
+      nativeSetResourceTransformRules(null, null, null, null);
+    } else {
+      nativeSetResourceTransformRules(
+        rules.getTypes(), rules.getKinds(), rules.getPatterns(), rules.getReplacements());
+    }
+  }
+
+  /**
+   * Sets the maximum size, in bytes, of the database above which resources and tiles of the ambient cache
+   * are evicted, and evicts them until the database fits. The limit applies to the whole database, but
+   * resources of offline regions are never evicted.
+   *
+   * @param size the maximum size in bytes
+   */
+  public void setMaximumAmbientCacheSize(long size) {
+    setMaximumAmbientCacheSize(size, null);
+  }
+
+  /**
+   * Sets the maximum size, in bytes, of the database above which resources and tiles of the ambient cache
+   * are evicted, and evicts them until the database fits. The limit applies to the whole database, but
+   * resources of offline regions are never evicted.
+   * <p>
+   * The callback will be executed on the main thread once the cache has been resized.
+   * </p>
+   *
+   * @param size     the maximum size in bytes
+   * @param callback the callback to be invoked, or null
+   */
+  public void setMaximumAmbientCacheSize(long size, @Nullable ResultCallback callback) {
+    if (size < 0) {
+      throw new IllegalArgumentException("Maximum ambient cache size can't be negative: " + size);
+    }
+
+    activate();
+    nativeSetMaximumAmbientCacheSize(size, wrap(callback));
+  }
+
+  /**
+   * Sets the order in which resources and tiles of the ambient cache are evicted.
+   *
+   * @param policy the eviction policy
+   */
+  public void setAmbientCacheEvictionPolicy(@EvictionPolicy int policy) {
+    if (policy != EVICTION_POLICY_LEAST_RECENTLY_USED && policy != EVICTION_POLICY_ZOOM_WEIGHTED) {
+      throw new IllegalArgumentException("Unknown eviction policy " + policy);
+    }
+
+    nativeSetAmbientCacheEvictionPolicy(policy);
+  }
+
+  /**
+   * Removes the resources and tiles of the ambient cache, keeping those of offline regions, and returns the
+   * space to the file system.
+   * <p>
+   * The callback will be executed on the main thread once the cache has been cleared.
+   * </p>
+   *
+   * @param callback the callback to be invoked, or null
+   */
+  public void clearAmbientCache(@Nullable ResultCallback callback) {
+    activate();
+    nativeClearAmbientCache(wrap(callback));
+  }
+
+  /**
+   * Marks the resources and tiles of the ambient cache as expired, so that they are revalidated with the
+   * server before being used. Unlike {@link #clearAmbientCache(ResultCallback)}, resources that didn't change
+   * aren't downloaded again.
+   * <p>
+   * The callback will be executed on the main thread once the cache has been invalidated.
+   * </p>
+   *
+   * @param callback the callback to be invoked, or null
+   */
+  public void invalidateAmbientCache(@Nullable ResultCallback callback) {
+    activate();
+    nativeInvalidateAmbientCache(wrap(callback));
+  }
+
+  /**
+   * Retrieves the size and contents of the ambient cache.
+   * <p>
+   * The query will be executed asynchronously and the results passed to the given
+   * callback on the main thread.
+   * </p>
+   *
+   * @param callback the callback to be invoked
+   */
+  public void getAmbientCacheStats(@NonNull final AmbientCacheStatsCallback callback) {
+    activate();
+    nativeGetAmbientCacheStats(new AmbientCacheStatsCallback() {
+      @Override
+      public void onStats(final AmbientCacheStats stats) {
+        getHandler().post(new Runnable() {
+          @Override
+          public void run() {
+            deactivate();
+            callback.onStats(stats);
+          }
+        });
+      }
+
+      @Override
+      public void onError(final String message) {
+        getHandler().post(new Runnable() {
+          @Override
+          public void run() {
+            deactivate();
+            callback.onError(message);
+          }
+        });
+      }
+    });
+  }
+
+  // Passes the result of a native operation to the callback on the main thread
+  private ResultCallback wrap(@Nullable final ResultCallback callback) {
+    return new ResultCallback() {
+      @Override
+      public void onSuccess() {
+        getHandler().post(new Runnable() {
+          @Override
+          public void run() {
+            deactivate();
+            if (callback != null) {
+              callback.onSuccess();
+            }
+          }
+        });
+      }
+
+      @Override
+      public void onError(final String message) {
+        getHandler().post(new Runnable() {
+          @Override
+          public void run() {
+            deactivate();
+            if (callback != null) {
+              callback.onError(message);
+            } else {
+              Timber.e("Ambient cache operation failed: %s", message);
+            }
+          }
+        });
+      }
+    };
+  }
+
+  @Keep
+  private native void nativeSetMaximumAmbientCacheSize(long size, ResultCallback callback);
+
+  @Keep
+  private native void nativeSetAmbientCacheEvictionPolicy(int policy);
+
+  @Keep
+  private native void nativeClearAmbientCache(ResultCallback callback);
+
+  @Keep
+  private native void nativeInvalidateAmbientCache(ResultCallback callback);
+
+  @Keep
+  private native void nativeGetAmbientCacheStats(AmbientCacheStatsCallback callback);
+
+  @Keep
+  private native void nativeSetResourceTransformRules(int[] types, int[] kinds, String[] patterns,
+                                                      String[] replacements);
+
   @Keep
   private native void initialize(String accessToken, String cachePath, AssetManager assetManager);
 
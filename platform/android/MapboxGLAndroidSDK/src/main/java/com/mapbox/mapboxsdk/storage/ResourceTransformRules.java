@@ -0,0 +1,193 @@
+package com.mapbox.mapboxsdk.storage;
+
+import android.net.Uri;
+import android.support.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A list of rules transforming URLs before they are requested, applied with
+ * {@link FileSource#setResourceTransformRules(ResourceTransformRules)}.
+ * <p>
+ * The rules are compiled once and evaluated in native code, so unlike a
+ * {@link FileSource.ResourceTransformCallback} they don't call into Java for every requested URL.
+ * Rules are applied in the order they were added, each rule receiving the result of the previous one.
+ * </p>
+ */
+public final class ResourceTransformRules {
+
+  // Note: Keep this in sync with TransformRuleType in platform/android/src/resource_transform_rules.hpp
+  static final int TYPE_PREFIX = 0;
+  static final int TYPE_REGEX = 1;
+  static final int TYPE_QUERY_PARAMETER = 2;
+
+  /**
+   * Kind matching every resource kind.
+   */
+  public static final int ANY_KIND = -1;
+
+  private final int[] types;
+  private final int[] kinds;
+  private final String[] patterns;
+  private final String[] replacements;
+
+  private ResourceTransformRules(Builder builder) {
+    int size = builder.types.size();
+    types = new int[size];
+    kinds = new int[size];
+    for (int i = 0; i < size; i++) {
+      types[i] = builder.types.get(i);
+      kinds[i] = builder.kinds.get(i);
+    }
+    patterns = builder.patterns.toArray(new String[size]);
+    replacements = builder.replacements.toArray(new String[size]);
+  }
+
+  int[] getTypes() {
+    return types;
+  }
+
+  int[] getKinds() {
+    return kinds;
+  }
+
+  String[] getPatterns() {
+    return patterns;
+  }
+
+  String[] getReplacements() {
+    return replacements;
+  }
+
+  /**
+   * Get the number of rules.
+   *
+   * @return the number of rules
+   */
+  public int size() {
+    return types.length;
+  }
+
+  /**
+   * Builder for ResourceTransformRules.
+   */
+  public static final class Builder {
+
+    private final List<Integer> types = new ArrayList<>();
+    private final List<Integer> kinds = new ArrayList<>();
+    private final List<String> patterns = new ArrayList<>();
+    private final List<String> replacements = new ArrayList<>();
+
+    /**
+     * Replaces the start of URLs starting with a prefix, for example to reroute requests to another server.
+     *
+     * @param prefix      the prefix to replace
+     * @param replacement the replacement of the prefix
+     * @return this
+     */
+    @NonNull
+    public Builder rewritePrefix(@NonNull String prefix, @NonNull String replacement) {
+      return rewritePrefix(ANY_KIND, prefix, replacement);
+    }
+
+    /**
+     * Replaces the start of URLs of a kind of resource starting with a prefix.
+     *
+     * @param kind        the kind of resource to transform, or {@link #ANY_KIND}
+     * @param prefix      the prefix to replace
+     * @param replacement the replacement of the prefix
+     * @return this
+     */
+    @NonNull
+    public Builder rewritePrefix(int kind, @NonNull String prefix, @NonNull String replacement) {
+      if (prefix.isEmpty()) {
+        throw new IllegalArgumentException("Prefix can't be empty");
+      }
+      return add(TYPE_PREFIX, kind, prefix, replacement);
+    }
+
+    /**
+     * Replaces every match of a regular expression in URLs.
+     * <p>
+     * The expression uses the ECMAScript syntax, groups are referenced in the replacement as {@code $1},
+     * {@code $2} and so on. An invalid expression throws an {@link IllegalArgumentException} when the rules are
+     * set on the {@link FileSource}.
+     * </p>
+     *
+     * @param pattern     the regular expression
+     * @param replacement the replacement of every match
+     * @return this
+     */
+    @NonNull
+    public Builder rewriteRegex(@NonNull String pattern, @NonNull String replacement) {
+      return rewriteRegex(ANY_KIND, pattern, replacement);
+    }
+
+    /**
+     * Replaces every match of a regular expression in URLs of a kind of resource.
+     *
+     * @param kind        the kind of resource to transform, or {@link #ANY_KIND}
+     * @param pattern     the regular expression
+     * @param replacement the replacement of every match
+     * @return this
+     * @see #rewriteRegex(String, String)
+     */
+    @NonNull
+    public Builder rewriteRegex(int kind, @NonNull String pattern, @NonNull String replacement) {
+      if (pattern.isEmpty()) {
+        throw new IllegalArgumentException("Pattern can't be empty");
+      }
+      return add(TYPE_REGEX, kind, pattern, replacement);
+    }
+
+    /**
+     * Adds a query parameter to URLs, for example an API key.
+     *
+     * @param name  the name of the parameter
+     * @param value the value of the parameter, it is encoded before being added
+     * @return this
+     */
+    @NonNull
+    public Builder addQueryParameter(@NonNull String name, @NonNull String value) {
+      return addQueryParameter(ANY_KIND, name, value);
+    }
+
+    /**
+     * Adds a query parameter to URLs of a kind of resource.
+     *
+     * @param kind  the kind of resource to transform, or {@link #ANY_KIND}
+     * @param name  the name of the parameter
+     * @param value the value of the parameter, it is encoded before being added
+     * @return this
+     */
+    @NonNull
+    public Builder addQueryParameter(int kind, @NonNull String name, @NonNull String value) {
+      if (name.isEmpty()) {
+        throw new IllegalArgumentException("Parameter name can't be empty");
+      }
+      return add(TYPE_QUERY_PARAMETER, kind, Uri.encode(name) + "=" + Uri.encode(value), "");
+    }
+
+    private Builder add(int type, int kind, String pattern, String replacement) {
+      if (kind != ANY_KIND && (kind < Resource.UNKNOWN || kind > Resource.SPRITE_JSON)) {
+        throw new IllegalArgumentException("Unknown resource kind " + kind);
+      }
+      types.add(type);
+      kinds.add(kind);
+      patterns.add(pattern);
+      replacements.add(replacement);
+      return this;
+    }
+
+    /**
+     * Builds the rules.
+     *
+     * @return the rules
+     */
+    @NonNull
+    public ResourceTransformRules build() {
+      return new ResourceTransformRules(this);
+    }
+  }
+}
@@ -12,9 +12,13 @@ import com.google.gson.JsonPrimitive;
 import com.mapbox.mapboxsdk.style.layers.PropertyFactory;
 import com.mapbox.mapboxsdk.style.layers.PropertyValue;
 
+import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
 
 /**
  * The value for any layout property, paint property, or filter may be specified as an expression.
@@ -85,9 +89,16 @@ import java.util.List;
  */
 public class Expression {
 
+  private static final Map<Expression, WeakReference<Expression>> internedExpressions = new WeakHashMap<>();
+
   private final String operator;
   private final Expression[] arguments;
 
+  // expressions are immutable, their serialized forms are computed once
+  private Object[] serializedArray;
+  private String serializedString;
+  private int hashCode;
+
   /**
    * Creates an empty expression for expression literals
    */
@@ -3408,16 +3419,47 @@ public class Expression {
     return output;
   }
 
+  /**
+   * Returns the canonical instance of this expression.
+   * <p>
+   * Structurally equal expressions that are interned share a single instance, and with it the cached output of
+   * {@link #toArray()} and {@link #toString()}, so an expression that is rebuilt and reapplied often is only
+   * serialized once. Interned expressions are held weakly and released once they're no longer used.
+   * </p>
+   *
+   * @return the canonical expression equal to this one
+   */
+  @NonNull
+  public Expression intern() {
+    synchronized (internedExpressions) {
+      WeakReference<Expression> reference = internedExpressions.get(this);
+      Expression interned = reference != null ? reference.get() : null;
+      if (interned == null) {
+        internedExpressions.put(this, new WeakReference<>(this));
+        interned = this;
+      }
+      return interned;
+    }
+  }
+
   /**
    * Converts the expression to Object array representation.
    * <p>
-   * The output will later be converted to a JSON Object array.
+   * The output will later be converted to a JSON Object array. It's computed once and cached,
+   * the returned array must not be modified.
    * </p>
    *
    * @return the converted object array expression
    */
   @NonNull
   public Object[] toArray() {
+    if (serializedArray == null) {
+      serializedArray = serializeArray();
+    }
+    return serializedArray;
+  }
+
+  private Object[] serializeArray() {
     List<Object> array = new ArrayList<>();
     array.add(operator);
     if (arguments != null) {
@@ -3459,6 +3501,13 @@ public class Expression {
    */
   @Override
   public String toString() {
+    if (serializedString == null) {
+      serializedString = serializeString();
+    }
+    return serializedString;
+  }
+
+  private String serializeString() {
     StringBuilder builder = new StringBuilder();
     builder.append("[\"").append(operator).append("\"");
     if (arguments != null) {
@@ -3537,8 +3586,12 @@ public class Expression {
    */
   @Override
   public int hashCode() {
-    int result = operator != null ? operator.hashCode() : 0;
-    result = 31 * result + Arrays.hashCode(arguments);
+    int result = hashCode;
+    if (result == 0) {
+      result = operator != null ? operator.hashCode() : 0;
+      result = 31 * result + Arrays.hashCode(arguments);
+      hashCode = result;
+    }
     return result;
   }
 
@@ -3709,6 +3762,14 @@ public class Expression {
   public final static class Converter {
 
     private static final Gson gson = new Gson();
+    private static final int RAW_EXPRESSION_CACHE_SIZE = 64;
+    private static final Map<String, Expression> rawExpressions =
+      new LinkedHashMap<String, Expression>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Expression> eldest) {
+          return size() > RAW_EXPRESSION_CACHE_SIZE;
+        }
+      };
 
     /**
      * Converts a JsonArray to an expression
@@ -3760,13 +3821,24 @@ public class Expression {
 
     /**
      * Converts a raw expression to a DSL equivalent.
+     * <p>
+     * Recently converted raw expressions are cached, converting the same raw expression again
+     * returns the same instance without parsing it.
+     * </p>
      *
      * @param rawExpression the raw expression to convert
      * @return the resulting expression
      * @see <a href="https://www.mapbox.com/mapbox-gl-js/style-spec/">Style specification</a>
      */
     public static Expression convert(@NonNull String rawExpression) {
-      return convert(gson.fromJson(rawExpression, JsonArray.class));
+      synchronized (rawExpressions) {
+        Expression expression = rawExpressions.get(rawExpression);
+        if (expression == null) {
+          expression = convert(gson.fromJson(rawExpression, JsonArray.class));
+          rawExpressions.put(rawExpression, expression);
+        }
+        return expression;
+      }
     }
   }
 
@@ -3813,6 +3885,41 @@ public class Expression {
       builder.append("]]");
       return builder.toString();
     }
+
+    /**
+     * Indicates whether some other object is "equal to" this one.
+     *
+     * @param o the other object
+     * @return true if equal, false if not
+     */
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      if (!super.equals(o)) {
+        return false;
+      }
+
+      ExpressionArray that = (ExpressionArray) o;
+
+      return Arrays.deepEquals(array, that.array);
+    }
+
+    /**
+     * Returns a hash code value for the expression array.
+     *
+     * @return a hash code value for this expression array
+     */
+    @Override
+    public int hashCode() {
+      int result = super.hashCode();
+      result = 31 * result + Arrays.deepHashCode(array);
+      return result;
+    }
   }
 
   /**
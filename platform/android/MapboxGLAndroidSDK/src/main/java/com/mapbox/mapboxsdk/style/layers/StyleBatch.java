@@ -0,0 +1,126 @@
+package com.mapbox.mapboxsdk.style.layers;
+
+import android.support.annotation.NonNull;
+
+import com.mapbox.mapboxsdk.style.expressions.Expression;
+
+import java.util.Arrays;
+
+/**
+ * Collects property changes for any number of layers, to be applied to the map at once with
+ * {@link com.mapbox.mapboxsdk.maps.MapboxMap#batchStyleUpdate(StyleBatch)}.
+ * <p>
+ * Compared to calling {@link Layer#setProperties(PropertyValue[])} for every layer, the whole batch is handed to
+ * native code in a single call. Properties are applied in the order they were added.
+ * </p>
+ */
+public final class StyleBatch {
+
+  private static final int INITIAL_CAPACITY = 16;
+
+  private Layer[] layers = new Layer[INITIAL_CAPACITY];
+  private String[] names = new String[INITIAL_CAPACITY];
+  private Object[] values = new Object[INITIAL_CAPACITY];
+  private boolean[] paint = new boolean[INITIAL_CAPACITY];
+  private int size;
+
+  /**
+   * Adds property changes for a layer to this batch.
+   *
+   * @param layer      the layer to update
+   * @param properties the properties to set
+   * @return this batch, for chaining
+   */
+  @NonNull
+  public StyleBatch setProperties(@NonNull Layer layer, @NonNull PropertyValue<?>... properties) {
+    ensureCapacity(size + properties.length);
+    for (PropertyValue<?> property : properties) {
+      layers[size] = layer;
+      names[size] = property.name;
+      values[size] = property.value instanceof Expression ? ((Expression) property.value).toArray() : property.value;
+      paint[size] = property instanceof PaintPropertyValue;
+      size++;
+    }
+    return this;
+  }
+
+  /**
+   * Returns the number of property changes in this batch.
+   *
+   * @return the number of property changes
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns true if this batch doesn't contain any property changes.
+   *
+   * @return true if empty
+   */
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * Removes all property changes from this batch, so it can be reused.
+   */
+  public void clear() {
+    Arrays.fill(layers, 0, size, null);
+    Arrays.fill(names, 0, size, null);
+    Arrays.fill(values, 0, size, null);
+    size = 0;
+  }
+
+  /**
+   * Do not use this method, used internally by the SDK.
+   *
+   * @return the layers, one per property change
+   */
+  @NonNull
+  public Layer[] getLayers() {
+    return Arrays.copyOf(layers, size);
+  }
+
+  /**
+   * Do not use this method, used internally by the SDK.
+   *
+   * @return the property names
+   */
+  @NonNull
+  public String[] getNames() {
+    return Arrays.copyOf(names, size);
+  }
+
+  /**
+   * Do not use this method, used internally by the SDK.
+   *
+   * @return the converted property values
+   */
+  @NonNull
+  public Object[] getValues() {
+    return Arrays.copyOf(values, size);
+  }
+
+  /**
+   * Do not use this method, used internally by the SDK.
+   *
+   * @return for every property change, true if it's a paint property and false if it's a layout property
+   */
+  @NonNull
+  public boolean[] getPaintFlags() {
+    return Arrays.copyOf(paint, size);
+  }
+
+  private void ensureCapacity(int capacity) {
+    if (capacity <= layers.length) {
+      return;
+    }
+
+    int newCapacity = Math.max(capacity, layers.length * 2);
+    layers = Arrays.copyOf(layers, newCapacity);
+    names = Arrays.copyOf(names, newCapacity);
+    values = Arrays.copyOf(values, newCapacity);
+    paint = Arrays.copyOf(paint, newCapacity);
+  }
+}
@@ -5,6 +5,8 @@ import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.support.annotation.UiThread;
 import android.support.annotation.WorkerThread;
+import android.support.v4.util.LongSparseArray;
+import android.support.v4.util.Pools;
 
 import com.mapbox.geojson.Feature;
 import com.mapbox.geojson.FeatureCollection;
@@ -14,30 +16,45 @@ import com.mapbox.mapboxsdk.style.expressions.Expression;
 import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadFactory;
-import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Custom Vector Source, allows using FeatureCollections.
+ * <p>
+ * Tiles are requested from the {@link GeometryTileProvider} on a pool of worker threads. Queued requests are
+ * prioritised: tiles at the most recently requested zoom level, closest to the center of the tiles currently
+ * requested at that zoom, are fetched first, and requests cancelled while queued are dropped without reaching
+ * the provider.
+ * </p>
+ * <p>
+ * Optionally, provided tiles are kept in a bounded in-memory cache, see
+ * {@link CustomGeometrySourceOptions#withTileCacheSize(int)}.
+ * </p>
  */
 @UiThread
 public class CustomGeometrySource extends Source {
   public static final String THREAD_PREFIX = "CustomGeom";
   public static final int THREAD_POOL_LIMIT = 4;
   private static final AtomicInteger poolCount = new AtomicInteger();
+  private static final int REQUEST_POOL_SIZE = 64;
   private final Lock executorLock = new ReentrantLock();
+  private final TileCache tileCache;
+  private final TileRequests tileRequests;
+  private final TileRequestQueue requestQueue;
+  private final TileRequestRunner requestRunner;
+  private final int threadPoolSize;
   private ExecutorService executor;
   private GeometryTileProvider provider;
-  private final Map<TileID, AtomicBoolean> cancelledTileRequests = new ConcurrentHashMap<>();
 
   /**
    * Create a CustomGeometrySource
@@ -60,6 +77,11 @@ public class CustomGeometrySource extends Source {
   public CustomGeometrySource(String id, GeometryTileProvider provider, CustomGeometrySourceOptions options) {
     super();
     this.provider = provider;
+    this.threadPoolSize = options.getThreadPoolSize();
+    this.tileCache = new TileCache(options.getTileCacheSize());
+    this.tileRequests = new TileRequests(provider, tileCache, this);
+    this.requestQueue = new TileRequestQueue(tileRequests);
+    this.requestRunner = new TileRequestRunner(requestQueue, tileRequests);
     initialize(id, options);
   }
 
@@ -72,6 +94,7 @@ public class CustomGeometrySource extends Source {
    */
   public void invalidateRegion(LatLngBounds bounds) {
     checkThread();
+    tileCache.invalidate(bounds);
     nativeInvalidateBounds(bounds);
   }
 
@@ -85,6 +108,7 @@ public class CustomGeometrySource extends Source {
    */
   public void invalidateTile(int zoomLevel, int x, int y) {
     checkThread();
+    tileCache.invalidate(tileKey(zoomLevel, x, y));
     nativeInvalidateTile(zoomLevel, x, y);
   }
 
@@ -116,6 +140,16 @@ public class CustomGeometrySource extends Source {
     return features != null ? Arrays.asList(features) : new ArrayList<Feature>();
   }
 
+  /**
+   * Get a snapshot of the tile request scheduling metrics, used to tune the thread pool size.
+   *
+   * @return the current metrics
+   */
+  @NonNull
+  public CustomGeometrySourceMetrics getMetrics() {
+    return requestQueue.getMetrics();
+  }
+
   @Keep
   protected native void initialize(String sourceId, Object options);
 
@@ -135,23 +169,18 @@ public class CustomGeometrySource extends Source {
   @Keep
   protected native void finalize() throws Throwable;
 
-  private void setTileData(TileID tileId, FeatureCollection data) {
-    cancelledTileRequests.remove(tileId);
-    nativeSetTileData(tileId.z, tileId.x, tileId.y, data);
+  private void setTileData(GeometryTileRequest request, FeatureCollection data) {
+    nativeSetTileData(request.z, request.x, request.y, data);
   }
 
   @WorkerThread
   @Keep
   private void fetchTile(int z, int x, int y) {
-    AtomicBoolean cancelFlag = new AtomicBoolean(false);
-    TileID tileID = new TileID(z, x, y);
-    cancelledTileRequests.put(tileID, cancelFlag);
-    GeometryTileRequest request = new GeometryTileRequest(tileID, provider, this, cancelFlag);
-
     executorLock.lock();
     try {
       if (executor != null && !executor.isShutdown()) {
-        executor.execute(request);
+        requestQueue.offer(tileRequests.obtain(z, x, y));
+        executor.execute(requestRunner);
       }
     } finally {
       executorLock.unlock();
@@ -161,10 +190,7 @@ public class CustomGeometrySource extends Source {
   @WorkerThread
   @Keep
   private void cancelTile(int z, int x, int y) {
-    AtomicBoolean cancelFlag = cancelledTileRequests.get(new TileID(z, x, y));
-    if (cancelFlag != null) {
-      cancelFlag.compareAndSet(false, true);
-    }
+    tileRequests.cancel(tileKey(z, x, y));
   }
 
   @Keep
@@ -174,8 +200,9 @@ public class CustomGeometrySource extends Source {
       if (executor != null && !executor.isShutdown()) {
         executor.shutdownNow();
       }
+      requestQueue.reset();
 
-      executor = Executors.newFixedThreadPool(THREAD_POOL_LIMIT, new ThreadFactory() {
+      executor = Executors.newFixedThreadPool(threadPoolSize, new ThreadFactory() {
         final AtomicInteger threadCount = new AtomicInteger();
         final int poolId = poolCount.getAndIncrement();
 
@@ -196,71 +223,343 @@ public class CustomGeometrySource extends Source {
     executorLock.lock();
     try {
       executor.shutdownNow();
+      requestQueue.clear();
     } finally {
       executorLock.unlock();
     }
   }
 
-  private static class TileID {
-    public int z;
-    public int x;
-    public int y;
+  /**
+   * Packs a canonical tile id into a single long, 8 bits for the zoom level and 28 bits for each coordinate.
+   */
+  private static long tileKey(int z, int x, int y) {
+    return ((long) z << 56) | ((long) x << 28) | y;
+  }
+
+  private static int tileZ(long key) {
+    return (int) (key >>> 56);
+  }
+
+  private static int tileX(long key) {
+    return (int) ((key >>> 28) & 0xFFFFFFF);
+  }
+
+  private static int tileY(long key) {
+    return (int) (key & 0xFFFFFFF);
+  }
 
-    public TileID(int _z, int _x, int _y) {
-      z = _z;
-      x = _x;
-      y = _y;
+  /**
+   * Request for a single tile, pooled and reused for other tiles once processed.
+   */
+  private static class GeometryTileRequest implements Runnable {
+    private final GeometryTileProvider provider;
+    private final TileCache cache;
+    private final WeakReference<CustomGeometrySource> sourceRef;
+    private long key;
+    private int z;
+    private int x;
+    private int y;
+    private volatile boolean cancelled;
+    private long enqueuedNanos;
+
+    GeometryTileRequest(GeometryTileProvider provider, TileCache cache,
+                        WeakReference<CustomGeometrySource> sourceRef) {
+      this.provider = provider;
+      this.cache = cache;
+      this.sourceRef = sourceRef;
     }
 
-    public int hashCode() {
-      return Arrays.hashCode(new int[] {z, x, y});
+    void set(int z, int x, int y) {
+      this.key = tileKey(z, x, y);
+      this.z = z;
+      this.x = x;
+      this.y = y;
+      this.cancelled = false;
     }
 
-    public boolean equals(Object object) {
-      if (object == this) {
-        return true;
+    public void run() {
+      if (cancelled) {
+        return;
       }
 
-      if (object == null || getClass() != object.getClass()) {
-        return false;
+      FeatureCollection data = cache.get(key);
+      if (data == null) {
+        long generation = cache.getGeneration();
+        data = provider.getFeaturesForBounds(LatLngBounds.from(z, x, y), z);
+        if (data != null) {
+          cache.put(key, data, generation);
+        }
       }
+      CustomGeometrySource source = sourceRef.get();
+      if (!cancelled && source != null && data != null) {
+        source.setTileData(this, data);
+      }
+    }
+  }
+
+  /**
+   * Requests in flight, keyed by packed tile id so cancellation can find them, and the pool they're recycled to.
+   * A request is only recycled once it's been removed from the queue and from the in flight requests, both
+   * under this lock, so a recycled request can't be reached anymore.
+   */
+  private static class TileRequests {
+    private final LongSparseArray<GeometryTileRequest> inFlight = new LongSparseArray<>();
+    private final Pools.SimplePool<GeometryTileRequest> pool = new Pools.SimplePool<>(REQUEST_POOL_SIZE);
+    private final GeometryTileProvider provider;
+    private final TileCache cache;
+    private final WeakReference<CustomGeometrySource> sourceRef;
+
+    TileRequests(GeometryTileProvider provider, TileCache cache, CustomGeometrySource source) {
+      this.provider = provider;
+      this.cache = cache;
+      this.sourceRef = new WeakReference<>(source);
+    }
+
+    synchronized GeometryTileRequest obtain(int z, int x, int y) {
+      GeometryTileRequest request = pool.acquire();
+      if (request == null) {
+        request = new GeometryTileRequest(provider, cache, sourceRef);
+      }
+      request.set(z, x, y);
+
+      // a new request for the same tile supersedes the previous one
+      GeometryTileRequest previous = inFlight.get(request.key);
+      if (previous != null) {
+        previous.cancelled = true;
+      }
+      inFlight.put(request.key, request);
+      return request;
+    }
+
+    synchronized void cancel(long key) {
+      GeometryTileRequest request = inFlight.get(key);
+      if (request != null) {
+        request.cancelled = true;
+        inFlight.remove(key);
+      }
+    }
 
-      if (object instanceof TileID) {
-        TileID other = (TileID) object;
-        return this.z == other.z && this.x == other.x && this.y == other.y;
+    synchronized void recycle(GeometryTileRequest request) {
+      if (inFlight.get(request.key) == request) {
+        inFlight.remove(request.key);
       }
-      return false;
+      pool.release(request);
     }
   }
 
-  private static class GeometryTileRequest implements Runnable {
-    private TileID id;
-    private GeometryTileProvider provider;
-    private WeakReference<CustomGeometrySource> sourceRef;
-    private AtomicBoolean cancelled;
-
-    public GeometryTileRequest(TileID _id, GeometryTileProvider p,
-                               CustomGeometrySource _source, AtomicBoolean _cancelled) {
-      id = _id;
-      provider = p;
-      sourceRef = new WeakReference<>(_source);
-      cancelled = _cancelled;
+  /**
+   * Runs the most urgent queued request, one runner is submitted to the executor for every queued request.
+   */
+  private static class TileRequestRunner implements Runnable {
+    private final TileRequestQueue queue;
+    private final TileRequests requests;
+
+    TileRequestRunner(TileRequestQueue queue, TileRequests requests) {
+      this.queue = queue;
+      this.requests = requests;
     }
 
+    @Override
     public void run() {
-      if (isCancelled()) {
+      GeometryTileRequest request = queue.poll();
+      if (request == null) {
         return;
       }
 
-      FeatureCollection data = provider.getFeaturesForBounds(LatLngBounds.from(id.z, id.x, id.y), id.z);
-      CustomGeometrySource source = sourceRef.get();
-      if (!isCancelled() && source != null && data != null) {
-        source.setTileData(id, data);
+      long start = System.nanoTime();
+      try {
+        request.run();
+      } finally {
+        queue.onCompleted(System.nanoTime() - start);
+        requests.recycle(request);
+      }
+    }
+  }
+
+  /**
+   * Pending tile requests, ordered on every poll against the zoom level of the newest request and the center of
+   * the pending tiles at that zoom, which follow the viewport as the renderer requests tiles for it.
+   * The queue only holds the tiles of a single viewport, a linear scan is cheaper than keeping a heap ordered
+   * while its focus moves.
+   */
+  private static class TileRequestQueue {
+    private final List<GeometryTileRequest> pending = new ArrayList<>();
+    private final TileRequests requests;
+    private int focusZoom;
+    private int maxDepth;
+    private long completedCount;
+    private long evictedCount;
+    private long totalQueueNanos;
+    private long totalFetchNanos;
+
+    TileRequestQueue(TileRequests requests) {
+      this.requests = requests;
+    }
+
+    synchronized void offer(GeometryTileRequest request) {
+      request.enqueuedNanos = System.nanoTime();
+      focusZoom = request.z;
+      pending.add(request);
+      maxDepth = Math.max(maxDepth, pending.size());
+    }
+
+    @Nullable
+    synchronized GeometryTileRequest poll() {
+      double sumX = 0;
+      double sumY = 0;
+      int focusCount = 0;
+      for (int i = pending.size() - 1; i >= 0; i--) {
+        GeometryTileRequest request = pending.get(i);
+        if (request.cancelled) {
+          pending.remove(i);
+          requests.recycle(request);
+          evictedCount++;
+        } else if (request.z == focusZoom) {
+          sumX += request.x;
+          sumY += request.y;
+          focusCount++;
+        }
+      }
+
+      if (pending.isEmpty()) {
+        return null;
+      }
+
+      double centerX = focusCount > 0 ? sumX / focusCount : 0;
+      double centerY = focusCount > 0 ? sumY / focusCount : 0;
+      int bestIndex = 0;
+      int bestZoomDelta = Integer.MAX_VALUE;
+      double bestDistance = Double.MAX_VALUE;
+      for (int i = 0; i < pending.size(); i++) {
+        GeometryTileRequest request = pending.get(i);
+        int zoomDelta = Math.abs(request.z - focusZoom);
+        if (zoomDelta > bestZoomDelta) {
+          continue;
+        }
+
+        // compare against the focus center scaled to the zoom level of the tile
+        double scale = Math.pow(2, request.z - focusZoom);
+        double dx = request.x + 0.5 - (centerX + 0.5) * scale;
+        double dy = request.y + 0.5 - (centerY + 0.5) * scale;
+        double distance = dx * dx + dy * dy;
+        if (zoomDelta < bestZoomDelta || distance < bestDistance) {
+          bestIndex = i;
+          bestZoomDelta = zoomDelta;
+          bestDistance = distance;
+        }
+      }
+
+      GeometryTileRequest request = pending.remove(bestIndex);
+      totalQueueNanos += System.nanoTime() - request.enqueuedNanos;
+      return request;
+    }
+
+    synchronized void onCompleted(long fetchNanos) {
+      completedCount++;
+      totalFetchNanos += fetchNanos;
+    }
+
+    synchronized void clear() {
+      evictedCount += pending.size();
+      recycleAll();
+    }
+
+    synchronized void reset() {
+      recycleAll();
+      maxDepth = 0;
+      completedCount = 0;
+      evictedCount = 0;
+      totalQueueNanos = 0;
+      totalFetchNanos = 0;
+    }
+
+    private void recycleAll() {
+      for (int i = 0; i < pending.size(); i++) {
+        requests.recycle(pending.get(i));
+      }
+      pending.clear();
+    }
+
+    synchronized CustomGeometrySourceMetrics getMetrics() {
+      long dequeued = completedCount > 0 ? completedCount : 1;
+      return new CustomGeometrySourceMetrics(pending.size(), maxDepth, completedCount, evictedCount,
+        totalQueueNanos / 1e6 / dequeued, totalFetchNanos / 1e6 / dequeued);
+    }
+  }
+
+  /**
+   * Least recently used cache of provided tiles, keyed by packed tile id and bounded by the total number
+   * of features. Lookups are skipped entirely while the cache is disabled.
+   */
+  private static class TileCache {
+    private final LinkedHashMap<Long, FeatureCollection> tiles = new LinkedHashMap<>(16, 0.75f, true);
+    private final int maxFeatureCount;
+    private int featureCount;
+    // bumped on every invalidation, so that tiles fetched before it aren't cached afterwards
+    private long generation;
+
+    TileCache(int maxFeatureCount) {
+      this.maxFeatureCount = maxFeatureCount;
+    }
+
+    @Nullable
+    FeatureCollection get(long key) {
+      if (maxFeatureCount == 0) {
+        return null;
+      }
+
+      synchronized (this) {
+        return tiles.get(key);
+      }
+    }
+
+    synchronized long getGeneration() {
+      return generation;
+    }
+
+    synchronized void put(long key, FeatureCollection data, long fetchGeneration) {
+      int weight = weightOf(data);
+      if (fetchGeneration != generation || weight > maxFeatureCount) {
+        return;
+      }
+
+      FeatureCollection previous = tiles.put(key, data);
+      if (previous != null) {
+        featureCount -= weightOf(previous);
+      }
+      featureCount += weight;
+
+      Iterator<Map.Entry<Long, FeatureCollection>> iterator = tiles.entrySet().iterator();
+      while (featureCount > maxFeatureCount && iterator.hasNext()) {
+        featureCount -= weightOf(iterator.next().getValue());
+        iterator.remove();
+      }
+    }
+
+    synchronized void invalidate(long key) {
+      generation++;
+      FeatureCollection removed = tiles.remove(key);
+      if (removed != null) {
+        featureCount -= weightOf(removed);
+      }
+    }
+
+    synchronized void invalidate(LatLngBounds bounds) {
+      generation++;
+      Iterator<Map.Entry<Long, FeatureCollection>> iterator = tiles.entrySet().iterator();
+      while (iterator.hasNext()) {
+        Map.Entry<Long, FeatureCollection> entry = iterator.next();
+        long key = entry.getKey();
+        if (LatLngBounds.from(tileZ(key), tileX(key), tileY(key)).intersect(bounds) != null) {
+          featureCount -= weightOf(entry.getValue());
+          iterator.remove();
+        }
       }
     }
 
-    private Boolean isCancelled() {
-      return cancelled.get();
+    private static int weightOf(FeatureCollection data) {
+      List<Feature> features = data.features();
+      return features != null ? Math.max(1, features.size()) : 1;
     }
   }
 }
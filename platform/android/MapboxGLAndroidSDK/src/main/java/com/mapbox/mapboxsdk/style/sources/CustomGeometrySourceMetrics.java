@@ -0,0 +1,99 @@
+package com.mapbox.mapboxsdk.style.sources;
+
+/**
+ * Snapshot of the tile request scheduling metrics of a {@link CustomGeometrySource}.
+ * <p>
+ * Latencies are averaged over all requests processed since the source started its threads. Queue latency
+ * is the time a request waited before a thread picked it up, fetch latency is the time spent in
+ * {@link GeometryTileProvider#getFeaturesForBounds}.
+ * </p>
+ *
+ * @see CustomGeometrySource#getMetrics()
+ */
+public final class CustomGeometrySourceMetrics {
+
+  private final int queueDepth;
+  private final int maxQueueDepth;
+  private final long completedRequestCount;
+  private final long evictedRequestCount;
+  private final double averageQueueLatencyMillis;
+  private final double averageFetchLatencyMillis;
+
+  CustomGeometrySourceMetrics(int queueDepth, int maxQueueDepth, long completedRequestCount,
+                              long evictedRequestCount, double averageQueueLatencyMillis,
+                              double averageFetchLatencyMillis) {
+    this.queueDepth = queueDepth;
+    this.maxQueueDepth = maxQueueDepth;
+    this.completedRequestCount = completedRequestCount;
+    this.evictedRequestCount = evictedRequestCount;
+    this.averageQueueLatencyMillis = averageQueueLatencyMillis;
+    this.averageFetchLatencyMillis = averageFetchLatencyMillis;
+  }
+
+  /**
+   * Get the number of tile requests waiting for a thread.
+   *
+   * @return the current queue depth
+   */
+  public int getQueueDepth() {
+    return queueDepth;
+  }
+
+  /**
+   * Get the highest number of tile requests that were waiting for a thread at the same time.
+   *
+   * @return the maximum queue depth
+   */
+  public int getMaxQueueDepth() {
+    return maxQueueDepth;
+  }
+
+  /**
+   * Get the number of tile requests that were passed to the {@link GeometryTileProvider}.
+   *
+   * @return the completed request count
+   */
+  public long getCompletedRequestCount() {
+    return completedRequestCount;
+  }
+
+  /**
+   * Get the number of tile requests that were cancelled while queued and never reached
+   * the {@link GeometryTileProvider}.
+   *
+   * @return the evicted request count
+   */
+  public long getEvictedRequestCount() {
+    return evictedRequestCount;
+  }
+
+  /**
+   * Get the average time a completed request waited in the queue.
+   *
+   * @return the average queue latency in milliseconds
+   */
+  public double getAverageQueueLatencyMillis() {
+    return averageQueueLatencyMillis;
+  }
+
+  /**
+   * Get the average time the {@link GeometryTileProvider} took to return features.
+   *
+   * @return the average fetch latency in milliseconds
+   */
+  public double getAverageFetchLatencyMillis() {
+    return averageFetchLatencyMillis;
+  }
+
+  @Override
+  public String toString() {
+    return "CustomGeometrySourceMetrics{"
+      + "queueDepth=" + queueDepth
+      + ", maxQueueDepth=" + maxQueueDepth
+      + ", completedRequestCount=" + completedRequestCount
+      + ", evictedRequestCount=" + evictedRequestCount
+      + ", averageQueueLatencyMillis=" + averageQueueLatencyMillis
+      + ", averageFetchLatencyMillis=" + averageFetchLatencyMillis
+      + '}';
+  }
+}
@@ -5,6 +5,10 @@ package com.mapbox.mapboxsdk.style.sources;
  */
 public class CustomGeometrySourceOptions extends GeoJsonOptions {
 
+  // Only read by the Java side, core ignores unknown option keys
+  private static final String THREAD_POOL_SIZE = "threadPoolSize";
+  private static final String TILE_CACHE_SIZE = "tileCacheSize";
+
   /**
    * If the data includes wrapped coordinates, setting this to true unwraps the coordinates.
    *
@@ -28,4 +32,45 @@ public class CustomGeometrySourceOptions extends GeoJsonOptions {
     return this;
   }
 
+  /**
+   * Number of threads used to request tiles from the {@link GeometryTileProvider}.
+   *
+   * @param threadPoolSize defaults to {@link CustomGeometrySource#THREAD_POOL_LIMIT}
+   * @return the current instance for chaining
+   */
+  public CustomGeometrySourceOptions withThreadPoolSize(int threadPoolSize) {
+    if (threadPoolSize < 1) {
+      throw new IllegalArgumentException("Thread pool size must be at least 1");
+    }
+    this.put(THREAD_POOL_SIZE, threadPoolSize);
+    return this;
+  }
+
+  /**
+   * Size of the in-memory cache of tiles returned by the {@link GeometryTileProvider}, counted in features.
+   * Tiles requested again while cached, for example when panning back and forth, are served without calling
+   * the provider. Cached tiles are dropped by {@link CustomGeometrySource#invalidateTile(int, int, int)} and
+   * {@link CustomGeometrySource#invalidateRegion(com.mapbox.mapboxsdk.geometry.LatLngBounds)}.
+   *
+   * @param maxFeatureCount the maximum number of features kept in the cache, defaults to 0, disabling the cache
+   * @return the current instance for chaining
+   */
+  public CustomGeometrySourceOptions withTileCacheSize(int maxFeatureCount) {
+    if (maxFeatureCount < 0) {
+      throw new IllegalArgumentException("Tile cache size can't be negative");
+    }
+    this.put(TILE_CACHE_SIZE, maxFeatureCount);
+    return this;
+  }
+
+  int getTileCacheSize() {
+    Object tileCacheSize = get(TILE_CACHE_SIZE);
+    return tileCacheSize instanceof Integer ? (Integer) tileCacheSize : 0;
+  }
+
+  int getThreadPoolSize() {
+    Object threadPoolSize = get(THREAD_POOL_SIZE);
+    return threadPoolSize instanceof Integer ? (Integer) threadPoolSize : CustomGeometrySource.THREAD_POOL_LIMIT;
+  }
+
 }
@@ -0,0 +1,279 @@
+package com.mapbox.mapboxsdk.style.sources;
+
+import android.support.annotation.NonNull;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+import com.mapbox.geojson.Feature;
+import com.mapbox.geojson.FeatureCollection;
+import com.mapbox.geojson.Geometry;
+import com.mapbox.geojson.GeometryCollection;
+import com.mapbox.geojson.LineString;
+import com.mapbox.geojson.MultiLineString;
+import com.mapbox.geojson.MultiPoint;
+import com.mapbox.geojson.MultiPolygon;
+import com.mapbox.geojson.Point;
+import com.mapbox.geojson.Polygon;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Encodes GeoJSON objects into a compact binary representation that can be handed to
+ * {@link GeoJsonSource#setGeoJson(ByteBuffer)}.
+ * <p>
+ * The resulting buffer is a direct buffer in native byte order, native code reads it in place without
+ * copying and without calling back into Java for every coordinate. Encoding doesn't touch the map and can
+ * be done on any thread.
+ * </p>
+ * <p>
+ * Layout, all integers are 32-bit and all coordinates are 64-bit floating point numbers:
+ * <pre>
+ * collection := featureCount feature*
+ * feature    := string(id) properties geometry
+ * properties := count (string(key) value)*
+ * geometry   := type payload, where the payload of a Point is lng lat, of a LineString or MultiPoint a
+ *               count followed by the points, of a Polygon or MultiLineString a count followed by the
+ *               lines, of a MultiPolygon a count followed by the polygons and of a GeometryCollection
+ *               a count followed by the geometries. A missing geometry is encoded as an empty
+ *               GeometryCollection
+ * value      := tag payload, see the VALUE_* constants
+ * string     := byteLength utf8Bytes, a byteLength of -1 denotes a missing string
+ * </pre>
+ * </p>
+ */
+public final class GeoJsonBinaryEncoder {
+
+  static final int GEOMETRY_POINT = 1;
+  static final int GEOMETRY_LINE_STRING = 2;
+  static final int GEOMETRY_POLYGON = 3;
+  static final int GEOMETRY_MULTI_POINT = 4;
+  static final int GEOMETRY_MULTI_LINE_STRING = 5;
+  static final int GEOMETRY_MULTI_POLYGON = 6;
+  static final int GEOMETRY_COLLECTION = 7;
+
+  static final int VALUE_NULL = 0;
+  static final int VALUE_BOOLEAN = 1;
+  static final int VALUE_NUMBER = 2;
+  static final int VALUE_STRING = 3;
+  static final int VALUE_ARRAY = 4;
+  static final int VALUE_OBJECT = 5;
+
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+  private static final int INITIAL_CAPACITY = 1024;
+
+  private ByteBuffer buffer;
+
+  private GeoJsonBinaryEncoder(int capacity) {
+    buffer = ByteBuffer.allocateDirect(capacity).order(ByteOrder.nativeOrder());
+  }
+
+  /**
+   * Encodes a feature collection.
+   *
+   * @param featureCollection the features to encode
+   * @return a direct buffer, positioned at 0, containing the encoded features
+   */
+  @NonNull
+  public static ByteBuffer encode(@NonNull FeatureCollection featureCollection) {
+    List<Feature> features = featureCollection.features();
+    return encode(features != null ? features : Collections.<Feature>emptyList());
+  }
+
+  /**
+   * Encodes a list of features.
+   *
+   * @param features the features to encode
+   * @return a direct buffer, positioned at 0, containing the encoded features
+   */
+  @NonNull
+  public static ByteBuffer encode(@NonNull List<Feature> features) {
+    GeoJsonBinaryEncoder encoder = new GeoJsonBinaryEncoder(estimateCapacity(features));
+    encoder.writeInt(features.size());
+    for (Feature feature : features) {
+      encoder.writeFeature(feature);
+    }
+    return encoder.finish();
+  }
+
+  /**
+   * Encodes a single feature.
+   *
+   * @param feature the feature to encode
+   * @return a direct buffer, positioned at 0, containing the encoded feature
+   */
+  @NonNull
+  public static ByteBuffer encode(@NonNull Feature feature) {
+    return encode(Collections.singletonList(feature));
+  }
+
+  /**
+   * Encodes a single geometry, as a feature without id and properties.
+   *
+   * @param geometry the geometry to encode
+   * @return a direct buffer, positioned at 0, containing the encoded geometry
+   */
+  @NonNull
+  public static ByteBuffer encode(@NonNull Geometry geometry) {
+    return encode(Feature.fromGeometry(geometry));
+  }
+
+  private static int estimateCapacity(List<Feature> features) {
+    // a point feature without properties takes up about 32 bytes
+    return Math.max(INITIAL_CAPACITY, features.size() * 32);
+  }
+
+  private ByteBuffer finish() {
+    buffer.flip();
+    return buffer;
+  }
+
+  private void writeFeature(Feature feature) {
+    writeString(feature.id());
+    writeProperties(feature.properties());
+    writeGeometry(feature.geometry());
+  }
+
+  private void writeProperties(JsonObject properties) {
+    if (properties == null) {
+      writeInt(0);
+      return;
+    }
+
+    writeInt(properties.size());
+    for (Map.Entry<String, JsonElement> entry : properties.entrySet()) {
+      writeString(entry.getKey());
+      writeValue(entry.getValue());
+    }
+  }
+
+  private void writeValue(JsonElement element) {
+    if (element == null || element.isJsonNull()) {
+      writeInt(VALUE_NULL);
+    } else if (element.isJsonObject()) {
+      writeInt(VALUE_OBJECT);
+      writeProperties(element.getAsJsonObject());
+    } else if (element.isJsonArray()) {
+      JsonArray array = element.getAsJsonArray();
+      writeInt(VALUE_ARRAY);
+      writeInt(array.size());
+      for (JsonElement arrayElement : array) {
+        writeValue(arrayElement);
+      }
+    } else {
+      JsonPrimitive primitive = element.getAsJsonPrimitive();
+      if (primitive.isBoolean()) {
+        writeInt(VALUE_BOOLEAN);
+        writeInt(primitive.getAsBoolean() ? 1 : 0);
+      } else if (primitive.isNumber()) {
+        writeInt(VALUE_NUMBER);
+        writeDouble(primitive.getAsDouble());
+      } else {
+        writeInt(VALUE_STRING);
+        writeString(primitive.getAsString());
+      }
+    }
+  }
+
+  private void writeGeometry(Geometry geometry) {
+    if (geometry instanceof Point) {
+      writeInt(GEOMETRY_POINT);
+      writePoint((Point) geometry);
+    } else if (geometry instanceof LineString) {
+      writeInt(GEOMETRY_LINE_STRING);
+      writePoints(((LineString) geometry).coordinates());
+    } else if (geometry instanceof Polygon) {
+      writeInt(GEOMETRY_POLYGON);
+      writeLines(((Polygon) geometry).coordinates());
+    } else if (geometry instanceof MultiPoint) {
+      writeInt(GEOMETRY_MULTI_POINT);
+      writePoints(((MultiPoint) geometry).coordinates());
+    } else if (geometry instanceof MultiLineString) {
+      writeInt(GEOMETRY_MULTI_LINE_STRING);
+      writeLines(((MultiLineString) geometry).coordinates());
+    } else if (geometry instanceof MultiPolygon) {
+      List<List<List<Point>>> polygons = ((MultiPolygon) geometry).coordinates();
+      writeInt(GEOMETRY_MULTI_POLYGON);
+      writeInt(polygons.size());
+      for (List<List<Point>> polygon : polygons) {
+        writeLines(polygon);
+      }
+    } else if (geometry instanceof GeometryCollection) {
+      List<Geometry> geometries = ((GeometryCollection) geometry).geometries();
+      writeInt(GEOMETRY_COLLECTION);
+      writeInt(geometries.size());
+      for (Geometry child : geometries) {
+        writeGeometry(child);
+      }
+    } else if (geometry == null) {
+      writeInt(GEOMETRY_COLLECTION);
+      writeInt(0);
+    } else {
+      throw new IllegalArgumentException("Unsupported GeoJSON type: " + geometry.type());
+    }
+  }
+
+  private void writeLines(List<List<Point>> lines) {
+    writeInt(lines.size());
+    for (List<Point> line : lines) {
+      writePoints(line);
+    }
+  }
+
+  private void writePoints(List<Point> points) {
+    int count = points.size();
+    ensureCapacity(4 + count * 16);
+    buffer.putInt(count);
+    for (int i = 0; i < count; i++) {
+      Point point = points.get(i);
+      buffer.putDouble(point.longitude());
+      buffer.putDouble(point.latitude());
+    }
+  }
+
+  private void writePoint(Point point) {
+    ensureCapacity(16);
+    buffer.putDouble(point.longitude());
+    buffer.putDouble(point.latitude());
+  }
+
+  private void writeString(String value) {
+    if (value == null) {
+      writeInt(-1);
+      return;
+    }
+
+    byte[] bytes = value.getBytes(UTF_8);
+    ensureCapacity(4 + bytes.length);
+    buffer.putInt(bytes.length);
+    buffer.put(bytes);
+  }
+
+  private void writeInt(int value) {
+    ensureCapacity(4);
+    buffer.putInt(value);
+  }
+
+  private void writeDouble(double value) {
+    ensureCapacity(8);
+    buffer.putDouble(value);
+  }
+
+  private void ensureCapacity(int bytes) {
+    if (buffer.remaining() >= bytes) {
+      return;
+    }
+
+    int capacity = Math.max(buffer.capacity() * 2, buffer.position() + bytes);
+    ByteBuffer grown = ByteBuffer.allocateDirect(capacity).order(ByteOrder.nativeOrder());
+    buffer.flip();
+    grown.put(buffer);
+    buffer = grown;
+  }
+}
@@ -89,4 +89,21 @@ public class GeoJsonOptions extends HashMap<String, Object> {
     return this;
   }
 
+  /**
+   * Keeps a copy of the features in native memory so that they can be diffed with
+   * {@link GeoJsonSource#addFeatures(java.util.List)}, {@link GeoJsonSource#updateFeatures(java.util.List)} and
+   * {@link GeoJsonSource#removeFeatures(String...)}. The copy costs as much memory as the features themselves.
+   *
+   * @param retainFeatures retain the features? - Defaults to false
+   * @return the current instance for chaining
+   */
+  public GeoJsonOptions withRetainFeatures(boolean retainFeatures) {
+    this.put("retainFeatures", retainFeatures);
+    return this;
+  }
+
+  boolean retainsFeatures() {
+    return Boolean.TRUE.equals(get("retainFeatures"));
+  }
+
 }
@@ -1,9 +1,12 @@
 package com.mapbox.mapboxsdk.style.sources;
 
+import android.os.Handler;
+import android.os.Looper;
 import android.support.annotation.Keep;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.support.annotation.UiThread;
+import android.support.annotation.WorkerThread;
 
 import com.mapbox.geojson.Feature;
 import com.mapbox.geojson.FeatureCollection;
@@ -11,9 +14,19 @@ import com.mapbox.geojson.Geometry;
 import com.mapbox.mapboxsdk.style.expressions.Expression;
 
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * GeoJson source, allows using FeatureCollections from Json.
@@ -23,6 +36,43 @@ import java.util.List;
 @UiThread
 public class GeoJsonSource extends Source {
 
+  public static final String THREAD_PREFIX = "GeoJsonSource";
+  public static final int THREAD_POOL_LIMIT = 2;
+  private static final long THREAD_KEEP_ALIVE_SECONDS = 30;
+  private static ExecutorService conversionExecutor;
+
+  // Incremented for every update, used to drop asynchronous updates that have been superseded
+  private final AtomicLong updateGeneration = new AtomicLong();
+  private Handler handler;
+
+  // Set by GeoJsonOptions#withRetainFeatures, the native peer keeps a copy of the features that can be diffed
+  private boolean featuresRetained;
+
+  /**
+   * Callback invoked on the UI thread when an update issued with one of the
+   * {@code setGeoJsonAsync} methods has been processed.
+   */
+  public interface GeoJsonUpdateCallback {
+
+    /**
+     * Invoked when the data has been applied to the source.
+     */
+    void onApplied();
+
+    /**
+     * Invoked when the data has been dropped because a newer update was issued before
+     * the conversion of this one finished.
+     */
+    void onDropped();
+
+    /**
+     * Invoked when the data could not be converted or decoded, the data previously set is kept.
+     *
+     * @param error the error message
+     */
+    void onError(String error);
+  }
+
   /**
    * Internal use
    *
@@ -53,6 +103,7 @@ public class GeoJsonSource extends Source {
   public GeoJsonSource(String id, GeoJsonOptions options) {
     super();
     initialize(id, options);
+    featuresRetained = options != null && options.retainsFeatures();
     setGeoJson(FeatureCollection.fromFeatures(new ArrayList<Feature>()));
   }
 
@@ -84,6 +135,7 @@ public class GeoJsonSource extends Source {
       throw new IllegalArgumentException("Expected a raw json body");
     }
     initialize(id, options);
+    featuresRetained = options != null && options.retainsFeatures();
     setGeoJson(geoJson);
   }
 
@@ -109,6 +161,7 @@ public class GeoJsonSource extends Source {
   public GeoJsonSource(String id, URL url, GeoJsonOptions options) {
     super();
     initialize(id, options);
+    featuresRetained = options != null && options.retainsFeatures();
     nativeSetUrl(url.toExternalForm());
   }
 
@@ -134,6 +187,7 @@ public class GeoJsonSource extends Source {
   public GeoJsonSource(String id, FeatureCollection features, GeoJsonOptions options) {
     super();
     initialize(id, options);
+    featuresRetained = options != null && options.retainsFeatures();
     setGeoJson(features);
   }
 
@@ -159,6 +213,7 @@ public class GeoJsonSource extends Source {
   public GeoJsonSource(String id, Feature feature, GeoJsonOptions options) {
     super();
     initialize(id, options);
+    featuresRetained = options != null && options.retainsFeatures();
     setGeoJson(feature);
   }
 
@@ -184,6 +239,7 @@ public class GeoJsonSource extends Source {
   public GeoJsonSource(String id, Geometry geometry, GeoJsonOptions options) {
     super();
     initialize(id, options);
+    featuresRetained = options != null && options.retainsFeatures();
     setGeoJson(geometry);
   }
 
@@ -194,6 +250,7 @@ public class GeoJsonSource extends Source {
    */
   public void setGeoJson(Feature feature) {
     checkThread();
+    nextUpdateGeneration();
     nativeSetFeature(feature);
   }
 
@@ -204,6 +261,7 @@ public class GeoJsonSource extends Source {
    */
   public void setGeoJson(Geometry geometry) {
     checkThread();
+    nextUpdateGeneration();
     nativeSetGeometry(geometry);
   }
 
@@ -214,6 +272,7 @@ public class GeoJsonSource extends Source {
    */
   public void setGeoJson(FeatureCollection features) {
     checkThread();
+    nextUpdateGeneration();
     nativeSetFeatureCollection(features);
   }
 
@@ -224,9 +283,137 @@ public class GeoJsonSource extends Source {
    */
   public void setGeoJson(String json) {
     checkThread();
+    nextUpdateGeneration();
     nativeSetGeoJsonString(json);
   }
 
+  /**
+   * Updates the GeoJson from features encoded with {@link GeoJsonBinaryEncoder}.
+   * <p>
+   * The remaining bytes of the buffer are read in place by native code, avoiding the per coordinate
+   * conversion of {@link #setGeoJson(FeatureCollection)} and the JSON parsing of {@link #setGeoJson(String)}.
+   * Encoding can be done on a background thread, the buffer must not be modified while this method runs.
+   * If the buffer can't be decoded, the error is logged and the data previously set is kept.
+   * </p>
+   *
+   * @param buffer a direct buffer in native byte order, as returned by {@link GeoJsonBinaryEncoder}
+   * @throws IllegalArgumentException if the buffer isn't direct or not in native byte order
+   */
+  public void setGeoJson(ByteBuffer buffer) {
+    checkThread();
+    if (!buffer.isDirect()) {
+      throw new IllegalArgumentException("Expected a direct buffer");
+    }
+    if (buffer.order() != ByteOrder.nativeOrder()) {
+      throw new IllegalArgumentException("Expected a buffer in native byte order");
+    }
+    nextUpdateGeneration();
+    applyGeoJsonBuffer(buffer.duplicate());
+  }
+
+  /**
+   * Updates the GeoJson with a single feature, converting it on a worker thread.
+   * <p>
+   * If another update is issued before the conversion finishes, this update is dropped.
+   * </p>
+   *
+   * @param feature  the GeoJSON {@link Feature} to set
+   * @param callback optional callback invoked on the UI thread once the update has been processed
+   */
+  public void setGeoJsonAsync(Feature feature, @Nullable GeoJsonUpdateCallback callback) {
+    setGeoJsonAsync(FeatureCollection.fromFeature(feature), callback);
+  }
+
+  /**
+   * Updates the GeoJson with a single geometry, converting it on a worker thread.
+   * <p>
+   * If another update is issued before the conversion finishes, this update is dropped.
+   * </p>
+   *
+   * @param geometry the GeoJSON {@link Geometry} to set
+   * @param callback optional callback invoked on the UI thread once the update has been processed
+   */
+  public void setGeoJsonAsync(Geometry geometry, @Nullable GeoJsonUpdateCallback callback) {
+    setGeoJsonAsync(Feature.fromGeometry(geometry), callback);
+  }
+
+  /**
+   * Updates the GeoJson, converting the features on a worker thread.
+   * <p>
+   * Updates are coalesced: if another update is issued before the conversion of this one finishes,
+   * this update is dropped and only the newest data is applied.
+   * </p>
+   * <p>
+   * Only the conversion of the Java objects is moved off the UI thread: the features are encoded on a worker
+   * thread, then decoded by native code on the UI thread, which is a single pass over the encoded buffer.
+   * Setting the decoded features builds the tile index of the source, and the cluster index if clustering is
+   * enabled, on the UI thread as well, exactly as {@link #setGeoJson(FeatureCollection)} does.
+   * </p>
+   *
+   * @param features the GeoJSON FeatureCollection
+   * @param callback optional callback invoked on the UI thread once the update has been processed
+   */
+  public void setGeoJsonAsync(FeatureCollection features, @Nullable GeoJsonUpdateCallback callback) {
+    checkThread();
+    if (handler == null) {
+      handler = new Handler(Looper.getMainLooper());
+    }
+    long generation = nextUpdateGeneration();
+    getConversionExecutor().execute(new GeoJsonConversionTask(this, handler, features, generation, callback));
+  }
+
+  /**
+   * Adds features to the GeoJson set on this source, features with an id that is already present replace
+   * the existing feature.
+   * <p>
+   * Only the given features are converted and passed to native code. Diffs are applied to the data
+   * currently set on the source, a pending {@link #setGeoJsonAsync(FeatureCollection, GeoJsonUpdateCallback)}
+   * replaces them once it's applied. Diffs can't be applied to data loaded from an url.
+   * </p>
+   * <p>
+   * Diffing requires a source created with {@link GeoJsonOptions#withRetainFeatures(boolean)}, which keeps a
+   * copy of its features in native memory. A diff saves converting the unchanged features, but the whole
+   * source is tiled again afterwards, as when setting all of its data.
+   * </p>
+   *
+   * @param features the features to add
+   * @throws IllegalStateException if the source doesn't retain its features
+   */
+  public void addFeatures(@NonNull List<Feature> features) {
+    checkThread();
+    checkFeaturesRetained();
+    ByteBuffer buffer = GeoJsonBinaryEncoder.encode(features);
+    nativeAddFeatures(buffer, buffer.position(), buffer.remaining());
+  }
+
+  /**
+   * Replaces features of the GeoJson set on this source, matching them by id. Features with an id that
+   * isn't present are ignored.
+   *
+   * @param features the features to update
+   * @throws IllegalStateException if the source doesn't retain its features
+   * @see #addFeatures(List)
+   */
+  public void updateFeatures(@NonNull List<Feature> features) {
+    checkThread();
+    checkFeaturesRetained();
+    ByteBuffer buffer = GeoJsonBinaryEncoder.encode(features);
+    nativeUpdateFeatures(buffer, buffer.position(), buffer.remaining());
+  }
+
+  /**
+   * Removes features from the GeoJson set on this source by id.
+   *
+   * @param ids the ids of the features to remove
+   * @throws IllegalStateException if the source doesn't retain its features
+   * @see #addFeatures(List)
+   */
+  public void removeFeatures(@NonNull String... ids) {
+    checkThread();
+    checkFeaturesRetained();
+    nativeRemoveFeatures(ids);
+  }
+
   /**
    * Updates the url
    *
@@ -244,6 +431,7 @@ public class GeoJsonSource extends Source {
    */
   public void setUrl(String url) {
     checkThread();
+    nextUpdateGeneration();
     nativeSetUrl(url);
   }
 
@@ -269,6 +457,58 @@ public class GeoJsonSource extends Source {
     return features != null ? Arrays.asList(features) : new ArrayList<Feature>();
   }
 
+  private void checkFeaturesRetained() {
+    if (!featuresRetained) {
+      throw new IllegalStateException("Features can only be diffed on a source created with retained features, see "
+        + "GeoJsonOptions#withRetainFeatures");
+    }
+  }
+
+  /**
+   * Starts a new update, superseding the pending asynchronous updates.
+   *
+   * @return the generation of the update
+   */
+  long nextUpdateGeneration() {
+    return updateGeneration.incrementAndGet();
+  }
+
+  /**
+   * Returns true if another update was started after the one of the given generation, can be called from any thread.
+   */
+  boolean isSuperseded(long generation) {
+    return updateGeneration.get() != generation;
+  }
+
+  /**
+   * Decodes the features encoded in the buffer and sets them on the source.
+   *
+   * @param buffer the encoded features, which must not be modified while they are read
+   * @return the error message if the features couldn't be decoded, null if they have been set
+   */
+  @Nullable
+  String applyGeoJsonBuffer(ByteBuffer buffer) {
+    return nativeSetGeoJsonBuffer(buffer, buffer.position(), buffer.remaining());
+  }
+
+  private static synchronized ExecutorService getConversionExecutor() {
+    if (conversionExecutor == null) {
+      ThreadPoolExecutor executor = new ThreadPoolExecutor(THREAD_POOL_LIMIT, THREAD_POOL_LIMIT,
+        THREAD_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+        final AtomicInteger threadCount = new AtomicInteger();
+
+        @Override
+        public Thread newThread(@NonNull Runnable runnable) {
+          return new Thread(runnable,
+            String.format(Locale.US, "%s-%d", THREAD_PREFIX, threadCount.getAndIncrement()));
+        }
+      });
+      executor.allowCoreThreadTimeOut(true);
+      conversionExecutor = executor;
+    }
+    return conversionExecutor;
+  }
+
   @Keep
   protected native void initialize(String layerId, Object options);
 
@@ -290,6 +530,18 @@ public class GeoJsonSource extends Source {
   @Keep
   private native void nativeSetGeometry(Geometry geometry);
 
+  @Keep
+  private native String nativeSetGeoJsonBuffer(ByteBuffer buffer, int offset, int length);
+
+  @Keep
+  private native void nativeAddFeatures(ByteBuffer buffer, int offset, int length);
+
+  @Keep
+  private native void nativeUpdateFeatures(ByteBuffer buffer, int offset, int length);
+
+  @Keep
+  private native void nativeRemoveFeatures(String[] ids);
+
   @Keep
   private native Feature[] querySourceFeatures(Object[] filter);
 
@@ -297,4 +549,92 @@ public class GeoJsonSource extends Source {
   @Keep
   protected native void finalize() throws Throwable;
 
+  /**
+   * Applies an update issued with one of the {@code setGeoJsonAsync} methods.
+   * <p>
+   * The features are encoded on a conversion thread. Decoding them and setting them on the source happens on the
+   * UI thread, native code reads the encoded buffer in place without calling back into Java for each coordinate,
+   * and the tile index of the source is built synchronously. The callback is invoked on the UI thread.
+   * </p>
+   */
+  static class GeoJsonConversionTask implements Runnable {
+    private final GeoJsonSource source;
+    private final Handler handler;
+    private final FeatureCollection features;
+    private final long generation;
+    private final GeoJsonUpdateCallback callback;
+
+    GeoJsonConversionTask(GeoJsonSource source, Handler handler, FeatureCollection features, long generation,
+                          @Nullable GeoJsonUpdateCallback callback) {
+      this.source = source;
+      this.handler = handler;
+      this.features = features;
+      this.generation = generation;
+      this.callback = callback;
+    }
+
+    @WorkerThread
+    @Override
+    public void run() {
+      if (source.isSuperseded(generation)) {
+        handler.post(new Runnable() {
+          @Override
+          public void run() {
+            onDropped();
+          }
+        });
+        return;
+      }
+
+      ByteBuffer encoded;
+      try {
+        encoded = GeoJsonBinaryEncoder.encode(features);
+      } catch (final RuntimeException exception) {
+        handler.post(new Runnable() {
+          @Override
+          public void run() {
+            onError(exception.getMessage());
+          }
+        });
+        return;
+      }
+
+      final ByteBuffer buffer = encoded;
+      handler.post(new Runnable() {
+        @Override
+        public void run() {
+          apply(buffer);
+        }
+      });
+    }
+
+    @UiThread
+    private void apply(ByteBuffer buffer) {
+      if (source.isSuperseded(generation)) {
+        onDropped();
+        return;
+      }
+
+      String error = source.applyGeoJsonBuffer(buffer);
+      if (error != null) {
+        onError(error);
+      } else if (callback != null) {
+        callback.onApplied();
+      }
+    }
+
+    @UiThread
+    private void onDropped() {
+      if (callback != null) {
+        callback.onDropped();
+      }
+    }
+
+    @UiThread
+    private void onError(String error) {
+      if (callback != null) {
+        callback.onError(error);
+      }
+    }
+  }
 }
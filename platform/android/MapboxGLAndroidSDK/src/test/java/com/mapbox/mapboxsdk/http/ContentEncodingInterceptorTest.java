@@ -0,0 +1,106 @@
+package com.mapbox.mapboxsdk.http;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.GZIPOutputStream;
+
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ContentEncodingInterceptorTest {
+
+  private static final String URL = "https://api.mapbox.com/v4/mapbox.mapbox-streets-v7/1/0/0.vector.pbf";
+
+  @Test
+  public void testDecodesGzip() throws IOException {
+    Request request = new Request.Builder().url(URL).build();
+    Response response = response(request, 200, gzip("tile"));
+
+    Response decoded = ContentEncodingInterceptor.INSTANCE.intercept(chain(request, response));
+    assertNull(decoded.header("Content-Encoding"));
+    assertEquals("tile", decoded.body().string());
+  }
+
+  @Test
+  public void testNotModifiedIsNotDecoded() throws IOException {
+    Request request = new Request.Builder().url(URL).header("If-None-Match", "\"etag\"").build();
+    Response response = response(request, 304, new byte[0]);
+
+    Response intercepted = ContentEncodingInterceptor.INSTANCE.intercept(chain(request, response));
+    assertSame(response, intercepted);
+    assertEquals(0, intercepted.body().bytes().length);
+  }
+
+  @Test
+  public void testNoContentIsNotDecoded() throws IOException {
+    Request request = new Request.Builder().url(URL).build();
+    Response response = response(request, 204, new byte[0]);
+
+    Response intercepted = ContentEncodingInterceptor.INSTANCE.intercept(chain(request, response));
+    assertSame(response, intercepted);
+    assertEquals(0, intercepted.body().bytes().length);
+  }
+
+  @Test
+  public void testHeadIsNotDecoded() throws IOException {
+    Request request = new Request.Builder().url(URL).head().build();
+    Response response = response(request, 200, new byte[0]);
+
+    Response intercepted = ContentEncodingInterceptor.INSTANCE.intercept(chain(request, response));
+    assertSame(response, intercepted);
+  }
+
+  @Test
+  public void testIdentityIsNotDecoded() throws IOException {
+    Request request = new Request.Builder().url(URL).build();
+    Response response = new Response.Builder()
+      .request(request)
+      .protocol(Protocol.HTTP_1_1)
+      .code(200)
+      .message("OK")
+      .body(ResponseBody.create(MediaType.parse("application/x-protobuf"), "tile"))
+      .build();
+
+    assertSame(response, ContentEncodingInterceptor.INSTANCE.intercept(chain(request, response)));
+  }
+
+  private static Response response(Request request, int code, byte[] body) {
+    return new Response.Builder()
+      .request(request)
+      .protocol(Protocol.HTTP_1_1)
+      .code(code)
+      .message("")
+      .header("Content-Encoding", "gzip")
+      .header("Content-Length", String.valueOf(body.length))
+      .body(ResponseBody.create(MediaType.parse("application/x-protobuf"), body))
+      .build();
+  }
+
+  private static Interceptor.Chain chain(Request request, Response response) throws IOException {
+    Interceptor.Chain chain = mock(Interceptor.Chain.class);
+    when(chain.request()).thenReturn(request);
+    when(chain.proceed(any(Request.class))).thenReturn(response);
+    return chain;
+  }
+
+  private static byte[] gzip(String content) throws IOException {
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    GZIPOutputStream gzipOutputStream = new GZIPOutputStream(outputStream);
+    gzipOutputStream.write(content.getBytes("UTF-8"));
+    gzipOutputStream.close();
+    return outputStream.toByteArray();
+  }
+}
@@ -0,0 +1,81 @@
+package com.mapbox.mapboxsdk.http;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class DirectBufferPoolTest {
+
+  private static final int KB = 1024;
+  private static final int MB = 1024 * KB;
+
+  private DirectBufferPool pool;
+
+  @Before
+  public void beforeTest() {
+    pool = new DirectBufferPool(16 * KB, 4 * MB, 8 * MB);
+  }
+
+  @Test
+  public void testSizeClasses() {
+    assertBuffer(pool.obtain(1), 1, 16 * KB);
+    assertBuffer(pool.obtain(16 * KB), 16 * KB, 16 * KB);
+    assertBuffer(pool.obtain(16 * KB + 1), 16 * KB + 1, 32 * KB);
+    assertBuffer(pool.obtain(3 * MB), 3 * MB, 4 * MB);
+    assertBuffer(pool.obtain(4 * MB), 4 * MB, 4 * MB);
+  }
+
+  @Test
+  public void testReusesLargeBuffers() {
+    ByteBuffer first = pool.obtain(3 * MB);
+    pool.release(first);
+    assertEquals(4 * MB, pool.getPooledBytes());
+
+    // A body of another size in the same class gets the same buffer
+    ByteBuffer second = pool.obtain(2 * MB + 1);
+    assertSame(first, second);
+    assertBuffer(second, 2 * MB + 1, 4 * MB);
+    assertEquals(0, pool.getPooledBytes());
+
+    // Other size classes don't
+    pool.release(second);
+    assertNotSame(second, pool.obtain(MB));
+  }
+
+  @Test
+  public void testPooledBytesAreLimited() {
+    ByteBuffer first = pool.obtain(4 * MB);
+    ByteBuffer second = pool.obtain(4 * MB);
+    ByteBuffer third = pool.obtain(4 * MB);
+    pool.release(first);
+    pool.release(second);
+    pool.release(third);
+    assertEquals(8 * MB, pool.getPooledBytes());
+  }
+
+  @Test
+  public void testLargerBodiesAreNotPooled() {
+    ByteBuffer buffer = pool.obtain(5 * MB);
+    assertBuffer(buffer, 5 * MB, 5 * MB);
+    pool.release(buffer);
+    assertEquals(0, pool.getPooledBytes());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testSizeClassesArePowersOfTwo() {
+    new DirectBufferPool(10 * KB, 4 * MB, 8 * MB);
+  }
+
+  private static void assertBuffer(ByteBuffer buffer, int limit, int capacity) {
+    assertTrue(buffer.isDirect());
+    assertEquals(0, buffer.position());
+    assertEquals(limit, buffer.limit());
+    assertEquals(capacity, buffer.capacity());
+  }
+}
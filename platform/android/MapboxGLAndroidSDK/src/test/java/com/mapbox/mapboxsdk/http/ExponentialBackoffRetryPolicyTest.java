@@ -0,0 +1,72 @@
+package com.mapbox.mapboxsdk.http;
+
+import org.junit.Test;
+
+import javax.net.ssl.SSLException;
+import javax.net.ssl.SSLHandshakeException;
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ExponentialBackoffRetryPolicyTest {
+
+  private final ExponentialBackoffRetryPolicy retryPolicy = new ExponentialBackoffRetryPolicy(2, 500, 4000);
+
+  @Test
+  public void testRetriesTransientStatusCodes() {
+    for (int code : new int[] {408, 502, 503, 504}) {
+      assertTrue(retryPolicy.getRetryDelayMillis(1, code, null) >= 0);
+    }
+  }
+
+  @Test
+  public void testDoesNotRetryOtherStatusCodes() {
+    for (int code : new int[] {400, 403, 404, 429, 500}) {
+      assertEquals(-1, retryPolicy.getRetryDelayMillis(1, code, null));
+    }
+  }
+
+  @Test
+  public void testRetriesConnectionFailures() {
+    assertTrue(retryPolicy.getRetryDelayMillis(1, 0, new SocketTimeoutException()) >= 0);
+    assertTrue(retryPolicy.getRetryDelayMillis(1, 0, new IOException()) >= 0);
+  }
+
+  @Test
+  public void testDoesNotRetryTlsFailures() {
+    assertEquals(-1, retryPolicy.getRetryDelayMillis(1, 0, new SSLException("untrusted")));
+    assertEquals(-1, retryPolicy.getRetryDelayMillis(1, 0, new SSLHandshakeException("untrusted")));
+  }
+
+  @Test
+  public void testDoesNotRetryUnknownHosts() {
+    assertEquals(-1, retryPolicy.getRetryDelayMillis(1, 0, new UnknownHostException("api.mapbox.com")));
+  }
+
+  @Test
+  public void testStopsAfterMaxRetries() {
+    assertTrue(retryPolicy.getRetryDelayMillis(2, 503, null) >= 0);
+    assertEquals(-1, retryPolicy.getRetryDelayMillis(3, 503, null));
+  }
+
+  @Test
+  public void testDelayIsBounded() {
+    for (int i = 0; i < 100; i++) {
+      assertTrue(retryPolicy.getRetryDelayMillis(1, 503, null) < 500);
+      assertTrue(retryPolicy.getRetryDelayMillis(2, 503, null) < 1000);
+    }
+
+    ExponentialBackoffRetryPolicy manyRetries = new ExponentialBackoffRetryPolicy(100, 500, 4000);
+    for (int i = 0; i < 100; i++) {
+      assertTrue(manyRetries.getRetryDelayMillis(100, 503, null) < 4000);
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidParameters() {
+    new ExponentialBackoffRetryPolicy(1, 1000, 500);
+  }
+}
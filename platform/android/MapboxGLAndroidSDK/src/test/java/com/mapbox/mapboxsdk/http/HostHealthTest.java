@@ -0,0 +1,135 @@
+package com.mapbox.mapboxsdk.http;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+public class HostHealthTest {
+
+  private static final String HOST = "api.mapbox.com";
+  private static final long OPEN_DURATION_NANOS = TimeUnit.MILLISECONDS.toNanos(HostHealth.OPEN_DURATION_MILLIS);
+
+  private HostHealth hostHealth;
+  private final Object probe = new Object();
+
+  @Before
+  public void beforeTest() {
+    hostHealth = new HostHealth();
+  }
+
+  @Test
+  public void testUnknownHostIsAllowed() {
+    assertEquals(HostHealth.ALLOW, hostHealth.check(HOST, 0));
+    assertEquals(-1, hostHealth.getNextDeadline(0));
+  }
+
+  @Test
+  public void testFailuresBelowThresholdAreAllowed() {
+    failRepeatedly(HostHealth.FAILURE_THRESHOLD - 1, 0);
+    assertEquals(HostHealth.ALLOW, hostHealth.check(HOST, 0));
+    assertEquals(-1, hostHealth.getNextDeadline(0));
+  }
+
+  @Test
+  public void testRepeatedFailuresOpenCircuit() {
+    failRepeatedly(HostHealth.FAILURE_THRESHOLD, 0);
+    assertEquals(HostHealth.REJECT, hostHealth.check(HOST, 0));
+    assertEquals(HostHealth.REJECT, hostHealth.check(HOST, OPEN_DURATION_NANOS - 1));
+    assertEquals(OPEN_DURATION_NANOS, hostHealth.getNextDeadline(0));
+  }
+
+  @Test
+  public void testSingleProbeAfterOpenDuration() {
+    failRepeatedly(HostHealth.FAILURE_THRESHOLD, 0);
+    assertEquals(HostHealth.ALLOW, hostHealth.check(HOST, OPEN_DURATION_NANOS));
+
+    hostHealth.onStart(HOST, probe, OPEN_DURATION_NANOS);
+    assertEquals(HostHealth.HOLD, hostHealth.check(HOST, OPEN_DURATION_NANOS));
+  }
+
+  @Test
+  public void testSuccessfulProbeClosesCircuit() {
+    failRepeatedly(HostHealth.FAILURE_THRESHOLD, 0);
+    hostHealth.onStart(HOST, probe, OPEN_DURATION_NANOS);
+    hostHealth.onSuccess(HOST);
+    assertEquals(HostHealth.ALLOW, hostHealth.check(HOST, OPEN_DURATION_NANOS));
+
+    // The failure count starts over
+    failRepeatedly(HostHealth.FAILURE_THRESHOLD - 1, OPEN_DURATION_NANOS);
+    assertEquals(HostHealth.ALLOW, hostHealth.check(HOST, OPEN_DURATION_NANOS));
+  }
+
+  @Test
+  public void testFailedProbeReopensCircuit() {
+    failRepeatedly(HostHealth.FAILURE_THRESHOLD, 0);
+    hostHealth.onStart(HOST, probe, OPEN_DURATION_NANOS);
+    hostHealth.onFailure(HOST, probe, OPEN_DURATION_NANOS);
+    assertEquals(HostHealth.REJECT, hostHealth.check(HOST, OPEN_DURATION_NANOS));
+    assertEquals(HostHealth.ALLOW, hostHealth.check(HOST, 2 * OPEN_DURATION_NANOS));
+  }
+
+  @Test
+  public void testCancelledProbeReleasesHost() {
+    failRepeatedly(HostHealth.FAILURE_THRESHOLD, 0);
+    hostHealth.onStart(HOST, probe, OPEN_DURATION_NANOS);
+    hostHealth.onCancelled(HOST, probe);
+    assertEquals(HostHealth.ALLOW, hostHealth.check(HOST, OPEN_DURATION_NANOS));
+  }
+
+  @Test
+  public void testCancelledOtherCallKeepsProbe() {
+    failRepeatedly(HostHealth.FAILURE_THRESHOLD, 0);
+    hostHealth.onStart(HOST, probe, OPEN_DURATION_NANOS);
+    hostHealth.onCancelled(HOST, new Object());
+    assertEquals(HostHealth.HOLD, hostHealth.check(HOST, OPEN_DURATION_NANOS));
+  }
+
+  @Test
+  public void testFailedOtherCallKeepsProbe() {
+    failRepeatedly(HostHealth.FAILURE_THRESHOLD, 0);
+    hostHealth.onStart(HOST, probe, OPEN_DURATION_NANOS);
+
+    // A call started before the circuit opened fails late, the probe is still in flight
+    hostHealth.onFailure(HOST, new Object(), OPEN_DURATION_NANOS);
+    assertEquals(HostHealth.HOLD, hostHealth.check(HOST, OPEN_DURATION_NANOS));
+
+    hostHealth.onFailure(HOST, probe, OPEN_DURATION_NANOS);
+    assertEquals(HostHealth.REJECT, hostHealth.check(HOST, OPEN_DURATION_NANOS));
+  }
+
+  @Test
+  public void testCancelledUnknownHost() {
+    hostHealth.onCancelled(HOST, probe);
+    assertEquals(HostHealth.ALLOW, hostHealth.check(HOST, 0));
+  }
+
+  @Test
+  public void testRateLimitHoldsUntilReset() {
+    hostHealth.onRateLimited(HOST, 1000);
+    assertEquals(HostHealth.HOLD, hostHealth.check(HOST, 0));
+    assertEquals(1000, hostHealth.getNextDeadline(0));
+
+    assertEquals(HostHealth.ALLOW, hostHealth.check(HOST, 1000));
+    assertEquals(-1, hostHealth.getNextDeadline(1000));
+  }
+
+  @Test
+  public void testRateLimitedProbeReleasesHost() {
+    failRepeatedly(HostHealth.FAILURE_THRESHOLD, 0);
+    hostHealth.onStart(HOST, probe, OPEN_DURATION_NANOS);
+    hostHealth.onRateLimited(HOST, OPEN_DURATION_NANOS + 1000);
+    hostHealth.onCancelled(HOST, probe);
+    assertEquals(HostHealth.HOLD, hostHealth.check(HOST, OPEN_DURATION_NANOS));
+    assertEquals(1000, hostHealth.getNextDeadline(OPEN_DURATION_NANOS));
+    assertEquals(HostHealth.ALLOW, hostHealth.check(HOST, OPEN_DURATION_NANOS + 1000));
+  }
+
+  private void failRepeatedly(int count, long now) {
+    for (int i = 0; i < count; i++) {
+      hostHealth.onFailure(HOST, new Object(), now);
+    }
+  }
+}
@@ -0,0 +1,88 @@
+package com.mapbox.mapboxsdk.http;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import okio.Buffer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class InFlightRequestTest {
+
+  private static final int MB = 1024 * 1024;
+
+  private DirectBufferPool pool;
+
+  @Before
+  public void beforeTest() {
+    pool = new DirectBufferPool(16 * 1024, 4 * MB, 8 * MB);
+  }
+
+  @Test
+  public void testReadsStreamedBody() throws IOException {
+    // Larger than a segment, so the body is read in several steps
+    byte[] data = new byte[3 * MB + 17];
+    new Random(42).nextBytes(data);
+
+    ByteBuffer body = InFlightRequest.readBody(new Buffer().write(data), data.length, pool);
+    assertEquals(0, body.position());
+    assertEquals(data.length, body.remaining());
+    byte[] read = new byte[data.length];
+    body.get(read);
+    assertArrayEquals(data, read);
+  }
+
+  @Test
+  public void testReusesStreamedBodyBuffer() throws IOException {
+    ByteBuffer first = InFlightRequest.readBody(new Buffer().write(new byte[2 * MB + 1]), 2 * MB + 1, pool);
+    pool.release(first);
+
+    ByteBuffer second = InFlightRequest.readBody(new Buffer().write(new byte[3 * MB]), 3 * MB, pool);
+    assertSame(first, second);
+    assertEquals(3 * MB, second.remaining());
+  }
+
+  @Test
+  public void testReadsStreamedBodyOfUnknownLength() throws IOException {
+    // Grows the buffer past the largest size class
+    byte[] data = new byte[5 * MB + 17];
+    new Random(42).nextBytes(data);
+
+    ByteBuffer body = InFlightRequest.readBody(new Buffer().write(data), pool);
+    assertEquals(0, body.position());
+    assertEquals(data.length, body.remaining());
+    byte[] read = new byte[data.length];
+    body.get(read);
+    assertArrayEquals(data, read);
+
+    // The outgrown buffers went back to the pool
+    assertEquals((16 + 32 + 64 + 128 + 256 + 512) * 1024 + MB + 2 * MB + 4 * MB, pool.getPooledBytes());
+  }
+
+  @Test
+  public void testReadsEmptyStreamedBodyOfUnknownLength() throws IOException {
+    ByteBuffer body = InFlightRequest.readBody(new Buffer(), pool);
+    assertEquals(0, body.remaining());
+  }
+
+  @Test
+  public void testTruncatedStreamedBody() {
+    try {
+      InFlightRequest.readBody(new Buffer().write(new byte[1000]), 2000, pool);
+      fail("Expected the truncated body to fail");
+    } catch (IOException exception) {
+      assertEquals(ProtocolException.class, exception.getClass());
+    }
+
+    // The buffer went back to the pool
+    assertEquals(16 * 1024, pool.getPooledBytes());
+  }
+}
@@ -0,0 +1,239 @@
+package com.mapbox.mapboxsdk.http;
+
+import com.google.gson.JsonObject;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class PMTilesArchiveTest {
+
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+  private static final int COMPRESSION_NONE = 1;
+  private static final int COMPRESSION_GZIP = 2;
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void testTileIds() {
+    assertEquals(0, PMTilesArchive.toTileId(0, 0, 0));
+    assertEquals(1, PMTilesArchive.toTileId(1, 0, 0));
+    assertEquals(2, PMTilesArchive.toTileId(1, 0, 1));
+    assertEquals(3, PMTilesArchive.toTileId(1, 1, 1));
+    assertEquals(4, PMTilesArchive.toTileId(1, 1, 0));
+    assertEquals(5, PMTilesArchive.toTileId(2, 0, 0));
+    assertEquals(20, PMTilesArchive.toTileId(2, 3, 0));
+    assertEquals(21, PMTilesArchive.toTileId(3, 0, 0));
+  }
+
+  @Test
+  public void testTileIdsAreUniqueWithinZoomLevel() {
+    for (int z = 0; z <= 4; z++) {
+      boolean[] seen = new boolean[1 << (2 * z)];
+      long first = PMTilesArchive.toTileId(z, 0, 0);
+      for (int x = 0; x < 1 << z; x++) {
+        for (int y = 0; y < 1 << z; y++) {
+          int index = (int) (PMTilesArchive.toTileId(z, x, y) - first);
+          assertEquals(false, seen[index]);
+          seen[index] = true;
+        }
+      }
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testTileIdZoomLimit() {
+    PMTilesArchive.toTileId(27, 0, 0);
+  }
+
+  @Test
+  public void testHeader() throws IOException {
+    PMTilesArchive archive = new PMTilesArchive(writeArchive(COMPRESSION_NONE));
+    try {
+      JsonObject tileJson = archive.getTileJson();
+      assertEquals("test", tileJson.get("name").getAsString());
+      assertEquals(0, tileJson.get("minzoom").getAsInt());
+      assertEquals(2, tileJson.get("maxzoom").getAsInt());
+      assertEquals(-180.0, tileJson.getAsJsonArray("bounds").get(0).getAsDouble(), 1e-7);
+      assertEquals(-85.0, tileJson.getAsJsonArray("bounds").get(1).getAsDouble(), 1e-7);
+      assertEquals(180.0, tileJson.getAsJsonArray("bounds").get(2).getAsDouble(), 1e-7);
+      assertEquals(85.0, tileJson.getAsJsonArray("bounds").get(3).getAsDouble(), 1e-7);
+      assertEquals(12.5, tileJson.getAsJsonArray("center").get(0).getAsDouble(), 1e-7);
+      assertEquals(-3.25, tileJson.getAsJsonArray("center").get(1).getAsDouble(), 1e-7);
+      assertEquals(1, tileJson.getAsJsonArray("center").get(2).getAsInt());
+    } finally {
+      archive.close();
+    }
+  }
+
+  @Test
+  public void testDirectory() throws IOException {
+    PMTilesArchive archive = new PMTilesArchive(writeArchive(COMPRESSION_NONE));
+    try {
+      assertTiles(archive);
+    } finally {
+      archive.close();
+    }
+  }
+
+  @Test
+  public void testCompressedDirectory() throws IOException {
+    PMTilesArchive archive = new PMTilesArchive(writeArchive(COMPRESSION_GZIP));
+    try {
+      assertTiles(archive);
+      assertEquals("test", archive.getTileJson().get("name").getAsString());
+    } finally {
+      archive.close();
+    }
+  }
+
+  @Test(expected = IOException.class)
+  public void testInvalidMagic() throws IOException {
+    File file = folder.newFile("invalid.pmtiles");
+    FileOutputStream output = new FileOutputStream(file);
+    try {
+      output.write(new byte[127]);
+    } finally {
+      output.close();
+    }
+    new PMTilesArchive(file);
+  }
+
+  private static void assertTiles(PMTilesArchive archive) throws IOException {
+    assertEquals("a", toString(archive.getTile(0, 0, 0)));
+    // A run of two tiles sharing their data
+    assertEquals("bb", toString(archive.getTile(1, 0, 0)));
+    assertEquals("bb", toString(archive.getTile(1, 0, 1)));
+    assertNull(archive.getTile(1, 1, 1));
+    assertNull(archive.getTile(1, 1, 0));
+    // In the leaf directory
+    assertEquals("ccc", toString(archive.getTile(2, 0, 0)));
+    int[] tile = findTile(2, 6);
+    assertEquals("dddd", toString(archive.getTile(2, tile[0], tile[1])));
+    // Outside of the zoom range
+    assertNull(archive.getTile(3, 0, 0));
+  }
+
+  private static int[] findTile(int z, long tileId) {
+    for (int x = 0; x < 1 << z; x++) {
+      for (int y = 0; y < 1 << z; y++) {
+        if (PMTilesArchive.toTileId(z, x, y) == tileId) {
+          return new int[] {x, y};
+        }
+      }
+    }
+    throw new IllegalArgumentException("No tile " + tileId + " at zoom " + z);
+  }
+
+  private static String toString(ByteBuffer buffer) {
+    byte[] bytes = new byte[buffer.remaining()];
+    buffer.get(bytes);
+    return new String(bytes, UTF_8);
+  }
+
+  /**
+   * Writes an archive with tile 0, a run of tiles 1 and 2, and a leaf directory with tiles 5 and 6.
+   */
+  private File writeArchive(int compression) throws IOException {
+    byte[] tileData = "abbcccdddd".getBytes(UTF_8);
+    byte[] leafDirectory = compress(directory(
+      new long[] {5, 6}, new long[] {1, 1}, new long[] {3, 4}, new long[] {3 + 1, 0}), compression);
+    byte[] rootDirectory = compress(directory(
+      new long[] {0, 1, 5}, new long[] {1, 2, 0}, new long[] {1, 2, leafDirectory.length}, new long[] {0 + 1, 0, 0 + 1}),
+      compression);
+    byte[] metadata = compress("{\"name\":\"test\"}".getBytes(UTF_8), compression);
+
+    long rootOffset = 127;
+    long metadataOffset = rootOffset + rootDirectory.length;
+    long leafOffset = metadataOffset + metadata.length;
+    long tileDataOffset = leafOffset + leafDirectory.length;
+
+    ByteBuffer header = ByteBuffer.allocate(127).order(ByteOrder.LITTLE_ENDIAN);
+    header.put("PMTiles".getBytes(UTF_8));
+    header.put((byte) 3);
+    header.putLong(8, rootOffset);
+    header.putLong(16, rootDirectory.length);
+    header.putLong(24, metadataOffset);
+    header.putLong(32, metadata.length);
+    header.putLong(40, leafOffset);
+    header.putLong(48, leafDirectory.length);
+    header.putLong(56, tileDataOffset);
+    header.putLong(64, tileData.length);
+    header.put(97, (byte) compression);
+    header.put(98, (byte) COMPRESSION_NONE);
+    header.put(100, (byte) 0);
+    header.put(101, (byte) 2);
+    header.putInt(102, -1800000000);
+    header.putInt(106, -850000000);
+    header.putInt(110, 1800000000);
+    header.putInt(114, 850000000);
+    header.put(118, (byte) 1);
+    header.putInt(119, 125000000);
+    header.putInt(123, -32500000);
+
+    File file = folder.newFile();
+    FileOutputStream output = new FileOutputStream(file);
+    try {
+      output.write(header.array());
+      output.write(rootDirectory);
+      output.write(metadata);
+      output.write(leafDirectory);
+      output.write(tileData);
+    } finally {
+      output.close();
+    }
+    return file;
+  }
+
+  private static byte[] directory(long[] tileIds, long[] runLengths, long[] lengths, long[] offsets) {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    writeVarint(output, tileIds.length);
+    long previous = 0;
+    for (long tileId : tileIds) {
+      writeVarint(output, tileId - previous);
+      previous = tileId;
+    }
+    for (long runLength : runLengths) {
+      writeVarint(output, runLength);
+    }
+    for (long length : lengths) {
+      writeVarint(output, length);
+    }
+    for (long offset : offsets) {
+      writeVarint(output, offset);
+    }
+    return output.toByteArray();
+  }
+
+  private static void writeVarint(ByteArrayOutputStream output, long value) {
+    while (value >= 0x80) {
+      output.write((int) (value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    output.write((int) value);
+  }
+
+  private static byte[] compress(byte[] data, int compression) throws IOException {
+    if (compression == COMPRESSION_NONE) {
+      return data;
+    }
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    GZIPOutputStream gzip = new GZIPOutputStream(output);
+    gzip.write(data);
+    gzip.close();
+    return output.toByteArray();
+  }
+}
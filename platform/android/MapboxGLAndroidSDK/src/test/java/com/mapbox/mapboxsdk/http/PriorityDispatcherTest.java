@@ -0,0 +1,159 @@
+package com.mapbox.mapboxsdk.http;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+
+public class PriorityDispatcherTest {
+
+  private static final String HOST = "api.mapbox.com";
+  private static final String OTHER_HOST = "tiles.example.com";
+
+  private PriorityDispatcher dispatcher;
+
+  @Before
+  public void beforeTest() {
+    dispatcher = new PriorityDispatcher();
+  }
+
+  @Test
+  public void testPriorities() {
+    assertEquals(PriorityDispatcher.PRIORITY_RESOURCE, PriorityDispatcher.getPriority(1, false));
+    assertEquals(PriorityDispatcher.PRIORITY_TILE, PriorityDispatcher.getPriority(3, false));
+    assertEquals(PriorityDispatcher.PRIORITY_BACKGROUND, PriorityDispatcher.getPriority(3, true));
+  }
+
+  @Test
+  public void testPromotesHighestPriorityFirst() {
+    InFlightRequest background = request(HOST, PriorityDispatcher.PRIORITY_BACKGROUND);
+    InFlightRequest tile = request(HOST, PriorityDispatcher.PRIORITY_TILE);
+    InFlightRequest resource = request(HOST, PriorityDispatcher.PRIORITY_RESOURCE);
+    dispatcher.add(background);
+    dispatcher.add(tile);
+    dispatcher.add(resource);
+
+    dispatcher.promote(1, 1);
+    verify(resource).start();
+    verify(tile, never()).start();
+
+    dispatcher.promote(3, 3);
+    InOrder order = inOrder(tile, background);
+    order.verify(tile).start();
+    order.verify(background).start();
+  }
+
+  @Test
+  public void testSamePriorityInArrivalOrder() {
+    InFlightRequest first = request(HOST, PriorityDispatcher.PRIORITY_TILE);
+    InFlightRequest second = request(HOST, PriorityDispatcher.PRIORITY_TILE);
+    dispatcher.add(first);
+    dispatcher.add(second);
+
+    dispatcher.promote(1, 1);
+    verify(first).start();
+    verify(second, never()).start();
+  }
+
+  @Test
+  public void testWaitingCallsAge() {
+    InFlightRequest background = request(HOST, PriorityDispatcher.PRIORITY_BACKGROUND);
+    InFlightRequest tile = request(HOST, PriorityDispatcher.PRIORITY_TILE);
+    dispatcher.add(background);
+    dispatcher.add(tile);
+    background.enqueuedNanos -= TimeUnit.MILLISECONDS.toNanos(2 * PriorityDispatcher.AGING_INTERVAL_MILLIS);
+
+    dispatcher.promote(1, 1);
+    verify(background).start();
+    verify(tile, never()).start();
+  }
+
+  @Test
+  public void testRaisePriority() {
+    InFlightRequest tile = request(HOST, PriorityDispatcher.PRIORITY_TILE);
+    InFlightRequest background = request(HOST, PriorityDispatcher.PRIORITY_BACKGROUND);
+    dispatcher.add(tile);
+    dispatcher.add(background);
+    dispatcher.raisePriority(background, PriorityDispatcher.PRIORITY_RESOURCE);
+    dispatcher.raisePriority(background, PriorityDispatcher.PRIORITY_BACKGROUND);
+
+    dispatcher.promote(1, 1);
+    verify(background).start();
+    verify(tile, never()).start();
+  }
+
+  @Test
+  public void testPerHostLimit() {
+    InFlightRequest first = request(HOST, PriorityDispatcher.PRIORITY_RESOURCE);
+    InFlightRequest second = request(HOST, PriorityDispatcher.PRIORITY_RESOURCE);
+    InFlightRequest other = request(OTHER_HOST, PriorityDispatcher.PRIORITY_BACKGROUND);
+    dispatcher.add(first);
+    dispatcher.add(second);
+    dispatcher.add(other);
+
+    dispatcher.promote(10, 1);
+    verify(first).start();
+    verify(second, never()).start();
+    verify(other).start();
+
+    Map<String, int[]> counts = dispatcher.getCallCounts();
+    assertArrayEquals(new int[] {1, 1}, counts.get(HOST));
+    assertArrayEquals(new int[] {1, 0}, counts.get(OTHER_HOST));
+  }
+
+  @Test
+  public void testRemoveWaitingCall() {
+    InFlightRequest request = request(HOST, PriorityDispatcher.PRIORITY_TILE);
+    dispatcher.add(request);
+    assertEquals(true, dispatcher.remove(request));
+
+    dispatcher.promote(1, 1);
+    verify(request, never()).start();
+    assertEquals(false, dispatcher.remove(request));
+  }
+
+  @Test
+  public void testRateLimitedHostIsHeldBack() {
+    dispatcher.rateLimited(request(HOST, PriorityDispatcher.PRIORITY_TILE), TimeUnit.MINUTES.toMillis(1));
+    InFlightRequest limited = request(HOST, PriorityDispatcher.PRIORITY_RESOURCE);
+    InFlightRequest other = request(OTHER_HOST, PriorityDispatcher.PRIORITY_BACKGROUND);
+    dispatcher.add(limited);
+    dispatcher.add(other);
+
+    dispatcher.promote(10, 10);
+    verify(limited, never()).start();
+    verify(other).start();
+  }
+
+  @Test
+  public void testRetryWithoutSubscribersIsDropped() {
+    InFlightRequest abandoned = request(HOST, PriorityDispatcher.PRIORITY_TILE);
+    doReturn(false).when(abandoned).hasSubscribers();
+    InFlightRequest retried = request(OTHER_HOST, PriorityDispatcher.PRIORITY_TILE);
+    doReturn(true).when(retried).hasSubscribers();
+
+    assertEquals(false, dispatcher.requeue(abandoned));
+    assertEquals(true, dispatcher.requeue(retried));
+
+    dispatcher.promote(10, 10);
+    verify(abandoned, never()).start();
+    verify(retried).start();
+  }
+
+  private static InFlightRequest request(String host, int priority) {
+    InFlightRequest request = spy(new InFlightRequest(host + "/" + priority, host, priority));
+    doNothing().when(request).start();
+    return request;
+  }
+}
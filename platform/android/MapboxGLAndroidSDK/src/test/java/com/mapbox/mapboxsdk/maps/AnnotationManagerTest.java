@@ -1,12 +1,15 @@
 package com.mapbox.mapboxsdk.maps;
 
+import android.graphics.RectF;
 import android.support.v4.util.LongSparseArray;
 
 import com.mapbox.mapboxsdk.annotations.Annotation;
 import com.mapbox.mapboxsdk.annotations.BaseMarkerOptions;
+import com.mapbox.mapboxsdk.annotations.Icon;
 import com.mapbox.mapboxsdk.annotations.Marker;
 import com.mapbox.mapboxsdk.annotations.MarkerOptions;
 import com.mapbox.mapboxsdk.annotations.MarkerViewManager;
+import com.mapbox.mapboxsdk.annotations.Polyline;
 import com.mapbox.mapboxsdk.geometry.LatLng;
 
 import org.junit.Test;
@@ -17,7 +20,10 @@ import java.util.List;
 
 import static junit.framework.Assert.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class AnnotationManagerTest {
@@ -85,4 +91,81 @@ public class AnnotationManagerTest {
     assertEquals("first", ((Marker) annotationManager.getAnnotation(firstId)).getTitle());
     assertEquals("second", ((Marker) annotationManager.getAnnotation(secondId)).getTitle());
   }
-}
\ No newline at end of file
+
+  @Test
+  public void checksMarkersInRect() throws Exception {
+    NativeMapView aNativeMapView = mock(NativeMapView.class);
+    MapView aMapView = mock(MapView.class);
+    LongSparseArray<Annotation> annotationsArray = new LongSparseArray<>();
+    MarkerViewManager aMarkerViewManager = mock(MarkerViewManager.class);
+    IconManager aIconManager = mock(IconManager.class);
+    Annotations annotations = new AnnotationContainer(aNativeMapView, annotationsArray);
+    Markers markers = new MarkerContainer(aNativeMapView, aMapView, annotationsArray, aIconManager, aMarkerViewManager);
+    Polygons polygons = new PolygonContainer(aNativeMapView, annotationsArray);
+    Polylines polylines = new PolylineContainer(aNativeMapView, annotationsArray);
+    ShapeAnnotations shapeAnnotations = new ShapeAnnotationContainer(aNativeMapView, annotationsArray);
+    AnnotationManager annotationManager = new AnnotationManager(aNativeMapView, aMapView, annotationsArray,
+      aMarkerViewManager, aIconManager, annotations, markers, polygons, polylines, shapeAnnotations);
+    Marker firstMarker = mock(Marker.class);
+    Marker secondMarker = mock(Marker.class);
+    Polyline aPolyline = mock(Polyline.class);
+    annotationsArray.put(1L, firstMarker);
+    annotationsArray.put(2L, secondMarker);
+    annotationsArray.put(3L, aPolyline);
+    RectF aRect = mock(RectF.class);
+    when(aNativeMapView.getDensityDependantRectangle(aRect)).thenReturn(aRect);
+    when(aNativeMapView.queryPointAnnotations(aRect)).thenReturn(new long[] {2L, 3L, 4L});
+
+    List<Marker> markersInRect = annotationManager.getMarkersInRect(aRect);
+
+    assertEquals(1, markersInRect.size());
+    assertEquals(secondMarker, markersInRect.get(0));
+  }
+
+  @Test
+  public void checksAddMarkersFromArrays() throws Exception {
+    NativeMapView aNativeMapView = mock(NativeMapView.class);
+    MapView aMapView = mock(MapView.class);
+    LongSparseArray<Annotation> annotationsArray = new LongSparseArray<>();
+    MarkerViewManager aMarkerViewManager = mock(MarkerViewManager.class);
+    IconManager aIconManager = mock(IconManager.class);
+    Annotations annotations = new AnnotationContainer(aNativeMapView, annotationsArray);
+    Markers markers = new MarkerContainer(aNativeMapView, aMapView, annotationsArray, aIconManager, aMarkerViewManager);
+    Polygons polygons = new PolygonContainer(aNativeMapView, annotationsArray);
+    Polylines polylines = new PolylineContainer(aNativeMapView, annotationsArray);
+    ShapeAnnotations shapeAnnotations = new ShapeAnnotationContainer(aNativeMapView, annotationsArray);
+    AnnotationManager annotationManager = new AnnotationManager(aNativeMapView, aMapView, annotationsArray,
+      aMarkerViewManager, aIconManager, annotations, markers, polygons, polylines, shapeAnnotations);
+    long firstId = 1L;
+    long secondId = 2L;
+    MapboxMap aMapboxMap = mock(MapboxMap.class);
+    when(aNativeMapView.addMarkers(ArgumentMatchers.<Marker>anyList()))
+      .thenReturn(new long[] {firstId, secondId});
+
+    long[] ids = annotationManager.addMarkers(new double[] {10, 20}, new double[] {30, 40}, new int[] {0, 0},
+      new Icon[] {null}, aMapboxMap);
+
+    assertEquals(2, ids.length);
+    assertEquals(2, annotationManager.getAnnotations().size());
+    assertEquals(10, ((Marker) annotationManager.getAnnotation(firstId)).getPosition().getLatitude(), 0);
+    assertEquals(40, ((Marker) annotationManager.getAnnotation(secondId)).getPosition().getLongitude(), 0);
+    verify(aIconManager).loadIconForMarkers(null, 2);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void checksAddMarkersFromArraysRejectsInvalidIconIndex() throws Exception {
+    NativeMapView aNativeMapView = mock(NativeMapView.class);
+    LongSparseArray<Annotation> annotationsArray = new LongSparseArray<>();
+    IconManager aIconManager = mock(IconManager.class);
+    Markers markers = new MarkerContainer(aNativeMapView, mock(MapView.class), annotationsArray, aIconManager,
+      mock(MarkerViewManager.class));
+
+    try {
+      markers.addBy(new double[] {10, 20}, new double[] {30, 40}, new int[] {0, 1}, new Icon[] {null},
+        mock(MapboxMap.class));
+    } finally {
+      verify(aIconManager, never()).loadIconForMarkers(ArgumentMatchers.<Icon>any(), anyInt());
+      verify(aNativeMapView, never()).addMarkers(ArgumentMatchers.<Marker>anyList());
+    }
+  }
+}
@@ -0,0 +1,207 @@
+package com.mapbox.mapboxsdk.offline;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.File;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(RobolectricTestRunner.class)
+public class OfflineDownloadSchedulerTest {
+
+  // Writes the state file on the calling thread, so it can be read back right away
+  private static final Executor DIRECT_EXECUTOR = new Executor() {
+    @Override
+    public void execute(Runnable runnable) {
+      runnable.run();
+    }
+  };
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private File stateFile;
+  private OfflineDownloadScheduler.DownloadListener listener;
+
+  @Before
+  public void beforeTest() throws Exception {
+    stateFile = new File(temporaryFolder.getRoot(), "downloads.json");
+    listener = mock(OfflineDownloadScheduler.DownloadListener.class);
+  }
+
+  @Test
+  public void testHighestPriorityFirst() {
+    OfflineDownloadScheduler scheduler = scheduler();
+    scheduler.setMaxConcurrentDownloads(1);
+    OfflineRegion low = region(1);
+    OfflineRegion high = region(2);
+
+    scheduler.enqueue(low, 0, 0);
+    assertTrue(scheduler.isDownloading(low));
+
+    scheduler.enqueue(high, 1, 0);
+    assertTrue(scheduler.isDownloading(high));
+    assertFalse(scheduler.isDownloading(low));
+    assertTrue(scheduler.isQueued(low));
+    verify(low).setDownloadState(OfflineRegion.STATE_INACTIVE);
+    verify(high).setDownloadState(OfflineRegion.STATE_ACTIVE);
+  }
+
+  @Test
+  public void testSamePriorityInArrivalOrder() {
+    OfflineDownloadScheduler scheduler = scheduler();
+    OfflineRegion first = region(1);
+    OfflineRegion second = region(2);
+    OfflineRegion third = region(3);
+
+    scheduler.enqueue(first);
+    scheduler.enqueue(second);
+    scheduler.enqueue(third);
+    assertTrue(scheduler.isDownloading(first));
+    assertTrue(scheduler.isDownloading(second));
+    assertFalse(scheduler.isDownloading(third));
+    verify(third, never()).setDownloadState(OfflineRegion.STATE_ACTIVE);
+  }
+
+  @Test
+  public void testCompletionStartsNextDownload() {
+    OfflineDownloadScheduler scheduler = scheduler();
+    scheduler.setMaxConcurrentDownloads(1);
+    scheduler.setDownloadListener(listener);
+    OfflineRegion first = region(1);
+    OfflineRegion second = region(2);
+    scheduler.enqueue(first);
+    scheduler.enqueue(second);
+
+    OfflineRegionStatus status = mock(OfflineRegionStatus.class);
+    when(status.isComplete()).thenReturn(true);
+    observer(first).onStatusChanged(status);
+
+    verify(listener).onStatusChanged(first, status);
+    verify(listener).onComplete(first);
+    assertFalse(scheduler.isQueued(first));
+    assertTrue(scheduler.isDownloading(second));
+  }
+
+  @Test
+  public void testTileCountLimitExceededRemovesDownload() {
+    OfflineDownloadScheduler scheduler = scheduler();
+    scheduler.setDownloadListener(listener);
+    OfflineRegion region = region(1);
+    scheduler.enqueue(region);
+
+    observer(region).mapboxTileCountLimitExceeded(6000);
+
+    verify(listener).onTileCountLimitExceeded(region, 6000);
+    assertFalse(scheduler.isQueued(region));
+    verify(region).setDownloadState(OfflineRegion.STATE_INACTIVE);
+  }
+
+  @Test
+  public void testBandwidthLimit() {
+    OfflineDownloadScheduler scheduler = scheduler();
+    OfflineRegion region = region(1);
+
+    scheduler.enqueue(region, 0, 1024);
+    verify(region).setBandwidthLimit(1024);
+
+    scheduler.enqueue(region, 0, 2048);
+    verify(region).setBandwidthLimit(2048);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNegativeBandwidthLimit() {
+    scheduler().enqueue(region(1), 0, -1);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNoConcurrentDownloads() {
+    scheduler().setMaxConcurrentDownloads(0);
+  }
+
+  @Test
+  public void testRemove() {
+    OfflineDownloadScheduler scheduler = scheduler();
+    OfflineRegion region = region(1);
+    scheduler.enqueue(region);
+
+    assertTrue(scheduler.remove(region));
+    assertFalse(scheduler.isQueued(region));
+    verify(region).setDownloadState(OfflineRegion.STATE_INACTIVE);
+    assertFalse(scheduler.remove(region));
+  }
+
+  @Test
+  public void testRestore() {
+    OfflineDownloadScheduler scheduler = scheduler();
+    scheduler.setMaxConcurrentDownloads(1);
+    scheduler.enqueue(region(1), 0, 0);
+    scheduler.enqueue(region(2), 5, 4096);
+    scheduler.enqueue(region(3), 0, 0);
+    assertTrue(stateFile.exists());
+
+    // Region 3 was deleted while the process wasn't running
+    OfflineRegion first = region(1);
+    OfflineRegion second = region(2);
+    OfflineDownloadScheduler restored = scheduler(first, second);
+
+    assertTrue(restored.isDownloading(first));
+    assertTrue(restored.isDownloading(second));
+    verify(second).setBandwidthLimit(4096);
+    verify(first).setBandwidthLimit(0);
+
+    restored.setMaxConcurrentDownloads(1);
+    assertTrue(restored.isDownloading(second));
+    assertFalse(restored.isDownloading(first));
+    assertTrue(restored.isQueued(first));
+  }
+
+  @Test
+  public void testRestoreWithoutState() {
+    OfflineManager offlineManager = mock(OfflineManager.class);
+    new OfflineDownloadScheduler(stateFile, offlineManager, DIRECT_EXECUTOR);
+    verify(offlineManager, never()).listOfflineRegions(any(OfflineManager.ListOfflineRegionsCallback.class));
+  }
+
+  private OfflineDownloadScheduler scheduler(final OfflineRegion... regions) {
+    OfflineManager offlineManager = mock(OfflineManager.class);
+    doAnswer(new Answer<Void>() {
+      @Override
+      public Void answer(InvocationOnMock invocation) {
+        OfflineManager.ListOfflineRegionsCallback callback = invocation.getArgument(0);
+        callback.onList(regions);
+        return null;
+      }
+    }).when(offlineManager).listOfflineRegions(any(OfflineManager.ListOfflineRegionsCallback.class));
+    return new OfflineDownloadScheduler(stateFile, offlineManager, DIRECT_EXECUTOR);
+  }
+
+  private static OfflineRegion region(long id) {
+    OfflineRegion region = mock(OfflineRegion.class);
+    when(region.getID()).thenReturn(id);
+    return region;
+  }
+
+  private static OfflineRegion.OfflineRegionObserver observer(OfflineRegion region) {
+    ArgumentCaptor<OfflineRegion.OfflineRegionObserver> captor =
+      ArgumentCaptor.forClass(OfflineRegion.OfflineRegionObserver.class);
+    verify(region).setObserver(captor.capture());
+    return captor.getValue();
+  }
+}
@@ -83,6 +83,9 @@ import static com.mapbox.mapboxsdk.style.expressions.Expression.zoom;
 import static com.mapbox.mapboxsdk.style.layers.PropertyFactory.lineOpacity;
 import static junit.framework.Assert.assertTrue;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 
 /**
  * Expression unit tests that validate the expression output with the expected Object[]array representation.
@@ -1290,4 +1293,39 @@ public class ExpressionTest {
     String alpha = color.substring(0, color.length() - 1);
     assertEquals("alpha value should match", 0.254f, Float.valueOf(alpha), 0.001f);
   }
-}
\ No newline at end of file
+
+  @Test
+  public void testToArrayIsCached() {
+    Expression expression = eq(get("property"), literal("value"));
+    assertSame("serialized array should be cached", expression.toArray(), expression.toArray());
+    assertSame("serialized string should be cached", expression.toString(), expression.toString());
+  }
+
+  @Test
+  public void testIntern() {
+    Expression first = eq(get("property"), literal("value"));
+    Expression second = eq(get("property"), literal("value"));
+    assertNotSame(first, second);
+    assertSame("interned expressions should be shared", first.intern(), second.intern());
+    assertSame("interned expressions should be shared", first, second.intern());
+  }
+
+  @Test
+  public void testInternArrayLiteral() {
+    Expression first = match(get("property"), literal(new Object[] {"a", "b"}), literal(1), literal(0));
+    Expression second = match(get("property"), literal(new Object[] {"a", "c"}), literal(1), literal(0));
+    Expression third = match(get("property"), literal(new Object[] {"a", "b"}), literal(1), literal(0));
+    assertNotEquals("array literals with different elements should differ", first, second);
+    assertNotSame("array literals with different elements should not be shared", first.intern(), second.intern());
+    assertSame("equal array literals should be shared", first.intern(), third.intern());
+    assertEquals(literal(new Object[] {"a", new Object[] {1f}}), literal(new Object[] {"a", new Object[] {1f}}));
+    assertEquals(literal(new Object[] {"a", new Object[] {1f}}).hashCode(),
+      literal(new Object[] {"a", new Object[] {1f}}).hashCode());
+  }
+
+  @Test
+  public void testRawIsCached() {
+    String rawExpression = "[\"get\", \"property\"]";
+    assertSame("converted raw expression should be cached", raw(rawExpression), raw(rawExpression));
+  }
+}
@@ -0,0 +1,69 @@
+package com.mapbox.mapboxsdk.style.sources;
+
+import com.google.gson.JsonObject;
+import com.mapbox.geojson.Feature;
+import com.mapbox.geojson.FeatureCollection;
+import com.mapbox.geojson.LineString;
+import com.mapbox.geojson.Point;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+
+public class GeoJsonBinaryEncoderTest {
+
+  @Test
+  public void testEncodePointFeature() {
+    JsonObject properties = new JsonObject();
+    properties.addProperty("name", "a");
+    Feature feature = Feature.fromGeometry(Point.fromLngLat(1.5, 2.5), properties, "id");
+
+    ByteBuffer buffer = GeoJsonBinaryEncoder.encode(feature);
+
+    assertTrue(buffer.isDirect());
+    assertEquals(ByteOrder.nativeOrder(), buffer.order());
+    assertEquals(0, buffer.position());
+    assertEquals(1, buffer.getInt());
+    assertEquals("id", readString(buffer));
+    assertEquals(1, buffer.getInt());
+    assertEquals("name", readString(buffer));
+    assertEquals(GeoJsonBinaryEncoder.VALUE_STRING, buffer.getInt());
+    assertEquals("a", readString(buffer));
+    assertEquals(GeoJsonBinaryEncoder.GEOMETRY_POINT, buffer.getInt());
+    assertEquals(1.5, buffer.getDouble());
+    assertEquals(2.5, buffer.getDouble());
+    assertEquals(0, buffer.remaining());
+  }
+
+  @Test
+  public void testEncodeGrowsBuffer() {
+    Point[] points = new Point[1000];
+    for (int i = 0; i < points.length; i++) {
+      points[i] = Point.fromLngLat(i, -i);
+    }
+    Feature feature = Feature.fromGeometry(LineString.fromLngLats(Arrays.asList(points)));
+
+    ByteBuffer buffer = GeoJsonBinaryEncoder.encode(FeatureCollection.fromFeature(feature));
+
+    assertEquals(1, buffer.getInt());
+    assertEquals(-1, buffer.getInt());
+    assertEquals(0, buffer.getInt());
+    assertEquals(GeoJsonBinaryEncoder.GEOMETRY_LINE_STRING, buffer.getInt());
+    assertEquals(points.length, buffer.getInt());
+    buffer.position(buffer.limit() - 16);
+    assertEquals(999.0, buffer.getDouble());
+    assertEquals(-999.0, buffer.getDouble());
+  }
+
+  private static String readString(ByteBuffer buffer) {
+    byte[] bytes = new byte[buffer.getInt()];
+    buffer.get(bytes);
+    return new String(bytes, Charset.forName("UTF-8"));
+  }
+}
@@ -0,0 +1,150 @@
+package com.mapbox.mapboxsdk.style.sources;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import com.mapbox.geojson.Feature;
+import com.mapbox.geojson.FeatureCollection;
+import com.mapbox.geojson.Point;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@RunWith(RobolectricTestRunner.class)
+public class GeoJsonSourceTest {
+
+  private TestSource source;
+  private Handler handler;
+  private FeatureCollection features;
+
+  @Before
+  public void beforeTest() {
+    source = new TestSource();
+    handler = new Handler(Looper.getMainLooper());
+    features = FeatureCollection.fromFeature(Feature.fromGeometry(Point.fromLngLat(1, 2)));
+  }
+
+  @Test
+  public void testIsSuperseded() {
+    long generation = source.nextUpdateGeneration();
+    assertFalse(source.isSuperseded(generation));
+
+    source.nextUpdateGeneration();
+    assertTrue(source.isSuperseded(generation));
+  }
+
+  @Test
+  public void testAppliesUpdate() {
+    GeoJsonSource.GeoJsonUpdateCallback callback = mock(GeoJsonSource.GeoJsonUpdateCallback.class);
+
+    task(source.nextUpdateGeneration(), callback).run();
+
+    assertEquals(1, source.applied.size());
+    verify(callback).onApplied();
+    verify(callback, never()).onDropped();
+  }
+
+  @Test
+  public void testDropsUpdateSupersededBeforeConversion() {
+    GeoJsonSource.GeoJsonUpdateCallback callback = mock(GeoJsonSource.GeoJsonUpdateCallback.class);
+    GeoJsonSource.GeoJsonConversionTask task = task(source.nextUpdateGeneration(), callback);
+
+    source.nextUpdateGeneration();
+    task.run();
+
+    assertTrue(source.applied.isEmpty());
+    verify(callback).onDropped();
+    verify(callback, never()).onApplied();
+  }
+
+  @Test
+  public void testCoalescesUpdatesConvertedBeforeApplying() {
+    GeoJsonSource.GeoJsonUpdateCallback first = mock(GeoJsonSource.GeoJsonUpdateCallback.class);
+    GeoJsonSource.GeoJsonUpdateCallback second = mock(GeoJsonSource.GeoJsonUpdateCallback.class);
+
+    // Both conversions finish before the UI thread gets to apply them, only the newest is applied
+    ShadowLooper.pauseMainLooper();
+    task(source.nextUpdateGeneration(), first).run();
+    task(source.nextUpdateGeneration(), second).run();
+    assertTrue(source.applied.isEmpty());
+    ShadowLooper.unPauseMainLooper();
+
+    assertEquals(1, source.applied.size());
+    verify(first).onDropped();
+    verify(first, never()).onApplied();
+    verify(second).onApplied();
+  }
+
+  @Test
+  public void testReportsDecodingError() {
+    GeoJsonSource.GeoJsonUpdateCallback callback = mock(GeoJsonSource.GeoJsonUpdateCallback.class);
+    source.error = "Error setting geo json: truncated";
+
+    task(source.nextUpdateGeneration(), callback).run();
+
+    assertTrue(source.applied.isEmpty());
+    verify(callback).onError("Error setting geo json: truncated");
+    verify(callback, never()).onApplied();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testRejectsBufferInForeignByteOrder() {
+    ByteOrder foreignOrder = ByteOrder.nativeOrder() == ByteOrder.BIG_ENDIAN
+      ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN;
+    source.setGeoJson(GeoJsonBinaryEncoder.encode(features).order(foreignOrder));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testRejectsDiffWithoutRetainedFeatures() {
+    source.addFeatures(features.features());
+  }
+
+  @Test
+  public void testRetainFeaturesOption() {
+    assertFalse(new GeoJsonOptions().retainsFeatures());
+    assertFalse(new GeoJsonOptions().withRetainFeatures(false).retainsFeatures());
+    assertTrue(new GeoJsonOptions().withRetainFeatures(true).retainsFeatures());
+  }
+
+  private GeoJsonSource.GeoJsonConversionTask task(long generation, GeoJsonSource.GeoJsonUpdateCallback callback) {
+    return new GeoJsonSource.GeoJsonConversionTask(source, handler, features, generation, callback);
+  }
+
+  // Records the buffers instead of decoding them in native code
+  private static class TestSource extends GeoJsonSource {
+    final List<ByteBuffer> applied = new ArrayList<>();
+    String error;
+
+    TestSource() {
+      super(0);
+    }
+
+    @Override
+    String applyGeoJsonBuffer(ByteBuffer buffer) {
+      if (error == null) {
+        applied.add(buffer);
+      }
+      return error;
+    }
+
+    @Override
+    protected void finalize() {
+      // There's no native peer
+    }
+  }
+}
@@ -208,6 +208,8 @@ add_library(mbgl-android STATIC
     # FileSource holder
     platform/android/src/file_source.cpp
     platform/android/src/file_source.hpp
+    platform/android/src/resource_transform_rules.cpp
+    platform/android/src/resource_transform_rules.hpp
 
     # Connectivity
     platform/android/src/connectivity_listener.cpp
@@ -224,6 +226,7 @@ add_library(mbgl-android STATIC
     # Java core classes
     platform/android/src/java/lang.cpp
     platform/android/src/java/lang.hpp
+    platform/android/src/java/nio.hpp
     platform/android/src/java/util.cpp
     platform/android/src/java/util.hpp
 
@@ -234,10 +237,14 @@ add_library(mbgl-android STATIC
     platform/android/src/graphics/rectf.hpp
 
     # GeoJSON
+    platform/android/src/geojson/binary.cpp
+    platform/android/src/geojson/binary.hpp
     platform/android/src/geojson/feature.cpp
     platform/android/src/geojson/feature.hpp
     platform/android/src/geojson/feature_collection.cpp
     platform/android/src/geojson/feature_collection.hpp
+    platform/android/src/geojson/feature_set.cpp
+    platform/android/src/geojson/feature_set.hpp
     platform/android/src/geojson/geometry.cpp
     platform/android/src/geojson/geometry.hpp
     platform/android/src/geojson/geometry_collection.cpp
@@ -284,6 +291,8 @@ add_library(mbgl-android STATIC
     platform/android/src/annotation/polyline.hpp
 
     # Offline
+    platform/android/src/offline/offline_database_stats.cpp
+    platform/android/src/offline/offline_database_stats.hpp
     platform/android/src/offline/offline_manager.cpp
     platform/android/src/offline/offline_manager.hpp
     platform/android/src/offline/offline_region.cpp
@@ -292,6 +301,8 @@ add_library(mbgl-android STATIC
     platform/android/src/offline/offline_region_definition.hpp
     platform/android/src/offline/offline_region_error.cpp
     platform/android/src/offline/offline_region_error.hpp
+    platform/android/src/offline/offline_region_estimate.cpp
+    platform/android/src/offline/offline_region_estimate.hpp
     platform/android/src/offline/offline_region_status.cpp
     platform/android/src/offline/offline_region_status.hpp
 
@@ -336,6 +347,11 @@ macro(mbgl_platform_test)
 
         # Main test entry point
         platform/android/src/test/main.jni.cpp
+
+        # Android specific tests
+        platform/android/src/test/binary.test.cpp
+        platform/android/src/test/feature_set.test.cpp
+        platform/android/src/test/resource_transform_rules.test.cpp
     )
 
     target_include_directories(mbgl-test
@@ -4,13 +4,26 @@
 #include <mbgl/actor/scheduler.hpp>
 #include <mbgl/storage/resource_transform.hpp>
 #include <mbgl/util/logging.hpp>
+#include <mbgl/util/string.hpp>
 
 #include "asset_manager_file_source.hpp"
+#include "conversion/collection.hpp"
 #include "jni/generic_global_ref_deleter.hpp"
+#include "resource_transform_rules.hpp"
 
 namespace mbgl {
 namespace android {
 
+namespace {
+
+// Note: Keep this in sync with FileSource.java
+enum class EvictionPolicy : int {
+    LeastRecentlyUsed = 0,
+    ZoomWeighted = 1
+};
+
+} // namespace
+
 // FileSource //
 
 FileSource::FileSource(jni::JNIEnv& _env,
@@ -56,6 +69,7 @@ void FileSource::setResourceTransform(jni::JNIEnv& env, jni::Object<FileSource::
                 android::UniqueEnv _env = android::AttachEnv();
                 return FileSource::ResourceTransformCallback::onURL(*_env, jni::Object<FileSource::ResourceTransformCallback>(*callback), int(kind), url_);
             });
+        fileSource->setResourceTransformFunction({});
         fileSource->setResourceTransform(resourceTransform->self());
     } else {
         // Reset the callback
@@ -64,6 +78,118 @@ void FileSource::setResourceTransform(jni::JNIEnv& env, jni::Object<FileSource::
     }
 }
 
+void FileSource::setResourceTransformRules(jni::JNIEnv& env, jni::Array<jni::jint> jtypes, jni::Array<jni::jint> jkinds,
+                                           jni::Array<jni::String> jpatterns, jni::Array<jni::String> jreplacements) {
+    if (!jtypes) {
+        resourceTransform.reset();
+        fileSource->setResourceTransform({});
+        fileSource->setResourceTransformFunction({});
+        return;
+    }
+
+    std::size_t len = jtypes.Length(env);
+    std::vector<jni::jint> types(len);
+    std::vector<jni::jint> kinds(len);
+    jni::GetArrayRegion(env, *jtypes, 0, len, types.data());
+    jni::GetArrayRegion(env, *jkinds, 0, len, kinds.data());
+    std::vector<std::string> patterns = conversion::toVector(env, jpatterns);
+    std::vector<std::string> replacements = conversion::toVector(env, jreplacements);
+
+    // Compile the rules once, evaluating them is then free of JNI calls
+    auto rules = std::make_shared<std::vector<TransformRule>>();
+    rules->reserve(len);
+    for (std::size_t i = 0; i < len; i++) {
+        try {
+            rules->emplace_back(TransformRuleType(types[i]), kinds[i], patterns[i], replacements[i]);
+        } catch (const std::regex_error& error) {
+            jni::ThrowNew(env, jni::FindClass(env, "java/lang/IllegalArgumentException"),
+                          "Invalid pattern " + patterns[i] + ": " + error.what());
+            return;
+        }
+    }
+
+    // The rules are applied on the file source thread as requests are made, without a round trip to this thread
+    resourceTransform.reset();
+    fileSource->setResourceTransform({});
+    fileSource->setResourceTransformFunction(
+        [rules = std::shared_ptr<const std::vector<TransformRule>>(std::move(rules))]
+        (mbgl::Resource::Kind kind, const std::string&& url_) {
+            return applyTransformRules(*rules, kind, url_);
+        });
+}
+
+void FileSource::setMaximumAmbientCacheSize(jni::JNIEnv& env, jni::jlong size, jni::Object<FileSource::ResultCallback> callback_) {
+    fileSource->setMaximumAmbientCacheSize(size, [
+        //Keep a shared ptr to a global reference of the callback so it is not GC'd in the meanwhile
+        callback = std::shared_ptr<jni::jobject>(callback_.NewGlobalRef(env).release()->Get(), GenericGlobalRefDeleter())
+    ](std::exception_ptr error) {
+        // Reattach, the callback comes from a different thread
+        android::UniqueEnv _env = android::AttachEnv();
+        if (error) {
+            FileSource::ResultCallback::onError(*_env, jni::Object<FileSource::ResultCallback>(*callback), error);
+        } else {
+            FileSource::ResultCallback::onSuccess(*_env, jni::Object<FileSource::ResultCallback>(*callback));
+        }
+    });
+}
+
+void FileSource::setAmbientCacheEvictionPolicy(jni::JNIEnv&, jni::jint policy) {
+    switch (EvictionPolicy(policy)) {
+    case EvictionPolicy::ZoomWeighted:
+        fileSource->setAmbientCacheEvictionPolicy(mbgl::AmbientCacheEvictionPolicy::ZoomWeighted);
+        break;
+    case EvictionPolicy::LeastRecentlyUsed:
+    default:
+        fileSource->setAmbientCacheEvictionPolicy(mbgl::AmbientCacheEvictionPolicy::LeastRecentlyUsed);
+        break;
+    }
+}
+
+void FileSource::clearAmbientCache(jni::JNIEnv& env, jni::Object<FileSource::ResultCallback> callback_) {
+    fileSource->clearAmbientCache([
+        //Keep a shared ptr to a global reference of the callback so it is not GC'd in the meanwhile
+        callback = std::shared_ptr<jni::jobject>(callback_.NewGlobalRef(env).release()->Get(), GenericGlobalRefDeleter())
+    ](std::exception_ptr error) {
+        // Reattach, the callback comes from a different thread
+        android::UniqueEnv _env = android::AttachEnv();
+        if (error) {
+            FileSource::ResultCallback::onError(*_env, jni::Object<FileSource::ResultCallback>(*callback), error);
+        } else {
+            FileSource::ResultCallback::onSuccess(*_env, jni::Object<FileSource::ResultCallback>(*callback));
+        }
+    });
+}
+
+void FileSource::invalidateAmbientCache(jni::JNIEnv& env, jni::Object<FileSource::ResultCallback> callback_) {
+    fileSource->invalidateAmbientCache([
+        //Keep a shared ptr to a global reference of the callback so it is not GC'd in the meanwhile
+        callback = std::shared_ptr<jni::jobject>(callback_.NewGlobalRef(env).release()->Get(), GenericGlobalRefDeleter())
+    ](std::exception_ptr error) {
+        // Reattach, the callback comes from a different thread
+        android::UniqueEnv _env = android::AttachEnv();
+        if (error) {
+            FileSource::ResultCallback::onError(*_env, jni::Object<FileSource::ResultCallback>(*callback), error);
+        } else {
+            FileSource::ResultCallback::onSuccess(*_env, jni::Object<FileSource::ResultCallback>(*callback));
+        }
+    });
+}
+
+void FileSource::getAmbientCacheStats(jni::JNIEnv& env, jni::Object<FileSource::AmbientCacheStatsCallback> callback_) {
+    fileSource->getAmbientCacheStats([
+        //Keep a shared ptr to a global reference of the callback so it is not GC'd in the meanwhile
+        callback = std::shared_ptr<jni::jobject>(callback_.NewGlobalRef(env).release()->Get(), GenericGlobalRefDeleter())
+    ](mbgl::expected<mbgl::AmbientCacheStats, std::exception_ptr> stats) {
+        // Reattach, the callback comes from a different thread
+        android::UniqueEnv _env = android::AttachEnv();
+        if (stats) {
+            FileSource::AmbientCacheStatsCallback::onStats(*_env, jni::Object<FileSource::AmbientCacheStatsCallback>(*callback), *stats);
+        } else {
+            FileSource::AmbientCacheStatsCallback::onError(*_env, jni::Object<FileSource::AmbientCacheStatsCallback>(*callback), stats.error());
+        }
+    });
+}
+
 void FileSource::resume(jni::JNIEnv&) {
     if (!activationCounter) {
         activationCounter = optional<int>(1) ;
@@ -109,6 +235,9 @@ void FileSource::registerNative(jni::JNIEnv& env) {
     //Register classes
     FileSource::javaClass = *jni::Class<FileSource>::Find(env).NewGlobalRef(env).release();
     FileSource::ResourceTransformCallback::javaClass = *jni::Class<FileSource::ResourceTransformCallback>::Find(env).NewGlobalRef(env).release();
+    FileSource::ResultCallback::javaClass = *jni::Class<FileSource::ResultCallback>::Find(env).NewGlobalRef(env).release();
+    FileSource::AmbientCacheStats::javaClass = *jni::Class<FileSource::AmbientCacheStats>::Find(env).NewGlobalRef(env).release();
+    FileSource::AmbientCacheStatsCallback::javaClass = *jni::Class<FileSource::AmbientCacheStatsCallback>::Find(env).NewGlobalRef(env).release();
 
     #define METHOD(MethodPtr, name) jni::MakeNativePeerMethod<decltype(MethodPtr), (MethodPtr)>(name)
 
@@ -122,6 +251,12 @@ void FileSource::registerNative(jni::JNIEnv& env) {
         METHOD(&FileSource::setAccessToken, "setAccessToken"),
         METHOD(&FileSource::setAPIBaseUrl, "setApiBaseUrl"),
         METHOD(&FileSource::setResourceTransform, "setResourceTransform"),
+        METHOD(&FileSource::setResourceTransformRules, "nativeSetResourceTransformRules"),
+        METHOD(&FileSource::setMaximumAmbientCacheSize, "nativeSetMaximumAmbientCacheSize"),
+        METHOD(&FileSource::setAmbientCacheEvictionPolicy, "nativeSetAmbientCacheEvictionPolicy"),
+        METHOD(&FileSource::clearAmbientCache, "nativeClearAmbientCache"),
+        METHOD(&FileSource::invalidateAmbientCache, "nativeInvalidateAmbientCache"),
+        METHOD(&FileSource::getAmbientCacheStats, "nativeGetAmbientCacheStats"),
         METHOD(&FileSource::resume, "activate"),
         METHOD(&FileSource::pause, "deactivate"),
         METHOD(&FileSource::isResumed, "isActivated")
@@ -143,5 +278,52 @@ std::string FileSource::ResourceTransformCallback::onURL(jni::JNIEnv& env, jni::
     return urlStr;
 }
 
+// FileSource::ResultCallback //
+
+jni::Class<FileSource::ResultCallback> FileSource::ResultCallback::javaClass;
+
+void FileSource::ResultCallback::onSuccess(jni::JNIEnv& env, jni::Object<FileSource::ResultCallback> callback) {
+    static auto method = FileSource::ResultCallback::javaClass.GetMethod<void ()>(env, "onSuccess");
+    callback.Call(env, method);
+}
+
+void FileSource::ResultCallback::onError(jni::JNIEnv& env, jni::Object<FileSource::ResultCallback> callback, std::exception_ptr error) {
+    static auto method = FileSource::ResultCallback::javaClass.GetMethod<void (jni::String)>(env, "onError");
+    auto message = jni::Make<jni::String>(env, mbgl::util::toString(error));
+    callback.Call(env, method, message);
+    jni::DeleteLocalRef(env, message);
+}
+
+// FileSource::AmbientCacheStats //
+
+jni::Class<FileSource::AmbientCacheStats> FileSource::AmbientCacheStats::javaClass;
+
+jni::Object<FileSource::AmbientCacheStats> FileSource::AmbientCacheStats::New(jni::JNIEnv& env, const mbgl::AmbientCacheStats& stats) {
+    static auto constructor = FileSource::AmbientCacheStats::javaClass.GetConstructor<jni::jlong, jni::jlong, jni::jlong, jni::jlong>(env);
+    return FileSource::AmbientCacheStats::javaClass.New(env, constructor,
+        jni::jlong(stats.maximumSize),
+        jni::jlong(stats.size),
+        jni::jlong(stats.resourceCount),
+        jni::jlong(stats.tileCount));
+}
+
+// FileSource::AmbientCacheStatsCallback //
+
+jni::Class<FileSource::AmbientCacheStatsCallback> FileSource::AmbientCacheStatsCallback::javaClass;
+
+void FileSource::AmbientCacheStatsCallback::onStats(jni::JNIEnv& env, jni::Object<FileSource::AmbientCacheStatsCallback> callback, const mbgl::AmbientCacheStats& stats) {
+    static auto method = FileSource::AmbientCacheStatsCallback::javaClass.GetMethod<void (jni::Object<FileSource::AmbientCacheStats>)>(env, "onStats");
+    auto jstats = FileSource::AmbientCacheStats::New(env, stats);
+    callback.Call(env, method, jstats);
+    jni::DeleteLocalRef(env, jstats);
+}
+
+void FileSource::AmbientCacheStatsCallback::onError(jni::JNIEnv& env, jni::Object<FileSource::AmbientCacheStatsCallback> callback, std::exception_ptr error) {
+    static auto method = FileSource::AmbientCacheStatsCallback::javaClass.GetMethod<void (jni::String)>(env, "onError");
+    auto message = jni::Make<jni::String>(env, mbgl::util::toString(error));
+    callback.Call(env, method, message);
+    jni::DeleteLocalRef(env, message);
+}
+
 } // namespace android
 } // namespace mbgl
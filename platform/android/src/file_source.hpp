@@ -29,6 +29,34 @@ public:
         static jni::Class<ResourceTransformCallback> javaClass;
     };
 
+    struct ResultCallback {
+        static constexpr auto Name() { return "com/mapbox/mapboxsdk/storage/FileSource$ResultCallback"; }
+
+        static void onSuccess(jni::JNIEnv&, jni::Object<FileSource::ResultCallback>);
+
+        static void onError(jni::JNIEnv&, jni::Object<FileSource::ResultCallback>, std::exception_ptr);
+
+        static jni::Class<ResultCallback> javaClass;
+    };
+
+    struct AmbientCacheStats {
+        static constexpr auto Name() { return "com/mapbox/mapboxsdk/storage/AmbientCacheStats"; }
+
+        static jni::Object<AmbientCacheStats> New(jni::JNIEnv&, const mbgl::AmbientCacheStats&);
+
+        static jni::Class<AmbientCacheStats> javaClass;
+    };
+
+    struct AmbientCacheStatsCallback {
+        static constexpr auto Name() { return "com/mapbox/mapboxsdk/storage/FileSource$AmbientCacheStatsCallback"; }
+
+        static void onStats(jni::JNIEnv&, jni::Object<FileSource::AmbientCacheStatsCallback>, const mbgl::AmbientCacheStats&);
+
+        static void onError(jni::JNIEnv&, jni::Object<FileSource::AmbientCacheStatsCallback>, std::exception_ptr);
+
+        static jni::Class<AmbientCacheStatsCallback> javaClass;
+    };
+
     FileSource(jni::JNIEnv&, jni::String, jni::String, jni::Object<AssetManager>);
 
     ~FileSource();
@@ -41,6 +69,19 @@ public:
 
     void setResourceTransform(jni::JNIEnv&, jni::Object<FileSource::ResourceTransformCallback>);
 
+    void setResourceTransformRules(jni::JNIEnv&, jni::Array<jni::jint>, jni::Array<jni::jint>,
+                                   jni::Array<jni::String>, jni::Array<jni::String>);
+
+    void setMaximumAmbientCacheSize(jni::JNIEnv&, jni::jlong, jni::Object<FileSource::ResultCallback>);
+
+    void setAmbientCacheEvictionPolicy(jni::JNIEnv&, jni::jint);
+
+    void clearAmbientCache(jni::JNIEnv&, jni::Object<FileSource::ResultCallback>);
+
+    void invalidateAmbientCache(jni::JNIEnv&, jni::Object<FileSource::ResultCallback>);
+
+    void getAmbientCacheStats(jni::JNIEnv&, jni::Object<FileSource::AmbientCacheStatsCallback>);
+
     void resume(jni::JNIEnv&);
 
     void pause(jni::JNIEnv&);
@@ -0,0 +1,237 @@
+#include "binary.hpp"
+
+#include <mbgl/util/optional.hpp>
+
+#include <cstring>
+#include <stdexcept>
+#include <string>
+
+namespace mbgl {
+namespace android {
+namespace geojson {
+
+// Keep in sync with GeoJsonBinaryEncoder.java
+enum class GeometryType : int32_t {
+    Point = 1,
+    LineString = 2,
+    Polygon = 3,
+    MultiPoint = 4,
+    MultiLineString = 5,
+    MultiPolygon = 6,
+    GeometryCollection = 7
+};
+
+enum class ValueType : int32_t {
+    Null = 0,
+    Boolean = 1,
+    Number = 2,
+    String = 3,
+    Array = 4,
+    Object = 5
+};
+
+class BinaryReader {
+public:
+    // Geometry collections and property values nest recursively, deeper buffers are rejected rather
+    // than overflowing the stack
+    static constexpr std::size_t MaximumDepth = 32;
+
+    BinaryReader(const uint8_t* data_, std::size_t length_)
+        : data(data_), length(length_) {
+    }
+
+    template <typename T>
+    T read() {
+        require(sizeof(T));
+        T value;
+        std::memcpy(&value, data + offset, sizeof(T));
+        offset += sizeof(T);
+        return value;
+    }
+
+    std::size_t readCount() {
+        int32_t count = read<int32_t>();
+        if (count < 0) {
+            throw std::runtime_error("Malformed GeoJSON buffer: negative count");
+        }
+        return static_cast<std::size_t>(count);
+    }
+
+    optional<std::string> readString() {
+        int32_t size = read<int32_t>();
+        if (size < 0) {
+            return {};
+        }
+        require(size);
+        std::string value(reinterpret_cast<const char*>(data + offset), size);
+        offset += size;
+        return value;
+    }
+
+    mapbox::geometry::point<double> readPoint() {
+        double x = read<double>();
+        double y = read<double>();
+        return { x, y };
+    }
+
+    template <typename Points>
+    Points readPoints() {
+        std::size_t count = readCount();
+        if (count > (length - offset) / (2 * sizeof(double))) {
+            throw std::runtime_error("Malformed GeoJSON buffer: unexpected end of data");
+        }
+        Points points;
+        points.reserve(count);
+        for (std::size_t i = 0; i < count; i++) {
+            points.push_back(readPoint());
+        }
+        return points;
+    }
+
+    template <typename Lines>
+    Lines readLines() {
+        std::size_t count = readCount();
+        Lines lines;
+        lines.reserve(count);
+        for (std::size_t i = 0; i < count; i++) {
+            lines.push_back(readPoints<typename Lines::value_type>());
+        }
+        return lines;
+    }
+
+    mapbox::geometry::geometry<double> readGeometry() {
+        switch (static_cast<GeometryType>(read<int32_t>())) {
+            case GeometryType::Point:
+                return { readPoint() };
+            case GeometryType::LineString:
+                return { readPoints<mapbox::geometry::line_string<double>>() };
+            case GeometryType::Polygon:
+                return { readLines<mapbox::geometry::polygon<double>>() };
+            case GeometryType::MultiPoint:
+                return { readPoints<mapbox::geometry::multi_point<double>>() };
+            case GeometryType::MultiLineString:
+                return { readLines<mapbox::geometry::multi_line_string<double>>() };
+            case GeometryType::MultiPolygon: {
+                std::size_t count = readCount();
+                mapbox::geometry::multi_polygon<double> polygons;
+                polygons.reserve(count);
+                for (std::size_t i = 0; i < count; i++) {
+                    polygons.push_back(readLines<mapbox::geometry::polygon<double>>());
+                }
+                return { std::move(polygons) };
+            }
+            case GeometryType::GeometryCollection: {
+                Nested nested(*this);
+                std::size_t count = readCount();
+                mapbox::geometry::geometry_collection<double> geometries;
+                geometries.reserve(count);
+                for (std::size_t i = 0; i < count; i++) {
+                    geometries.push_back(readGeometry());
+                }
+                return { std::move(geometries) };
+            }
+        }
+        throw std::runtime_error("Malformed GeoJSON buffer: unknown geometry type");
+    }
+
+    mapbox::geometry::property_map readProperties() {
+        std::size_t count = readCount();
+        mapbox::geometry::property_map properties;
+        properties.reserve(count);
+        for (std::size_t i = 0; i < count; i++) {
+            auto key = readString();
+            if (!key) {
+                throw std::runtime_error("Malformed GeoJSON buffer: missing property key");
+            }
+            properties.emplace(std::move(*key), readValue());
+        }
+        return properties;
+    }
+
+    mapbox::geometry::value readValue() {
+        switch (static_cast<ValueType>(read<int32_t>())) {
+            case ValueType::Null:
+                return mapbox::geometry::null_value;
+            case ValueType::Boolean:
+                return read<int32_t>() != 0;
+            case ValueType::Number:
+                return read<double>();
+            case ValueType::String: {
+                auto value = readString();
+                return value ? mapbox::geometry::value { std::move(*value) } : mapbox::geometry::null_value;
+            }
+            case ValueType::Array: {
+                Nested nested(*this);
+                std::size_t count = readCount();
+                std::vector<mapbox::geometry::value> values;
+                values.reserve(count);
+                for (std::size_t i = 0; i < count; i++) {
+                    values.push_back(readValue());
+                }
+                return mapbox::util::recursive_wrapper<std::vector<mapbox::geometry::value>> { std::move(values) };
+            }
+            case ValueType::Object: {
+                Nested nested(*this);
+                return mapbox::util::recursive_wrapper<mapbox::geometry::property_map> { readProperties() };
+            }
+        }
+        throw std::runtime_error("Malformed GeoJSON buffer: unknown value type");
+    }
+
+    mbgl::Feature readFeature() {
+        optional<mapbox::geometry::identifier> id;
+        auto stringId = readString();
+        if (stringId) {
+            id = { std::move(*stringId) };
+        }
+        auto properties = readProperties();
+        auto geometry = readGeometry();
+
+        return mbgl::Feature { std::move(geometry), std::move(properties), std::move(id) };
+    }
+
+private:
+    class Nested {
+    public:
+        explicit Nested(BinaryReader& reader_) : reader(reader_) {
+            if (++reader.depth > MaximumDepth) {
+                throw std::runtime_error("Malformed GeoJSON buffer: nested too deeply");
+            }
+        }
+        ~Nested() {
+            --reader.depth;
+        }
+
+    private:
+        BinaryReader& reader;
+    };
+
+    void require(std::size_t bytes) const {
+        if (bytes > length - offset) {
+            throw std::runtime_error("Malformed GeoJSON buffer: unexpected end of data");
+        }
+    }
+
+    const uint8_t* data;
+    const std::size_t length;
+    std::size_t offset = 0;
+    std::size_t depth = 0;
+};
+
+constexpr std::size_t BinaryReader::MaximumDepth;
+
+mbgl::FeatureCollection decodeBinary(const uint8_t* data, std::size_t length) {
+    BinaryReader reader(data, length);
+    std::size_t count = reader.readCount();
+
+    mbgl::FeatureCollection collection;
+    collection.reserve(count);
+    for (std::size_t i = 0; i < count; i++) {
+        collection.push_back(reader.readFeature());
+    }
+    return collection;
+}
+
+} // namespace geojson
+} // namespace android
+} // namespace mbgl
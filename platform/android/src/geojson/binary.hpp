@@ -0,0 +1,23 @@
+#pragma once
+
+#include <mbgl/util/geojson.hpp>
+
+#include <cstddef>
+#include <cstdint>
+
+namespace mbgl {
+namespace android {
+namespace geojson {
+
+/**
+ * Decodes features encoded by com.mapbox.mapboxsdk.style.sources.GeoJsonBinaryEncoder.
+ * The buffer is read in place, no JNI calls are involved.
+ *
+ * Throws std::runtime_error when the buffer is truncated, malformed or nests geometry collections or
+ * property values more than 32 levels deep.
+ */
+mbgl::FeatureCollection decodeBinary(const uint8_t* data, std::size_t length);
+
+} // namespace geojson
+} // namespace android
+} // namespace mbgl
@@ -0,0 +1,94 @@
+#include "feature_set.hpp"
+
+#include <mbgl/util/optional.hpp>
+#include <mbgl/util/string.hpp>
+
+#include <algorithm>
+#include <unordered_set>
+
+namespace mbgl {
+namespace android {
+namespace geojson {
+
+static optional<std::string> featureKey(const mbgl::Feature& feature) {
+    if (!feature.id) {
+        return {};
+    }
+    return feature.id->match(
+        [] (const std::string& id) { return id; },
+        [] (const auto& id) { return util::toString(id); }
+    );
+}
+
+FeatureSet::FeatureSet(mbgl::FeatureCollection features)
+    : geoJSON(std::move(features)) {
+    reindex();
+}
+
+bool FeatureSet::add(mbgl::FeatureCollection diff) {
+    return apply(std::move(diff), true);
+}
+
+bool FeatureSet::update(mbgl::FeatureCollection diff) {
+    return apply(std::move(diff), false);
+}
+
+bool FeatureSet::remove(const std::vector<std::string>& ids) {
+    auto& features = geoJSON.get<mbgl::FeatureCollection>();
+    std::unordered_set<std::string> removed(ids.begin(), ids.end());
+
+    auto end = std::remove_if(features.begin(), features.end(), [&] (const mbgl::Feature& feature) {
+        auto key = featureKey(feature);
+        return key && removed.count(*key);
+    });
+    if (end == features.end()) {
+        return false;
+    }
+    features.erase(end, features.end());
+    reindex();
+    return true;
+}
+
+const mbgl::FeatureCollection& FeatureSet::getFeatures() const {
+    return geoJSON.get<mbgl::FeatureCollection>();
+}
+
+const mbgl::GeoJSON& FeatureSet::getGeoJSON() const {
+    return geoJSON;
+}
+
+bool FeatureSet::apply(mbgl::FeatureCollection diff, bool insert) {
+    auto& features = geoJSON.get<mbgl::FeatureCollection>();
+
+    bool changed = false;
+    for (auto& feature : diff) {
+        auto key = featureKey(feature);
+        auto existing = key ? index.find(*key) : index.end();
+        if (existing != index.end()) {
+            features[existing->second] = std::move(feature);
+            changed = true;
+        } else if (insert) {
+            if (key) {
+                index.emplace(*key, features.size());
+            }
+            features.push_back(std::move(feature));
+            changed = true;
+        }
+    }
+    return changed;
+}
+
+void FeatureSet::reindex() {
+    const auto& features = geoJSON.get<mbgl::FeatureCollection>();
+    index.clear();
+    for (std::size_t i = 0; i < features.size(); i++) {
+        auto key = featureKey(features[i]);
+        if (key) {
+            index[*key] = i;
+        }
+    }
+}
+
+} // namespace geojson
+} // namespace android
+} // namespace mbgl
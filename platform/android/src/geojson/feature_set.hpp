@@ -0,0 +1,46 @@
+#pragma once
+
+#include <mbgl/util/geojson.hpp>
+
+#include <string>
+#include <unordered_map>
+#include <vector>
+
+namespace mbgl {
+namespace android {
+namespace geojson {
+
+/**
+ * The features of a GeoJSON source, indexed by id so that diffs can be applied in place.
+ * Numeric ids are matched by their string representation, features without an id can't
+ * be updated or removed.
+ *
+ * The features are held as GeoJSON so they can be passed to the core source without a copy.
+ */
+class FeatureSet {
+public:
+    explicit FeatureSet(mbgl::FeatureCollection);
+
+    // Adds the features, replacing the features with the same id. Returns true if anything changed.
+    bool add(mbgl::FeatureCollection);
+
+    // Replaces the features with the same id, others are ignored. Returns true if anything changed.
+    bool update(mbgl::FeatureCollection);
+
+    // Removes the features with the given ids. Returns true if anything changed.
+    bool remove(const std::vector<std::string>& ids);
+
+    const mbgl::FeatureCollection& getFeatures() const;
+    const mbgl::GeoJSON& getGeoJSON() const;
+
+private:
+    bool apply(mbgl::FeatureCollection, bool insert);
+    void reindex();
+
+    mbgl::GeoJSON geoJSON;
+    std::unordered_map<std::string, std::size_t> index;
+};
+
+} // namespace geojson
+} // namespace android
+} // namespace mbgl
@@ -10,6 +10,7 @@
 
 #include <jni/jni.hpp>
 #include "attach_env.hpp"
+#include "java/nio.hpp"
 
 namespace mbgl {
 
@@ -31,11 +32,22 @@ public:
                     jni::String cacheControl, jni::String expires,
                     jni::String retryAfter, jni::String xRateLimitReset,
                     jni::Array<jni::jbyte> body);
+    void onResponseBuffer(jni::JNIEnv&, int code,
+                          jni::String etag, jni::String modified,
+                          jni::String cacheControl, jni::String expires,
+                          jni::String retryAfter, jni::String xRateLimitReset,
+                          jni::Object<android::java::nio::ByteBuffer> body, jni::jint length);
 
     static jni::Class<HTTPRequest> javaClass;
     jni::UniqueObject<HTTPRequest> javaRequest;
 
 private:
+    void setResponse(jni::JNIEnv&, int code,
+                     jni::String etag, jni::String modified,
+                     jni::String cacheControl, jni::String expires,
+                     jni::String retryAfter, jni::String xRateLimitReset,
+                     std::shared_ptr<const std::string> data);
+
     Resource resource;
     FileSource::Callback callback;
     Response response;
@@ -63,7 +75,8 @@ void RegisterNativeHTTPRequest(jni::JNIEnv& env) {
 
     jni::RegisterNativePeer<HTTPRequest>(env, HTTPRequest::javaClass, "nativePtr",
         METHOD(&HTTPRequest::onFailure, "nativeOnFailure"),
-        METHOD(&HTTPRequest::onResponse, "nativeOnResponse"));
+        METHOD(&HTTPRequest::onResponse, "nativeOnResponse"),
+        METHOD(&HTTPRequest::onResponseBuffer, "nativeOnResponseBuffer"));
 }
 
 } // namespace android
@@ -82,14 +95,21 @@ HTTPRequest::HTTPRequest(jni::JNIEnv& env, const Resource& resource_, FileSource
 
     jni::UniqueLocalFrame frame = jni::PushLocalFrame(env, 10);
 
+    // Tiles needed for rendering are requested network-only after a cache miss, tiles requested with
+    // all loading methods come from offline downloads and can wait.
+    const bool background = resource.kind == Resource::Kind::Tile
+        && resource.loadingMethod == Resource::LoadingMethod::All;
+
     static auto constructor =
-        javaClass.GetConstructor<jni::jlong, jni::String, jni::String, jni::String>(env);
+        javaClass.GetConstructor<jni::jlong, jni::String, jni::String, jni::String, jni::jint, jni::jboolean>(env);
 
     javaRequest = javaClass.New(env, constructor,
         reinterpret_cast<jlong>(this),
         jni::Make<jni::String>(env, resource.url),
         jni::Make<jni::String>(env, etagStr),
-        jni::Make<jni::String>(env, modifiedStr)).NewGlobalRef(env);
+        jni::Make<jni::String>(env, modifiedStr),
+        jni::jint(resource.kind),
+        jni::jboolean(background)).NewGlobalRef(env);
 }
 
 HTTPRequest::~HTTPRequest() {
@@ -105,6 +125,37 @@ void HTTPRequest::onResponse(jni::JNIEnv& env, int code,
                              jni::String cacheControl, jni::String expires,
                              jni::String jRetryAfter, jni::String jXRateLimitReset,
                              jni::Array<jni::jbyte> body) {
+    std::shared_ptr<std::string> data;
+    if (code == 200 && body) {
+        data = std::make_shared<std::string>(body.Length(env), char());
+        jni::GetArrayRegion(env, *body, 0, data->size(), reinterpret_cast<jbyte*>(&(*data)[0]));
+    }
+
+    setResponse(env, code, etag, modified, cacheControl, expires, jRetryAfter, jXRateLimitReset, std::move(data));
+}
+
+void HTTPRequest::onResponseBuffer(jni::JNIEnv& env, int code,
+                                   jni::String etag, jni::String modified,
+                                   jni::String cacheControl, jni::String expires,
+                                   jni::String jRetryAfter, jni::String jXRateLimitReset,
+                                   jni::Object<android::java::nio::ByteBuffer> body, jni::jint length) {
+    std::shared_ptr<std::string> data;
+    if (code == 200 && body) {
+        // The body was streamed into a direct buffer, copy it straight from its native memory
+        const uint8_t* address = android::java::nio::ByteBuffer::getDirectAddress(env, body);
+        if (address) {
+            data = std::make_shared<std::string>(reinterpret_cast<const char*>(address), length);
+        }
+    }
+
+    setResponse(env, code, etag, modified, cacheControl, expires, jRetryAfter, jXRateLimitReset, std::move(data));
+}
+
+void HTTPRequest::setResponse(jni::JNIEnv& env, int code,
+                              jni::String etag, jni::String modified,
+                              jni::String cacheControl, jni::String expires,
+                              jni::String jRetryAfter, jni::String jXRateLimitReset,
+                              std::shared_ptr<const std::string> data) {
 
     using Error = Response::Error;
 
@@ -127,10 +178,8 @@ void HTTPRequest::onResponse(jni::JNIEnv& env, int code,
     }
 
     if (code == 200) {
-        if (body) {
-            auto data = std::make_shared<std::string>(body.Length(env), char());
-            jni::GetArrayRegion(env, *body, 0, data->size(), reinterpret_cast<jbyte*>(&(*data)[0]));
-            response.data = data;
+        if (data) {
+            response.data = std::move(data);
         } else {
             response.data = std::make_shared<std::string>();
         }
@@ -189,7 +238,8 @@ std::unique_ptr<AsyncRequest> HTTPFileSource::request(const Resource& resource,
 }
 
 uint32_t HTTPFileSource::maximumConcurrentRequests() {
-    return 20;
+    // Requests are queued in priority order by the Java PriorityDispatcher, which applies the OkHttp limits
+    return 128;
 }
 
 } // namespace mbgl
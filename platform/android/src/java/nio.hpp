@@ -0,0 +1,27 @@
+#pragma once
+
+#include <mbgl/util/noncopyable.hpp>
+
+#include <jni/jni.hpp>
+
+namespace mbgl {
+namespace android {
+namespace java {
+namespace nio {
+
+class ByteBuffer : private mbgl::util::noncopyable {
+public:
+    static constexpr auto Name() { return "java/nio/ByteBuffer"; };
+
+    /**
+     * Returns the address of a direct buffer, or nullptr if the buffer isn't direct.
+     */
+    static uint8_t* getDirectAddress(jni::JNIEnv& env, jni::Object<ByteBuffer> buffer) {
+        return reinterpret_cast<uint8_t*>(jni::GetDirectBufferAddress(env, *buffer.Get()));
+    }
+};
+
+} // namespace nio
+} // namespace java
+} // namespace android
+} // namespace mbgl
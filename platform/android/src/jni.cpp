@@ -35,10 +35,12 @@
 #include "map_renderer.hpp"
 #include "map_renderer_runnable.hpp"
 #include "native_map_view.hpp"
+#include "offline/offline_database_stats.hpp"
 #include "offline/offline_manager.hpp"
 #include "offline/offline_region.hpp"
 #include "offline/offline_region_definition.hpp"
 #include "offline/offline_region_error.hpp"
+#include "offline/offline_region_estimate.hpp"
 #include "offline/offline_region_status.hpp"
 #include "style/transition_options.hpp"
 #include "style/layers/layers.hpp"
@@ -177,10 +179,13 @@ void registerNatives(JavaVM *vm) {
 
     // Offline
     OfflineManager::registerNative(env);
+    OfflineDatabaseStats::registerNative(env);
     OfflineRegion::registerNative(env);
     OfflineRegionDefinition::registerNative(env);
     OfflineTilePyramidRegionDefinition::registerNative(env);
+    OfflineGeometryRegionDefinition::registerNative(env);
     OfflineRegionError::registerNative(env);
+    OfflineRegionEstimate::registerNative(env);
     OfflineRegionStatus::registerNative(env);
 
     // Snapshotter
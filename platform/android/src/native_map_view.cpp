@@ -428,21 +428,67 @@ void NativeMapView::updateMarker(jni::JNIEnv& env, jni::jlong markerId, jni::jdo
     map->updateAnnotation(markerId, mbgl::SymbolAnnotation { mbgl::Point<double>(lon, lat), iconId });
 }
 
-jni::Array<jni::jlong> NativeMapView::addMarkers(jni::JNIEnv& env, jni::Array<jni::Object<Marker>> jmarkers) {
-    jni::NullCheck(env, &jmarkers);
-    std::size_t len = jmarkers.Length(env);
+void NativeMapView::updateMarkers(jni::JNIEnv& env, jni::Array<jni::jlong> jids, jni::Array<jni::jdouble> jlatitudes,
+                                  jni::Array<jni::jdouble> jlongitudes, jni::Array<jni::String> jiconIds,
+                                  jni::Array<jni::jint> jiconIndices) {
+    jni::NullCheck(env, &jids);
+    jni::NullCheck(env, &jlatitudes);
+    jni::NullCheck(env, &jlongitudes);
+    jni::NullCheck(env, &jiconIds);
+    jni::NullCheck(env, &jiconIndices);
+    std::size_t len = jids.Length(env);
+
+    std::vector<jni::jlong> ids(len);
+    std::vector<jni::jdouble> latitudes(len);
+    std::vector<jni::jdouble> longitudes(len);
+    std::vector<jni::jint> iconIndices(len);
+    jni::GetArrayRegion(env, *jids, 0, len, ids.data());
+    jni::GetArrayRegion(env, *jlatitudes, 0, len, latitudes.data());
+    jni::GetArrayRegion(env, *jlongitudes, 0, len, longitudes.data());
+    jni::GetArrayRegion(env, *jiconIndices, 0, len, iconIndices.data());
+
+    // Icon ids are deduplicated on the Java side, convert each of them only once
+    std::vector<std::string> iconIds = android::conversion::toVector(env, jiconIds);
+
+    for (std::size_t i = 0; i < len; i++) {
+        if (ids[i] == -1L) {
+            continue;
+        }
+        map->updateAnnotation(ids[i], mbgl::SymbolAnnotation {
+            mbgl::Point<double>(longitudes[i], latitudes[i]),
+            iconIds.at(iconIndices[i])
+        });
+    }
+}
+
+jni::Array<jni::jlong> NativeMapView::addMarkers(jni::JNIEnv& env, jni::Array<jni::jdouble> jlatitudes,
+                                                 jni::Array<jni::jdouble> jlongitudes,
+                                                 jni::Array<jni::String> jiconIds,
+                                                 jni::Array<jni::jint> jiconIndices) {
+    jni::NullCheck(env, &jlatitudes);
+    jni::NullCheck(env, &jlongitudes);
+    jni::NullCheck(env, &jiconIds);
+    jni::NullCheck(env, &jiconIndices);
+    std::size_t len = jlatitudes.Length(env);
+
+    std::vector<jni::jdouble> latitudes(len);
+    std::vector<jni::jdouble> longitudes(len);
+    std::vector<jni::jint> iconIndices(len);
+    jni::GetArrayRegion(env, *jlatitudes, 0, len, latitudes.data());
+    jni::GetArrayRegion(env, *jlongitudes, 0, len, longitudes.data());
+    jni::GetArrayRegion(env, *jiconIndices, 0, len, iconIndices.data());
+
+    // Icon ids are deduplicated on the Java side, convert each of them only once
+    std::vector<std::string> iconIds = android::conversion::toVector(env, jiconIds);
 
     std::vector<jni::jlong> ids;
     ids.reserve(len);
 
     for (std::size_t i = 0; i < len; i++) {
-        jni::Object<Marker> marker = jmarkers.Get(env, i);
         ids.push_back(map->addAnnotation(mbgl::SymbolAnnotation {
-            Marker::getPosition(env, marker),
-            Marker::getIconId(env, marker)
+            mbgl::Point<double>(longitudes[i], latitudes[i]),
+            iconIds.at(iconIndices[i])
         }));
-
-        jni::DeleteLocalRef(env, marker);
     }
 
     auto result = jni::Array<jni::jlong>::New(env, len);
@@ -804,6 +850,44 @@ void NativeMapView::addLayerAt(JNIEnv& env, jlong nativeLayerPtr, jni::jint inde
     }
 }
 
+void NativeMapView::setLayerProperties(JNIEnv& env, jni::Array<jni::Object<Layer>> jlayers,
+                                       jni::Array<jni::String> jnames, jni::Array<jni::Object<>> jvalues,
+                                       jni::Array<jni::jboolean> jpaintFlags) {
+    jni::NullCheck(env, &jlayers);
+    jni::NullCheck(env, &jnames);
+    jni::NullCheck(env, &jvalues);
+    jni::NullCheck(env, &jpaintFlags);
+    std::size_t len = jlayers.Length(env);
+
+    std::vector<jni::jboolean> paintFlags(len);
+    jni::GetArrayRegion(env, *jpaintFlags, 0, len, paintFlags.data());
+
+    // The peers are resolved now rather than when the batch was built, the batch holds the Java layers so
+    // their peers can't be finalized in between
+    static auto nativePtrField = Layer::javaClass.GetField<jlong>(env, "nativePtr");
+
+    for (std::size_t i = 0; i < len; i++) {
+        jni::Object<Layer> jlayer = jlayers.Get(env, i);
+        Layer* layerPeer = reinterpret_cast<Layer*>(jlayer.Get(env, nativePtrField));
+        jni::DeleteLocalRef(env, jlayer);
+        assert(layerPeer != nullptr);
+        mbgl::style::Layer& layer = layerPeer->get();
+
+        jni::String jname = jnames.Get(env, i);
+        std::string name = jni::Make<std::string>(env, jname);
+        jni::DeleteLocalRef(env, jname);
+
+        // The value wrapper releases the local reference, keeping large batches within the local reference limit
+        jni::Object<> jvalue = jvalues.Get(env, i);
+        optional<mbgl::style::conversion::Error> error = paintFlags[i]
+            ? layer.setPaintProperty(name, Value(env, jvalue))
+            : layer.setLayoutProperty(name, Value(env, jvalue));
+        if (error) {
+            mbgl::Log::Error(mbgl::Event::JNI, "Error setting property: " + name + " " + error->message);
+        }
+    }
+}
+
 /**
  * Remove by layer id.
  */
@@ -997,6 +1081,7 @@ void NativeMapView::registerNative(jni::JNIEnv& env) {
             METHOD(&NativeMapView::scheduleSnapshot, "nativeTakeSnapshot"),
             METHOD(&NativeMapView::getCameraPosition, "nativeGetCameraPosition"),
             METHOD(&NativeMapView::updateMarker, "nativeUpdateMarker"),
+            METHOD(&NativeMapView::updateMarkers, "nativeUpdateMarkers"),
             METHOD(&NativeMapView::addMarkers, "nativeAddMarkers"),
             METHOD(&NativeMapView::setDebug, "nativeSetDebug"),
             METHOD(&NativeMapView::cycleDebugOptions, "nativeCycleDebugOptions"),
@@ -1030,6 +1115,7 @@ void NativeMapView::registerNative(jni::JNIEnv& env) {
             METHOD(&NativeMapView::addLayer, "nativeAddLayer"),
             METHOD(&NativeMapView::addLayerAbove, "nativeAddLayerAbove"),
             METHOD(&NativeMapView::addLayerAt, "nativeAddLayerAt"),
+            METHOD(&NativeMapView::setLayerProperties, "nativeSetLayerProperties"),
             METHOD(&NativeMapView::removeLayerById, "nativeRemoveLayerById"),
             METHOD(&NativeMapView::removeLayerAt, "nativeRemoveLayerAt"),
             METHOD(&NativeMapView::removeLayer, "nativeRemoveLayer"),
@@ -150,7 +150,11 @@ public:
 
     void updateMarker(jni::JNIEnv&, jni::jlong, jni::jdouble, jni::jdouble, jni::String);
 
-    jni::Array<jni::jlong> addMarkers(jni::JNIEnv&, jni::Array<jni::Object<Marker>>);
+    void updateMarkers(jni::JNIEnv&, jni::Array<jni::jlong>, jni::Array<jni::jdouble>, jni::Array<jni::jdouble>,
+                       jni::Array<jni::String>, jni::Array<jni::jint>);
+
+    jni::Array<jni::jlong> addMarkers(jni::JNIEnv&, jni::Array<jni::jdouble>, jni::Array<jni::jdouble>,
+                                      jni::Array<jni::String>, jni::Array<jni::jint>);
 
     void onLowMemory(JNIEnv& env);
 
@@ -220,6 +224,9 @@ public:
 
     void addLayerAt(JNIEnv&, jni::jlong, jni::jint);
 
+    void setLayerProperties(JNIEnv&, jni::Array<jni::Object<Layer>>, jni::Array<jni::String>,
+                            jni::Array<jni::Object<>>, jni::Array<jni::jboolean>);
+
     jni::Object<Layer> removeLayerById(JNIEnv&, jni::String);
 
     jni::Object<Layer> removeLayerAt(JNIEnv&, jni::jint);
@@ -0,0 +1,56 @@
+#include "offline_database_stats.hpp"
+
+#include <vector>
+
+namespace mbgl {
+namespace android {
+
+jni::Object<OfflineDatabaseStats> OfflineDatabaseStats::New(jni::JNIEnv& env, const mbgl::OfflineDatabaseStats& stats) {
+
+    // Convert the region sizes to parallel arrays
+    std::vector<jni::jlong> regionIDs;
+    std::vector<jni::jlong> regionSizes;
+    std::vector<jni::jlong> regionSharedSizes;
+    for (const auto& size : stats.regionSizes) {
+        regionIDs.push_back(size.first);
+        regionSizes.push_back(size.second);
+        auto shared = stats.regionSharedSizes.find(size.first);
+        regionSharedSizes.push_back(shared != stats.regionSharedSizes.end() ? shared->second : 0);
+    }
+
+    auto jregionIDs = jni::Array<jni::jlong>::New(env, regionIDs.size());
+    jregionIDs.SetRegion<std::vector<jni::jlong>>(env, 0, regionIDs);
+    auto jregionSizes = jni::Array<jni::jlong>::New(env, regionSizes.size());
+    jregionSizes.SetRegion<std::vector<jni::jlong>>(env, 0, regionSizes);
+    auto jregionSharedSizes = jni::Array<jni::jlong>::New(env, regionSharedSizes.size());
+    jregionSharedSizes.SetRegion<std::vector<jni::jlong>>(env, 0, regionSharedSizes);
+
+    // Create java object
+    static auto constructor = javaClass.GetConstructor<jlong, jlong, jlong, jni::Array<jni::jlong>, jni::Array<jni::jlong>, jni::Array<jni::jlong>, jlong, jlong>(env);
+    auto jstats = javaClass.New(env, constructor,
+        jlong(stats.pageSize),
+        jlong(stats.pageCount),
+        jlong(stats.freePageCount),
+        jregionIDs,
+        jregionSizes,
+        jregionSharedSizes,
+        jlong(stats.sharedSize),
+        jlong(stats.ambientCacheSize)
+    );
+
+    // Delete references
+    jni::DeleteLocalRef(env, jregionIDs);
+    jni::DeleteLocalRef(env, jregionSizes);
+    jni::DeleteLocalRef(env, jregionSharedSizes);
+
+    return jstats;
+}
+
+jni::Class<OfflineDatabaseStats> OfflineDatabaseStats::javaClass;
+
+void OfflineDatabaseStats::registerNative(jni::JNIEnv& env) {
+    javaClass = *jni::Class<OfflineDatabaseStats>::Find(env).NewGlobalRef(env).release();
+}
+
+} // namespace android
+} // namespace mbgl
@@ -0,0 +1,21 @@
+#pragma once
+
+#include <mbgl/storage/offline.hpp>
+#include <jni/jni.hpp>
+
+namespace mbgl {
+namespace android {
+
+class OfflineDatabaseStats {
+public:
+    static constexpr auto Name() { return "com/mapbox/mapboxsdk/offline/OfflineDatabaseStats"; };
+
+    static jni::Object<OfflineDatabaseStats> New(jni::JNIEnv&, const mbgl::OfflineDatabaseStats&);
+
+    static jni::Class<OfflineDatabaseStats> javaClass;
+
+    static void registerNative(jni::JNIEnv&);
+};
+
+} // namespace android
+} // namespace mbgl
@@ -49,8 +49,7 @@ void OfflineManager::createOfflineRegion(jni::JNIEnv& env_,
                                          jni::Object<CreateOfflineRegionCallback> callback_) {
     // Convert
 
-    // XXX hardcoded cast for now as we only support OfflineTilePyramidRegionDefinition
-    auto definition = OfflineTilePyramidRegionDefinition::getDefinition(env_, jni::Object<OfflineTilePyramidRegionDefinition>(*definition_));
+    auto definition = OfflineRegionDefinition::getDefinition(env_, definition_);
 
     mbgl::OfflineRegionMetadata metadata;
     if (metadata_) {
@@ -79,11 +78,77 @@ void OfflineManager::createOfflineRegion(jni::JNIEnv& env_,
     });
 }
 
+void OfflineManager::estimateOfflineRegion(jni::JNIEnv& env_,
+                                           jni::Object<OfflineRegionDefinition> definition_,
+                                           jni::Object<EstimateOfflineRegionCallback> callback_) {
+    // Convert
+    auto definition = OfflineRegionDefinition::getDefinition(env_, definition_);
+
+    // Estimate region
+    fileSource.estimateOfflineRegion(definition, [
+        //Keep a shared ptr to a global reference of the callback so it is not GC'd in the meanwhile
+        callback = std::shared_ptr<jni::jobject>(callback_.NewGlobalRef(env_).release()->Get(), GenericGlobalRefDeleter())
+    ](mbgl::expected<mbgl::OfflineRegionEstimate, std::exception_ptr> estimate) mutable {
+
+        // Reattach, the callback comes from a different thread
+        android::UniqueEnv env = android::AttachEnv();
+
+        if (estimate) {
+            OfflineManager::EstimateOfflineRegionCallback::onEstimate(
+                *env, jni::Object<EstimateOfflineRegionCallback>(*callback), *estimate);
+        } else {
+            OfflineManager::EstimateOfflineRegionCallback::onError(
+                *env, jni::Object<EstimateOfflineRegionCallback>(*callback), estimate.error());
+        }
+    });
+}
+
+void OfflineManager::compactDatabase(jni::JNIEnv& env_, jni::Object<CompactDatabaseCallback> callback_) {
+    fileSource.compactOfflineDatabase([
+        //Keep a shared ptr to a global reference of the callback so it is not GC'd in the meanwhile
+        callback = std::shared_ptr<jni::jobject>(callback_.NewGlobalRef(env_).release()->Get(), GenericGlobalRefDeleter())
+    ](std::exception_ptr error) mutable {
+
+        // Reattach, the callback comes from a different thread
+        android::UniqueEnv env = android::AttachEnv();
+
+        if (error) {
+            OfflineManager::CompactDatabaseCallback::onError(
+                *env, jni::Object<CompactDatabaseCallback>(*callback), error);
+        } else {
+            OfflineManager::CompactDatabaseCallback::onCompact(
+                *env, jni::Object<CompactDatabaseCallback>(*callback));
+        }
+    });
+}
+
+void OfflineManager::getDatabaseStats(jni::JNIEnv& env_, jni::Object<GetDatabaseStatsCallback> callback_) {
+    fileSource.getOfflineDatabaseStats([
+        //Keep a shared ptr to a global reference of the callback so it is not GC'd in the meanwhile
+        callback = std::shared_ptr<jni::jobject>(callback_.NewGlobalRef(env_).release()->Get(), GenericGlobalRefDeleter())
+    ](mbgl::expected<mbgl::OfflineDatabaseStats, std::exception_ptr> stats) mutable {
+
+        // Reattach, the callback comes from a different thread
+        android::UniqueEnv env = android::AttachEnv();
+
+        if (stats) {
+            OfflineManager::GetDatabaseStatsCallback::onStats(
+                *env, jni::Object<GetDatabaseStatsCallback>(*callback), *stats);
+        } else {
+            OfflineManager::GetDatabaseStatsCallback::onError(
+                *env, jni::Object<GetDatabaseStatsCallback>(*callback), stats.error());
+        }
+    });
+}
+
 jni::Class<OfflineManager> OfflineManager::javaClass;
 
 void OfflineManager::registerNative(jni::JNIEnv& env) {
     OfflineManager::ListOfflineRegionsCallback::registerNative(env);
     OfflineManager::CreateOfflineRegionCallback::registerNative(env);
+    OfflineManager::EstimateOfflineRegionCallback::registerNative(env);
+    OfflineManager::CompactDatabaseCallback::registerNative(env);
+    OfflineManager::GetDatabaseStatsCallback::registerNative(env);
 
     javaClass = *jni::Class<OfflineManager>::Find(env).NewGlobalRef(env).release();
 
@@ -95,7 +160,10 @@ void OfflineManager::registerNative(jni::JNIEnv& env) {
         "finalize",
         METHOD(&OfflineManager::setOfflineMapboxTileCountLimit, "setOfflineMapboxTileCountLimit"),
         METHOD(&OfflineManager::listOfflineRegions, "listOfflineRegions"),
-        METHOD(&OfflineManager::createOfflineRegion, "createOfflineRegion"));
+        METHOD(&OfflineManager::createOfflineRegion, "createOfflineRegion"),
+        METHOD(&OfflineManager::estimateOfflineRegion, "estimateOfflineRegion"),
+        METHOD(&OfflineManager::compactDatabase, "compactDatabase"),
+        METHOD(&OfflineManager::getDatabaseStats, "nativeGetDatabaseStats"));
 }
 
 // OfflineManager::ListOfflineRegionsCallback //
@@ -167,5 +235,89 @@ void OfflineManager::CreateOfflineRegionCallback::registerNative(jni::JNIEnv& en
     javaClass = *jni::Class<OfflineManager::CreateOfflineRegionCallback>::Find(env).NewGlobalRef(env).release();
 }
 
+// OfflineManager::EstimateOfflineRegionCallback //
+
+void OfflineManager::EstimateOfflineRegionCallback::onError(jni::JNIEnv& env,
+                                                            jni::Object<OfflineManager::EstimateOfflineRegionCallback> callback,
+                                                            std::exception_ptr error) {
+    static auto method = javaClass.GetMethod<void (jni::String)>(env, "onError");
+    std::string message = mbgl::util::toString(error);
+    auto jmessage = jni::Make<jni::String>(env, message);
+    callback.Call(env, method, jmessage);
+    jni::DeleteLocalRef(env, jmessage);
+}
+
+void OfflineManager::EstimateOfflineRegionCallback::onEstimate(jni::JNIEnv& env,
+                                                               jni::Object<OfflineManager::EstimateOfflineRegionCallback> callback,
+                                                               const mbgl::OfflineRegionEstimate& estimate) {
+    //Convert the estimate to a java object
+    auto jestimate = OfflineRegionEstimate::New(env, estimate);
+
+    // Trigger callback
+    static auto method = javaClass.GetMethod<void (jni::Object<OfflineRegionEstimate>)>(env, "onEstimate");
+    callback.Call(env, method, jestimate);
+    jni::DeleteLocalRef(env, jestimate);
+}
+
+jni::Class<OfflineManager::EstimateOfflineRegionCallback> OfflineManager::EstimateOfflineRegionCallback::javaClass;
+
+void OfflineManager::EstimateOfflineRegionCallback::registerNative(jni::JNIEnv& env) {
+    javaClass = *jni::Class<OfflineManager::EstimateOfflineRegionCallback>::Find(env).NewGlobalRef(env).release();
+}
+
+// OfflineManager::CompactDatabaseCallback //
+
+void OfflineManager::CompactDatabaseCallback::onError(jni::JNIEnv& env,
+                                                      jni::Object<OfflineManager::CompactDatabaseCallback> callback,
+                                                      std::exception_ptr error) {
+    static auto method = javaClass.GetMethod<void (jni::String)>(env, "onError");
+    std::string message = mbgl::util::toString(error);
+    auto jmessage = jni::Make<jni::String>(env, message);
+    callback.Call(env, method, jmessage);
+    jni::DeleteLocalRef(env, jmessage);
+}
+
+void OfflineManager::CompactDatabaseCallback::onCompact(jni::JNIEnv& env,
+                                                        jni::Object<OfflineManager::CompactDatabaseCallback> callback) {
+    static auto method = javaClass.GetMethod<void ()>(env, "onCompact");
+    callback.Call(env, method);
+}
+
+jni::Class<OfflineManager::CompactDatabaseCallback> OfflineManager::CompactDatabaseCallback::javaClass;
+
+void OfflineManager::CompactDatabaseCallback::registerNative(jni::JNIEnv& env) {
+    javaClass = *jni::Class<OfflineManager::CompactDatabaseCallback>::Find(env).NewGlobalRef(env).release();
+}
+
+// OfflineManager::GetDatabaseStatsCallback //
+
+void OfflineManager::GetDatabaseStatsCallback::onError(jni::JNIEnv& env,
+                                                       jni::Object<OfflineManager::GetDatabaseStatsCallback> callback,
+                                                       std::exception_ptr error) {
+    static auto method = javaClass.GetMethod<void (jni::String)>(env, "onError");
+    std::string message = mbgl::util::toString(error);
+    auto jmessage = jni::Make<jni::String>(env, message);
+    callback.Call(env, method, jmessage);
+    jni::DeleteLocalRef(env, jmessage);
+}
+
+void OfflineManager::GetDatabaseStatsCallback::onStats(jni::JNIEnv& env,
+                                                       jni::Object<OfflineManager::GetDatabaseStatsCallback> callback,
+                                                       const mbgl::OfflineDatabaseStats& stats) {
+    //Convert the stats to a java object
+    auto jstats = OfflineDatabaseStats::New(env, stats);
+
+    // Trigger callback
+    static auto method = javaClass.GetMethod<void (jni::Object<OfflineDatabaseStats>)>(env, "onStats");
+    callback.Call(env, method, jstats);
+    jni::DeleteLocalRef(env, jstats);
+}
+
+jni::Class<OfflineManager::GetDatabaseStatsCallback> OfflineManager::GetDatabaseStatsCallback::javaClass;
+
+void OfflineManager::GetDatabaseStatsCallback::registerNative(jni::JNIEnv& env) {
+    javaClass = *jni::Class<OfflineManager::GetDatabaseStatsCallback>::Find(env).NewGlobalRef(env).release();
+}
+
 } // namespace android
 } // namespace mbgl
@@ -6,8 +6,10 @@
 #include <jni/jni.hpp>
 
 #include "../file_source.hpp"
+#include "offline_database_stats.hpp"
 #include "offline_region.hpp"
 #include "offline_region_definition.hpp"
+#include "offline_region_estimate.hpp"
 
 
 namespace mbgl {
@@ -48,6 +50,49 @@ public:
         static void registerNative(jni::JNIEnv&);
     };
 
+    class EstimateOfflineRegionCallback {
+    public:
+        static constexpr auto Name() { return "com/mapbox/mapboxsdk/offline/OfflineManager$EstimateOfflineRegionCallback"; }
+
+        static void onError(jni::JNIEnv&, jni::Object<OfflineManager::EstimateOfflineRegionCallback>, std::exception_ptr);
+
+        static void onEstimate(jni::JNIEnv&,
+                               jni::Object<OfflineManager::EstimateOfflineRegionCallback>,
+                               const mbgl::OfflineRegionEstimate&);
+
+        static jni::Class<OfflineManager::EstimateOfflineRegionCallback> javaClass;
+
+        static void registerNative(jni::JNIEnv&);
+    };
+
+    class CompactDatabaseCallback {
+    public:
+        static constexpr auto Name() { return "com/mapbox/mapboxsdk/offline/OfflineManager$CompactDatabaseCallback"; }
+
+        static void onError(jni::JNIEnv&, jni::Object<OfflineManager::CompactDatabaseCallback>, std::exception_ptr);
+
+        static void onCompact(jni::JNIEnv&, jni::Object<OfflineManager::CompactDatabaseCallback>);
+
+        static jni::Class<OfflineManager::CompactDatabaseCallback> javaClass;
+
+        static void registerNative(jni::JNIEnv&);
+    };
+
+    class GetDatabaseStatsCallback {
+    public:
+        static constexpr auto Name() { return "com/mapbox/mapboxsdk/offline/OfflineManager$GetDatabaseStatsCallback"; }
+
+        static void onError(jni::JNIEnv&, jni::Object<OfflineManager::GetDatabaseStatsCallback>, std::exception_ptr);
+
+        static void onStats(jni::JNIEnv&,
+                            jni::Object<OfflineManager::GetDatabaseStatsCallback>,
+                            const mbgl::OfflineDatabaseStats&);
+
+        static jni::Class<OfflineManager::GetDatabaseStatsCallback> javaClass;
+
+        static void registerNative(jni::JNIEnv&);
+    };
+
     static constexpr auto Name() { return "com/mapbox/mapboxsdk/offline/OfflineManager"; };
 
     static jni::Class<OfflineManager> javaClass;
@@ -67,6 +112,14 @@ public:
                              jni::Array<jni::jbyte> metadata,
                              jni::Object<OfflineManager::CreateOfflineRegionCallback> callback);
 
+    void estimateOfflineRegion(jni::JNIEnv&,
+                               jni::Object<OfflineRegionDefinition> definition,
+                               jni::Object<OfflineManager::EstimateOfflineRegionCallback> callback);
+
+    void compactDatabase(jni::JNIEnv&, jni::Object<OfflineManager::CompactDatabaseCallback> callback);
+
+    void getDatabaseStats(jni::JNIEnv&, jni::Object<OfflineManager::GetDatabaseStatsCallback> callback);
+
 private:
     mbgl::DefaultFileSource& fileSource;
 };
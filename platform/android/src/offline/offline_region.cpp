@@ -102,6 +102,10 @@ void OfflineRegion::setOfflineRegionDownloadState(jni::JNIEnv&, jni::jint jState
     fileSource.setOfflineRegionDownloadState(*region, state);
 }
 
+void OfflineRegion::setOfflineRegionBandwidthLimit(jni::JNIEnv&, jni::jlong bytesPerSecond) {
+    fileSource.setOfflineRegionBandwidthLimit(*region, bytesPerSecond > 0 ? uint64_t(bytesPerSecond) : 0);
+}
+
 void OfflineRegion::getOfflineRegionStatus(jni::JNIEnv& env_, jni::Object<OfflineRegionStatusCallback> callback_) {
 
     fileSource.getOfflineRegionStatus(*region, [
@@ -159,7 +163,7 @@ void OfflineRegion::updateOfflineRegionMetadata(jni::JNIEnv& env_, jni::Array<jn
 jni::Object<OfflineRegion> OfflineRegion::New(jni::JNIEnv& env, jni::Object<FileSource> jFileSource, mbgl::OfflineRegion region) {
 
     // Definition
-    auto definition = jni::Object<OfflineRegionDefinition>(*OfflineTilePyramidRegionDefinition::New(env, region.getDefinition()));
+    auto definition = OfflineRegionDefinition::New(env, region.getDefinition());
 
     // Metadata
     auto metadata = OfflineRegion::metadata(env, region.getMetadata());
@@ -212,6 +216,7 @@ void OfflineRegion::registerNative(jni::JNIEnv& env) {
         "finalize",
         METHOD(&OfflineRegion::setOfflineRegionObserver, "setOfflineRegionObserver"),
         METHOD(&OfflineRegion::setOfflineRegionDownloadState, "setOfflineRegionDownloadState"),
+        METHOD(&OfflineRegion::setOfflineRegionBandwidthLimit, "setOfflineRegionBandwidthLimit"),
         METHOD(&OfflineRegion::getOfflineRegionStatus, "getOfflineRegionStatus"),
         METHOD(&OfflineRegion::deleteOfflineRegion, "deleteOfflineRegion"),
         METHOD(&OfflineRegion::updateOfflineRegionMetadata, "updateOfflineRegionMetadata")
@@ -1,6 +1,9 @@
 #include "offline_region_definition.hpp"
 
 #include "../geometry/lat_lng_bounds.hpp"
+#include "../geojson/geometry.hpp"
+
+#include <stdexcept>
 
 namespace mbgl {
 namespace android {
@@ -13,9 +16,30 @@ void OfflineRegionDefinition::registerNative(jni::JNIEnv& env) {
     javaClass = *jni::Class<OfflineRegionDefinition>::Find(env).NewGlobalRef(env).release();
 }
 
+jni::Object<OfflineRegionDefinition> OfflineRegionDefinition::New(jni::JNIEnv& env, const mbgl::OfflineRegionDefinition& definition) {
+    return definition.match(
+        [&](const mbgl::OfflineTilePyramidRegionDefinition& def) {
+            return jni::Object<OfflineRegionDefinition>(*OfflineTilePyramidRegionDefinition::New(env, def));
+        },
+        [&](const mbgl::OfflineGeometryRegionDefinition& def) {
+            return jni::Object<OfflineRegionDefinition>(*OfflineGeometryRegionDefinition::New(env, def));
+        }
+    );
+}
+
+mbgl::OfflineRegionDefinition OfflineRegionDefinition::getDefinition(jni::JNIEnv& env, jni::Object<OfflineRegionDefinition> jDefinition) {
+    if (jni::IsInstanceOf(env, jDefinition.Get(), *OfflineTilePyramidRegionDefinition::javaClass)) {
+        return OfflineTilePyramidRegionDefinition::getDefinition(env, jni::Object<OfflineTilePyramidRegionDefinition>(*jDefinition));
+    } else if (jni::IsInstanceOf(env, jDefinition.Get(), *OfflineGeometryRegionDefinition::javaClass)) {
+        return OfflineGeometryRegionDefinition::getDefinition(env, jni::Object<OfflineGeometryRegionDefinition>(*jDefinition));
+    }
+
+    throw std::runtime_error("Unknown offline region definition java class");
+}
+
 // OfflineTilePyramidRegionDefinition //
 
-jni::Object<OfflineTilePyramidRegionDefinition> OfflineTilePyramidRegionDefinition::New(jni::JNIEnv& env, mbgl::OfflineTilePyramidRegionDefinition definition) {
+jni::Object<OfflineTilePyramidRegionDefinition> OfflineTilePyramidRegionDefinition::New(jni::JNIEnv& env, const mbgl::OfflineTilePyramidRegionDefinition& definition) {
 
     //Convert objects
     auto styleURL = jni::Make<jni::String>(env, definition.styleURL);
@@ -65,5 +89,56 @@ void OfflineTilePyramidRegionDefinition::registerNative(jni::JNIEnv& env) {
     javaClass = *jni::Class<OfflineTilePyramidRegionDefinition>::Find(env).NewGlobalRef(env).release();
 }
 
+// OfflineGeometryRegionDefinition //
+
+jni::Object<OfflineGeometryRegionDefinition> OfflineGeometryRegionDefinition::New(jni::JNIEnv& env, const mbgl::OfflineGeometryRegionDefinition& definition) {
+    //Convert objects
+    auto styleURL = jni::Make<jni::String>(env, definition.styleURL);
+    auto geometry = geojson::Geometry::New(env, definition.geometry);
+
+    static auto constructor = javaClass.GetConstructor<jni::String, jni::Object<geojson::Geometry>, jni::jdouble, jni::jdouble, jni::jfloat>(env);
+    auto jdefinition = javaClass.New(env, constructor, styleURL, geometry, definition.minZoom, definition.maxZoom, definition.pixelRatio);
+
+    //Delete References
+    jni::DeleteLocalRef(env, styleURL);
+    jni::DeleteLocalRef(env, geometry);
+
+    return jdefinition;
+}
+
+mbgl::OfflineGeometryRegionDefinition OfflineGeometryRegionDefinition::getDefinition(jni::JNIEnv& env, jni::Object<OfflineGeometryRegionDefinition> jDefinition) {
+    // Field references
+    static auto styleURLF = javaClass.GetField<jni::String>(env, "styleURL");
+    static auto geometryF = javaClass.GetField<jni::Object<geojson::Geometry>>(env, "geometry");
+    static auto minZoomF = javaClass.GetField<jni::jdouble>(env, "minZoom");
+    static auto maxZoomF = javaClass.GetField<jni::jdouble>(env, "maxZoom");
+    static auto pixelRatioF = javaClass.GetField<jni::jfloat>(env, "pixelRatio");
+
+    // Get objects
+    auto jStyleURL = jDefinition.Get(env, styleURLF);
+    auto jGeometry = jDefinition.Get(env, geometryF);
+
+    // Create definition
+    mbgl::OfflineGeometryRegionDefinition definition(
+        jni::Make<std::string>(env, jStyleURL),
+        geojson::Geometry::convert(env, jGeometry),
+        jDefinition.Get(env, minZoomF),
+        jDefinition.Get(env, maxZoomF),
+        jDefinition.Get(env, pixelRatioF)
+    );
+
+    // Delete references
+    jni::DeleteLocalRef(env, jStyleURL);
+    jni::DeleteLocalRef(env, jGeometry);
+
+    return definition;
+}
+
+jni::Class<OfflineGeometryRegionDefinition> OfflineGeometryRegionDefinition::javaClass;
+
+void OfflineGeometryRegionDefinition::registerNative(jni::JNIEnv& env) {
+    javaClass = *jni::Class<OfflineGeometryRegionDefinition>::Find(env).NewGlobalRef(env).release();
+}
+
 } // namespace android
 } // namespace mbgl
@@ -0,0 +1,46 @@
+#include "offline_region_estimate.hpp"
+
+#include <vector>
+
+namespace mbgl {
+namespace android {
+
+jni::Object<OfflineRegionEstimate> OfflineRegionEstimate::New(jni::JNIEnv& env, const mbgl::OfflineRegionEstimate& estimate) {
+
+    // Convert the tile counts to an array indexed by zoom level
+    std::vector<jni::jlong> tileCounts;
+    if (!estimate.requiredTileCountByZoom.empty()) {
+        tileCounts.resize(estimate.requiredTileCountByZoom.rbegin()->first + 1);
+        for (const auto& count : estimate.requiredTileCountByZoom) {
+            tileCounts[count.first] = jni::jlong(count.second);
+        }
+    }
+    auto jtileCounts = jni::Array<jni::jlong>::New(env, tileCounts.size());
+    jtileCounts.SetRegion<std::vector<jni::jlong>>(env, 0, tileCounts);
+
+    // Create java object
+    static auto constructor = javaClass.GetConstructor<jni::Array<jni::jlong>, jlong, jlong, jlong, jboolean, jboolean, jboolean>(env);
+    auto jestimate = javaClass.New(env, constructor,
+        jtileCounts,
+        jlong(estimate.requiredTileCount),
+        jlong(estimate.requiredMapboxTileCount),
+        jlong(estimate.estimatedTileSize),
+        jboolean(estimate.requiredTileCountIsPrecise),
+        jboolean(estimate.estimatedTileSizeIsComplete),
+        jboolean(estimate.exceedsOfflineMapboxTileCountLimit)
+    );
+
+    // Delete references
+    jni::DeleteLocalRef(env, jtileCounts);
+
+    return jestimate;
+}
+
+jni::Class<OfflineRegionEstimate> OfflineRegionEstimate::javaClass;
+
+void OfflineRegionEstimate::registerNative(jni::JNIEnv& env) {
+    javaClass = *jni::Class<OfflineRegionEstimate>::Find(env).NewGlobalRef(env).release();
+}
+
+} // namespace android
+} // namespace mbgl
@@ -0,0 +1,21 @@
+#pragma once
+
+#include <mbgl/storage/offline.hpp>
+#include <jni/jni.hpp>
+
+namespace mbgl {
+namespace android {
+
+class OfflineRegionEstimate {
+public:
+    static constexpr auto Name() { return "com/mapbox/mapboxsdk/offline/OfflineRegionEstimate"; };
+
+    static jni::Object<OfflineRegionEstimate> New(jni::JNIEnv&, const mbgl::OfflineRegionEstimate&);
+
+    static jni::Class<OfflineRegionEstimate> javaClass;
+
+    static void registerNative(jni::JNIEnv&);
+};
+
+} // namespace android
+} // namespace mbgl
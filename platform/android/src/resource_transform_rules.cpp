@@ -0,0 +1,53 @@
+#include "resource_transform_rules.hpp"
+
+#include <algorithm>
+
+namespace mbgl {
+namespace android {
+
+constexpr int TransformRule::AnyKind;
+
+TransformRule::TransformRule(TransformRuleType type_, int kind_, std::string pattern_, std::string replacement_)
+    : type(type_),
+      kind(kind_),
+      pattern(std::move(pattern_)),
+      replacement(std::move(replacement_)) {
+    if (type == TransformRuleType::Regex) {
+        regex = std::regex(pattern, std::regex::ECMAScript | std::regex::optimize);
+    }
+}
+
+std::string applyTransformRules(const std::vector<TransformRule>& rules, mbgl::Resource::Kind kind, std::string url) {
+    for (const auto& rule : rules) {
+        if (rule.kind != TransformRule::AnyKind && rule.kind != int(kind)) {
+            continue;
+        }
+
+        switch (rule.type) {
+        case TransformRuleType::Prefix:
+            if (url.compare(0, rule.pattern.size(), rule.pattern) == 0) {
+                url = rule.replacement + url.substr(rule.pattern.size());
+            }
+            break;
+        case TransformRuleType::Regex:
+            url = std::regex_replace(url, rule.regex, rule.replacement);
+            break;
+        case TransformRuleType::QueryParameter: {
+            // The parameter goes before the fragment, if any
+            const std::size_t fragment = std::min(url.find('#'), url.size());
+            if (url.find('?') >= fragment) {
+                url.insert(fragment, "?" + rule.pattern);
+            } else if (url[fragment - 1] == '?' || url[fragment - 1] == '&') {
+                url.insert(fragment, rule.pattern);
+            } else {
+                url.insert(fragment, "&" + rule.pattern);
+            }
+            break;
+        }
+        }
+    }
+    return url;
+}
+
+} // namespace android
+} // namespace mbgl
@@ -0,0 +1,43 @@
+#pragma once
+
+#include <mbgl/storage/resource.hpp>
+
+#include <regex>
+#include <string>
+#include <vector>
+
+namespace mbgl {
+namespace android {
+
+// Note: Keep this in sync with ResourceTransformRules.java
+enum class TransformRuleType : int {
+    Prefix = 0,
+    Regex = 1,
+    QueryParameter = 2
+};
+
+/**
+ * A rule of com.mapbox.mapboxsdk.storage.ResourceTransformRules. Rules are compiled once and can then be
+ * applied from any thread.
+ */
+struct TransformRule {
+    // Rules with this kind apply to resources of any kind
+    static constexpr int AnyKind = -1;
+
+    // Throws std::regex_error if the pattern of a regex rule is invalid
+    TransformRule(TransformRuleType, int kind, std::string pattern, std::string replacement);
+
+    TransformRuleType type;
+    int kind;
+    std::string pattern;
+    std::string replacement;
+    std::regex regex;
+};
+
+/**
+ * Applies the rules in order to the url of a resource.
+ */
+std::string applyTransformRules(const std::vector<TransformRule>&, mbgl::Resource::Kind, std::string url);
+
+} // namespace android
+} // namespace mbgl
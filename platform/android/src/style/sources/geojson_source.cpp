@@ -13,6 +13,7 @@
 #include "../../conversion/conversion.hpp"
 #include "../../conversion/collection.hpp"
 #include "../../geojson/conversion/feature.hpp"
+#include "../../geojson/binary.hpp"
 #include "../conversion/url_or_tileset.hpp"
 
 #include <string>
@@ -36,11 +37,21 @@ namespace android {
         return *result;
     }
 
+    // The retainFeatures option is only known to the Android bindings, core ignores it
+    static bool retainsFeatures(jni::JNIEnv& env, jni::Object<> options) {
+        if (!options) {
+            return false;
+        }
+        mbgl::android::Value retain = mbgl::android::Value(env, options).get("retainFeatures");
+        return !retain.isNull() && retain.isBool() && retain.toBool();
+    }
+
     GeoJSONSource::GeoJSONSource(jni::JNIEnv& env, jni::String sourceId, jni::Object<> options)
         : Source(env, std::make_unique<mbgl::style::GeoJSONSource>(
                 jni::Make<std::string>(env, sourceId),
                 convertGeoJSONOptions(env, options))
-            ) {
+            ),
+          featuresRetained(retainsFeatures(env, options)) {
     }
 
     GeoJSONSource::GeoJSONSource(jni::JNIEnv& env,
@@ -63,17 +74,23 @@ namespace android {
         }
 
         // Update the core source
-        source.as<mbgl::style::GeoJSONSource>()->GeoJSONSource::setGeoJSON(*converted);
+        setFeatures(converted->match(
+            [] (mbgl::FeatureCollection& collection) { return std::move(collection); },
+            [] (mbgl::Feature& feature) { return mbgl::FeatureCollection { std::move(feature) }; },
+            [] (mbgl::Geometry<double>& geometry) {
+                return mbgl::FeatureCollection { mbgl::Feature { std::move(geometry) } };
+            }
+        ));
     }
 
     void GeoJSONSource::setFeatureCollection(jni::JNIEnv& env, jni::Object<geojson::FeatureCollection> jFeatures) {
         using namespace mbgl::android::geojson;
 
         // Convert the jni object
-        auto features = FeatureCollection::convert(env, jFeatures);
+        auto collection = FeatureCollection::convert(env, jFeatures);
 
         // Update the core source
-        source.as<mbgl::style::GeoJSONSource>()->GeoJSONSource::setGeoJSON(GeoJSON(features));
+        setFeatures(std::move(collection));
     }
 
     void GeoJSONSource::setFeature(jni::JNIEnv& env, jni::Object<geojson::Feature> jFeature) {
@@ -83,7 +100,7 @@ namespace android {
         auto feature = Feature::convert(env, jFeature);
 
         // Update the core source
-        source.as<mbgl::style::GeoJSONSource>()->GeoJSONSource::setGeoJSON(GeoJSON(feature));
+        setFeatures(mbgl::FeatureCollection { std::move(feature) });
     }
 
     void GeoJSONSource::setGeometry(jni::JNIEnv& env, jni::Object<geojson::Geometry> jGeometry) {
@@ -93,10 +110,60 @@ namespace android {
         auto geometry = Geometry::convert(env, jGeometry);
 
         // Update the core source
-        source.as<mbgl::style::GeoJSONSource>()->GeoJSONSource::setGeoJSON(GeoJSON(geometry));
+        setFeatures(mbgl::FeatureCollection { mbgl::Feature { std::move(geometry) } });
+    }
+
+    jni::String GeoJSONSource::setGeoJSONBuffer(jni::JNIEnv& env, jni::Object<java::nio::ByteBuffer> jBuffer,
+                                                jni::jint offset, jni::jint length) {
+        // Read the encoded features in place, on the calling thread. Setting them builds the tile index of the core
+        // source synchronously, on the calling thread as well.
+        const uint8_t* data = java::nio::ByteBuffer::getDirectAddress(env, jBuffer);
+        if (!data) {
+            const std::string error = "Error setting geo json: buffer is not direct";
+            mbgl::Log::Error(mbgl::Event::JNI, error);
+            return jni::Make<jni::String>(env, error);
+        }
+
+        mbgl::FeatureCollection decoded;
+        try {
+            decoded = geojson::decodeBinary(data + offset, length);
+        } catch (const std::exception& ex) {
+            const std::string error = std::string("Error setting geo json: ") + ex.what();
+            mbgl::Log::Error(mbgl::Event::JNI, error);
+            return jni::Make<jni::String>(env, error);
+        }
+
+        // Update the core source
+        setFeatures(std::move(decoded));
+        return jni::String();
+    }
+
+    void GeoJSONSource::addFeatures(jni::JNIEnv& env, jni::Object<java::nio::ByteBuffer> jBuffer,
+                                    jni::jint offset, jni::jint length) {
+        applyFeatureDiff(env, jBuffer, offset, length, true);
+    }
+
+    void GeoJSONSource::updateFeatures(jni::JNIEnv& env, jni::Object<java::nio::ByteBuffer> jBuffer,
+                                       jni::jint offset, jni::jint length) {
+        applyFeatureDiff(env, jBuffer, offset, length, false);
+    }
+
+    void GeoJSONSource::removeFeatures(jni::JNIEnv& env, jni::Array<jni::String> jIds) {
+        if (!features) {
+            mbgl::Log::Error(mbgl::Event::JNI, "Error removing features: source doesn't retain GeoJSON features");
+            return;
+        }
+
+        if (features->remove(conversion::toVector(env, jIds))) {
+            // Update the core source
+            source.as<mbgl::style::GeoJSONSource>()->GeoJSONSource::setGeoJSON(features->getGeoJSON());
+        }
     }
 
     void GeoJSONSource::setURL(jni::JNIEnv& env, jni::String url) {
+        // The data is loaded by core, there's nothing to diff against anymore
+        features = {};
+
         // Update the core source
         source.as<mbgl::style::GeoJSONSource>()->GeoJSONSource::setURL(jni::Make<std::string>(env, url));
     }
@@ -118,6 +185,47 @@ namespace android {
         return *convert<jni::Array<jni::Object<Feature>>, std::vector<mbgl::Feature>>(env, features);
     }
 
+    void GeoJSONSource::setFeatures(mbgl::FeatureCollection collection) {
+        if (!featuresRetained) {
+            // Nothing is diffed, the features aren't copied
+            source.as<mbgl::style::GeoJSONSource>()->GeoJSONSource::setGeoJSON(GeoJSON { std::move(collection) });
+            return;
+        }
+
+        features.emplace(std::move(collection));
+
+        // Update the core source
+        source.as<mbgl::style::GeoJSONSource>()->GeoJSONSource::setGeoJSON(features->getGeoJSON());
+    }
+
+    void GeoJSONSource::applyFeatureDiff(jni::JNIEnv& env, jni::Object<java::nio::ByteBuffer> jBuffer,
+                                         jni::jint offset, jni::jint length, bool insert) {
+        if (!features) {
+            mbgl::Log::Error(mbgl::Event::JNI, "Error updating features: source doesn't retain GeoJSON features");
+            return;
+        }
+
+        const uint8_t* data = java::nio::ByteBuffer::getDirectAddress(env, jBuffer);
+        if (!data) {
+            mbgl::Log::Error(mbgl::Event::JNI, "Error updating features: buffer is not direct");
+            return;
+        }
+
+        mbgl::FeatureCollection diff;
+        try {
+            diff = geojson::decodeBinary(data + offset, length);
+        } catch (const std::exception& ex) {
+            mbgl::Log::Error(mbgl::Event::JNI, std::string("Error updating features: ") + ex.what());
+            return;
+        }
+
+        bool changed = insert ? features->add(std::move(diff)) : features->update(std::move(diff));
+        if (changed) {
+            // Update the core source
+            source.as<mbgl::style::GeoJSONSource>()->GeoJSONSource::setGeoJSON(features->getGeoJSON());
+        }
+    }
+
     jni::Class<GeoJSONSource> GeoJSONSource::javaClass;
 
     jni::Object<Source> GeoJSONSource::createJavaPeer(jni::JNIEnv& env) {
@@ -141,6 +249,10 @@ namespace android {
             METHOD(&GeoJSONSource::setFeatureCollection, "nativeSetFeatureCollection"),
             METHOD(&GeoJSONSource::setFeature, "nativeSetFeature"),
             METHOD(&GeoJSONSource::setGeometry, "nativeSetGeometry"),
+            METHOD(&GeoJSONSource::setGeoJSONBuffer, "nativeSetGeoJsonBuffer"),
+            METHOD(&GeoJSONSource::addFeatures, "nativeAddFeatures"),
+            METHOD(&GeoJSONSource::updateFeatures, "nativeUpdateFeatures"),
+            METHOD(&GeoJSONSource::removeFeatures, "nativeRemoveFeatures"),
             METHOD(&GeoJSONSource::setURL, "nativeSetUrl"),
             METHOD(&GeoJSONSource::getURL, "nativeGetUrl"),
             METHOD(&GeoJSONSource::querySourceFeatures, "querySourceFeatures")
@@ -5,8 +5,14 @@
 #include "../../geojson/geometry.hpp"
 #include "../../geojson/feature.hpp"
 #include "../../geojson/feature_collection.hpp"
+#include "../../geojson/feature_set.hpp"
+#include "../../java/nio.hpp"
 #include <jni/jni.hpp>
 
+#include <mbgl/util/optional.hpp>
+
+#include <string>
+
 namespace mbgl {
 namespace android {
 
@@ -33,6 +39,15 @@ public:
 
     void setGeometry(jni::JNIEnv&, jni::Object<geojson::Geometry>);
 
+    // Returns the error message if the buffer couldn't be decoded, null otherwise
+    jni::String setGeoJSONBuffer(jni::JNIEnv&, jni::Object<java::nio::ByteBuffer>, jni::jint, jni::jint);
+
+    void addFeatures(jni::JNIEnv&, jni::Object<java::nio::ByteBuffer>, jni::jint, jni::jint);
+
+    void updateFeatures(jni::JNIEnv&, jni::Object<java::nio::ByteBuffer>, jni::jint, jni::jint);
+
+    void removeFeatures(jni::JNIEnv&, jni::Array<jni::String>);
+
     void setURL(jni::JNIEnv&, jni::String);
 
     jni::Array<jni::Object<geojson::Feature>> querySourceFeatures(jni::JNIEnv&,
@@ -43,6 +58,16 @@ public:
 private:
     jni::Object<Source> createJavaPeer(jni::JNIEnv&);
 
+    void setFeatures(mbgl::FeatureCollection);
+
+    void applyFeatureDiff(jni::JNIEnv&, jni::Object<java::nio::ByteBuffer>, jni::jint, jni::jint, bool);
+
+    // Set by the retainFeatures option, otherwise the features set from Java are moved to the core source
+    const bool featuresRetained = false;
+
+    // The features last set from Java, retained so that diffs can be applied by id
+    optional<geojson::FeatureSet> features;
+
 }; // class GeoJSONSource
 
 } // namespace android
@@ -0,0 +1,83 @@
+#include <mbgl/test/util.hpp>
+
+#include "../geojson/binary.hpp"
+
+#include <cstring>
+#include <stdexcept>
+#include <vector>
+
+using namespace mbgl;
+using namespace mbgl::android::geojson;
+
+namespace {
+
+class Writer {
+public:
+    Writer& int32(int32_t value) {
+        return append(&value, sizeof(value));
+    }
+
+    Writer& float64(double value) {
+        return append(&value, sizeof(value));
+    }
+
+    std::vector<uint8_t> bytes;
+
+private:
+    Writer& append(const void* value, std::size_t size) {
+        const auto* begin = static_cast<const uint8_t*>(value);
+        bytes.insert(bytes.end(), begin, begin + size);
+        return *this;
+    }
+};
+
+// A feature without id and properties, whose point is wrapped in the given number of geometry collections
+std::vector<uint8_t> nestedCollections(std::size_t depth) {
+    Writer writer;
+    writer.int32(1).int32(-1).int32(0);
+    for (std::size_t i = 0; i < depth; i++) {
+        writer.int32(7).int32(1);
+    }
+    writer.int32(1).float64(1).float64(2);
+    return writer.bytes;
+}
+
+} // namespace
+
+TEST(GeoJSONBinary, Point) {
+    Writer writer;
+    writer.int32(1).int32(-1).int32(0).int32(1).float64(1.5).float64(2.5);
+
+    auto collection = decodeBinary(writer.bytes.data(), writer.bytes.size());
+    ASSERT_EQ(1u, collection.size());
+    EXPECT_FALSE(collection[0].id);
+    EXPECT_EQ(Point<double>(1.5, 2.5), collection[0].geometry.get<Point<double>>());
+}
+
+TEST(GeoJSONBinary, Truncated) {
+    Writer writer;
+    writer.int32(1).int32(-1).int32(0).int32(1).float64(1.5);
+
+    EXPECT_THROW(decodeBinary(writer.bytes.data(), writer.bytes.size()), std::runtime_error);
+}
+
+TEST(GeoJSONBinary, NestedGeometryCollections) {
+    auto allowed = nestedCollections(32);
+    EXPECT_EQ(1u, decodeBinary(allowed.data(), allowed.size()).size());
+
+    auto tooDeep = nestedCollections(100000);
+    EXPECT_THROW(decodeBinary(tooDeep.data(), tooDeep.size()), std::runtime_error);
+}
+
+TEST(GeoJSONBinary, NestedValues) {
+    Writer writer;
+    // A feature without id with a single property "a", whose value is an array nested 100000 levels deep
+    writer.int32(1).int32(-1).int32(1).int32(1);
+    writer.bytes.push_back('a');
+    for (std::size_t i = 0; i < 100000; i++) {
+        writer.int32(4).int32(1);
+    }
+    writer.int32(0);
+
+    EXPECT_THROW(decodeBinary(writer.bytes.data(), writer.bytes.size()), std::runtime_error);
+}
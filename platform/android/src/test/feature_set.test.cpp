@@ -0,0 +1,87 @@
+#include <mbgl/test/util.hpp>
+
+#include "../geojson/feature_set.hpp"
+
+using namespace mbgl;
+using namespace mbgl::android::geojson;
+
+namespace {
+
+Feature feature(double x) {
+    return Feature { Point<double>(x, 0) };
+}
+
+Feature feature(FeatureIdentifier id, double x) {
+    Feature result = feature(x);
+    result.id = std::move(id);
+    return result;
+}
+
+double x(const Feature& feature) {
+    return feature.geometry.get<Point<double>>().x;
+}
+
+} // namespace
+
+TEST(FeatureSet, Add) {
+    FeatureSet set({ feature(FeatureIdentifier(std::string("a")), 1) });
+
+    EXPECT_TRUE(set.add({ feature(FeatureIdentifier(std::string("b")), 2), feature(3) }));
+    ASSERT_EQ(3u, set.getFeatures().size());
+    EXPECT_EQ(2, x(set.getFeatures()[1]));
+    EXPECT_EQ(3, x(set.getFeatures()[2]));
+
+    // An id that is present replaces the feature in place
+    EXPECT_TRUE(set.add({ feature(FeatureIdentifier(std::string("a")), 4) }));
+    ASSERT_EQ(3u, set.getFeatures().size());
+    EXPECT_EQ(4, x(set.getFeatures()[0]));
+
+    EXPECT_FALSE(set.add({}));
+}
+
+TEST(FeatureSet, Update) {
+    FeatureSet set({ feature(FeatureIdentifier(std::string("a")), 1), feature(FeatureIdentifier(std::string("b")), 2) });
+
+    EXPECT_TRUE(set.update({ feature(FeatureIdentifier(std::string("b")), 5) }));
+    ASSERT_EQ(2u, set.getFeatures().size());
+    EXPECT_EQ(1, x(set.getFeatures()[0]));
+    EXPECT_EQ(5, x(set.getFeatures()[1]));
+
+    // Missing ids and features without an id are ignored
+    EXPECT_FALSE(set.update({ feature(FeatureIdentifier(std::string("c")), 6), feature(7) }));
+    ASSERT_EQ(2u, set.getFeatures().size());
+}
+
+TEST(FeatureSet, Remove) {
+    FeatureSet set({ feature(FeatureIdentifier(std::string("a")), 1), feature(2), feature(FeatureIdentifier(std::string("b")), 3) });
+
+    EXPECT_TRUE(set.remove({ "a", "missing" }));
+    ASSERT_EQ(2u, set.getFeatures().size());
+    EXPECT_EQ(2, x(set.getFeatures()[0]));
+    EXPECT_EQ(3, x(set.getFeatures()[1]));
+
+    EXPECT_FALSE(set.remove({ "missing" }));
+
+    // The index follows the features that moved
+    EXPECT_TRUE(set.update({ feature(FeatureIdentifier(std::string("b")), 8) }));
+    EXPECT_EQ(8, x(set.getFeatures()[1]));
+}
+
+TEST(FeatureSet, NumericIds) {
+    FeatureSet set({ feature(FeatureIdentifier(uint64_t(1)), 1), feature(FeatureIdentifier(int64_t(-2)), 2) });
+
+    // Numeric ids are matched by their string representation, as ids removed from Java are strings
+    EXPECT_TRUE(set.remove({ "-2" }));
+    ASSERT_EQ(1u, set.getFeatures().size());
+
+    EXPECT_TRUE(set.update({ feature(FeatureIdentifier(std::string("1")), 9) }));
+    EXPECT_EQ(9, x(set.getFeatures()[0]));
+}
+
+TEST(FeatureSet, GeoJSON) {
+    FeatureSet set({ feature(FeatureIdentifier(std::string("a")), 1) });
+    set.add({ feature(FeatureIdentifier(std::string("b")), 2) });
+
+    ASSERT_TRUE(set.getGeoJSON().is<FeatureCollection>());
+    EXPECT_EQ(&set.getFeatures(), &set.getGeoJSON().get<FeatureCollection>());
+}
@@ -0,0 +1,95 @@
+#include <mbgl/test/util.hpp>
+
+#include "../resource_transform_rules.hpp"
+
+using namespace mbgl;
+using namespace mbgl::android;
+
+namespace {
+
+TransformRule rule(TransformRuleType type, std::string pattern, std::string replacement = "",
+                   int kind = TransformRule::AnyKind) {
+    return TransformRule(type, kind, std::move(pattern), std::move(replacement));
+}
+
+} // namespace
+
+TEST(ResourceTransformRules, Prefix) {
+    std::vector<TransformRule> rules {
+        rule(TransformRuleType::Prefix, "mapbox://", "https://tiles.example.com/")
+    };
+
+    EXPECT_EQ("https://tiles.example.com/fonts/0-255.pbf",
+              applyTransformRules(rules, Resource::Glyphs, "mapbox://fonts/0-255.pbf"));
+
+    // Only the start of the url matches
+    EXPECT_EQ("https://example.com/mapbox://tile",
+              applyTransformRules(rules, Resource::Tile, "https://example.com/mapbox://tile"));
+}
+
+TEST(ResourceTransformRules, Regex) {
+    std::vector<TransformRule> rules {
+        rule(TransformRuleType::Regex, "^https://([a-z])\\.tiles\\.example\\.com/(\\d+)/", "https://cdn.example.com/$1/$2/")
+    };
+
+    EXPECT_EQ("https://cdn.example.com/a/12/34/56.png",
+              applyTransformRules(rules, Resource::Tile, "https://a.tiles.example.com/12/34/56.png"));
+    EXPECT_EQ("https://example.com/12/34/56.png",
+              applyTransformRules(rules, Resource::Tile, "https://example.com/12/34/56.png"));
+}
+
+TEST(ResourceTransformRules, InvalidRegex) {
+    EXPECT_THROW(rule(TransformRuleType::Regex, "(unclosed"), std::regex_error);
+}
+
+TEST(ResourceTransformRules, QueryParameter) {
+    std::vector<TransformRule> rules {
+        rule(TransformRuleType::QueryParameter, "key=value")
+    };
+
+    EXPECT_EQ("https://example.com/tile.pbf?key=value",
+              applyTransformRules(rules, Resource::Tile, "https://example.com/tile.pbf"));
+    EXPECT_EQ("https://example.com/tile.pbf?a=1&key=value",
+              applyTransformRules(rules, Resource::Tile, "https://example.com/tile.pbf?a=1"));
+    EXPECT_EQ("https://example.com/tile.pbf?key=value",
+              applyTransformRules(rules, Resource::Tile, "https://example.com/tile.pbf?"));
+    EXPECT_EQ("https://example.com/tile.pbf?a=1&key=value",
+              applyTransformRules(rules, Resource::Tile, "https://example.com/tile.pbf?a=1&"));
+}
+
+TEST(ResourceTransformRules, QueryParameterBeforeFragment) {
+    std::vector<TransformRule> rules {
+        rule(TransformRuleType::QueryParameter, "key=value")
+    };
+
+    EXPECT_EQ("https://example.com/style.json?key=value#section",
+              applyTransformRules(rules, Resource::Style, "https://example.com/style.json#section"));
+    EXPECT_EQ("https://example.com/style.json?a=1&key=value#section",
+              applyTransformRules(rules, Resource::Style, "https://example.com/style.json?a=1#section"));
+
+    // A question mark in the fragment isn't a query
+    EXPECT_EQ("https://example.com/style.json?key=value#section?a=1",
+              applyTransformRules(rules, Resource::Style, "https://example.com/style.json#section?a=1"));
+}
+
+TEST(ResourceTransformRules, Kind) {
+    std::vector<TransformRule> rules {
+        rule(TransformRuleType::QueryParameter, "tile=1", "", int(Resource::Tile)),
+        rule(TransformRuleType::QueryParameter, "all=1")
+    };
+
+    EXPECT_EQ("https://example.com/0/0/0.pbf?tile=1&all=1",
+              applyTransformRules(rules, Resource::Tile, "https://example.com/0/0/0.pbf"));
+    EXPECT_EQ("https://example.com/style.json?all=1",
+              applyTransformRules(rules, Resource::Style, "https://example.com/style.json"));
+}
+
+TEST(ResourceTransformRules, Order) {
+    std::vector<TransformRule> rules {
+        rule(TransformRuleType::Prefix, "mapbox://", "https://api.example.com/"),
+        rule(TransformRuleType::Regex, "api\\.example\\.com", "cdn.example.com")
+    };
+
+    EXPECT_EQ("https://cdn.example.com/styles/streets",
+              applyTransformRules(rules, Resource::Style, "mapbox://styles/streets"));
+}
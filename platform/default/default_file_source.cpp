@@ -1,6 +1,7 @@
 #include <mbgl/storage/default_file_source.hpp>
 #include <mbgl/storage/asset_file_source.hpp>
 #include <mbgl/storage/file_source_request.hpp>
+#include <mbgl/storage/http_file_source.hpp>
 #include <mbgl/storage/local_file_source.hpp>
 #include <mbgl/storage/online_file_source.hpp>
 #include <mbgl/storage/offline_database.hpp>
@@ -17,10 +18,20 @@
 
 namespace mbgl {
 
+namespace {
+
+// MBTiles and PMTiles archives on the device, served by the platform HTTP file source
+bool isTileArchiveURL(const std::string& url) {
+    return url.compare(0, 10, "mbtiles://") == 0 || url.compare(0, 10, "pmtiles://") == 0;
+}
+
+} // namespace
+
 class DefaultFileSource::Impl {
 public:
-    Impl(std::shared_ptr<FileSource> assetFileSource_, std::string cachePath, uint64_t maximumCacheSize)
-            : assetFileSource(assetFileSource_)
+    Impl(ActorRef<Impl> self_, std::shared_ptr<FileSource> assetFileSource_, std::string cachePath, uint64_t maximumCacheSize)
+            : self(std::move(self_))
+            , assetFileSource(assetFileSource_)
             , localFileSource(std::make_unique<LocalFileSource>())
             , offlineDatabase(std::make_unique<OfflineDatabase>(cachePath, maximumCacheSize)) {
     }
@@ -45,6 +56,10 @@ public:
         onlineFileSource.setResourceTransform(std::move(transform));
     }
 
+    void setResourceTransformFunction(ResourceTransform::TransformCallback transform) {
+        onlineFileSource.setResourceTransformFunction(std::move(transform));
+    }
+
     void listRegions(std::function<void (expected<OfflineRegions, std::exception_ptr>)> callback) {
         callback(offlineDatabase->listRegions());
     }
@@ -55,6 +70,15 @@ public:
         callback(offlineDatabase->createRegion(definition, metadata));
     }
 
+    void estimateRegion(const OfflineRegionDefinition& definition,
+                        std::function<void (expected<OfflineRegionEstimate, std::exception_ptr>)> callback) {
+        try {
+            callback(OfflineDownload::estimate(definition, *offlineDatabase));
+        } catch (...) {
+            callback(unexpected<std::exception_ptr>(std::current_exception()));
+        }
+    }
+
     void updateMetadata(const int64_t regionID,
                       const OfflineRegionMetadata& metadata,
                       std::function<void (expected<OfflineRegionMetadata, std::exception_ptr>)> callback) {
@@ -74,6 +98,46 @@ public:
         callback(offlineDatabase->deleteRegion(std::move(region)));
     }
 
+    void compactDatabase(std::function<void (std::exception_ptr)> callback) {
+        auto freePageCount = offlineDatabase->compact(compactionPageCount);
+        if (!freePageCount) {
+            callback(freePageCount.error());
+        } else if (*freePageCount == 0) {
+            callback(nullptr);
+        } else {
+            // Let queued requests run before releasing the next pages.
+            self.invoke(&Impl::compactDatabase, callback);
+        }
+    }
+
+    void getDatabaseStats(std::function<void (expected<OfflineDatabaseStats, std::exception_ptr>)> callback) {
+        callback(offlineDatabase->getStats());
+    }
+
+    void setMaximumAmbientCacheSize(uint64_t size, std::function<void (std::exception_ptr)> callback) {
+        // Release the evicted pages in steps, even if not enough could be evicted
+        std::exception_ptr error = offlineDatabase->setMaximumAmbientCacheSize(size);
+        compactDatabase([callback, error](std::exception_ptr compactError) {
+            callback(error ? error : compactError);
+        });
+    }
+
+    void setAmbientCacheEvictionPolicy(AmbientCacheEvictionPolicy policy) {
+        offlineDatabase->setAmbientCacheEvictionPolicy(policy);
+    }
+
+    void clearAmbientCache(std::function<void (std::exception_ptr)> callback) {
+        callback(offlineDatabase->clearAmbientCache());
+    }
+
+    void invalidateAmbientCache(std::function<void (std::exception_ptr)> callback) {
+        callback(offlineDatabase->invalidateAmbientCache());
+    }
+
+    void getAmbientCacheStats(std::function<void (expected<AmbientCacheStats, std::exception_ptr>)> callback) {
+        callback(offlineDatabase->getAmbientCacheStats());
+    }
+
     void setRegionObserver(int64_t regionID, std::unique_ptr<OfflineRegionObserver> observer) {
         if (auto download = getDownload(regionID)) {
             download.value()->setObserver(std::move(observer));
@@ -86,6 +150,12 @@ public:
         }
     }
 
+    void setRegionBandwidthLimit(int64_t regionID, uint64_t bytesPerSecond) {
+        if (auto download = getDownload(regionID)) {
+            download.value()->setBandwidthLimit(bytesPerSecond);
+        }
+    }
+
     void request(AsyncRequest* req, Resource resource, ActorRef<FileSourceRequest> ref) {
         auto callback = [ref] (const Response& res) mutable {
             ref.invoke(&FileSourceRequest::setResponse, res);
@@ -97,6 +167,10 @@ public:
         } else if (LocalFileSource::acceptsURL(resource.url)) {
             //Local file request
             tasks[req] = localFileSource->request(resource, callback);
+        } else if (isTileArchiveURL(resource.url)) {
+            // Tile archive request, the archive is already on disk so it's neither looked up in nor added to the
+            // offline database, where it would evict ambient cache entries
+            tasks[req] = archiveFileSource.request(resource, callback);
         } else {
             // Try the offline database
             if (resource.hasLoadingMethod(Resource::LoadingMethod::Cache)) {
@@ -182,11 +256,17 @@ private:
         return downloads.emplace(regionID, std::move(download)).first->second.get();
     }
 
+    // Number of pages released by each step of a compaction
+    static constexpr uint64_t compactionPageCount = 256;
+
+    ActorRef<Impl> self;
+
     // shared so that destruction is done on the creating thread
     const std::shared_ptr<FileSource> assetFileSource;
     const std::unique_ptr<FileSource> localFileSource;
     std::unique_ptr<OfflineDatabase> offlineDatabase;
     OnlineFileSource onlineFileSource;
+    HTTPFileSource archiveFileSource;
     std::unordered_map<AsyncRequest*, std::unique_ptr<AsyncRequest>> tasks;
     std::unordered_map<int64_t, std::unique_ptr<OfflineDownload>> downloads;
 };
@@ -238,6 +318,10 @@ void DefaultFileSource::setResourceTransform(optional<ActorRef<ResourceTransform
     impl->actor().invoke(&Impl::setResourceTransform, std::move(transform));
 }
 
+void DefaultFileSource::setResourceTransformFunction(ResourceTransform::TransformCallback transform) {
+    impl->actor().invoke(&Impl::setResourceTransformFunction, std::move(transform));
+}
+
 std::unique_ptr<AsyncRequest> DefaultFileSource::request(const Resource& resource, Callback callback) {
     auto req = std::make_unique<FileSourceRequest>(std::move(callback));
 
@@ -258,6 +342,11 @@ void DefaultFileSource::createOfflineRegion(const OfflineRegionDefinition& defin
     impl->actor().invoke(&Impl::createRegion, definition, metadata, callback);
 }
 
+void DefaultFileSource::estimateOfflineRegion(const OfflineRegionDefinition& definition,
+                                              std::function<void (expected<OfflineRegionEstimate, std::exception_ptr>)> callback) {
+    impl->actor().invoke(&Impl::estimateRegion, definition, callback);
+}
+
 void DefaultFileSource::updateOfflineMetadata(const int64_t regionID,
                                             const OfflineRegionMetadata& metadata,
                                             std::function<void (expected<OfflineRegionMetadata, std::exception_ptr>)> callback) {
@@ -268,6 +357,34 @@ void DefaultFileSource::deleteOfflineRegion(OfflineRegion&& region, std::functio
     impl->actor().invoke(&Impl::deleteRegion, std::move(region), callback);
 }
 
+void DefaultFileSource::compactOfflineDatabase(std::function<void (std::exception_ptr)> callback) {
+    impl->actor().invoke(&Impl::compactDatabase, callback);
+}
+
+void DefaultFileSource::getOfflineDatabaseStats(std::function<void (expected<OfflineDatabaseStats, std::exception_ptr>)> callback) const {
+    impl->actor().invoke(&Impl::getDatabaseStats, callback);
+}
+
+void DefaultFileSource::setMaximumAmbientCacheSize(uint64_t size, std::function<void (std::exception_ptr)> callback) {
+    impl->actor().invoke(&Impl::setMaximumAmbientCacheSize, size, callback);
+}
+
+void DefaultFileSource::setAmbientCacheEvictionPolicy(AmbientCacheEvictionPolicy policy) {
+    impl->actor().invoke(&Impl::setAmbientCacheEvictionPolicy, policy);
+}
+
+void DefaultFileSource::clearAmbientCache(std::function<void (std::exception_ptr)> callback) {
+    impl->actor().invoke(&Impl::clearAmbientCache, callback);
+}
+
+void DefaultFileSource::invalidateAmbientCache(std::function<void (std::exception_ptr)> callback) {
+    impl->actor().invoke(&Impl::invalidateAmbientCache, callback);
+}
+
+void DefaultFileSource::getAmbientCacheStats(std::function<void (expected<AmbientCacheStats, std::exception_ptr>)> callback) const {
+    impl->actor().invoke(&Impl::getAmbientCacheStats, callback);
+}
+
 void DefaultFileSource::setOfflineRegionObserver(OfflineRegion& region, std::unique_ptr<OfflineRegionObserver> observer) {
     impl->actor().invoke(&Impl::setRegionObserver, region.getID(), std::move(observer));
 }
@@ -276,6 +393,10 @@ void DefaultFileSource::setOfflineRegionDownloadState(OfflineRegion& region, Off
     impl->actor().invoke(&Impl::setRegionDownloadState, region.getID(), state);
 }
 
+void DefaultFileSource::setOfflineRegionBandwidthLimit(OfflineRegion& region, uint64_t bytesPerSecond) {
+    impl->actor().invoke(&Impl::setRegionBandwidthLimit, region.getID(), bytesPerSecond);
+}
+
 void DefaultFileSource::getOfflineRegionStatus(OfflineRegion& region, std::function<void (expected<OfflineRegionStatus, std::exception_ptr>)> callback) const {
     impl->actor().invoke(&Impl::getRegionStatus, region.getID(), callback);
 }
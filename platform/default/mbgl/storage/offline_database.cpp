@@ -10,6 +10,9 @@
 
 #include "sqlite3.hpp"
 
+#include <algorithm>
+#include <stdexcept>
+
 namespace mbgl {
 
 OfflineDatabase::OfflineDatabase(std::string path_, uint64_t maximumCacheSize_)
@@ -68,6 +71,9 @@ void OfflineDatabase::initialize() {
         migrateToVersion6();
         // fall through
     case 6:
+        migrateToVersion7();
+        // fall through
+    case 7:
         // Happy path; we're done
         return;
     default:
@@ -123,7 +129,7 @@ void OfflineDatabase::createSchema() {
     db->exec("PRAGMA synchronous = FULL");
     mapbox::sqlite::Transaction transaction(*db);
     db->exec(offlineDatabaseSchema);
-    db->exec("PRAGMA user_version = 6");
+    db->exec("PRAGMA user_version = 7");
     transaction.commit();
 }
 
@@ -156,6 +162,23 @@ void OfflineDatabase::migrateToVersion6() {
     transaction.commit();
 }
 
+void OfflineDatabase::migrateToVersion7() {
+    assert(db);
+    mapbox::sqlite::Transaction transaction(*db);
+    db->exec("CREATE TABLE region_checkpoints ("
+             "  region_id INTEGER NOT NULL REFERENCES regions(id) ON DELETE CASCADE,"
+             "  url_template TEXT NOT NULL,"
+             "  tile_size INTEGER NOT NULL,"
+             "  min_zoom INTEGER NOT NULL,"
+             "  max_zoom INTEGER NOT NULL,"
+             "  completed_tile_count INTEGER NOT NULL,"
+             "  completed_tile_size INTEGER NOT NULL,"
+             "  UNIQUE (region_id, url_template, tile_size, min_zoom, max_zoom)"
+             ")");
+    db->exec("PRAGMA user_version = 7");
+    transaction.commit();
+}
+
 mapbox::sqlite::Statement& OfflineDatabase::getStatement(const char* sql) {
     if (!db) {
         initialize();
@@ -168,7 +191,18 @@ mapbox::sqlite::Statement& OfflineDatabase::getStatement(const char* sql) {
 }
 
 optional<Response> OfflineDatabase::get(const Resource& resource) try {
-    auto result = getInternal(resource);
+    auto result = getInternal(resource, true);
+    return result ? optional<Response>{ result->first } : nullopt;
+} catch (const util::IOException& ex) {
+    handleError(ex, "read resource");
+    return nullopt;
+} catch (const mapbox::sqlite::Exception& ex) {
+    handleError(ex, "read resource");
+    return nullopt;
+}
+
+optional<Response> OfflineDatabase::peek(const Resource& resource) try {
+    auto result = getInternal(resource, false);
     return result ? optional<Response>{ result->first } : nullopt;
 } catch (const util::IOException& ex) {
     handleError(ex, "read resource");
@@ -178,12 +212,12 @@ optional<Response> OfflineDatabase::get(const Resource& resource) try {
     return nullopt;
 }
 
-optional<std::pair<Response, uint64_t>> OfflineDatabase::getInternal(const Resource& resource) {
+optional<std::pair<Response, uint64_t>> OfflineDatabase::getInternal(const Resource& resource, bool updateAccessed) {
     if (resource.kind == Resource::Kind::Tile) {
         assert(resource.tileData);
-        return getTile(*resource.tileData);
+        return getTile(*resource.tileData, updateAccessed);
     } else {
-        return getResource(resource);
+        return getResource(resource, updateAccessed);
     }
 }
 
@@ -245,21 +279,23 @@ std::pair<bool, uint64_t> OfflineDatabase::putInternal(const Resource& resource,
     return { inserted, size };
 }
 
-optional<std::pair<Response, uint64_t>> OfflineDatabase::getResource(const Resource& resource) {
+optional<std::pair<Response, uint64_t>> OfflineDatabase::getResource(const Resource& resource, bool updateAccessed) {
     // Update accessed timestamp used for LRU eviction.
-    try {
-        mapbox::sqlite::Query accessedQuery{ getStatement("UPDATE resources SET accessed = ?1 WHERE url = ?2") };
-        accessedQuery.bind(1, util::now());
-        accessedQuery.bind(2, resource.url);
-        accessedQuery.run();
-    } catch (const mapbox::sqlite::Exception& ex) {
-        if (ex.code == mapbox::sqlite::ResultCode::NotADB ||
-            ex.code == mapbox::sqlite::ResultCode::Corrupt) {
-            throw;
-        }
+    if (updateAccessed) {
+        try {
+            mapbox::sqlite::Query accessedQuery{ getStatement("UPDATE resources SET accessed = ?1 WHERE url = ?2") };
+            accessedQuery.bind(1, util::now());
+            accessedQuery.bind(2, resource.url);
+            accessedQuery.run();
+        } catch (const mapbox::sqlite::Exception& ex) {
+            if (ex.code == mapbox::sqlite::ResultCode::NotADB ||
+                ex.code == mapbox::sqlite::ResultCode::Corrupt) {
+                throw;
+            }
 
-        // If we don't have any indication that the database is corrupt, continue as usual.
-        Log::Warning(Event::Database, static_cast<int>(ex.code), "Can't update timestamp: %s", ex.what());
+            // If we don't have any indication that the database is corrupt, continue as usual.
+            Log::Warning(Event::Database, static_cast<int>(ex.code), "Can't update timestamp: %s", ex.what());
+        }
     }
 
     // clang-format off
@@ -393,34 +429,36 @@ bool OfflineDatabase::putResource(const Resource& resource,
     return true;
 }
 
-optional<std::pair<Response, uint64_t>> OfflineDatabase::getTile(const Resource::TileData& tile) {
+optional<std::pair<Response, uint64_t>> OfflineDatabase::getTile(const Resource::TileData& tile, bool updateAccessed) {
     // Update accessed timestamp used for LRU eviction.
-    try {
-        // clang-format off
-        mapbox::sqlite::Query accessedQuery{ getStatement(
-            "UPDATE tiles "
-            "SET accessed       = ?1 "
-            "WHERE url_template = ?2 "
-            "  AND pixel_ratio  = ?3 "
-            "  AND x            = ?4 "
-            "  AND y            = ?5 "
-            "  AND z            = ?6 ") };
-        // clang-format on
+    if (updateAccessed) {
+        try {
+            // clang-format off
+            mapbox::sqlite::Query accessedQuery{ getStatement(
+                "UPDATE tiles "
+                "SET accessed       = ?1 "
+                "WHERE url_template = ?2 "
+                "  AND pixel_ratio  = ?3 "
+                "  AND x            = ?4 "
+                "  AND y            = ?5 "
+                "  AND z            = ?6 ") };
+            // clang-format on
+
+            accessedQuery.bind(1, util::now());
+            accessedQuery.bind(2, tile.urlTemplate);
+            accessedQuery.bind(3, tile.pixelRatio);
+            accessedQuery.bind(4, tile.x);
+            accessedQuery.bind(5, tile.y);
+            accessedQuery.bind(6, tile.z);
+            accessedQuery.run();
+        } catch (const mapbox::sqlite::Exception& ex) {
+            if (ex.code == mapbox::sqlite::ResultCode::NotADB || ex.code == mapbox::sqlite::ResultCode::Corrupt) {
+                throw;
+            }
 
-        accessedQuery.bind(1, util::now());
-        accessedQuery.bind(2, tile.urlTemplate);
-        accessedQuery.bind(3, tile.pixelRatio);
-        accessedQuery.bind(4, tile.x);
-        accessedQuery.bind(5, tile.y);
-        accessedQuery.bind(6, tile.z);
-        accessedQuery.run();
-    } catch (const mapbox::sqlite::Exception& ex) {
-        if (ex.code == mapbox::sqlite::ResultCode::NotADB || ex.code == mapbox::sqlite::ResultCode::Corrupt) {
-            throw;
+            // If we don't have any indication that the database is corrupt, continue as usual.
+            Log::Warning(Event::Database, static_cast<int>(ex.code), "Can't update timestamp: %s", ex.what());
         }
-
-        // If we don't have any indication that the database is corrupt, continue as usual.
-        Log::Warning(Event::Database, static_cast<int>(ex.code), "Can't update timestamp: %s", ex.what());
     }
 
     // clang-format off
@@ -673,8 +711,230 @@ std::exception_ptr OfflineDatabase::deleteRegion(OfflineRegion&& region) try {
     return std::current_exception();
 }
 
+expected<uint64_t, std::exception_ptr> OfflineDatabase::compact(uint64_t pageCount) try {
+    if (!db) {
+        initialize();
+    }
+    // Databases created before schema version 3 may lack incremental vacuum support, in
+    // which case incremental_vacuum is a no-op. Enabling it requires a full vacuum, which
+    // also releases every free page.
+    if (getPragma<int64_t>("PRAGMA auto_vacuum") != 2 /* INCREMENTAL */) {
+        db->exec("PRAGMA auto_vacuum = INCREMENTAL");
+        db->exec("VACUUM");
+    } else {
+        db->exec("PRAGMA incremental_vacuum(" + std::to_string(pageCount) + ")");
+    }
+
+    return getPragma<int64_t>("PRAGMA freelist_count");
+} catch (const util::IOException& ex) {
+    handleError(ex, "compact database");
+    return unexpected<std::exception_ptr>(std::current_exception());
+} catch (const mapbox::sqlite::Exception& ex) {
+    handleError(ex, "compact database");
+    return unexpected<std::exception_ptr>(std::current_exception());
+}
+
+expected<OfflineDatabaseStats, std::exception_ptr> OfflineDatabase::getStats() try {
+    OfflineDatabaseStats stats;
+    stats.pageSize = getPragma<int64_t>("PRAGMA page_size");
+    stats.pageCount = getPragma<int64_t>("PRAGMA page_count");
+    stats.freePageCount = getPragma<int64_t>("PRAGMA freelist_count");
+
+    {
+        mapbox::sqlite::Query query{ getStatement("SELECT id FROM regions") };
+        while (query.run()) {
+            const auto id = query.get<int64_t>(0);
+            stats.regionSizes[id] = 0;
+            stats.regionSharedSizes[id] = 0;
+        }
+    }
+
+    // A resource is shared when another region requires it as well. The subqueries use the
+    // resource_id and tile_id indexes.
+    const auto addRegionSizes = [&](mapbox::sqlite::Query& query) {
+        while (query.run()) {
+            const auto id = query.get<int64_t>(0);
+            stats.regionSizes[id] += query.get<int64_t>(1);
+            stats.regionSharedSizes[id] += query.get<int64_t>(2);
+        }
+    };
+
+    {
+        // clang-format off
+        mapbox::sqlite::Query query{ getStatement(
+            "SELECT region_id, SUM(LENGTH(data)), "
+            "  SUM(CASE WHEN EXISTS ( "
+            "    SELECT 1 FROM region_resources AS other "
+            "    WHERE other.resource_id = region_resources.resource_id "
+            "    AND other.region_id != region_resources.region_id "
+            "  ) THEN LENGTH(data) ELSE 0 END) "
+            "FROM region_resources, resources "
+            "WHERE resource_id = resources.id "
+            "GROUP BY region_id ") };
+        // clang-format on
+        addRegionSizes(query);
+    }
+
+    {
+        // clang-format off
+        mapbox::sqlite::Query query{ getStatement(
+            "SELECT region_id, SUM(LENGTH(data)), "
+            "  SUM(CASE WHEN EXISTS ( "
+            "    SELECT 1 FROM region_tiles AS other "
+            "    WHERE other.tile_id = region_tiles.tile_id "
+            "    AND other.region_id != region_tiles.region_id "
+            "  ) THEN LENGTH(data) ELSE 0 END) "
+            "FROM region_tiles, tiles "
+            "WHERE tile_id = tiles.id "
+            "GROUP BY region_id ") };
+        // clang-format on
+        addRegionSizes(query);
+    }
+
+    {
+        // clang-format off
+        mapbox::sqlite::Query query{ getStatement(
+            "SELECT "
+            "  (SELECT SUM(LENGTH(data)) FROM resources "
+            "   WHERE id IN (SELECT resource_id FROM region_resources "
+            "                GROUP BY resource_id HAVING COUNT(*) > 1)), "
+            "  (SELECT SUM(LENGTH(data)) FROM tiles "
+            "   WHERE id IN (SELECT tile_id FROM region_tiles "
+            "                GROUP BY tile_id HAVING COUNT(*) > 1)) ") };
+        // clang-format on
+        query.run();
+        stats.sharedSize = query.get<int64_t>(0) + query.get<int64_t>(1);
+    }
+
+    stats.ambientCacheSize = getAmbientCacheStatsInternal().size;
+
+    return stats;
+} catch (const util::IOException& ex) {
+    handleError(ex, "get database stats");
+    return unexpected<std::exception_ptr>(std::current_exception());
+} catch (const mapbox::sqlite::Exception& ex) {
+    handleError(ex, "get database stats");
+    return unexpected<std::exception_ptr>(std::current_exception());
+}
+
+std::exception_ptr OfflineDatabase::setMaximumAmbientCacheSize(uint64_t size) try {
+    maximumCacheSize = size;
+
+    // The freed pages are left to compact(), which releases them in steps
+    if (!evict(0)) {
+        return std::make_exception_ptr(
+            std::runtime_error("Unable to evict enough resources to fit the maximum ambient cache size"));
+    }
+
+    return nullptr;
+} catch (const mapbox::sqlite::Exception& ex) {
+    handleError(ex, "set maximum ambient cache size");
+    return std::current_exception();
+}
+
+void OfflineDatabase::setAmbientCacheEvictionPolicy(AmbientCacheEvictionPolicy policy) {
+    evictionPolicy = policy;
+}
+
+std::exception_ptr OfflineDatabase::clearAmbientCache() try {
+    {
+        // clang-format off
+        mapbox::sqlite::Query query{ getStatement(
+            "DELETE FROM resources "
+            "WHERE id NOT IN (SELECT resource_id FROM region_resources) ") };
+        // clang-format on
+        query.run();
+    }
+
+    {
+        // clang-format off
+        mapbox::sqlite::Query query{ getStatement(
+            "DELETE FROM tiles "
+            "WHERE id NOT IN (SELECT tile_id FROM region_tiles) ") };
+        // clang-format on
+        query.run();
+    }
+
+    assert(db);
+    db->exec("PRAGMA incremental_vacuum");
+
+    return nullptr;
+} catch (const mapbox::sqlite::Exception& ex) {
+    handleError(ex, "clear ambient cache");
+    return std::current_exception();
+}
+
+std::exception_ptr OfflineDatabase::invalidateAmbientCache() try {
+    {
+        // clang-format off
+        mapbox::sqlite::Query query{ getStatement(
+            "UPDATE resources "
+            "SET expires = 0, must_revalidate = 1 "
+            "WHERE id NOT IN (SELECT resource_id FROM region_resources) ") };
+        // clang-format on
+        query.run();
+    }
+
+    {
+        // clang-format off
+        mapbox::sqlite::Query query{ getStatement(
+            "UPDATE tiles "
+            "SET expires = 0, must_revalidate = 1 "
+            "WHERE id NOT IN (SELECT tile_id FROM region_tiles) ") };
+        // clang-format on
+        query.run();
+    }
+
+    return nullptr;
+} catch (const mapbox::sqlite::Exception& ex) {
+    handleError(ex, "invalidate ambient cache");
+    return std::current_exception();
+}
+
+expected<AmbientCacheStats, std::exception_ptr> OfflineDatabase::getAmbientCacheStats() try {
+    return getAmbientCacheStatsInternal();
+} catch (const mapbox::sqlite::Exception& ex) {
+    handleError(ex, "get ambient cache stats");
+    return unexpected<std::exception_ptr>(std::current_exception());
+}
+
+AmbientCacheStats OfflineDatabase::getAmbientCacheStatsInternal() {
+    AmbientCacheStats stats;
+    stats.maximumSize = maximumCacheSize;
+
+    {
+        // clang-format off
+        mapbox::sqlite::Query query{ getStatement(
+            "SELECT COUNT(*), SUM(LENGTH(data)) "
+            "FROM resources "
+            "LEFT JOIN region_resources "
+            "ON resource_id = resources.id "
+            "WHERE resource_id IS NULL ") };
+        // clang-format on
+        query.run();
+        stats.resourceCount = query.get<int64_t>(0);
+        stats.size += query.get<int64_t>(1);
+    }
+
+    {
+        // clang-format off
+        mapbox::sqlite::Query query{ getStatement(
+            "SELECT COUNT(*), SUM(LENGTH(data)) "
+            "FROM tiles "
+            "LEFT JOIN region_tiles "
+            "ON tile_id = tiles.id "
+            "WHERE tile_id IS NULL ") };
+        // clang-format on
+        query.run();
+        stats.tileCount = query.get<int64_t>(0);
+        stats.size += query.get<int64_t>(1);
+    }
+
+    return stats;
+}
+
 optional<std::pair<Response, uint64_t>> OfflineDatabase::getRegionResource(int64_t regionID, const Resource& resource) try {
-    auto response = getInternal(resource);
+    auto response = getInternal(resource, true);
 
     if (response) {
         markUsed(regionID, resource);
@@ -714,14 +974,17 @@ uint64_t OfflineDatabase::putRegionResource(int64_t regionID,
     return 0;
 }
 
-void OfflineDatabase::putRegionResources(int64_t regionID,
-                                         const std::list<std::tuple<Resource, Response>>& resources,
-                                         OfflineRegionStatus& status) try {
+std::vector<uint64_t> OfflineDatabase::putRegionResources(int64_t regionID,
+                                                          const std::list<std::tuple<Resource, Response>>& resources,
+                                                          OfflineRegionStatus& status) try {
     if (!db) {
         initialize();
     }
     mapbox::sqlite::Transaction transaction(*db);
 
+    std::vector<uint64_t> sizes;
+    sizes.reserve(resources.size());
+
     // Accumulate all statistics locally first before adding them to the OfflineRegionStatus object
     // to ensure correctness when the transaction fails.
     uint64_t completedResourceCount = 0;
@@ -735,6 +998,7 @@ void OfflineDatabase::putRegionResources(int64_t regionID,
 
         try {
             uint64_t resourceSize = putRegionResourceInternal(regionID, resource, response);
+            sizes.push_back(resourceSize);
             completedResourceCount++;
             completedResourceSize += resourceSize;
             if (resource.kind == Resource::Kind::Tile) {
@@ -755,8 +1019,10 @@ void OfflineDatabase::putRegionResources(int64_t regionID,
     status.completedResourceSize += completedResourceSize;
     status.completedTileCount += completedTileCount;
     status.completedTileSize += completedTileSize;
+    return sizes;
 } catch (const mapbox::sqlite::Exception& ex) {
     handleError(ex, "write region resources");
+    return {};
 }
 
 uint64_t OfflineDatabase::putRegionResourceInternal(int64_t regionID, const Resource& resource, const Response& response) {
@@ -856,6 +1122,76 @@ bool OfflineDatabase::markUsed(int64_t regionID, const Resource& resource) {
     }
 }
 
+std::vector<OfflineRegionCheckpoint> OfflineDatabase::getRegionCheckpoints(int64_t regionID) try {
+    // clang-format off
+    mapbox::sqlite::Query query{ getStatement(
+        "SELECT url_template, tile_size, min_zoom, max_zoom, completed_tile_count, completed_tile_size "
+        "FROM region_checkpoints "
+        "WHERE region_id = ?1 ") };
+    // clang-format on
+
+    query.bind(1, regionID);
+
+    std::vector<OfflineRegionCheckpoint> result;
+    while (query.run()) {
+        OfflineRegionCheckpoint checkpoint;
+        checkpoint.urlTemplate = query.get<std::string>(0);
+        checkpoint.tileSize = query.get<int>(1);
+        checkpoint.zoomRange = { uint8_t(query.get<int>(2)), uint8_t(query.get<int>(3)) };
+        checkpoint.completedTileCount = query.get<int64_t>(4);
+        checkpoint.completedTileSize = query.get<int64_t>(5);
+        result.push_back(std::move(checkpoint));
+    }
+    return result;
+} catch (const mapbox::sqlite::Exception& ex) {
+    handleError(ex, "read region checkpoints");
+    return {};
+}
+
+void OfflineDatabase::putRegionCheckpoint(int64_t regionID, const OfflineRegionCheckpoint& checkpoint) try {
+    // clang-format off
+    mapbox::sqlite::Query query{ getStatement(
+        "INSERT OR REPLACE INTO region_checkpoints "
+        "    (region_id, url_template, tile_size, min_zoom, max_zoom, completed_tile_count, completed_tile_size) "
+        "VALUES (?1,     ?2,           ?3,        ?4,       ?5,       ?6,                   ?7) ") };
+    // clang-format on
+
+    query.bind(1, regionID);
+    query.bind(2, checkpoint.urlTemplate);
+    query.bind(3, int(checkpoint.tileSize));
+    query.bind(4, int(checkpoint.zoomRange.min));
+    query.bind(5, int(checkpoint.zoomRange.max));
+    query.bind(6, int64_t(checkpoint.completedTileCount));
+    query.bind(7, int64_t(checkpoint.completedTileSize));
+    query.run();
+} catch (const mapbox::sqlite::Exception& ex) {
+    handleError(ex, "write region checkpoint");
+}
+
+std::map<uint8_t, uint64_t> OfflineDatabase::getAverageTileSizes(const std::string& urlTemplate, uint8_t pixelRatio) try {
+    // clang-format off
+    mapbox::sqlite::Query query{ getStatement(
+        "SELECT z, avg(length(data)) "
+        "FROM tiles "
+        "WHERE url_template = ?1 "
+        "  AND pixel_ratio  = ?2 "
+        "  AND data IS NOT NULL "
+        "GROUP BY z") };
+    // clang-format on
+
+    query.bind(1, urlTemplate);
+    query.bind(2, pixelRatio);
+
+    std::map<uint8_t, uint64_t> result;
+    while (query.run()) {
+        result.emplace(query.get<int64_t>(0), query.get<double>(1));
+    }
+    return result;
+} catch (const mapbox::sqlite::Exception& ex) {
+    handleError(ex, "read tile sizes");
+    return {};
+}
+
 expected<OfflineRegionDefinition, std::exception_ptr> OfflineDatabase::getRegionDefinition(int64_t regionID) try {
     mapbox::sqlite::Query query{ getStatement("SELECT definition FROM regions WHERE id = ?1") };
     query.bind(1, regionID);
@@ -917,10 +1253,10 @@ T OfflineDatabase::getPragma(const char* sql) {
     return query.get<T>(0);
 }
 
-// Remove least-recently used resources and tiles until the used database size,
-// as calculated by multiplying the number of in-use pages by the page size, is
-// less than the maximum cache size. Returns false if this condition cannot be
-// satisfied.
+// Remove least-recently used resources and tiles, weighted by zoom level depending on
+// the eviction policy, until the used database size, as calculated by multiplying the
+// number of in-use pages by the page size, is less than the maximum cache size.
+// Returns false if this condition cannot be satisfied.
 //
 // SQLite database never shrinks in size unless we call VACCUM. We here
 // are monitoring the soft limit (i.e. number of free pages in the file)
@@ -935,11 +1271,40 @@ bool OfflineDatabase::evict(uint64_t neededFreeSize) {
         return pageSize * (pageCount - getPragma<int64_t>("PRAGMA freelist_count"));
     };
 
+    // With the zoom weighted policy, tiles are ordered as if they had been accessed one
+    // day earlier for each of their zoom levels. The least recently used queries are kept
+    // apart so that they can still use the accessed indexes.
+    const bool zoomWeighted = evictionPolicy == AmbientCacheEvictionPolicy::ZoomWeighted;
+    const int64_t zoomWeight = 24 * 60 * 60;
+
+    // The zoom weighted ordering can't use an index, so every batch scans and sorts the
+    // ambient tiles. Batches are sized after the space the previous batch freed, growing at
+    // most twice as large, so that large evictions take a few scans rather than one per
+    // 50 entries.
+    const int64_t minimumBatchSize = 50;
+    int64_t batchSize = minimumBatchSize;
+    uint64_t used = usedSize();
+
     // The addition of pageSize is a fudge factor to account for non `data` column
     // size, and because pages can get fragmented on the database.
-    while (usedSize() + neededFreeSize + pageSize > maximumCacheSize) {
+    while (used + neededFreeSize + pageSize > maximumCacheSize) {
         // clang-format off
-        mapbox::sqlite::Query accessedQuery{ getStatement(
+        mapbox::sqlite::Query accessedQuery{ getStatement(zoomWeighted ?
+            "SELECT max(accessed) "
+            "FROM ( "
+            "    SELECT accessed "
+            "    FROM resources "
+            "    LEFT JOIN region_resources "
+            "    ON resource_id = resources.id "
+            "    WHERE resource_id IS NULL "
+            "  UNION ALL "
+            "    SELECT accessed - z * ?2 "
+            "    FROM tiles "
+            "    LEFT JOIN region_tiles "
+            "    ON tile_id = tiles.id "
+            "    WHERE tile_id IS NULL "
+            "  ORDER BY accessed ASC LIMIT ?1 "
+            ") " :
             "SELECT max(accessed) "
             "FROM ( "
             "    SELECT accessed "
@@ -956,8 +1321,11 @@ bool OfflineDatabase::evict(uint64_t neededFreeSize) {
             "  ORDER BY accessed ASC LIMIT ?1 "
             ") "
         ) };
-        accessedQuery.bind(1, 50);
+        accessedQuery.bind(1, batchSize);
         // clang-format on
+        if (zoomWeighted) {
+            accessedQuery.bind(2, zoomWeight);
+        }
         if (!accessedQuery.run()) {
             return false;
         }
@@ -979,7 +1347,15 @@ bool OfflineDatabase::evict(uint64_t neededFreeSize) {
         const uint64_t resourceChanges = resourceQuery.changes();
 
         // clang-format off
-        mapbox::sqlite::Query tileQuery{ getStatement(
+        mapbox::sqlite::Query tileQuery{ getStatement(zoomWeighted ?
+            "DELETE FROM tiles "
+            "WHERE id IN ( "
+            "  SELECT id FROM tiles "
+            "  LEFT JOIN region_tiles "
+            "  ON tile_id = tiles.id "
+            "  WHERE tile_id IS NULL "
+            "  AND accessed - z * ?2 <= ?1 "
+            ") " :
             "DELETE FROM tiles "
             "WHERE id IN ( "
             "  SELECT id FROM tiles "
@@ -990,6 +1366,9 @@ bool OfflineDatabase::evict(uint64_t neededFreeSize) {
             ") ") };
         // clang-format on
         tileQuery.bind(1, accessed);
+        if (zoomWeighted) {
+            tileQuery.bind(2, zoomWeight);
+        }
         tileQuery.run();
         const uint64_t tileChanges = tileQuery.changes();
 
@@ -999,6 +1378,18 @@ bool OfflineDatabase::evict(uint64_t neededFreeSize) {
         if (resourceChanges == 0 && tileChanges == 0) {
             return false;
         }
+
+        const uint64_t previouslyUsed = used;
+        used = usedSize();
+
+        if (zoomWeighted && used + neededFreeSize + pageSize > maximumCacheSize) {
+            const uint64_t freedPerEntry = previouslyUsed > used
+                ? std::max<uint64_t>((previouslyUsed - used) / (resourceChanges + tileChanges), 1)
+                : pageSize;
+            const uint64_t excess = used + neededFreeSize + pageSize - maximumCacheSize;
+            batchSize = std::max<int64_t>(minimumBatchSize,
+                std::min<uint64_t>(batchSize * 2, excess / freedPerEntry + 1));
+        }
     }
 
     return true;
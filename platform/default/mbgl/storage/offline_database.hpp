@@ -10,9 +10,11 @@
 #include <mbgl/util/expected.hpp>
 
 #include <unordered_map>
+#include <map>
 #include <memory>
 #include <string>
 #include <list>
+#include <vector>
 
 namespace mapbox {
 namespace sqlite {
@@ -36,6 +38,19 @@ struct MapboxTileLimitExceededException :  util::Exception {
     MapboxTileLimitExceededException() : util::Exception("Mapbox tile limit exceeded") {}
 };
 
+/*
+ * Download progress of the tiles of a tileset for an offline region. The first `completedTileCount`
+ * tiles of the tile cover for the tile size and zoom range are stored in the database, which lets a
+ * download resume after them instead of checking every tile again.
+ */
+struct OfflineRegionCheckpoint {
+    std::string urlTemplate;
+    uint16_t tileSize = 0;
+    Range<uint8_t> zoomRange = { 0, 0 };
+    uint64_t completedTileCount = 0;
+    uint64_t completedTileSize = 0;
+};
+
 class OfflineDatabase : private util::noncopyable {
 public:
     // Limits affect ambient caching (put) only; resources required by offline
@@ -45,6 +60,9 @@ public:
 
     optional<Response> get(const Resource&);
 
+    // Like get, but leaves the access time used for eviction untouched
+    optional<Response> peek(const Resource&);
+
     // Return value is (inserted, stored size)
     std::pair<bool, uint64_t> put(const Resource&, const Response&);
 
@@ -58,11 +76,35 @@ public:
 
     std::exception_ptr deleteRegion(OfflineRegion&&);
 
+    // Returns up to `pageCount` free pages to the file system. Return value is the number of
+    // free pages left, so that large databases can be compacted in steps.
+    expected<uint64_t, std::exception_ptr> compact(uint64_t pageCount);
+
+    expected<OfflineDatabaseStats, std::exception_ptr> getStats();
+
+    // Evicts resources and tiles until the database fits in the new size, fails if it can't.
+    // The freed pages aren't returned to the file system, see compact().
+    std::exception_ptr setMaximumAmbientCacheSize(uint64_t);
+    void setAmbientCacheEvictionPolicy(AmbientCacheEvictionPolicy);
+
+    std::exception_ptr clearAmbientCache();
+    // Marks the ambient cache as expired, so that its resources and tiles are revalidated
+    // before use
+    std::exception_ptr invalidateAmbientCache();
+    expected<AmbientCacheStats, std::exception_ptr> getAmbientCacheStats();
+
     // Return value is (response, stored size)
     optional<std::pair<Response, uint64_t>> getRegionResource(int64_t regionID, const Resource&);
     optional<int64_t> hasRegionResource(int64_t regionID, const Resource&);
     uint64_t putRegionResource(int64_t regionID, const Resource&, const Response&);
-    void putRegionResources(int64_t regionID, const std::list<std::tuple<Resource, Response>>&, OfflineRegionStatus&);
+    // Return value is the stored size of each resource, empty if the resources couldn't be stored
+    std::vector<uint64_t> putRegionResources(int64_t regionID, const std::list<std::tuple<Resource, Response>>&, OfflineRegionStatus&);
+
+    std::vector<OfflineRegionCheckpoint> getRegionCheckpoints(int64_t regionID);
+    void putRegionCheckpoint(int64_t regionID, const OfflineRegionCheckpoint&);
+
+    // Average stored size of the cached tiles of a tileset, by zoom level
+    std::map<uint8_t, uint64_t> getAverageTileSizes(const std::string& urlTemplate, uint8_t pixelRatio);
 
     expected<OfflineRegionDefinition, std::exception_ptr> getRegionDefinition(int64_t regionID);
     expected<OfflineRegionStatus, std::exception_ptr> getRegionCompletedStatus(int64_t regionID);
@@ -84,22 +126,23 @@ private:
     void migrateToVersion5();
     void migrateToVersion3();
     void migrateToVersion6();
+    void migrateToVersion7();
 
     mapbox::sqlite::Statement& getStatement(const char *);
 
-    optional<std::pair<Response, uint64_t>> getTile(const Resource::TileData&);
+    optional<std::pair<Response, uint64_t>> getTile(const Resource::TileData&, bool updateAccessed);
     optional<int64_t> hasTile(const Resource::TileData&);
     bool putTile(const Resource::TileData&, const Response&,
                  const std::string&, bool compressed);
 
-    optional<std::pair<Response, uint64_t>> getResource(const Resource&);
+    optional<std::pair<Response, uint64_t>> getResource(const Resource&, bool updateAccessed);
     optional<int64_t> hasResource(const Resource&);
     bool putResource(const Resource&, const Response&,
                      const std::string&, bool compressed);
 
     uint64_t putRegionResourceInternal(int64_t regionID, const Resource&, const Response&);
 
-    optional<std::pair<Response, uint64_t>> getInternal(const Resource&);
+    optional<std::pair<Response, uint64_t>> getInternal(const Resource&, bool updateAccessed);
     optional<int64_t> hasInternal(const Resource&);
     std::pair<bool, uint64_t> putInternal(const Resource&, const Response&, bool evict);
 
@@ -108,6 +151,7 @@ private:
 
     std::pair<int64_t, int64_t> getCompletedResourceCountAndSize(int64_t regionID);
     std::pair<int64_t, int64_t> getCompletedTileCountAndSize(int64_t regionID);
+    AmbientCacheStats getAmbientCacheStatsInternal();
 
     const std::string path;
     std::unique_ptr<mapbox::sqlite::Database> db;
@@ -117,6 +161,7 @@ private:
     T getPragma(const char *);
 
     uint64_t maximumCacheSize;
+    AmbientCacheEvictionPolicy evictionPolicy = AmbientCacheEvictionPolicy::LeastRecentlyUsed;
 
     uint64_t offlineMapboxTileCountLimit = util::mapbox::DEFAULT_OFFLINE_TILE_COUNT_LIMIT;
     optional<uint64_t> offlineMapboxTileCount;
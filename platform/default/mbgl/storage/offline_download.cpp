@@ -18,12 +18,17 @@
 #include <mbgl/util/tile_cover.hpp>
 #include <mbgl/util/tileset.hpp>
 
+#include <algorithm>
+#include <iterator>
 #include <set>
 
 namespace mbgl {
 
 using namespace style;
 
+// Requests in flight at a time while a bandwidth limit is set
+static const uint32_t maximumThrottledRequests = 4;
+
 OfflineDownload::OfflineDownload(int64_t id_,
                                  OfflineRegionDefinition&& definition_,
                                  OfflineDatabase& offlineDatabase_,
@@ -70,7 +75,8 @@ OfflineRegionStatus OfflineDownload::getStatus() const {
     }
 
     result->requiredResourceCount++;
-    optional<Response> styleResponse = offlineDatabase.get(Resource::style(definition.styleURL));
+    const std::string styleURL = definition.match([](const auto& region) { return region.styleURL; });
+    optional<Response> styleResponse = offlineDatabase.get(Resource::style(styleURL));
     if (!styleResponse) {
         return *result;
     }
@@ -86,7 +92,9 @@ OfflineRegionStatus OfflineDownload::getStatus() const {
         auto handleTiledSource = [&] (const variant<std::string, Tileset>& urlOrTileset, const uint16_t tileSize) {
             if (urlOrTileset.is<Tileset>()) {
                 result->requiredResourceCount +=
-                    definition.tileCount(type, tileSize, urlOrTileset.get<Tileset>().zoomRange);
+                    definition.match([&](const auto& region) {
+                        return region.tileCount(type, tileSize, urlOrTileset.get<Tileset>().zoomRange);
+                    });
             } else {
                 result->requiredResourceCount += 1;
                 const auto& url = urlOrTileset.get<std::string>();
@@ -96,7 +104,9 @@ OfflineRegionStatus OfflineDownload::getStatus() const {
                     optional<Tileset> tileset = style::conversion::convertJSON<Tileset>(*sourceResponse->data, error);
                     if (tileset) {
                         result->requiredResourceCount +=
-                            definition.tileCount(type, tileSize, (*tileset).zoomRange);
+                            definition.match([&](const auto& region) {
+                                return region.tileCount(type, tileSize, (*tileset).zoomRange);
+                            });
                     }
                 } else {
                     result->requiredResourceCountIsPrecise = false;
@@ -157,11 +167,141 @@ OfflineRegionStatus OfflineDownload::getStatus() const {
     return *result;
 }
 
+OfflineRegionEstimate OfflineDownload::estimate(const OfflineRegionDefinition& definition, OfflineDatabase& offlineDatabase) {
+    OfflineRegionEstimate result;
+
+    const std::string styleURL = definition.match([](const auto& region) { return region.styleURL; });
+    optional<Response> styleResponse = offlineDatabase.peek(Resource::style(styleURL));
+    if (!styleResponse || !styleResponse->data) {
+        return result;
+    }
+
+    style::Parser parser;
+    parser.parse(*styleResponse->data);
+
+    result.requiredTileCountIsPrecise = true;
+    result.estimatedTileSizeIsComplete = true;
+
+    const float pixelRatio = definition.match([](const auto& region) { return region.pixelRatio; });
+
+    auto estimateTiles = [&] (SourceType type, uint16_t tileSize, const Tileset& tileset) {
+        // Tiles are stored by url template and the pixel ratio the template resolves to
+        const Resource tile = Resource::tile(tileset.tiles[0], pixelRatio, 0, 0, 0, tileset.scheme);
+        const std::map<uint8_t, uint64_t> averageSizes =
+            offlineDatabase.getAverageTileSizes(tile.tileData->urlTemplate, tile.tileData->pixelRatio);
+        const bool isMapboxTileset = util::mapbox::isMapboxURL(tileset.tiles[0]);
+
+        for (uint8_t z = tileset.zoomRange.min; z <= tileset.zoomRange.max; z++) {
+            const uint64_t count = definition.match([&](const auto& region) {
+                return region.tileCount(type, tileSize, { z, z });
+            });
+            if (count == 0) {
+                continue;
+            }
+
+            result.requiredTileCountByZoom[z] += count;
+            result.requiredTileCount += count;
+            if (isMapboxTileset) {
+                result.requiredMapboxTileCount += count;
+            }
+
+            if (averageSizes.empty()) {
+                result.estimatedTileSizeIsComplete = false;
+                continue;
+            }
+
+            // Size the tiles like the cached tiles of the closest zoom level
+            auto closest = averageSizes.lower_bound(z);
+            if (closest == averageSizes.end() ||
+                (closest->first != z && closest != averageSizes.begin() &&
+                 z - std::prev(closest)->first <= closest->first - z)) {
+                closest = std::prev(closest);
+            }
+            result.estimatedTileSize += count * closest->second;
+        }
+    };
+
+    for (const auto& source : parser.sources) {
+        SourceType type = source->getType();
+
+        auto handleTiledSource = [&] (const variant<std::string, Tileset>& urlOrTileset, const uint16_t tileSize) {
+            if (urlOrTileset.is<Tileset>()) {
+                estimateTiles(type, tileSize, urlOrTileset.get<Tileset>());
+                return;
+            }
+
+            const auto& url = urlOrTileset.get<std::string>();
+            optional<Response> sourceResponse = offlineDatabase.peek(Resource::source(url));
+            if (!sourceResponse || !sourceResponse->data) {
+                result.requiredTileCountIsPrecise = false;
+                return;
+            }
+
+            style::conversion::Error error;
+            optional<Tileset> tileset = style::conversion::convertJSON<Tileset>(*sourceResponse->data, error);
+            if (tileset) {
+                util::mapbox::canonicalizeTileset(*tileset, url, type, tileSize);
+                estimateTiles(type, tileSize, *tileset);
+            } else {
+                result.requiredTileCountIsPrecise = false;
+            }
+        };
+
+        switch (type) {
+        case SourceType::Vector: {
+            const auto& vectorSource = *source->as<VectorSource>();
+            handleTiledSource(vectorSource.getURLOrTileset(), util::tileSize);
+            break;
+        }
+
+        case SourceType::Raster: {
+            const auto& rasterSource = *source->as<RasterSource>();
+            handleTiledSource(rasterSource.getURLOrTileset(), rasterSource.getTileSize());
+            break;
+        }
+
+        case SourceType::RasterDEM: {
+            const auto& rasterDEMSource = *source->as<RasterDEMSource>();
+            handleTiledSource(rasterDEMSource.getURLOrTileset(), rasterDEMSource.getTileSize());
+            break;
+        }
+
+        case SourceType::GeoJSON:
+        case SourceType::Image:
+        case SourceType::Video:
+        case SourceType::Annotations:
+        case SourceType::CustomVector:
+            break;
+        }
+    }
+
+    result.exceedsOfflineMapboxTileCountLimit = result.requiredMapboxTileCount > 0 &&
+        offlineDatabase.getOfflineMapboxTileCount() + result.requiredMapboxTileCount >
+            offlineDatabase.getOfflineMapboxTileCountLimit();
+
+    return result;
+}
+
+void OfflineDownload::setBandwidthLimit(uint64_t bytesPerSecond) {
+    bandwidthLimit = bytesPerSecond;
+    bandwidthCredit = std::min(bandwidthCredit, int64_t(bandwidthLimit));
+    bandwidthRefill = Clock::now();
+
+    if (status.downloadState == OfflineRegionDownloadState::Active) {
+        throttleTimer.stop();
+        continueDownload();
+    }
+}
+
 void OfflineDownload::activateDownload() {
     status = OfflineRegionStatus();
     status.downloadState = OfflineRegionDownloadState::Active;
     status.requiredResourceCount++;
-    ensureResource(Resource::style(definition.styleURL), [&](Response styleResponse) {
+    savedCheckpoints = offlineDatabase.getRegionCheckpoints(id);
+    bandwidthCredit = 0;
+    bandwidthRefill = Clock::now();
+    const std::string styleURL = definition.match([](const auto& region) { return region.styleURL; });
+    ensureResource(Resource::style(styleURL), [&](Response styleResponse) {
         status.requiredResourceCountIsPrecise = true;
 
         style::Parser parser;
@@ -247,8 +387,9 @@ void OfflineDownload::activateDownload() {
         }
 
         if (!parser.spriteURL.empty()) {
-            queueResource(Resource::spriteImage(parser.spriteURL, definition.pixelRatio));
-            queueResource(Resource::spriteJSON(parser.spriteURL, definition.pixelRatio));
+            const float pixelRatio = definition.match([](const auto& region) { return region.pixelRatio; });
+            queueResource(Resource::spriteImage(parser.spriteURL, pixelRatio));
+            queueResource(Resource::spriteJSON(parser.spriteURL, pixelRatio));
         }
 
         continueDownload();
@@ -278,33 +419,168 @@ void OfflineDownload::continueDownload() {
         return;
     }
 
-    while (!resourcesRemaining.empty() && requests.size() < HTTPFileSource::maximumConcurrentRequests()) {
-        ensureResource(resourcesRemaining.front());
+    if (bandwidthLimit) {
+        const Duration delay = throttleDelay(Clock::now());
+        if (delay > Duration::zero()) {
+            throttleTimer.start(delay, Duration::zero(), [this] { continueDownload(); });
+            return;
+        }
+    }
+
+    // The credit is only charged once responses arrive, so a limited download keeps few requests in flight;
+    // filling the whole request queue at once would burst past the limit before throttling kicks in
+    const uint32_t maximumRequests = bandwidthLimit
+        ? std::min(maximumThrottledRequests, HTTPFileSource::maximumConcurrentRequests())
+        : HTTPFileSource::maximumConcurrentRequests();
+
+    while (!resourcesRemaining.empty() && requests.size() < maximumRequests) {
+        const QueuedResource& next = resourcesRemaining.front();
+        ensureResource(next.resource, {}, next.progress, next.index);
         resourcesRemaining.pop_front();
     }
 }
 
+Duration OfflineDownload::throttleDelay(TimePoint now) {
+    // Unused bandwidth accumulates for up to a second, a download that waited can't burst afterwards
+    const double elapsed = std::chrono::duration<double>(now - bandwidthRefill).count();
+    bandwidthCredit = std::min(int64_t(bandwidthLimit), bandwidthCredit + int64_t(elapsed * bandwidthLimit));
+    bandwidthRefill = now;
+
+    if (bandwidthCredit >= 0) {
+        return Duration::zero();
+    }
+    return std::chrono::duration_cast<Duration>(
+        std::chrono::duration<double>(double(-bandwidthCredit) / bandwidthLimit));
+}
+
 void OfflineDownload::deactivateDownload() {
+    // Store the downloaded resources and the progress, the next activation continues from there
+    try {
+        flushBuffer();
+    } catch (const MapboxTileLimitExceededException&) {
+        // The resources that fit within the limit are stored
+    }
+    saveCheckpoints();
+
+    throttleTimer.stop();
     requiredSourceURLs.clear();
     resourcesRemaining.clear();
     requests.clear();
+    tileProgress.clear();
 }
 
 void OfflineDownload::queueResource(Resource resource) {
     status.requiredResourceCount++;
-    resourcesRemaining.push_front(std::move(resource));
+    resourcesRemaining.push_front({ std::move(resource), nullptr, 0 });
 }
 
 void OfflineDownload::queueTiles(SourceType type, uint16_t tileSize, const Tileset& tileset) {
-    for (const auto& tile : definition.tileCover(type, tileSize, tileset.zoomRange)) {
-        status.requiredResourceCount++;
-        resourcesRemaining.push_back(
-            Resource::tile(tileset.tiles[0], definition.pixelRatio, tile.x, tile.y, tile.z, tileset.scheme));
+    const std::vector<CanonicalTileID> tiles = definition.match(
+        [&](const auto& region) { return region.tileCover(type, tileSize, tileset.zoomRange); });
+
+    auto isTileset = [&] (const OfflineRegionCheckpoint& checkpoint) {
+        return checkpoint.urlTemplate == tileset.tiles[0] && checkpoint.tileSize == tileSize &&
+               checkpoint.zoomRange == tileset.zoomRange;
+    };
+
+    // A tileset used by several sources is only tracked for the first one, the others find its tiles stored
+    TileProgress* progress = nullptr;
+    if (std::none_of(tileProgress.begin(), tileProgress.end(),
+                     [&] (const TileProgress& other) { return isTileset(other.checkpoint); })) {
+        tileProgress.emplace_back();
+        progress = &tileProgress.back();
+
+        auto saved = std::find_if(savedCheckpoints.begin(), savedCheckpoints.end(), isTileset);
+        if (saved != savedCheckpoints.end() && saved->completedTileCount <= tiles.size()) {
+            progress->checkpoint = *saved;
+        } else {
+            progress->checkpoint.urlTemplate = tileset.tiles[0];
+            progress->checkpoint.tileSize = tileSize;
+            progress->checkpoint.zoomRange = tileset.zoomRange;
+        }
+    }
+
+    // The tiles before the checkpoint are stored already
+    const uint64_t skipped = progress ? progress->checkpoint.completedTileCount : 0;
+    const uint64_t skippedSize = progress ? progress->checkpoint.completedTileSize : 0;
+    status.requiredResourceCount += tiles.size();
+    status.completedResourceCount += skipped;
+    status.completedResourceSize += skippedSize;
+    status.completedTileCount += skipped;
+    status.completedTileSize += skippedSize;
+
+    const float pixelRatio = definition.match([](const auto& region) { return region.pixelRatio; });
+    for (uint64_t i = skipped; i < tiles.size(); i++) {
+        const auto& tile = tiles[i];
+        resourcesRemaining.push_back({
+            Resource::tile(tileset.tiles[0], pixelRatio, tile.x, tile.y, tile.z, tileset.scheme),
+            progress, i });
+    }
+}
+
+void OfflineDownload::completeTile(TileProgress& progress, uint64_t index, uint64_t size) {
+    OfflineRegionCheckpoint& checkpoint = progress.checkpoint;
+    if (index != checkpoint.completedTileCount) {
+        progress.completedAhead.emplace(index, size);
+        return;
+    }
+
+    checkpoint.completedTileCount++;
+    checkpoint.completedTileSize += size;
+
+    // Move the checkpoint past the tiles that were stored before this one
+    auto it = progress.completedAhead.begin();
+    while (it != progress.completedAhead.end() && it->first == checkpoint.completedTileCount) {
+        checkpoint.completedTileCount++;
+        checkpoint.completedTileSize += it->second;
+        it = progress.completedAhead.erase(it);
+    }
+    progress.modified = true;
+}
+
+void OfflineDownload::flushBuffer() {
+    if (buffer.empty()) {
+        return;
+    }
+
+    std::vector<uint64_t> sizes;
+    try {
+        sizes = offlineDatabase.putRegionResources(id, buffer, status);
+    } catch (const MapboxTileLimitExceededException&) {
+        buffer.clear();
+        bufferedTiles.clear();
+        throw;
+    }
+
+    // Sizes are missing when the resources couldn't be stored, the checkpoints stay behind them then
+    if (sizes.size() == bufferedTiles.size()) {
+        auto size = sizes.begin();
+        for (const auto& tile : bufferedTiles) {
+            if (tile.first) {
+                completeTile(*tile.first, tile.second, *size);
+            }
+            ++size;
+        }
+    }
+
+    buffer.clear();
+    bufferedTiles.clear();
+    saveCheckpoints();
+}
+
+void OfflineDownload::saveCheckpoints() {
+    for (auto& progress : tileProgress) {
+        if (progress.modified) {
+            offlineDatabase.putRegionCheckpoint(id, progress.checkpoint);
+            progress.modified = false;
+        }
     }
 }
 
 void OfflineDownload::ensureResource(const Resource& resource,
-                                     std::function<void(Response)> callback) {
+                                     std::function<void(Response)> callback,
+                                     TileProgress* progress,
+                                     uint64_t index) {
     auto workRequestsIt = requests.insert(requests.begin(), nullptr);
     *workRequestsIt = util::RunLoop::Get()->invokeCancellable([=]() {
         requests.erase(workRequestsIt);
@@ -329,6 +605,9 @@ void OfflineDownload::ensureResource(const Resource& resource,
                 status.completedTileCount += 1;
                 status.completedTileSize += *offlineResponse;
             }
+            if (progress) {
+                completeTile(*progress, index, *offlineResponse);
+            }
 
             observer->statusChanged(status);
             continueDownload();
@@ -353,19 +632,23 @@ void OfflineDownload::ensureResource(const Resource& resource,
                 callback(onlineResponse);
             }
 
+            if (bandwidthLimit && onlineResponse.data) {
+                bandwidthCredit -= int64_t(onlineResponse.data->size());
+            }
+
             // Queue up for batched insertion
             buffer.emplace_back(resource, onlineResponse);
+            bufferedTiles.emplace_back(progress, index);
 
             // Flush buffer periodically
             if (buffer.size() == 64 || resourcesRemaining.size() == 0) {
                 try {
-                    offlineDatabase.putRegionResources(id, buffer, status);
+                    flushBuffer();
                 } catch (const MapboxTileLimitExceededException&) {
                     onMapboxTileCountLimitExceeded();
                     return;
                 }
 
-                buffer.clear();
                 observer->statusChanged(status);
             }
 
@@ -1,9 +1,13 @@
 #pragma once
 
 #include <mbgl/storage/offline.hpp>
+#include <mbgl/storage/offline_database.hpp>
 #include <mbgl/storage/resource.hpp>
+#include <mbgl/util/chrono.hpp>
+#include <mbgl/util/timer.hpp>
 
 #include <list>
+#include <map>
 #include <unordered_set>
 #include <memory>
 #include <deque>
@@ -35,7 +39,36 @@ public:
 
     OfflineRegionStatus getStatus() const;
 
+    /*
+     * Estimate the tiles required by a region definition from the style and tilesets in the
+     * database, without requesting or storing anything.
+     */
+    static OfflineRegionEstimate estimate(const OfflineRegionDefinition&, OfflineDatabase&);
+
+    /*
+     * Limit the average rate at which resources are downloaded, 0 removes the limit.
+     */
+    void setBandwidthLimit(uint64_t bytesPerSecond);
+
 private:
+    /*
+     * Tracks which tiles of a tileset are stored, in the order of the tile cover. The progress
+     * is persisted as a checkpoint, so that an activated download skips the tiles it already
+     * stored instead of checking them one by one.
+     */
+    struct TileProgress {
+        OfflineRegionCheckpoint checkpoint;
+        // Stored tiles past the checkpoint, by index in the tile cover, with their size
+        std::map<uint64_t, uint64_t> completedAhead;
+        bool modified = false;
+    };
+
+    struct QueuedResource {
+        Resource resource;
+        TileProgress* progress;
+        uint64_t index;
+    };
+
     void activateDownload();
     void continueDownload();
     void deactivateDownload();
@@ -45,7 +78,15 @@ private:
      * While the request is in progress, it is recorded in `requests`. If the download
      * is deactivated, all in progress requests are cancelled.
      */
-    void ensureResource(const Resource&, std::function<void (Response)> = {});
+    void ensureResource(const Resource&, std::function<void (Response)> = {},
+                        TileProgress* = nullptr, uint64_t index = 0);
+
+    void flushBuffer();
+    void saveCheckpoints();
+    void completeTile(TileProgress&, uint64_t index, uint64_t size);
+
+    // Returns the time to wait before requesting more resources to stay within the bandwidth limit
+    Duration throttleDelay(TimePoint now);
 
     void onMapboxTileCountLimitExceeded();
 
@@ -58,8 +99,19 @@ private:
 
     std::list<std::unique_ptr<AsyncRequest>> requests;
     std::unordered_set<std::string> requiredSourceURLs;
-    std::deque<Resource> resourcesRemaining;
+    std::deque<QueuedResource> resourcesRemaining;
     std::list<std::tuple<Resource, Response>> buffer;
+    // The tile progress and index of every buffered resource, null for resources that aren't tracked
+    std::list<std::pair<TileProgress*, uint64_t>> bufferedTiles;
+
+    std::vector<OfflineRegionCheckpoint> savedCheckpoints;
+    std::list<TileProgress> tileProgress;
+
+    uint64_t bandwidthLimit = 0;
+    // Bytes that can be downloaded right away, negative after a burst
+    int64_t bandwidthCredit = 0;
+    TimePoint bandwidthRefill;
+    util::Timer throttleTimer;
 
     void queueResource(Resource);
     void queueTiles(style::SourceType, uint16_t tileSize, const Tileset&);
@@ -50,6 +50,16 @@ static constexpr const char* offlineDatabaseSchema =
 "  tile_id INTEGER NOT NULL REFERENCES tiles(id),\n"
 "  UNIQUE (region_id, tile_id)\n"
 ");\n"
+"CREATE TABLE region_checkpoints (\n"
+"  region_id INTEGER NOT NULL REFERENCES regions(id) ON DELETE CASCADE,\n"
+"  url_template TEXT NOT NULL,\n"
+"  tile_size INTEGER NOT NULL,\n"
+"  min_zoom INTEGER NOT NULL,\n"
+"  max_zoom INTEGER NOT NULL,\n"
+"  completed_tile_count INTEGER NOT NULL,\n"
+"  completed_tile_size INTEGER NOT NULL,\n"
+"  UNIQUE (region_id, url_template, tile_size, min_zoom, max_zoom)\n"
+");\n"
 "CREATE INDEX resources_accessed\n"
 "ON resources (accessed);\n"
 "CREATE INDEX tiles_accessed\n"
@@ -49,6 +49,17 @@ CREATE TABLE region_tiles (
   UNIQUE (region_id, tile_id)
 );
 
+CREATE TABLE region_checkpoints (          -- Download progress of the tiles of a tileset, see OfflineDownload.
+  region_id INTEGER NOT NULL REFERENCES regions(id) ON DELETE CASCADE,
+  url_template TEXT NOT NULL,
+  tile_size INTEGER NOT NULL,
+  min_zoom INTEGER NOT NULL,
+  max_zoom INTEGER NOT NULL,
+  completed_tile_count INTEGER NOT NULL,    -- The first tiles of the tile cover that are stored
+  completed_tile_size INTEGER NOT NULL,
+  UNIQUE (region_id, url_template, tile_size, min_zoom, max_zoom)
+);
+
 -- Indexes for efficient eviction queries
 
 CREATE INDEX resources_accessed
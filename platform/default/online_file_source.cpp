@@ -72,7 +72,10 @@ public:
 
     void add(OnlineFileRequest* request) {
         allRequests.insert(request);
-        if (resourceTransform) {
+        if (resourceTransformFunction) {
+            request->resource.url = resourceTransformFunction(request->resource.kind, std::move(request->resource.url));
+            request->schedule();
+        } else if (resourceTransform) {
             // Request the ResourceTransform actor a new url and replace the resource url with the
             // transformed one before proceeding to schedule the request.
             resourceTransform->invoke(&ResourceTransform::transform, request->resource.kind,
@@ -164,6 +167,10 @@ public:
         resourceTransform = std::move(transform);
     }
 
+    void setResourceTransformFunction(ResourceTransform::TransformCallback&& transform) {
+        resourceTransformFunction = std::move(transform);
+    }
+
     void setOnlineStatus(const bool status) {
         online = status;
         networkIsReachableAgain();
@@ -177,6 +184,7 @@ private:
     }
 
     optional<ActorRef<ResourceTransform>> resourceTransform;
+    ResourceTransform::TransformCallback resourceTransformFunction;
 
     /**
      * The lifetime of a request is:
@@ -242,6 +250,10 @@ void OnlineFileSource::setResourceTransform(optional<ActorRef<ResourceTransform>
     impl->setResourceTransform(std::move(transform));
 }
 
+void OnlineFileSource::setResourceTransformFunction(ResourceTransform::TransformCallback transform) {
+    impl->setResourceTransformFunction(std::move(transform));
+}
+
 OnlineFileRequest::OnlineFileRequest(Resource resource_, Callback callback_, OnlineFileSource::Impl& impl_)
     : impl(impl_),
       resource(std::move(resource_)),
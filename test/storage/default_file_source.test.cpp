@@ -4,6 +4,8 @@
 #include <mbgl/storage/resource_transform.hpp>
 #include <mbgl/util/run_loop.hpp>
 
+#include <thread>
+
 using namespace mbgl;
 
 TEST(DefaultFileSource, TEST_REQUIRES_SERVER(CacheResponse)) {
@@ -348,6 +350,28 @@ TEST(DefaultFileSource, OptionalNotFound) {
     loop.run();
 }
 
+// Test that tile archive requests bypass the offline database, even when only the cache may be used.
+TEST(DefaultFileSource, TileArchiveBypassesCache) {
+    util::RunLoop loop;
+    DefaultFileSource fs(":memory:", ".");
+
+    const Resource archiveResource { Resource::Unknown, "mbtiles:///nonexistent.mbtiles/0/0/0", {}, Resource::LoadingMethod::CacheOnly };
+
+    Response response;
+    response.data = std::make_shared<std::string>("Cached value");
+    fs.put(archiveResource, response);
+
+    std::unique_ptr<AsyncRequest> req;
+    req = fs.request(archiveResource, [&](Response res) {
+        req.reset();
+        EXPECT_TRUE(res.error.get());
+        EXPECT_FALSE(res.data && *res.data == "Cached value");
+        loop.stop();
+    });
+
+    loop.run();
+}
+
 // Test that a network only request doesn't attempt to load data from the cache.
 TEST(DefaultFileSource, TEST_REQUIRES_SERVER(NoCacheRefreshEtagNotModified)) {
     util::RunLoop loop;
@@ -572,6 +596,38 @@ TEST(DefaultFileSource, TEST_REQUIRES_SERVER(SetResourceTransform)) {
     loop.run();
 }
 
+TEST(DefaultFileSource, TEST_REQUIRES_SERVER(SetResourceTransformFunction)) {
+    util::RunLoop loop;
+    DefaultFileSource fs(":memory:", ".");
+
+    // Translates the URL "localhost://test to http://127.0.0.1:3000/test on the file source thread
+    const auto callerThread = std::this_thread::get_id();
+    fs.setResourceTransformFunction([&](Resource::Kind kind, const std::string&& url) -> std::string {
+        EXPECT_NE(callerThread, std::this_thread::get_id());
+        EXPECT_EQ(Resource::Unknown, kind);
+        if (url == "localhost://test") {
+            return "http://127.0.0.1:3000/test";
+        } else {
+            return std::move(url);
+        }
+    });
+
+    const Resource resource { Resource::Unknown, "localhost://test" };
+
+    std::unique_ptr<AsyncRequest> req;
+    req = fs.request(resource, [&](Response res) {
+        req.reset();
+        EXPECT_EQ(nullptr, res.error);
+        ASSERT_TRUE(res.data.get());
+        EXPECT_EQ("Hello World!", *res.data);
+        loop.stop();
+    });
+
+    loop.run();
+
+    fs.setResourceTransformFunction({});
+}
+
 // Test that a stale cache file that has must-revalidate set will trigger a response.
 TEST(DefaultFileSource, TEST_REQUIRES_SERVER(RespondToStaleMustRevalidate)) {
     util::RunLoop loop;
@@ -61,3 +61,24 @@ TEST(OfflineTilePyramidRegionDefinition, TileCount) {
     EXPECT_EQ(38424u, region.tileCount(SourceType::Vector, 512, { 10, 18 }));
     EXPECT_EQ(9675240u, region.tileCount(SourceType::Vector, 512, { 3, 22 }));
 }
+
+TEST(OfflineGeometryRegionDefinition, TileCoverPoint) {
+    OfflineGeometryRegionDefinition region("", Point<double>{ -122.4194, 37.7749 }, 0, 2, 1.0);
+
+    EXPECT_EQ((std::vector<CanonicalTileID>{ { 0, 0, 0 }, { 1, 0, 0 }, { 2, 0, 1 } }),
+              region.tileCover(SourceType::Vector, 512, { 0, 22 }));
+
+    EXPECT_EQ((std::vector<CanonicalTileID>{}), region.tileCover(SourceType::Vector, 512, { 3, 22 }));
+}
+
+TEST(OfflineGeometryRegionDefinition, TileCountLineString) {
+    // A diagonal across the San Francisco bounds covers far fewer tiles than the bounds themselves.
+    LineString<double> line {{ { -122.5744, 37.6609 }, { -122.3204, 37.8271 } }};
+    OfflineGeometryRegionDefinition region("", line, 0, 22, 1.0);
+    OfflineTilePyramidRegionDefinition bounds("", sanFrancisco, 0, 22, 1.0);
+
+    EXPECT_EQ(region.tileCover(SourceType::Vector, 512, { 10, 14 }).size(),
+              region.tileCount(SourceType::Vector, 512, { 10, 14 }));
+    EXPECT_LT(region.tileCount(SourceType::Vector, 512, { 10, 14 }),
+              bounds.tileCount(SourceType::Vector, 512, { 10, 14 }));
+}
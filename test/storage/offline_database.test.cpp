@@ -191,6 +191,37 @@ TEST(OfflineDatabase, TEST_REQUIRES_WRITE(CreateFail)) {
     // Allow deleting the database.
     fs.reset();
 }
+
+TEST(OfflineDatabase, TEST_REQUIRES_WRITE(CompactAndGetStatsFail)) {
+    FixtureLog log;
+    deleteDatabaseFiles();
+    test::SQLite3TestFS fs;
+
+    fs.allowFileCreate(false);
+    OfflineDatabase db(filename_test_fs);
+    EXPECT_EQ(1u, log.count(warning(ResultCode::CantOpen, "Can't open database: unable to open database file")));
+    EXPECT_EQ(0u, log.uncheckedCount());
+
+    // Both report the failure rather than assuming the database is open.
+    EXPECT_FALSE(db.compact(100));
+    EXPECT_EQ(1u, log.count(warning(ResultCode::CantOpen, "Can't compact database: unable to open database file")));
+    EXPECT_FALSE(db.getStats());
+    EXPECT_EQ(1u, log.count(warning(ResultCode::CantOpen, "Can't get database stats: unable to open database file")));
+    EXPECT_EQ(0u, log.uncheckedCount());
+
+    // Once the database can be created, it's opened lazily.
+    fs.allowFileCreate(true);
+    auto freePageCount = db.compact(100);
+    ASSERT_TRUE(freePageCount);
+    EXPECT_EQ(0u, *freePageCount);
+    auto stats = db.getStats();
+    ASSERT_TRUE(stats);
+    EXPECT_TRUE(stats->regionSizes.empty());
+    EXPECT_EQ(0u, log.uncheckedCount());
+
+    // Allow deleting the database.
+    fs.reset();
+}
 #endif // __QT__
 
 TEST(OfflineDatabase, TEST_REQUIRES_WRITE(SchemaVersion)) {
@@ -207,7 +238,7 @@ TEST(OfflineDatabase, TEST_REQUIRES_WRITE(SchemaVersion)) {
         OfflineDatabase db(filename);
     }
 
-    EXPECT_EQ(6, databaseUserVersion(filename));
+    EXPECT_EQ(7, databaseUserVersion(filename));
 
     OfflineDatabase db(filename);
     // Now try inserting and reading back to make sure we have a valid database.
@@ -411,16 +442,17 @@ TEST(OfflineDatabase, PutTileNotFound) {
 TEST(OfflineDatabase, CreateRegion) {
     FixtureLog log;
     OfflineDatabase db(":memory:");
-    OfflineRegionDefinition definition { "http://example.com/style", LatLngBounds::hull({1, 2}, {3, 4}), 5, 6, 2.0 };
+    OfflineTilePyramidRegionDefinition definition { "http://example.com/style", LatLngBounds::hull({1, 2}, {3, 4}), 5, 6, 2.0 };
     OfflineRegionMetadata metadata {{ 1, 2, 3 }};
     auto region = db.createRegion(definition, metadata);
     ASSERT_TRUE(region);
 
-    EXPECT_EQ(definition.styleURL, region->getDefinition().styleURL);
-    EXPECT_EQ(definition.bounds, region->getDefinition().bounds);
-    EXPECT_EQ(definition.minZoom, region->getDefinition().minZoom);
-    EXPECT_EQ(definition.maxZoom, region->getDefinition().maxZoom);
-    EXPECT_EQ(definition.pixelRatio, region->getDefinition().pixelRatio);
+    const auto& result = region->getDefinition().get<OfflineTilePyramidRegionDefinition>();
+    EXPECT_EQ(definition.styleURL, result.styleURL);
+    EXPECT_EQ(definition.bounds, result.bounds);
+    EXPECT_EQ(definition.minZoom, result.minZoom);
+    EXPECT_EQ(definition.maxZoom, result.maxZoom);
+    EXPECT_EQ(definition.pixelRatio, result.pixelRatio);
     EXPECT_EQ(metadata, region->getMetadata());
 
     EXPECT_EQ(0u, log.uncheckedCount());
@@ -429,7 +461,7 @@ TEST(OfflineDatabase, CreateRegion) {
 TEST(OfflineDatabase, UpdateMetadata) {
     FixtureLog log;
     OfflineDatabase db(":memory:");
-    OfflineRegionDefinition definition { "http://example.com/style", LatLngBounds::hull({1, 2}, {3, 4}), 5, 6, 2.0 };
+    OfflineTilePyramidRegionDefinition definition { "http://example.com/style", LatLngBounds::hull({1, 2}, {3, 4}), 5, 6, 2.0 };
     OfflineRegionMetadata metadata {{ 1, 2, 3 }};
     auto region = db.createRegion(definition, metadata);
     ASSERT_TRUE(region);
@@ -445,7 +477,7 @@ TEST(OfflineDatabase, UpdateMetadata) {
 TEST(OfflineDatabase, ListRegions) {
     FixtureLog log;
     OfflineDatabase db(":memory:");
-    OfflineRegionDefinition definition { "http://example.com/style", LatLngBounds::hull({1, 2}, {3, 4}), 5, 6, 2.0 };
+    OfflineTilePyramidRegionDefinition definition { "http://example.com/style", LatLngBounds::hull({1, 2}, {3, 4}), 5, 6, 2.0 };
     OfflineRegionMetadata metadata {{ 1, 2, 3 }};
 
     auto region = db.createRegion(definition, metadata);
@@ -454,11 +486,12 @@ TEST(OfflineDatabase, ListRegions) {
 
     ASSERT_EQ(1u, regions.size());
     EXPECT_EQ(region->getID(), regions.at(0).getID());
-    EXPECT_EQ(definition.styleURL, regions.at(0).getDefinition().styleURL);
-    EXPECT_EQ(definition.bounds, regions.at(0).getDefinition().bounds);
-    EXPECT_EQ(definition.minZoom, regions.at(0).getDefinition().minZoom);
-    EXPECT_EQ(definition.maxZoom, regions.at(0).getDefinition().maxZoom);
-    EXPECT_EQ(definition.pixelRatio, regions.at(0).getDefinition().pixelRatio);
+    const auto& result = regions.at(0).getDefinition().get<OfflineTilePyramidRegionDefinition>();
+    EXPECT_EQ(definition.styleURL, result.styleURL);
+    EXPECT_EQ(definition.bounds, result.bounds);
+    EXPECT_EQ(definition.minZoom, result.minZoom);
+    EXPECT_EQ(definition.maxZoom, result.maxZoom);
+    EXPECT_EQ(definition.pixelRatio, result.pixelRatio);
     EXPECT_EQ(metadata, regions.at(0).getMetadata());
 
     EXPECT_EQ(0u, log.uncheckedCount());
@@ -467,19 +500,44 @@ TEST(OfflineDatabase, ListRegions) {
 TEST(OfflineDatabase, GetRegionDefinition) {
     FixtureLog log;
     OfflineDatabase db(":memory:");
-    OfflineRegionDefinition definition { "http://example.com/style", LatLngBounds::hull({1, 2}, {3, 4}), 5, 6, 2.0 };
+    OfflineTilePyramidRegionDefinition definition { "http://example.com/style", LatLngBounds::hull({1, 2}, {3, 4}), 5, 6, 2.0 };
     OfflineRegionMetadata metadata {{ 1, 2, 3 }};
 
     auto region = db.createRegion(definition, metadata);
     ASSERT_TRUE(region);
     auto result = db.getRegionDefinition(region->getID());
     ASSERT_TRUE(result);
+    ASSERT_TRUE(result->is<OfflineTilePyramidRegionDefinition>());
 
-    EXPECT_EQ(definition.styleURL, result->styleURL);
-    EXPECT_EQ(definition.bounds, result->bounds);
-    EXPECT_EQ(definition.minZoom, result->minZoom);
-    EXPECT_EQ(definition.maxZoom, result->maxZoom);
-    EXPECT_EQ(definition.pixelRatio, result->pixelRatio);
+    const auto& tilePyramid = result->get<OfflineTilePyramidRegionDefinition>();
+    EXPECT_EQ(definition.styleURL, tilePyramid.styleURL);
+    EXPECT_EQ(definition.bounds, tilePyramid.bounds);
+    EXPECT_EQ(definition.minZoom, tilePyramid.minZoom);
+    EXPECT_EQ(definition.maxZoom, tilePyramid.maxZoom);
+    EXPECT_EQ(definition.pixelRatio, tilePyramid.pixelRatio);
+
+    EXPECT_EQ(0u, log.uncheckedCount());
+}
+
+TEST(OfflineDatabase, GetGeometryRegionDefinition) {
+    FixtureLog log;
+    OfflineDatabase db(":memory:");
+    Polygon<double> polygon {{ { 2, 1 }, { 4, 1 }, { 4, 3 }, { 2, 1 } }};
+    OfflineGeometryRegionDefinition definition { "http://example.com/style", polygon, 5, INFINITY, 2.0 };
+    OfflineRegionMetadata metadata {{ 1, 2, 3 }};
+
+    auto region = db.createRegion(definition, metadata);
+    ASSERT_TRUE(region);
+    auto result = db.getRegionDefinition(region->getID());
+    ASSERT_TRUE(result);
+    ASSERT_TRUE(result->is<OfflineGeometryRegionDefinition>());
+
+    const auto& geometry = result->get<OfflineGeometryRegionDefinition>();
+    EXPECT_EQ(definition.styleURL, geometry.styleURL);
+    EXPECT_EQ(definition.geometry, geometry.geometry);
+    EXPECT_EQ(definition.minZoom, geometry.minZoom);
+    EXPECT_EQ(definition.maxZoom, geometry.maxZoom);
+    EXPECT_EQ(definition.pixelRatio, geometry.pixelRatio);
 
     EXPECT_EQ(0u, log.uncheckedCount());
 }
@@ -487,7 +545,7 @@ TEST(OfflineDatabase, GetRegionDefinition) {
 TEST(OfflineDatabase, DeleteRegion) {
     FixtureLog log;
     OfflineDatabase db(":memory:");
-    OfflineRegionDefinition definition { "http://example.com/style", LatLngBounds::hull({1, 2}, {3, 4}), 5, 6, 2.0 };
+    OfflineTilePyramidRegionDefinition definition { "http://example.com/style", LatLngBounds::hull({1, 2}, {3, 4}), 5, 6, 2.0 };
     OfflineRegionMetadata metadata {{ 1, 2, 3 }};
     auto region = db.createRegion(definition, metadata);
     ASSERT_TRUE(region);
@@ -509,13 +567,13 @@ TEST(OfflineDatabase, DeleteRegion) {
 TEST(OfflineDatabase, CreateRegionInfiniteMaxZoom) {
     FixtureLog log;
     OfflineDatabase db(":memory:");
-    OfflineRegionDefinition definition { "", LatLngBounds::world(), 0, INFINITY, 1.0 };
+    OfflineTilePyramidRegionDefinition definition { "", LatLngBounds::world(), 0, INFINITY, 1.0 };
     OfflineRegionMetadata metadata;
     auto region = db.createRegion(definition, metadata);
     ASSERT_TRUE(region);
 
-    EXPECT_EQ(0, region->getDefinition().minZoom);
-    EXPECT_EQ(INFINITY, region->getDefinition().maxZoom);
+    EXPECT_EQ(0, region->getDefinition().get<OfflineTilePyramidRegionDefinition>().minZoom);
+    EXPECT_EQ(INFINITY, region->getDefinition().get<OfflineTilePyramidRegionDefinition>().maxZoom);
 
     EXPECT_EQ(0u, log.uncheckedCount());
 }
@@ -600,7 +658,7 @@ TEST(OfflineDatabase, PutEvictsLeastRecentlyUsedResources) {
 TEST(OfflineDatabase, PutRegionResourceDoesNotEvict) {
     FixtureLog log;
     OfflineDatabase db(":memory:", 1024 * 100);
-    OfflineRegionDefinition definition { "", LatLngBounds::world(), 0, INFINITY, 1.0 };
+    OfflineTilePyramidRegionDefinition definition { "", LatLngBounds::world(), 0, INFINITY, 1.0 };
     auto region = db.createRegion(definition, OfflineRegionMetadata());
     ASSERT_TRUE(region);
 
@@ -637,7 +695,7 @@ TEST(OfflineDatabase, PutFailsWhenEvictionInsuffices) {
 TEST(OfflineDatabase, GetRegionCompletedStatus) {
     FixtureLog log;
     OfflineDatabase db(":memory:");
-    OfflineRegionDefinition definition { "http://example.com/style", LatLngBounds::hull({1, 2}, {3, 4}), 5, 6, 2.0 };
+    OfflineTilePyramidRegionDefinition definition { "http://example.com/style", LatLngBounds::hull({1, 2}, {3, 4}), 5, 6, 2.0 };
     OfflineRegionMetadata metadata;
     auto region = db.createRegion(definition, metadata);
     ASSERT_TRUE(region);
@@ -673,10 +731,253 @@ TEST(OfflineDatabase, GetRegionCompletedStatus) {
     EXPECT_EQ(0u, log.uncheckedCount());
 }
 
+TEST(OfflineDatabase, GetStats) {
+    FixtureLog log;
+    OfflineDatabase db(":memory:");
+    OfflineTilePyramidRegionDefinition definition { "http://example.com/style", LatLngBounds::world(), 0, 0, 1.0 };
+    auto region1 = db.createRegion(definition, OfflineRegionMetadata());
+    auto region2 = db.createRegion(definition, OfflineRegionMetadata());
+    ASSERT_TRUE(region1);
+    ASSERT_TRUE(region2);
+
+    Response style;
+    style.data = randomString(1000);
+    Response tile;
+    tile.data = randomString(2000);
+    Response ambient;
+    ambient.data = randomString(500);
+
+    db.putRegionResource(region1->getID(), Resource::style("http://example.com/style"), style);
+    db.putRegionResource(region2->getID(), Resource::style("http://example.com/style"), style);
+    db.putRegionResource(region1->getID(), Resource::tile("http://example.com/{z}", 1.0, 0, 0, 0, Tileset::Scheme::XYZ), tile);
+    db.put(Resource::tile("http://example.com/ambient/{z}", 1.0, 0, 0, 0, Tileset::Scheme::XYZ), ambient);
+
+    auto stats = db.getStats();
+    ASSERT_TRUE(stats);
+
+    EXPECT_LT(0u, stats->pageSize);
+    EXPECT_LT(0u, stats->pageCount);
+    EXPECT_EQ(3000u, stats->regionSizes[region1->getID()]);
+    EXPECT_EQ(1000u, stats->regionSizes[region2->getID()]);
+    EXPECT_EQ(1000u, stats->regionSharedSizes[region1->getID()]);
+    EXPECT_EQ(1000u, stats->regionSharedSizes[region2->getID()]);
+    EXPECT_EQ(1000u, stats->sharedSize);
+    EXPECT_EQ(500u, stats->ambientCacheSize);
+
+    EXPECT_EQ(0u, log.uncheckedCount());
+}
+
+TEST(OfflineDatabase, TEST_REQUIRES_WRITE(Compact)) {
+    FixtureLog log;
+    deleteDatabaseFiles();
+
+    {
+        OfflineDatabase db(filename);
+
+        Response big;
+        big.data = randomString(1024 * 64);
+        Response small;
+        small.data = randomString(16);
+
+        // Replacing the data of resources leaves their overflow pages free.
+        for (uint32_t i = 0; i < 10; i++) {
+            db.put(Resource::style("http://example.com/"s + util::toString(i)), big);
+        }
+        for (uint32_t i = 0; i < 10; i++) {
+            db.put(Resource::style("http://example.com/"s + util::toString(i)), small);
+        }
+
+        auto stats = db.getStats();
+        ASSERT_TRUE(stats);
+        ASSERT_LT(1u, stats->freePageCount);
+        const auto pageCount = databasePageCount(filename);
+
+        auto freePageCount = db.compact(1);
+        ASSERT_TRUE(freePageCount);
+        EXPECT_EQ(stats->freePageCount - 1, *freePageCount);
+        EXPECT_EQ(pageCount - 1, databasePageCount(filename));
+
+        freePageCount = db.compact(*freePageCount);
+        ASSERT_TRUE(freePageCount);
+        EXPECT_EQ(0u, *freePageCount);
+        EXPECT_EQ(pageCount - int(stats->freePageCount), databasePageCount(filename));
+
+        EXPECT_TRUE(bool(db.get(Resource::style("http://example.com/0"))));
+    }
+
+    EXPECT_EQ(0u, log.uncheckedCount());
+}
+
+TEST(OfflineDatabase, SetMaximumAmbientCacheSize) {
+    FixtureLog log;
+    OfflineDatabase db(":memory:");
+
+    Response response;
+    response.data = randomString(1024);
+
+    for (uint32_t i = 1; i <= 100; i++) {
+        db.put(Resource::style("http://example.com/"s + util::toString(i)), response);
+    }
+    EXPECT_TRUE(bool(db.get(Resource::style("http://example.com/1"))));
+
+    EXPECT_EQ(nullptr, db.setMaximumAmbientCacheSize(1024 * 50));
+    EXPECT_FALSE(bool(db.get(Resource::style("http://example.com/1"))));
+
+    auto stats = db.getAmbientCacheStats();
+    ASSERT_TRUE(stats);
+    EXPECT_EQ(1024u * 50, stats->maximumSize);
+    EXPECT_GT(100u, stats->resourceCount);
+    EXPECT_GE(1024u * 50, stats->size);
+
+    EXPECT_EQ(0u, log.uncheckedCount());
+}
+
+TEST(OfflineDatabase, SetMaximumAmbientCacheSizeFailsWhenRegionsDontFit) {
+    FixtureLog log;
+    OfflineDatabase db(":memory:");
+    OfflineTilePyramidRegionDefinition definition { "", LatLngBounds::world(), 0, INFINITY, 1.0 };
+    auto region = db.createRegion(definition, OfflineRegionMetadata());
+    ASSERT_TRUE(region);
+
+    Response response;
+    response.data = randomString(1024);
+
+    for (uint32_t i = 1; i <= 100; i++) {
+        db.putRegionResource(region->getID(), Resource::style("http://example.com/"s + util::toString(i)), response);
+    }
+
+    // Offline regions aren't evicted, so the database can't shrink to the new size.
+    EXPECT_NE(nullptr, db.setMaximumAmbientCacheSize(1024 * 50));
+    EXPECT_TRUE(bool(db.get(Resource::style("http://example.com/1"))));
+
+    EXPECT_EQ(0u, log.uncheckedCount());
+}
+
+TEST(OfflineDatabase, SetMaximumAmbientCacheSizeZoomWeighted) {
+    FixtureLog log;
+    OfflineDatabase db(":memory:");
+    db.setAmbientCacheEvictionPolicy(AmbientCacheEvictionPolicy::ZoomWeighted);
+
+    Response response;
+    response.data = randomString(1024);
+
+    for (int32_t z = 0; z <= 20; z++) {
+        for (int32_t x = 0; x < 50; x++) {
+            db.put(Resource::tile("http://example.com/{z}-{x}-{y}", 1.0, x, 0, z, Tileset::Scheme::XYZ), response);
+        }
+    }
+
+    // Shrinking to a tenth of the size takes several growing batches.
+    EXPECT_EQ(nullptr, db.setMaximumAmbientCacheSize(1024 * 100));
+
+    auto stats = db.getAmbientCacheStats();
+    ASSERT_TRUE(stats);
+    EXPECT_GE(1024u * 100, stats->size);
+    EXPECT_LT(0u, stats->tileCount);
+    EXPECT_TRUE(bool(db.get(Resource::tile("http://example.com/{z}-{x}-{y}", 1.0, 0, 0, 0, Tileset::Scheme::XYZ))));
+    EXPECT_FALSE(bool(db.get(Resource::tile("http://example.com/{z}-{x}-{y}", 1.0, 0, 0, 20, Tileset::Scheme::XYZ))));
+
+    EXPECT_EQ(0u, log.uncheckedCount());
+}
+
+TEST(OfflineDatabase, ZoomWeightedEviction) {
+    FixtureLog log;
+    OfflineDatabase db(":memory:", 1024 * 100);
+    db.setAmbientCacheEvictionPolicy(AmbientCacheEvictionPolicy::ZoomWeighted);
+
+    Response response;
+    response.data = randomString(1024);
+
+    const Resource lowZoomTile = Resource::tile("http://example.com/{z}-{x}-{y}", 1.0, 0, 0, 0, Tileset::Scheme::XYZ);
+    db.put(lowZoomTile, response);
+
+    for (int32_t x = 0; x < 100; x++) {
+        db.put(Resource::tile("http://example.com/{z}-{x}-{y}", 1.0, x, 0, 14, Tileset::Scheme::XYZ), response);
+    }
+
+    // Accessed within the same second, so least recently used eviction would remove it
+    // along with the first high zoom tiles.
+    EXPECT_TRUE(bool(db.get(lowZoomTile)));
+    EXPECT_FALSE(bool(db.get(Resource::tile("http://example.com/{z}-{x}-{y}", 1.0, 0, 0, 14, Tileset::Scheme::XYZ))));
+
+    EXPECT_EQ(0u, log.uncheckedCount());
+}
+
+TEST(OfflineDatabase, ClearAmbientCache) {
+    FixtureLog log;
+    OfflineDatabase db(":memory:");
+    OfflineTilePyramidRegionDefinition definition { "", LatLngBounds::world(), 0, INFINITY, 1.0 };
+    auto region = db.createRegion(definition, OfflineRegionMetadata());
+    ASSERT_TRUE(region);
+
+    Response response;
+    response.data = randomString(1024);
+
+    const Resource regionStyle = Resource::style("http://example.com/region");
+    const Resource regionTile = Resource::tile("http://example.com/region/{z}", 1.0, 0, 0, 0, Tileset::Scheme::XYZ);
+    const Resource ambientStyle = Resource::style("http://example.com/ambient");
+    const Resource ambientTile = Resource::tile("http://example.com/ambient/{z}", 1.0, 0, 0, 0, Tileset::Scheme::XYZ);
+    db.putRegionResource(region->getID(), regionStyle, response);
+    db.putRegionResource(region->getID(), regionTile, response);
+    db.put(ambientStyle, response);
+    db.put(ambientTile, response);
+
+    auto stats = db.getAmbientCacheStats();
+    ASSERT_TRUE(stats);
+    EXPECT_EQ(1u, stats->resourceCount);
+    EXPECT_EQ(1u, stats->tileCount);
+    EXPECT_EQ(2048u, stats->size);
+
+    EXPECT_EQ(nullptr, db.clearAmbientCache());
+
+    EXPECT_TRUE(bool(db.get(regionStyle)));
+    EXPECT_TRUE(bool(db.get(regionTile)));
+    EXPECT_FALSE(bool(db.get(ambientStyle)));
+    EXPECT_FALSE(bool(db.get(ambientTile)));
+
+    stats = db.getAmbientCacheStats();
+    ASSERT_TRUE(stats);
+    EXPECT_EQ(0u, stats->resourceCount);
+    EXPECT_EQ(0u, stats->tileCount);
+    EXPECT_EQ(0u, stats->size);
+
+    EXPECT_EQ(0u, log.uncheckedCount());
+}
+
+TEST(OfflineDatabase, InvalidateAmbientCache) {
+    FixtureLog log;
+    OfflineDatabase db(":memory:");
+    OfflineTilePyramidRegionDefinition definition { "", LatLngBounds::world(), 0, INFINITY, 1.0 };
+    auto region = db.createRegion(definition, OfflineRegionMetadata());
+    ASSERT_TRUE(region);
+
+    Response response;
+    response.data = randomString(1024);
+    response.expires = util::now() + Seconds(100);
+
+    const Resource regionTile = Resource::tile("http://example.com/region/{z}", 1.0, 0, 0, 0, Tileset::Scheme::XYZ);
+    const Resource ambientTile = Resource::tile("http://example.com/ambient/{z}", 1.0, 0, 0, 0, Tileset::Scheme::XYZ);
+    db.putRegionResource(region->getID(), regionTile, response);
+    db.put(ambientTile, response);
+
+    EXPECT_EQ(nullptr, db.invalidateAmbientCache());
+
+    auto ambient = db.get(ambientTile);
+    ASSERT_TRUE(bool(ambient));
+    EXPECT_FALSE(ambient->isFresh());
+    EXPECT_FALSE(ambient->isUsable());
+
+    auto offline = db.get(regionTile);
+    ASSERT_TRUE(bool(offline));
+    EXPECT_TRUE(offline->isFresh());
+
+    EXPECT_EQ(0u, log.uncheckedCount());
+}
+
 TEST(OfflineDatabase, HasRegionResource) {
     FixtureLog log;
     OfflineDatabase db(":memory:", 1024 * 100);
-    OfflineRegionDefinition definition { "", LatLngBounds::world(), 0, INFINITY, 1.0 };
+    OfflineTilePyramidRegionDefinition definition { "", LatLngBounds::world(), 0, INFINITY, 1.0 };
     auto region = db.createRegion(definition, OfflineRegionMetadata());
     ASSERT_TRUE(region);
 
@@ -700,7 +1001,7 @@ TEST(OfflineDatabase, HasRegionResource) {
 TEST(OfflineDatabase, HasRegionResourceTile) {
     FixtureLog log;
     OfflineDatabase db(":memory:", 1024 * 100);
-    OfflineRegionDefinition definition { "", LatLngBounds::world(), 0, INFINITY, 1.0 };
+    OfflineTilePyramidRegionDefinition definition { "", LatLngBounds::world(), 0, INFINITY, 1.0 };
     auto region = db.createRegion(definition, OfflineRegionMetadata());
     ASSERT_TRUE(region);
 
@@ -731,10 +1032,48 @@ TEST(OfflineDatabase, HasRegionResourceTile) {
 
 }
 
+TEST(OfflineDatabase, RegionCheckpoints) {
+    FixtureLog log;
+    OfflineDatabase db(":memory:");
+    OfflineTilePyramidRegionDefinition definition { "", LatLngBounds::world(), 0, INFINITY, 1.0 };
+    auto region = db.createRegion(definition, OfflineRegionMetadata());
+    ASSERT_TRUE(region);
+    const int64_t regionID = region->getID();
+
+    EXPECT_TRUE(db.getRegionCheckpoints(regionID).empty());
+
+    OfflineRegionCheckpoint checkpoint;
+    checkpoint.urlTemplate = "http://example.com/{z}/{x}/{y}.pbf";
+    checkpoint.tileSize = 512;
+    checkpoint.zoomRange = { 0, 14 };
+    checkpoint.completedTileCount = 10;
+    checkpoint.completedTileSize = 1024;
+    db.putRegionCheckpoint(regionID, checkpoint);
+
+    // A checkpoint for the same tileset replaces the previous one
+    checkpoint.completedTileCount = 20;
+    checkpoint.completedTileSize = 2048;
+    db.putRegionCheckpoint(regionID, checkpoint);
+
+    auto checkpoints = db.getRegionCheckpoints(regionID);
+    ASSERT_EQ(1u, checkpoints.size());
+    EXPECT_EQ("http://example.com/{z}/{x}/{y}.pbf", checkpoints[0].urlTemplate);
+    EXPECT_EQ(512, checkpoints[0].tileSize);
+    EXPECT_EQ((Range<uint8_t>{ 0, 14 }), checkpoints[0].zoomRange);
+    EXPECT_EQ(20u, checkpoints[0].completedTileCount);
+    EXPECT_EQ(2048u, checkpoints[0].completedTileSize);
+
+    // Checkpoints are removed with their region
+    db.deleteRegion(std::move(*region));
+    EXPECT_TRUE(db.getRegionCheckpoints(regionID).empty());
+
+    EXPECT_EQ(0u, log.uncheckedCount());
+}
+
 TEST(OfflineDatabase, OfflineMapboxTileCount) {
     FixtureLog log;
     OfflineDatabase db(":memory:");
-    OfflineRegionDefinition definition { "http://example.com/style", LatLngBounds::hull({1, 2}, {3, 4}), 5, 6, 2.0 };
+    OfflineTilePyramidRegionDefinition definition { "http://example.com/style", LatLngBounds::hull({1, 2}, {3, 4}), 5, 6, 2.0 };
     OfflineRegionMetadata metadata;
 
     auto region1 = db.createRegion(definition, metadata);
@@ -795,7 +1134,7 @@ TEST(OfflineDatabase, OfflineMapboxTileCount) {
 TEST(OfflineDatabase, BatchInsertion) {
     FixtureLog log;
     OfflineDatabase db(":memory:", 1024 * 100);
-    OfflineRegionDefinition definition { "", LatLngBounds::world(), 0, INFINITY, 1.0 };
+    OfflineTilePyramidRegionDefinition definition { "", LatLngBounds::world(), 0, INFINITY, 1.0 };
     auto region = db.createRegion(definition, OfflineRegionMetadata());
     ASSERT_TRUE(region);
 
@@ -821,7 +1160,7 @@ TEST(OfflineDatabase, BatchInsertionMapboxTileCountExceeded) {
     FixtureLog log;
     OfflineDatabase db(":memory:", 1024 * 100);
     db.setOfflineMapboxTileCountLimit(1);
-    OfflineRegionDefinition definition { "", LatLngBounds::world(), 0, INFINITY, 1.0 };
+    OfflineTilePyramidRegionDefinition definition { "", LatLngBounds::world(), 0, INFINITY, 1.0 };
     auto region = db.createRegion(definition, OfflineRegionMetadata());
     ASSERT_TRUE(region);
 
@@ -865,7 +1204,7 @@ TEST(OfflineDatabase, MigrateFromV2Schema) {
         }
     }
 
-    EXPECT_EQ(6, databaseUserVersion(filename));
+    EXPECT_EQ(7, databaseUserVersion(filename));
     EXPECT_LT(databasePageCount(filename),
               databasePageCount("test/fixtures/offline_database/v2.db"));
 
@@ -886,7 +1225,7 @@ TEST(OfflineDatabase, MigrateFromV3Schema) {
         }
     }
 
-    EXPECT_EQ(6, databaseUserVersion(filename));
+    EXPECT_EQ(7, databaseUserVersion(filename));
 
     EXPECT_EQ(0u, log.uncheckedCount());
 }
@@ -905,7 +1244,7 @@ TEST(OfflineDatabase, MigrateFromV4Schema) {
         }
     }
 
-    EXPECT_EQ(6, databaseUserVersion(filename));
+    EXPECT_EQ(7, databaseUserVersion(filename));
 
     // Journal mode should be DELETE after migration to v5.
     EXPECT_EQ("delete", databaseJournalMode(filename));
@@ -931,7 +1270,7 @@ TEST(OfflineDatabase, MigrateFromV5Schema) {
         }
     }
 
-    EXPECT_EQ(6, databaseUserVersion(filename));
+    EXPECT_EQ(7, databaseUserVersion(filename));
 
     EXPECT_EQ((std::vector<std::string>{ "id", "url_template", "pixel_ratio", "z", "x", "y",
                                          "expires", "modified", "etag", "data", "compressed",
@@ -940,6 +1279,9 @@ TEST(OfflineDatabase, MigrateFromV5Schema) {
     EXPECT_EQ((std::vector<std::string>{ "id", "url", "kind", "expires", "modified", "etag", "data",
                                          "compressed", "accessed", "must_revalidate" }),
               databaseTableColumns(filename, "resources"));
+    EXPECT_EQ((std::vector<std::string>{ "region_id", "url_template", "tile_size", "min_zoom", "max_zoom",
+                                         "completed_tile_count", "completed_tile_size" }),
+              databaseTableColumns(filename, "region_checkpoints"));
 
     EXPECT_EQ(0u, log.uncheckedCount());
 }
@@ -955,7 +1297,7 @@ TEST(OfflineDatabase, DowngradeSchema) {
         OfflineDatabase db(filename, 0);
     }
 
-    EXPECT_EQ(6, databaseUserVersion(filename));
+    EXPECT_EQ(7, databaseUserVersion(filename));
 
     EXPECT_EQ((std::vector<std::string>{ "id", "url_template", "pixel_ratio", "z", "x", "y",
                                          "expires", "modified", "etag", "data", "compressed",
@@ -10,6 +10,7 @@
 #include <mbgl/util/run_loop.hpp>
 #include <mbgl/util/io.hpp>
 #include <mbgl/util/compression.hpp>
+#include <mbgl/util/constants.hpp>
 #include <mbgl/util/string.hpp>
 
 #include <sqlite3.hpp>
@@ -66,7 +67,7 @@ public:
     std::size_t size = 0;
 
     auto createRegion() {
-        OfflineRegionDefinition definition { "", LatLngBounds::hull({1, 2}, {3, 4}), 5, 6, 1.0 };
+        OfflineTilePyramidRegionDefinition definition { "", LatLngBounds::hull({1, 2}, {3, 4}), 5, 6, 1.0 };
         OfflineRegionMetadata metadata;
         return db.createRegion(definition, metadata);
     }
@@ -298,6 +299,96 @@ TEST(OfflineDownload, DoesNotFloodTheFileSourceWithRequests) {
     EXPECT_EQ(HTTPFileSource::maximumConcurrentRequests(), fileSource.requests.size());
 }
 
+TEST(OfflineDownload, BandwidthLimitKeepsFewRequestsInFlight) {
+    FakeFileSource fileSource;
+    OfflineTest test;
+    auto region = test.createRegion();
+    ASSERT_TRUE(region);
+    OfflineDownload download(
+        region->getID(),
+        OfflineTilePyramidRegionDefinition("http://127.0.0.1:3000/style.json", LatLngBounds::world(), 0.0, 0.0, 1.0),
+        test.db, fileSource);
+
+    auto observer = std::make_unique<MockObserver>();
+
+    download.setObserver(std::move(observer));
+    // High enough that the style response doesn't delay the next requests
+    download.setBandwidthLimit(1ull << 50);
+    download.setState(OfflineRegionDownloadState::Active);
+    test.loop.runOnce();
+
+    EXPECT_EQ(1u, fileSource.requests.size());
+
+    fileSource.respond(Resource::Kind::Style, test.response("style.json"));
+    test.loop.runOnce();
+
+    EXPECT_EQ(4u, fileSource.requests.size());
+
+    // Without a limit the request queue is filled again
+    download.setBandwidthLimit(0);
+    test.loop.runOnce();
+
+    EXPECT_EQ(HTTPFileSource::maximumConcurrentRequests(), fileSource.requests.size());
+}
+
+TEST(OfflineDownload, ResumeFromCheckpoint) {
+    OfflineTest test;
+    auto region = test.createRegion();
+    ASSERT_TRUE(region);
+    OfflineTilePyramidRegionDefinition definition("http://127.0.0.1:3000/style.json", LatLngBounds::world(), 0.0, 1.0, 1.0);
+    OfflineDownload download(region->getID(), OfflineTilePyramidRegionDefinition(definition), test.db, test.fileSource);
+
+    // The first three tiles of the tile cover were stored before the download was interrupted
+    const std::vector<CanonicalTileID> tiles = definition.tileCover(style::SourceType::Vector, util::tileSize, { 0, 15 });
+    ASSERT_EQ(5u, tiles.size());
+
+    OfflineRegionCheckpoint checkpoint;
+    checkpoint.urlTemplate = "http://127.0.0.1:3000/{z}-{x}-{y}.vector.pbf";
+    checkpoint.tileSize = util::tileSize;
+    checkpoint.zoomRange = { 0, 15 };
+    checkpoint.completedTileCount = 3;
+    checkpoint.completedTileSize = 300;
+    test.db.putRegionCheckpoint(region->getID(), checkpoint);
+
+    test.fileSource.styleResponse = [&] (const Resource&) {
+        return test.response("inline_source.style.json");
+    };
+
+    std::vector<CanonicalTileID> requestedTiles;
+    test.fileSource.tileResponse = [&] (const Resource& resource) {
+        const Resource::TileData& tile = *resource.tileData;
+        requestedTiles.emplace_back(tile.z, tile.x, tile.y);
+        return test.response("0-0-0.vector.pbf");
+    };
+
+    auto observer = std::make_unique<MockObserver>();
+
+    observer->statusChangedFn = [&] (OfflineRegionStatus status) {
+        if (status.complete()) {
+            EXPECT_EQ(6u, status.completedResourceCount);
+            EXPECT_EQ(5u, status.completedTileCount);
+            EXPECT_EQ(300u + test.size, status.completedResourceSize);
+            test.loop.stop();
+        }
+    };
+
+    download.setObserver(std::move(observer));
+    download.setState(OfflineRegionDownloadState::Active);
+
+    test.loop.run();
+
+    // Only the tiles after the checkpoint are downloaded
+    std::sort(requestedTiles.begin(), requestedTiles.end());
+    std::vector<CanonicalTileID> remainingTiles(tiles.begin() + 3, tiles.end());
+    std::sort(remainingTiles.begin(), remainingTiles.end());
+    EXPECT_EQ(remainingTiles, requestedTiles);
+
+    // The checkpoint moved past the downloaded tiles
+    auto checkpoints = test.db.getRegionCheckpoints(region->getID());
+    ASSERT_EQ(1u, checkpoints.size());
+    EXPECT_EQ(5u, checkpoints[0].completedTileCount);
+}
+
 TEST(OfflineDownload, GetStatusNoResources) {
     OfflineTest test;
     auto region = test.createRegion();
@@ -366,6 +457,52 @@ TEST(OfflineDownload, GetStatusStyleAndSourceComplete) {
     EXPECT_FALSE(status.complete());
 }
 
+TEST(OfflineDownload, EstimateNoResources) {
+    OfflineTest test;
+    OfflineRegionEstimate estimate = OfflineDownload::estimate(
+        OfflineTilePyramidRegionDefinition("http://127.0.0.1:3000/style.json", LatLngBounds::world(), 0.0, 1.0, 1.0),
+        test.db);
+
+    EXPECT_EQ(0u, estimate.requiredTileCount);
+    EXPECT_EQ(0u, estimate.estimatedTileSize);
+    EXPECT_TRUE(estimate.requiredTileCountByZoom.empty());
+    EXPECT_FALSE(estimate.requiredTileCountIsPrecise);
+}
+
+TEST(OfflineDownload, EstimateStyleAndSourceComplete) {
+    OfflineTest test;
+
+    test.db.put(Resource::style("http://127.0.0.1:3000/style.json"), test.response("style.json"));
+    test.db.put(Resource::source("http://127.0.0.1:3000/streets.json"), test.response("streets.json"));
+
+    OfflineRegionEstimate estimate = OfflineDownload::estimate(
+        OfflineTilePyramidRegionDefinition("http://127.0.0.1:3000/style.json", LatLngBounds::world(), 0.0, 1.0, 1.0),
+        test.db);
+
+    EXPECT_EQ((std::map<uint8_t, uint64_t>{ { 0, 1 }, { 1, 4 } }), estimate.requiredTileCountByZoom);
+    EXPECT_EQ(5u, estimate.requiredTileCount);
+    EXPECT_EQ(0u, estimate.requiredMapboxTileCount);
+    EXPECT_EQ(0u, estimate.estimatedTileSize);
+    EXPECT_TRUE(estimate.requiredTileCountIsPrecise);
+    EXPECT_FALSE(estimate.estimatedTileSizeIsComplete);
+    EXPECT_FALSE(estimate.exceedsOfflineMapboxTileCountLimit);
+
+    // Tiles of zoom levels without cached tiles are sized like the closest cached zoom level
+    uint64_t tileSize = test.db.put(Resource::tile("http://127.0.0.1:3000/{z}-{x}-{y}.vector.pbf", 1, 0, 0, 0, Tileset::Scheme::XYZ),
+                                    test.response("0-0-0.vector.pbf")).second;
+
+    estimate = OfflineDownload::estimate(
+        OfflineTilePyramidRegionDefinition("http://127.0.0.1:3000/style.json", LatLngBounds::world(), 0.0, 1.0, 1.0),
+        test.db);
+
+    EXPECT_EQ(5u, estimate.requiredTileCount);
+    EXPECT_EQ(5 * tileSize, estimate.estimatedTileSize);
+    EXPECT_TRUE(estimate.estimatedTileSizeIsComplete);
+
+    // Nothing is stored for the region
+    EXPECT_EQ(0u, test.db.listRegions()->size());
+}
+
 TEST(OfflineDownload, RequestError) {
     OfflineTest test;
     auto region = test.createRegion();